@@ -0,0 +1,584 @@
+package net.coderodde.connectfour.base;
+
+import java.util.Arrays;
+
+/**
+ * This class implements an immutable bitboard holding the tokens of a single
+ * player. The board is stored column by column in an array of {@code long}
+ * words; each column occupies {@code height + 1} bits, the topmost of which is
+ * an always-zero sentinel so that vertical and diagonal shifts never carry a
+ * token over to the neighbouring column. Boards that fit in 64 bits are
+ * handled by a single-word fast path; larger boards (say, 15x12 or 20x20) use
+ * as many words as needed.
+ * <p>
+ * The cell {@code (x, y)} uses the same coordinates as
+ * {@link ConnectFourState}: {@code y = 0} is the topmost row.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class BitBoard {
+
+    /**
+     * The number of bits in a word.
+     */
+    private static final int WORD_BITS = Long.SIZE;
+
+    /**
+     * The number of columns.
+     */
+    private final int width;
+
+    /**
+     * The number of rows.
+     */
+    private final int height;
+
+    /**
+     * The actual bits.
+     */
+    private final long[] words;
+
+    /**
+     * Constructs an empty bitboard.
+     * @param width the number of columns.
+     * @param height the number of rows.
+     */
+    public BitBoard(int width, int height) {
+        this(width, height, new long[getWordCount(width, height)]);
+    }
+
+    private BitBoard(int width, int height, long[] words) {
+        this.width = width;
+        this.height = height;
+        this.words = words;
+    }
+
+    /**
+     * Returns the number of {@code long} words needed for representing a board
+     * of given dimensions.
+     * @param width the number of columns.
+     * @param height the number of rows.
+     * @return the number of words.
+     */
+    public static int getWordCount(int width, int height) {
+        return (width * (height + 1) + WORD_BITS - 1) / WORD_BITS;
+    }
+
+    /**
+     * Returns a new bitboard that has also the cell {@code (x, y)} set.
+     * @param x the column.
+     * @param y the row.
+     * @return a new bitboard.
+     */
+    public BitBoard set(int x, int y) {
+        int bitIndex = getBitIndex(x, y);
+        long[] newWords = words.clone();
+        newWords[bitIndex / WORD_BITS] |= 1L << (bitIndex % WORD_BITS);
+        return new BitBoard(width, height, newWords);
+    }
+
+    /**
+     * Returns a new bitboard with the bottom cell of the column {@code x}
+     * removed and the cells above it moved one row down, as in the Pop Out
+     * variant.
+     * @param x the column.
+     * @return a new bitboard.
+     */
+    public BitBoard popColumn(int x) {
+        int bottom = getBitIndex(x, height - 1);
+        long[] newWords = words.clone();
+
+        if (words.length == 1) {
+            long column = ((1L << height) - 1L) << bottom;
+            long rest = words[0] & ~column;
+            newWords[0] = rest | ((words[0] & column) >>> 1 & column);
+        } else {
+            for (int i = bottom; i < bottom + height - 1; i++) {
+                setBit(newWords, i, get(i + 1));
+            }
+
+            setBit(newWords, bottom + height - 1, false);
+        }
+
+        return new BitBoard(width, height, newWords);
+    }
+
+    /**
+     * Checks whether the cell {@code (x, y)} is set.
+     * @param x the column.
+     * @param y the row.
+     * @return {@code true} only if the cell is set.
+     */
+    public boolean get(int x, int y) {
+        return get(getBitIndex(x, y));
+    }
+
+    /**
+     * Checks whether the bit {@code bitIndex} is set.
+     * @param bitIndex the index of the bit, as returned by
+     * {@link #getBitIndex(int, int)}.
+     * @return {@code true} only if the bit is set.
+     */
+    boolean get(int bitIndex) {
+        // The shift distance of a long is taken modulo 64:
+        return (words[bitIndex >>> 6] & (1L << bitIndex)) != 0L;
+    }
+
+    /**
+     * Checks whether this board contains a horizontal, vertical or diagonal
+     * line of at least {@code length} tokens.
+     * @param length the length of the line to look for.
+     * @return {@code true} only if such a line exists.
+     */
+    public boolean containsLine(int length) {
+        if (words.length == 1) {
+            long board = words[0];
+
+            return runs(board, 1, length) != 0L
+                || runs(board, height + 1, length) != 0L
+                || runs(board, height, length) != 0L
+                || runs(board, height + 2, length) != 0L;
+        }
+
+        long[] scratch1 = new long[words.length];
+        long[] scratch2 = new long[words.length];
+
+        return runs(words, 1, length, scratch1, scratch2)
+            || runs(words, height + 1, length, scratch1, scratch2)
+            || runs(words, height, length, scratch1, scratch2)
+            || runs(words, height + 2, length, scratch1, scratch2);
+    }
+
+    /**
+     * Checks whether this board contains a line of at least {@code length}
+     * tokens when the board is wrapped around a cylinder, that is, when the
+     * horizontal and diagonal lines may continue from the last column to the
+     * first one. On a single-word board, the lines are found by rotating the
+     * board instead of shifting it: rotating by a multiple of
+     * {@code height + 1} bits maps the columns cyclically, and the zero
+     * sentinels still keep the rows from wrapping. On larger boards, only the
+     * lines crossing from the last column to the first one need a separate
+     * check.
+     * @param length the length of the line to look for.
+     * @return {@code true} only if such a line exists.
+     */
+    public boolean containsWrappedLine(int length) {
+        if (words.length == 1) {
+            long board = words[0];
+
+            return runs(board, 1, length) != 0L
+                || rotatedRuns(board, height + 1, length) != 0L
+                || rotatedRuns(board, height, length) != 0L
+                || rotatedRuns(board, height + 2, length) != 0L;
+        }
+
+        if (containsLine(length)) {
+            return true;
+        }
+
+        // Every line crossing the seam goes through the first column:
+        for (int y = 0; y < height; y++) {
+            if (get(0, y) && completesWrappedLine(0, y, length)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether setting the cell {@code (x, y)} would create a line of at
+     * least {@code length} tokens through it on the board wrapped around a
+     * cylinder. This does not allocate.
+     * @param x the column.
+     * @param y the row.
+     * @param length the length of the line to look for.
+     * @return {@code true} only if such a line would appear.
+     */
+    public boolean completesWrappedLine(int x, int y, int length) {
+        getBitIndex(x, y);
+
+        return 1 + countWrappedRun(x, y, 1, 0)
+                 + countWrappedRun(x, y, -1, 0) >= length
+            || 1 + countRun(x, y, 0, 1) + countRun(x, y, 0, -1) >= length
+            || 1 + countWrappedRun(x, y, 1, 1)
+                 + countWrappedRun(x, y, -1, -1) >= length
+            || 1 + countWrappedRun(x, y, 1, -1)
+                 + countWrappedRun(x, y, -1, 1) >= length;
+    }
+
+    /**
+     * The counterpart of {@link #getCompletingCells(int)} for the board
+     * wrapped around a cylinder.
+     * @param length the length of the line.
+     * @return the completing cells.
+     * @throws IllegalStateException if the board does not fit in one word.
+     */
+    public long getWrappedCompletingCells(int length) {
+        if (words.length != 1) {
+            throw new IllegalStateException(
+                    "The board " + width + "x" + height + " does not fit " +
+                    "in a single word.");
+        }
+
+        long board = words[0];
+
+        return completingCells(board, 1, length)
+             | rotatedCompletingCells(board, height + 1, length)
+             | rotatedCompletingCells(board, height, length)
+             | rotatedCompletingCells(board, height + 2, length);
+    }
+
+    /**
+     * Checks whether setting the cell {@code (x, y)} would create a line of at
+     * least {@code length} tokens through it. Unlike
+     * {@code set(x, y).containsLine(length)}, this does not allocate.
+     * @param x the column.
+     * @param y the row.
+     * @param length the length of the line to look for.
+     * @return {@code true} only if such a line would appear.
+     */
+    public boolean completesLine(int x, int y, int length) {
+        getBitIndex(x, y);
+
+        return 1 + countRun(x, y, 1, 0) + countRun(x, y, -1, 0) >= length
+            || 1 + countRun(x, y, 0, 1) + countRun(x, y, 0, -1) >= length
+            || 1 + countRun(x, y, 1, 1) + countRun(x, y, -1, -1) >= length
+            || 1 + countRun(x, y, 1, -1) + countRun(x, y, -1, 1) >= length;
+    }
+
+    /**
+     * Returns the cells, set or not, that would complete a line of at least
+     * {@code length} tokens, as a word in the layout of {@link #getWord(int)}.
+     * For each direction and each position of the cell within a window of
+     * {@code length} cells, the other cells of the window are required to be
+     * set; the zero sentinels keep the windows from wrapping around columns.
+     * @param length the length of the line.
+     * @return the completing cells.
+     * @throws IllegalStateException if the board does not fit in one word.
+     */
+    public long getCompletingCells(int length) {
+        if (words.length != 1) {
+            throw new IllegalStateException(
+                    "The board " + width + "x" + height + " does not fit " +
+                    "in a single word.");
+        }
+
+        long board = words[0];
+
+        return completingCells(board, 1, length)
+             | completingCells(board, height + 1, length)
+             | completingCells(board, height, length)
+             | completingCells(board, height + 2, length);
+    }
+
+    private static long completingCells(long board, int shift, int length) {
+        long cells = 0L;
+
+        for (int position = 0; position < length; position++) {
+            long window = -1L;
+
+            for (int i = 0; i < length && window != 0L; i++) {
+                if (i != position) {
+                    window &= shiftSigned(board, (i - position) * shift);
+                }
+            }
+
+            cells |= window;
+        }
+
+        return cells;
+    }
+
+    private long rotatedCompletingCells(long board, int shift, int length) {
+        long cells = 0L;
+
+        for (int position = 0; position < length; position++) {
+            long window = -1L;
+
+            for (int i = 0; i < length && window != 0L; i++) {
+                if (i != position) {
+                    window &= rotate(board, (i - position) * shift);
+                }
+            }
+
+            cells |= window;
+        }
+
+        return cells;
+    }
+
+    /**
+     * The counterpart of {@link #runs(long, int, int)} rotating the board
+     * within its {@code width * (height + 1)} bits instead of shifting it.
+     */
+    private long rotatedRuns(long board, int shift, int length) {
+        long mask = board;
+        int runLength = 1;
+
+        while (2 * runLength <= length) {
+            mask &= rotate(mask, runLength * shift);
+            runLength *= 2;
+        }
+
+        if (runLength < length) {
+            mask &= rotate(mask, (length - runLength) * shift);
+        }
+
+        return mask;
+    }
+
+    /**
+     * Moves the bit {@code (b + distance) mod n} to {@code b}, where {@code n}
+     * is the number of bits of the board.
+     */
+    private long rotate(long board, int distance) {
+        int bits = width * (height + 1);
+        distance %= bits;
+
+        if (distance < 0) {
+            distance += bits;
+        }
+
+        if (distance == 0) {
+            return board;
+        }
+
+        long rotated = (board >>> distance) | (board << (bits - distance));
+        return bits == WORD_BITS ? rotated : rotated & ((1L << bits) - 1L);
+    }
+
+    /**
+     * Moves the bit {@code b + distance} to {@code b}; the bits coming from
+     * outside the word are zero.
+     */
+    private static long shiftSigned(long board, int distance) {
+        if (distance >= 0) {
+            return distance < WORD_BITS ? board >>> distance : 0L;
+        }
+
+        return -distance < WORD_BITS ? board << -distance : 0L;
+    }
+
+    /**
+     * Counts the set cells in a row starting next to {@code (x, y)} and
+     * stepping by {@code (dx, dy)}.
+     */
+    private int countRun(int x, int y, int dx, int dy) {
+        int count = 0;
+        x += dx;
+        y += dy;
+
+        while (x >= 0 && x < width && y >= 0 && y < height
+                && get(x * (height + 1) + (height - 1 - y))) {
+            count++;
+            x += dx;
+            y += dy;
+        }
+
+        return count;
+    }
+
+    /**
+     * The counterpart of {@link #countRun(int, int, int, int)} continuing from
+     * the last column to the first one and vice versa. A run never visits a
+     * column twice.
+     */
+    private int countWrappedRun(int x, int y, int dx, int dy) {
+        int count = 0;
+        x = Math.floorMod(x + dx, width);
+        y += dy;
+
+        while (count < width - 1 && y >= 0 && y < height
+                && get(x * (height + 1) + (height - 1 - y))) {
+            count++;
+            x = Math.floorMod(x + dx, width);
+            y += dy;
+        }
+
+        return count;
+    }
+
+    private static void setBit(long[] words, int bitIndex, boolean value) {
+        if (value) {
+            words[bitIndex >>> 6] |= 1L << bitIndex;
+        } else {
+            words[bitIndex >>> 6] &= ~(1L << bitIndex);
+        }
+    }
+
+    /**
+     * Returns the number of tokens on this board.
+     * @return the number of tokens.
+     */
+    public int getTokenCount() {
+        int count = 0;
+
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+
+        return count;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWordCount() {
+        return words.length;
+    }
+
+    public long getWord(int index) {
+        return words[index];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+
+        if (!(o instanceof BitBoard)) {
+            return false;
+        }
+
+        BitBoard other = (BitBoard) o;
+        return width == other.width
+            && height == other.height
+            && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    int getBitIndex(int x, int y) {
+        if (x < 0 || x >= width) {
+            throw new IndexOutOfBoundsException("x = " + x);
+        }
+
+        if (y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("y = " + y);
+        }
+
+        return x * (height + 1) + (height - 1 - y);
+    }
+
+    /**
+     * Computes the mask of all the cells that start a line of {@code length}
+     * set bits in the direction given by {@code shift}. The run is grown by
+     * doubling so that only a logarithmic number of shifts is needed.
+     * @param board the single-word board.
+     * @param shift the direction shift.
+     * @param length the target line length.
+     * @return the mask of line starts.
+     */
+    private static long runs(long board, int shift, int length) {
+        long mask = board;
+        int runLength = 1;
+
+        while (2 * runLength <= length) {
+            mask &= mask >>> (runLength * shift);
+            runLength *= 2;
+        }
+
+        if (runLength < length) {
+            mask &= mask >>> ((length - runLength) * shift);
+        }
+
+        return mask;
+    }
+
+    /**
+     * The multi-word counterpart of {@link #runs(long, int, int)}. Returns
+     * {@code true} if at least one line start exists.
+     * @param board the board words.
+     * @param shift the direction shift.
+     * @param length the target line length.
+     * @param mask the scratch array for the run mask.
+     * @param shifted the scratch array for the shifted mask.
+     * @return {@code true} only if there is a line of length {@code length}.
+     */
+    private static boolean runs(long[] board,
+                                int shift,
+                                int length,
+                                long[] mask,
+                                long[] shifted) {
+        System.arraycopy(board, 0, mask, 0, board.length);
+        int runLength = 1;
+
+        while (2 * runLength <= length) {
+            shiftRight(mask, runLength * shift, shifted);
+
+            if (!and(mask, shifted)) {
+                return false;
+            }
+
+            runLength *= 2;
+        }
+
+        if (runLength < length) {
+            shiftRight(mask, (length - runLength) * shift, shifted);
+            return and(mask, shifted);
+        }
+
+        return true;
+    }
+
+    /**
+     * Logically shifts the multi-word bit string {@code source} towards the
+     * lower bit indices by {@code shift} bits.
+     * @param source the source words.
+     * @param shift the number of bits to shift.
+     * @param target the target words.
+     */
+    static void shiftRight(long[] source, int shift, long[] target) {
+        int wordShift = shift / WORD_BITS;
+        int bitShift = shift % WORD_BITS;
+        int limit = source.length - wordShift;
+
+        if (bitShift == 0) {
+            for (int i = 0; i < limit; i++) {
+                target[i] = source[i + wordShift];
+            }
+        } else {
+            for (int i = 0; i < limit - 1; i++) {
+                target[i] = (source[i + wordShift] >>> bitShift)
+                          | (source[i + wordShift + 1] <<
+                                                    (WORD_BITS - bitShift));
+            }
+
+            if (limit > 0) {
+                target[limit - 1] = source[source.length - 1] >>> bitShift;
+            }
+        }
+
+        for (int i = Math.max(limit, 0); i < target.length; i++) {
+            target[i] = 0L;
+        }
+    }
+
+    /**
+     * Stores {@code target & operand} into {@code target}.
+     * @param target the target words.
+     * @param operand the operand words.
+     * @return {@code true} only if the result has at least one bit set.
+     */
+    private static boolean and(long[] target, long[] operand) {
+        long any = 0L;
+
+        for (int i = 0; i < target.length; i++) {
+            target[i] &= operand[i];
+            any |= target[i];
+        }
+
+        return any != 0L;
+    }
+}
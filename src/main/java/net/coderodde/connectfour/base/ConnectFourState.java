@@ -1,7 +1,12 @@
 package net.coderodde.connectfour.base;
 
+import java.util.Objects;
+
 /**
- * This class implements the Connect Four game state.
+ * This class implements the Connect Four game state. The board is stored 
+ * compactly as two bitboards, one bit per cell for each player, plus the 
+ * height of each column. The {@link Rules} of the state decide which lines 
+ * win and whether the tokens may be popped out.
  * 
  * @author Rodion "rodde" Efremov
  * @version 1.6 (May 24, 2019)
@@ -22,16 +27,37 @@ public class ConnectFourState {
      * The default length of the winning line.
      */
     private static final int DEFAULT_WINNING_LENGTH = 4;
-     
+    
+    /**
+     * The bitboard of the white player's tokens.
+     */
+    private final BitBoard whiteBoard;
+    
+    /**
+     * The bitboard of the red player's tokens.
+     */
+    private final BitBoard redBoard;
+    
+    /**
+     * {@code heights[x]} is the number of tokens in the column {@code x}.
+     */
+    private final byte[] heights;
+    
+    /**
+     * Bit {@code x} is set if a token may be put to the column {@code x}. Only
+     * the first 64 columns are covered.
+     */
+    private final long legalMoves;
+    
     /**
-     * Caches the lower bar for printing the state to the console/command line.
+     * The number of tokens on the board.
      */
-    private final String lowerBar;
+    private final int tokenCount;
     
     /**
-     * The board state.
+     * The number of moves made so far, the pops included.
      */
-    private PlayerColor[][] state;
+    private final int moveCount;
     
     /**
      * The length of a horizontal/vertical/diagonal line leading to victory.
@@ -39,13 +65,41 @@ public class ConnectFourState {
     private final int winningLength;
     
     /**
-     * Constructs an empty game board with given dimensions.
+     * The rules of the variant.
+     */
+    private final Rules rules;
+    
+    /**
+     * The player who made the last move, or {@code null} for the initial 
+     * state. Decides the winner when a pop completes lines for both.
+     */
+    private final PlayerColor lastMover;
+    
+    /**
+     * Constructs an empty game board with given dimensions and the standard 
+     * rules.
      * @param width the number of columns in the constructed state.
      * @param height the number of rows in the constructed state.
+     * @param winningLength the length of the winning line.
      */
     public ConnectFourState(int width, int height, int winningLength) {
-        this.state = new PlayerColor[checkHeight(height)]
-                               [checkWidth(width)];
+        this(width, height, winningLength, StandardRules.INSTANCE);
+    }
+    
+    /**
+     * Constructs an empty game board with given dimensions and rules.
+     * @param width the number of columns in the constructed state.
+     * @param height the number of rows in the constructed state.
+     * @param winningLength the length of the winning line.
+     * @param rules the rules of the variant.
+     */
+    public ConnectFourState(int width, 
+                            int height, 
+                            int winningLength, 
+                            Rules rules) {
+        this.rules = Objects.requireNonNull(rules, "The input rules are null.");
+        checkHeight(height);
+        checkWidth(width);
         this.winningLength = checkWinningLength(winningLength);
         
         if (winningLength > Math.min(width, height)) {
@@ -54,7 +108,13 @@ public class ConnectFourState {
                     "in order to accommodate the winning pattern.");
         }
         
-        this.lowerBar = createLowerBar(width);
+        this.whiteBoard = new BitBoard(width, height);
+        this.redBoard = new BitBoard(width, height);
+        this.heights = new byte[width];
+        this.legalMoves = width >= Long.SIZE ? -1L : (1L << width) - 1L;
+        this.tokenCount = 0;
+        this.moveCount = 0;
+        this.lastMover = null;
     }
     
     /**
@@ -67,12 +127,34 @@ public class ConnectFourState {
     /**
      * Constructs a game board with given state.
      * 
-     * @param state the state of the newly constructed game board.
+     * @param winningLength the length of the winning line.
+     * @param whiteBoard the bitboard of the white player.
+     * @param redBoard the bitboard of the red player.
+     * @param heights the column heights.
+     * @param legalMoves the legal move mask.
+     * @param tokenCount the number of tokens on the board.
+     * @param moveCount the number of moves made so far.
+     * @param rules the rules of the variant.
+     * @param lastMover the player who made the last move.
      */
-    private ConnectFourState(PlayerColor[][] state, int winningLength) {
-        this.state = state;
+    private ConnectFourState(int winningLength,
+                             BitBoard whiteBoard,
+                             BitBoard redBoard,
+                             byte[] heights,
+                             long legalMoves,
+                             int tokenCount,
+                             int moveCount,
+                             Rules rules,
+                             PlayerColor lastMover) {
         this.winningLength = winningLength;
-        this.lowerBar = createLowerBar(state[0].length);
+        this.rules = rules;
+        this.lastMover = lastMover;
+        this.whiteBoard = whiteBoard;
+        this.redBoard = redBoard;
+        this.heights = heights;
+        this.legalMoves = legalMoves;
+        this.tokenCount = tokenCount;
+        this.moveCount = moveCount;
     }
     
     /**
@@ -81,7 +163,16 @@ public class ConnectFourState {
      * @return {@code true} only if the column is full.
      */
     public boolean columnIsFull(int x) {
-        return state[0][x] != null;
+        return heights[x] == getHeight();
+    }
+    
+    /**
+     * Returns the number of tokens in the column.
+     * @param x the coordinate of the column.
+     * @return the number of tokens in the column {@code x}.
+     */
+    public int getColumnHeight(int x) {
+        return heights[x];
     }
     
     /**
@@ -97,17 +188,300 @@ public class ConnectFourState {
                     "Trying to put a token to a full column.");
         }
         
-        PlayerColor[][] cloneState = cloneState();
+        int y = getHeight() - 1 - heights[x];
+        byte[] newHeights = heights.clone();
+        newHeights[x]++;
+        long newLegalMoves = legalMoves;
+        
+        if (y == 0 && x < Long.SIZE) {
+            newLegalMoves &= ~(1L << x);
+        }
+        
+        if (player == PlayerColor.WHITE_PLAYER) {
+            return new ConnectFourState(winningLength,
+                                        whiteBoard.set(x, y),
+                                        redBoard,
+                                        newHeights,
+                                        newLegalMoves,
+                                        tokenCount + 1,
+                                        moveCount + 1,
+                                        rules,
+                                        player);
+        } else {
+            return new ConnectFourState(winningLength,
+                                        whiteBoard,
+                                        redBoard.set(x, y),
+                                        newHeights,
+                                        newLegalMoves,
+                                        tokenCount + 1,
+                                        moveCount + 1,
+                                        rules,
+                                        player);
+        }
+    }
+    
+    /**
+     * Checks whether putting a token of {@code player} to the column 
+     * {@code x} wins the game.
+     * @param x the column.
+     * @param player the player to move.
+     * @return {@code true} only if the move is legal and wins.
+     */
+    public boolean isWinningMove(int x, PlayerColor player) {
+        if (columnIsFull(x)) {
+            return false;
+        }
+        
+        return rules.completesLine(getBitBoard(player),
+                                   x, 
+                                   getHeight() - 1 - heights[x], 
+                                   winningLength);
+    }
+    
+    /**
+     * Returns the columns in which {@code player} would win with the next 
+     * move: bit {@code x} is set if putting a token to the column {@code x}
+     * completes a line.
+     * @param player the player to move.
+     * @return the winning column mask.
+     * @throws IllegalStateException if the board is wider than 64 columns.
+     */
+    public long getWinningColumnMask(PlayerColor player) {
+        long legal = getLegalMoveMask();
+        long columns = 0L;
+        
+        if (!isPositionKeyExact()) {
+            for (long moves = legal; moves != 0L; moves &= moves - 1L) {
+                int x = Long.numberOfTrailingZeros(moves);
+                
+                if (isWinningMove(x, player)) {
+                    columns |= 1L << x;
+                }
+            }
+            
+            return columns;
+        }
+        
+        int height = getHeight();
+        long completing = rules.getCompletingCells(getBitBoard(player), 
+                                                   winningLength);
         
-        for (int y = cloneState.length - 1; y >= 0; y--) {
-            if (cloneState[y][x] == null) {
-                cloneState[y][x] = player;
-                return new ConnectFourState(cloneState, winningLength);
+        for (long moves = legal; moves != 0L; moves &= moves - 1L) {
+            int x = Long.numberOfTrailingZeros(moves);
+            
+            // Test the landing cell of the column:
+            if ((completing & (1L << (x * (height + 1) + heights[x]))) != 0L) {
+                columns |= 1L << x;
+            }
+        }
+        
+        return columns;
+    }
+    
+    /**
+     * Returns the columns in which a token of {@code player} would let the 
+     * opponent win at once by putting a token on top of it: bit {@code x} is 
+     * set if the cell above the landing cell of the column {@code x} 
+     * completes a line of the opponent.
+     * @param player the player to move.
+     * @return the unsafe column mask.
+     * @throws IllegalStateException if the board is wider than 64 columns.
+     */
+    public long getUnsafeColumnMask(PlayerColor player) {
+        PlayerColor opponent = player.opponent();
+        int height = getHeight();
+        long legal = getLegalMoveMask();
+        long columns = 0L;
+        
+        if (!isPositionKeyExact()) {
+            for (long moves = legal; moves != 0L; moves &= moves - 1L) {
+                int x = Long.numberOfTrailingZeros(moves);
+                int y = height - 2 - heights[x];
+                
+                if (y >= 0 && rules.completesLine(getBitBoard(opponent), 
+                                                  x, 
+                                                  y, 
+                                                  winningLength)) {
+                    columns |= 1L << x;
+                }
+            }
+            
+            return columns;
+        }
+        
+        long completing = rules.getCompletingCells(getBitBoard(opponent), 
+                                                   winningLength);
+        
+        for (long moves = legal; moves != 0L; moves &= moves - 1L) {
+            int x = Long.numberOfTrailingZeros(moves);
+            
+            // Test the cell above the landing cell, if any:
+            if (heights[x] < height - 1 
+                    && (completing & 
+                        (1L << (x * (height + 1) + heights[x] + 1))) != 0L) {
+                columns |= 1L << x;
+            }
+        }
+        
+        return columns;
+    }
+    
+    /**
+     * Checks whether {@code player} may pop the bottom token of the column 
+     * {@code x}, which requires the Pop Out rules and a token of the player
+     * at the bottom.
+     * @param x the column.
+     * @param player the player to move.
+     * @return {@code true} only if the pop is legal.
+     */
+    public boolean canPop(int x, PlayerColor player) {
+        return rules.allowsPopOut() 
+                && heights[x] > 0 
+                && getBitBoard(player).get(x, getHeight() - 1);
+    }
+    
+    /**
+     * Pops the bottom token of the column {@code x} out and returns the board
+     * representing that move. The tokens above it move one row down.
+     * @param x the target column.
+     * @param player the player to make the move.
+     * @return a new board accommodating the new move.
+     * @throws IllegalStateException if the pop is not legal.
+     */
+    public ConnectFourState pop(int x, PlayerColor player) {
+        if (!canPop(x, player)) {
+            throw new IllegalStateException(
+                    "Trying to pop a token that may not be popped.");
+        }
+        
+        byte[] newHeights = heights.clone();
+        newHeights[x]--;
+        long newLegalMoves = x < Long.SIZE ? 
+                legalMoves | 1L << x : 
+                legalMoves;
+        
+        return new ConnectFourState(winningLength,
+                                    whiteBoard.popColumn(x),
+                                    redBoard.popColumn(x),
+                                    newHeights,
+                                    newLegalMoves,
+                                    tokenCount - 1,
+                                    moveCount + 1,
+                                    rules,
+                                    player);
+    }
+    
+    /**
+     * Returns the columns whose bottom token {@code player} may pop: bit 
+     * {@code x} is set if {@link #canPop(int, PlayerColor)} holds for the 
+     * column {@code x}.
+     * @param player the player to move.
+     * @return the pop move mask; zero unless the rules allow popping.
+     * @throws IllegalStateException if the board is wider than 64 columns.
+     */
+    public long getPopMoveMask(PlayerColor player) {
+        if (getWidth() > Long.SIZE) {
+            throw new IllegalStateException(
+                    "The pop move mask covers at most " + Long.SIZE + 
+                    " columns, the board has " + getWidth() + ".");
+        }
+        
+        if (!rules.allowsPopOut()) {
+            return 0L;
+        }
+        
+        long columns = 0L;
+        
+        if (isPositionKeyExact()) {
+            // The bottom cell of the column x is the bit x * (height + 1):
+            long board = getBitBoard(player).getWord(0);
+            
+            for (int x = 0; x < getWidth(); x++) {
+                columns |= (board >>> (x * (getHeight() + 1)) & 1L) << x;
+            }
+            
+            return columns;
+        }
+        
+        for (int x = 0; x < getWidth(); x++) {
+            if (canPop(x, player)) {
+                columns |= 1L << x;
             }
         }
         
-        throw new IllegalStateException(
-                "Trying to put the token to a full column.");
+        return columns;
+    }
+    
+    /**
+     * Returns the legal moves as a bitmask: bit {@code x} is set if a token 
+     * may be put to the column {@code x}.
+     * @return the legal move mask.
+     * @throws IllegalStateException if the board is wider than 64 columns.
+     */
+    public long getLegalMoveMask() {
+        if (getWidth() > Long.SIZE) {
+            throw new IllegalStateException(
+                    "The legal move mask covers at most " + Long.SIZE + 
+                    " columns, the board has " + getWidth() + ".");
+        }
+        
+        return legalMoves;
+    }
+    
+    /**
+     * Returns the first column at or after {@code fromColumn} that is not 
+     * full. Iterating over the legal moves does not allocate:
+     * <pre>
+     *   for (int x = state.nextLegalColumn(0); 
+     *           x >= 0; 
+     *           x = state.nextLegalColumn(x + 1)) {
+     *       ...
+     *   }
+     * </pre>
+     * @param fromColumn the first column to consider; must not be negative.
+     * @return the column, or -1 if all the remaining columns are full.
+     */
+    public int nextLegalColumn(int fromColumn) {
+        if (fromColumn < Long.SIZE) {
+            long moves = legalMoves & (-1L << fromColumn);
+            
+            if (moves != 0L) {
+                return Long.numberOfTrailingZeros(moves);
+            }
+            
+            fromColumn = Long.SIZE;
+        }
+        
+        // Only boards wider than 64 columns get here:
+        for (int x = fromColumn; x < getWidth(); x++) {
+            if (!columnIsFull(x)) {
+                return x;
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Finds the column into which a token was put in order to get from this
+     * state to {@code nextState}.
+     * @param nextState the state following this state.
+     * @return the column, or -1 if the states do not differ.
+     */
+    public int findMoveColumn(ConnectFourState nextState) {
+        for (int x = 0; x < getWidth(); x++) {
+            if (heights[x] != nextState.heights[x]) {
+                return x;
+            }
+            
+            for (int y = getHeight() - 1; y >= getHeight() - heights[x]; y--) {
+                if (readCell(x, y) != nextState.readCell(x, y)) {
+                    return x;
+                }
+            }
+        }
+        
+        return -1;
     }
     
     /**
@@ -118,6 +492,13 @@ public class ConnectFourState {
      */
     public PlayerColor checkVictory() {
         if (checkVictory(PlayerColor.WHITE_PLAYER)) {
+            // Only a pop may complete lines for both; the popper wins:
+            if (lastMover == PlayerColor.RED_PLAYER 
+                    && rules.allowsPopOut() 
+                    && checkVictory(PlayerColor.RED_PLAYER)) {
+                return PlayerColor.RED_PLAYER;
+            }
+            
             return PlayerColor.WHITE_PLAYER;
         }
         
@@ -128,14 +509,13 @@ public class ConnectFourState {
         return null;
     }
     
+    /**
+     * Checks whether the board is full. Under the Pop Out rules, a full board
+     * is not a draw, since the player to move may still pop.
+     * @return {@code true} only if every cell holds a token.
+     */
     public boolean isFull() {
-        for (int x = 0; x < state[0].length; x++) {
-            if (!columnIsFull(x)) {
-                return false;
-            }
-        }
-        
-        return true;
+        return tokenCount == getWidth() * getHeight();
     }
     
     @Override
@@ -150,118 +530,19 @@ public class ConnectFourState {
             stringBuilder.append('\u2502');
             
             for (int x = 0; x < getWidth(); x++) {
-                stringBuilder.append(playerToString(state[y][x]))
+                stringBuilder.append(playerToString(readCell(x, y)))
                              .append('\u2502');
             }
             
             stringBuilder.append('\n');
         }
         
-        stringBuilder.append(lowerBar);
+        stringBuilder.append(createLowerBar(getWidth()));
         return stringBuilder.toString();
     }
     
     private boolean checkVictory(PlayerColor player) {
-        return checkVictoryHorizontal(player)
-                || checkVictoryVertical(player)
-                || checkVictoryAscendingDiagonal(player) 
-                || checkVictoryDescendingDiagonal(player);
-    }
-    
-    private boolean checkVictoryDescendingDiagonal(PlayerColor player) {
-        for (int startY = state.length - 1; 
-                startY >= winningLength - 1;
-                startY--) {
-            for (int startX = winningLength - 1;
-                    startX < getWidth(); 
-                    startX++) {
-                int count = 0;
-                
-                for (int i = 0; i < winningLength; i++) {
-                    PlayerColor currentPlayer = state[startY - i][startX - i];
-                    
-                    if (currentPlayer != player) {
-                        // Drop the state and start counting from the next
-                        // position:
-                        count = 0;
-                    } else if (++count == winningLength) {
-                        return true;
-                    }
-                }
-            }
-        }
-        
-        return false;
-    }
-    
-    private boolean checkVictoryAscendingDiagonal(PlayerColor player) {
-        for (int startY = state.length - 1;
-                startY >= winningLength - 1;
-                startY--) {
-            for (int startX = 0; 
-                    startX <= state[0].length - winningLength;
-                    startX++) {
-                int count = 0;
-                
-                for (int i = 0; i < winningLength; i++) {
-                    PlayerColor currentPlayer = state[startY - i][startX + i];
-                    
-                    if (currentPlayer != player) {
-                        // Drop the state and start counting from the next
-                        // position:
-                        count = 0;
-                    } else {
-                        if (++count == winningLength) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-        
-        return false;
-    }
-    
-    private boolean checkVictoryVertical(PlayerColor player) {
-        for (int x = 0; x < state[0].length; x++) {
-            int count = 0;
-            
-            for (int y = state.length - 1; y >= 0; y--) {
-                PlayerColor currentPlayer = state[y][x];
-                
-                if (currentPlayer != player) {
-                    // Drop the state and start counting from beginning:
-                    count = 0;
-                } else {
-                    if (++count == winningLength) {
-                        return true;
-                    }
-                }
-            }
-        }
-    
-        return false;
-    }
-    
-    private boolean checkVictoryHorizontal(PlayerColor player) {
-        for (int y = getHeight() - 1; y >= 0; y--) {
-            int count = 0;
-            
-            for (int x = 0; x < state[0].length; x++) {
-                PlayerColor currentPlayer = state[y][x];
-                
-                if (currentPlayer != player) {
-                    // Drop the state and start counting from beginning:
-                    count = 0;
-                } else {
-                    if (++count == winningLength) {
-                        return true;
-                    }
-                }
-            }
-        }
-            
-        return false;
+        return rules.containsLine(getBitBoard(player), winningLength);
     }
     
     /**
@@ -272,40 +553,129 @@ public class ConnectFourState {
      * empty.
      */
     public PlayerColor getPlayer(int x, int y) {
-        return state[y][x];
+        return readCell(x, y);
     }
     
     public PlayerColor readCell(final int x, final int y) {
-        return state[y][x];
+        // Both the boards share the geometry, and thus the bit index:
+        int bitIndex = whiteBoard.getBitIndex(x, y);
+        
+        if (whiteBoard.get(bitIndex)) {
+            return PlayerColor.WHITE_PLAYER;
+        }
+        
+        if (redBoard.get(bitIndex)) {
+            return PlayerColor.RED_PLAYER;
+        }
+        
+        return null;
     }
     
     public int getHeight() {
-        return state.length;
+        return whiteBoard.getHeight();
     }
     
     public int getWidth() {
-        return state[0].length;
+        return whiteBoard.getWidth();
     }
     
     public int getWinningLength() {
         return winningLength;
     }
     
-    private PlayerColor[][] cloneState() {
-        PlayerColor[][] cloneState = new PlayerColor[state.length]
-                                          [state[0].length];
-        
-        for (int y = 0; y < state.length; y++) {
-            for (int x = 0; x < state[y].length; x++) {
-                cloneState[y][x] = state[y][x];
+    public Rules getRules() {
+        return rules;
+    }
+    
+    /**
+     * Returns the number of tokens on the board.
+     * @return the number of tokens.
+     */
+    public int getTokenCount() {
+        return tokenCount;
+    }
+    
+    /**
+     * Returns the number of moves made so far. Unlike the token count, it
+     * grows with the pops too, so its parity tells the side to move under
+     * all the rules.
+     * @return the number of moves.
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+    
+    /**
+     * Returns the number of empty cells on the board.
+     * @return the number of empty cells.
+     */
+    public int getEmptyCellCount() {
+        return getWidth() * getHeight() - getTokenCount();
+    }
+    
+    /**
+     * Returns a 64-bit key of this position. If 
+     * {@link #isPositionKeyExact()} returns {@code true}, the key identifies
+     * the position uniquely among the positions of the same geometry; 
+     * otherwise it is a hash of the bitboards.
+     * @return the position key.
+     */
+    public long getPositionKey() {
+        if (isPositionKeyExact()) {
+            // The sum sets the bit just above the topmost token of each column
+            // and keeps the white tokens below it, which is a unique encoding:
+            long white = whiteBoard.getWord(0);
+            long occupied = white | redBoard.getWord(0);
+            long bottom = 0L;
+            
+            for (int x = 0; x < getWidth(); x++) {
+                bottom |= 1L << (x * (getHeight() + 1));
             }
+            
+            return white + occupied + bottom;
+        }
+        
+        long key = 0L;
+        
+        for (int i = 0; i < whiteBoard.getWordCount(); i++) {
+            key = mix(key ^ whiteBoard.getWord(i));
+            key = mix(key ^ redBoard.getWord(i) ^ 0x5bd1e995L);
         }
         
-        return cloneState;
+        return key;
+    }
+    
+    /**
+     * Checks whether {@link #getPositionKey()} is collision-free for this 
+     * geometry, which is the case when a bitboard fits in a single word.
+     * @return {@code true} only if the position key is exact.
+     */
+    public boolean isPositionKeyExact() {
+        return whiteBoard.getWordCount() == 1;
+    }
+    
+    /**
+     * Returns the bitboard holding the tokens of the given player.
+     * @param player the player.
+     * @return the bitboard of the player.
+     */
+    public BitBoard getBitBoard(PlayerColor player) {
+        return player == PlayerColor.WHITE_PLAYER ? whiteBoard : redBoard;
+    }
+    
+    /**
+     * The finalizer of the SplitMix64 generator.
+     * @param z the value to mix.
+     * @return the mixed value.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
     }
     
     private static final int checkHeight(int height)  {
-        if (height < 1) {
+        if (height < 1 || height > Byte.MAX_VALUE) {
             throw new IllegalArgumentException("height = " + height);
         }
         
@@ -1,10 +1,19 @@
 package net.coderodde.connectfour.base;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Objects;
-import java.util.Random;
 import java.util.Scanner;
+import java.util.SplittableRandom;
+import net.coderodde.connectfour.base.console.AnsiBoardRenderer;
+import net.coderodde.connectfour.base.console.BoardRenderer;
+import net.coderodde.connectfour.base.console.HeadlessRenderer;
 import net.coderodde.connectfour.base.impl.Human;
 import net.coderodde.connectfour.base.impl.RandomBot;
+import net.coderodde.connectfour.base.record.GameRecord;
+import net.coderodde.connectfour.base.record.GameRecordWriter;
+import net.coderodde.connectfour.base.record.GameResult;
 
 /**
  * This class implements the Connect Four game in the command line/console.
@@ -15,13 +24,66 @@ import net.coderodde.connectfour.base.impl.RandomBot;
 public class Demo {
 
     
-    public static void main(String[] args) {
-        Random random = new Random();
+    /**
+     * The option turning the rendering off.
+     */
+    private static final String HEADLESS_OPTION = "--headless";
+    
+    /**
+     * The option followed by the seed of the random bots.
+     */
+    private static final String SEED_OPTION = "--seed";
+    
+    /**
+     * Plays a match: {@code [--headless] [--seed SEED] [RECORD_FILE]}. If a 
+     * seed is given, the random bots replay the same game on every run. If a
+     * file name is given, the game is appended to that game record file.
+     * @param args the command line arguments.
+     * @throws IOException if writing the game record fails.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean headless = false;
+        SplittableRandom random = null;
+        int optionCount = 0;
+        
+        while (optionCount < args.length) {
+            if (args[optionCount].equals(HEADLESS_OPTION)) {
+                headless = true;
+                optionCount++;
+            } else if (args[optionCount].equals(SEED_OPTION) 
+                    && optionCount + 1 < args.length) {
+                random = new SplittableRandom(
+                        Long.parseLong(args[optionCount + 1]));
+                optionCount += 2;
+            } else {
+                break;
+            }
+        }
+        
+        args = Arrays.copyOfRange(args, optionCount, args.length);
+        
+        if (random == null) {
+            random = new SplittableRandom();
+        }
         
-        Bot bot1 = new RandomBot(PlayerColor.WHITE_PLAYER, random);
-        Bot bot2 = new RandomBot(PlayerColor.RED_PLAYER, random);
+        // Each bot draws from a stream of its own:
+        Bot bot1 = new RandomBot(PlayerColor.WHITE_PLAYER, random.split());
+        Bot bot2 = new RandomBot(PlayerColor.RED_PLAYER, random.split());
         Bot bot3 = new Human(PlayerColor.RED_PLAYER, "X >>> ", new Scanner(System.in));
-        playMatch(bot1, bot2);
+        
+        BoardRenderer renderer = headless ?
+                HeadlessRenderer.INSTANCE :
+                new AnsiBoardRenderer();
+        
+        if (args.length == 0) {
+            playMatch(bot1, bot2, null, renderer);
+            return;
+        }
+        
+        try (GameRecordWriter recordWriter = 
+                new GameRecordWriter(Paths.get(args[0]))) {
+            playMatch(bot1, bot2, recordWriter, renderer);
+        }
     }
     
     /**
@@ -29,36 +91,80 @@ public class Demo {
      * 
      * @param bot1 the first bot;
      * @param bot2 the second bot;
+     * @param recordWriter the writer for the game record, or {@code null}.
+     * @param renderer the renderer showing the game.
+     * @throws IOException if writing the game record or rendering fails.
      */
-    private static final void playMatch(Bot bot1, Bot bot2) {
+    private static final void playMatch(Bot bot1,
+                                        Bot bot2, 
+                                        GameRecordWriter recordWriter,
+                                        BoardRenderer renderer) 
+            throws IOException {
         checkBotPlayers(bot1, bot2);
         ConnectFourState state = new ConnectFourState();
-        System.out.println(state);
-        System.out.println();
+        renderer.start(state);
+        
+        long startTimeMillis = System.currentTimeMillis();
+        int[] moves = new int[state.getWidth() * state.getHeight()];
+        long[] moveNanos = new long[moves.length];
+        int moveCount = 0;
         
         // bot1 begins the game.
         Bot currentBot = bot1;
         
         // While there is room in the board and no one won yet:
         while (!state.isFull() && state.checkVictory() == null) {
+            ConnectFourState previousState = state;
+            long moveStartTime = System.nanoTime();
+            
             if (currentBot == bot1) {
                 state = bot1.computeNextState(state);
                 currentBot = bot2;
                 
                 if (bot1 instanceof Human && state == null) {
-                    System.out.println("C'ya!");
+                    renderer.message("C'ya!");
                 }
             } else {
                 state = bot2.computeNextState(state);
                 currentBot = bot1;
                 
                 if (bot2 instanceof Human && state == null) {
-                    System.out.println("C'ya!");
+                    renderer.message("C'ya!");
                 }
             }
             
-            System.out.println(state);
-            System.out.println();
+            if (state == null) {
+                state = previousState;
+                break;
+            }
+            
+            moveNanos[moveCount] = System.nanoTime() - moveStartTime;
+            moves[moveCount] = previousState.findMoveColumn(state);
+            renderer.update(state, moves[moveCount++]);
+        }
+        
+        if (recordWriter != null) {
+            Bot whiteBot = bot1.getPlayerColor() == PlayerColor.WHITE_PLAYER ?
+                    bot1 : 
+                    bot2;
+            Bot redBot = whiteBot == bot1 ? bot2 : bot1;
+            
+            recordWriter.append(
+                    new GameRecord(state.getWidth(),
+                                   state.getHeight(),
+                                   state.getWinningLength(),
+                                   whiteBot.getClass().getSimpleName(),
+                                   redBot.getClass().getSimpleName(),
+                                   bot1.getPlayerColor(),
+                                   GameResult.of(state),
+                                   startTimeMillis,
+                                   Arrays.copyOf(moves, moveCount),
+                                   Arrays.copyOf(moveNanos, moveCount)));
+        }
+        
+        if (state.checkVictory() == null && !state.isFull()) {
+            // A human quit the game.
+            return;
         }
         
         PlayerColor winnerPlayerColor = state.checkVictory();
@@ -69,15 +175,15 @@ public class Demo {
                         "No one won and the board is not full.");
             }
             
-            System.out.println("RESULT: It's a draw.");
+            renderer.message("RESULT: It's a draw.");
         } else {
             switch (winnerPlayerColor.getChar()) {
                 case 'O':
-                    System.out.println("RESULT: The O player won.");
+                    renderer.message("RESULT: The O player won.");
                     break;
                     
                 case 'X':
-                    System.out.println("RESULT: The X player won.");
+                    renderer.message("RESULT: The X player won.");
                     break;
             }
         }
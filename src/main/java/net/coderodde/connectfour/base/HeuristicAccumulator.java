@@ -0,0 +1,40 @@
+package net.coderodde.connectfour.base;
+
+/**
+ * This interface specifies the API for evaluating the states of a search
+ * incrementally. The search resets the accumulator to its root state and then
+ * makes and unmakes the moves as it walks the tree, so that evaluating a leaf
+ * costs only the updates made on the way to it. An accumulator is stateful
+ * and must not be shared between threads.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public interface HeuristicAccumulator {
+
+    /**
+     * Sets the current state.
+     * @param state the state.
+     */
+    public void reset(ConnectFourState state);
+
+    /**
+     * Puts a token of {@code player} to the cell {@code (x, y)} of the current
+     * state.
+     * @param x the column.
+     * @param y the row, counting from the top.
+     * @param player the player.
+     */
+    public void makeMove(int x, int y, PlayerColor player);
+
+    /**
+     * Takes back the latest move not taken back yet.
+     */
+    public void unmakeMove();
+
+    /**
+     * Evaluates the current state.
+     * @return the state quality estimate.
+     */
+    public double evaluate();
+}
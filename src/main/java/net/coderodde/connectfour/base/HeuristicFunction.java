@@ -14,4 +14,26 @@ public interface HeuristicFunction {
      * @return the state quality estimate.
      */
     public double evaluate(ConnectFourState state);
+    
+    /**
+     * Returns a string identifying the estimates of this function: two 
+     * functions with equal identities must estimate every state equally, so 
+     * the scores stored with one of them are valid for the other.
+     * @return the identity.
+     */
+    public default String getIdentity() {
+        return getClass().getName();
+    }
+    
+    /**
+     * Creates an accumulator that evaluates the states of a search 
+     * incrementally, as the moves are made and unmade. The accumulator must 
+     * estimate every state exactly as this function does, up to the floating
+     * point rounding.
+     * @return a new accumulator, or {@code null} if this function does not 
+     * support incremental evaluation.
+     */
+    public default HeuristicAccumulator createAccumulator() {
+        return null;
+    }
 }
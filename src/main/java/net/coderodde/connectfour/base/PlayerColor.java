@@ -20,4 +20,12 @@ public enum PlayerColor {
     public char getChar() {
         return this.playerColorChar;
     }
+    
+    /**
+     * Returns the other player.
+     * @return the opponent of this player.
+     */
+    public PlayerColor opponent() {
+        return this == WHITE_PLAYER ? RED_PLAYER : WHITE_PLAYER;
+    }
 }
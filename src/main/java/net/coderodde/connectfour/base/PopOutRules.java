@@ -0,0 +1,82 @@
+package net.coderodde.connectfour.base;
+
+import java.util.Objects;
+
+/**
+ * This class implements the rules of the Pop Out variant: instead of putting
+ * a token in, a player may pop a token of their own out from the bottom of a
+ * column, which moves the tokens above it one row down. If a pop completes a
+ * line for both the players, the player who popped wins. A full board does
+ * not end the game, since the player to move may still pop. The lines are
+ * detected by the underlying rules, so Pop Out may be played on a cylinder as
+ * well.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class PopOutRules implements Rules {
+
+    /**
+     * Pop Out on the standard board.
+     */
+    public static final PopOutRules INSTANCE =
+            new PopOutRules(StandardRules.INSTANCE);
+
+    private final Rules lineRules;
+
+    /**
+     * Constructs the Pop Out rules on top of other rules.
+     * @param lineRules the rules detecting the lines.
+     */
+    public PopOutRules(Rules lineRules) {
+        this.lineRules = Objects.requireNonNull(lineRules,
+                                                "The line rules are null.");
+    }
+
+    @Override
+    public String getName() {
+        return lineRules == StandardRules.INSTANCE ?
+                "pop-out" :
+                "pop-out/" + lineRules.getName();
+    }
+
+    @Override
+    public boolean containsLine(BitBoard board, int length) {
+        return lineRules.containsLine(board, length);
+    }
+
+    @Override
+    public boolean completesLine(BitBoard board, int x, int y, int length) {
+        return lineRules.completesLine(board, x, y, length);
+    }
+
+    @Override
+    public long getCompletingCells(BitBoard board, int length) {
+        return lineRules.getCompletingCells(board, length);
+    }
+
+    @Override
+    public boolean allowsPopOut() {
+        return true;
+    }
+
+    public Rules getLineRules() {
+        return lineRules;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PopOutRules
+            && ((PopOutRules) o).lineRules.equals(lineRules);
+    }
+
+    @Override
+    public int hashCode() {
+        return lineRules.hashCode() + 1;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,57 @@
+package net.coderodde.connectfour.base;
+
+/**
+ * This interface specifies the rules of a Connect Four variant on top of the
+ * board geometry: which sets of tokens count as winning lines, and whether the
+ * tokens may be popped out from the bottom. A {@link ConnectFourState} asks
+ * its rules for victory detection, so each variant detects the lines on the
+ * bitboards in its own way.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public interface Rules {
+
+    /**
+     * Returns the name of the variant.
+     * @return the name.
+     */
+    public String getName();
+
+    /**
+     * Checks whether the board contains a winning line.
+     * @param board the tokens of a player.
+     * @param length the winning length.
+     * @return {@code true} only if the board contains a line.
+     */
+    public boolean containsLine(BitBoard board, int length);
+
+    /**
+     * Checks whether setting the cell {@code (x, y)} would create a winning
+     * line through it.
+     * @param board the tokens of a player.
+     * @param x the column.
+     * @param y the row.
+     * @param length the winning length.
+     * @return {@code true} only if a line would appear.
+     */
+    public boolean completesLine(BitBoard board, int x, int y, int length);
+
+    /**
+     * Returns the cells that would complete a winning line, as a word in the
+     * layout of {@link BitBoard#getWord(int)}.
+     * @param board the tokens of a player; must fit in a single word.
+     * @param length the winning length.
+     * @return the completing cells.
+     */
+    public long getCompletingCells(BitBoard board, int length);
+
+    /**
+     * Tells whether a player may pop a token of their own out from the bottom
+     * of a column instead of putting a token in.
+     * @return {@code true} only if the tokens may be popped out.
+     */
+    public default boolean allowsPopOut() {
+        return false;
+    }
+}
@@ -0,0 +1,43 @@
+package net.coderodde.connectfour.base;
+
+/**
+ * This class implements the standard rules: a horizontal, vertical or
+ * diagonal line of {@code winningLength} tokens wins.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class StandardRules implements Rules {
+
+    /**
+     * The only instance.
+     */
+    public static final StandardRules INSTANCE = new StandardRules();
+
+    private StandardRules() {}
+
+    @Override
+    public String getName() {
+        return "standard";
+    }
+
+    @Override
+    public boolean containsLine(BitBoard board, int length) {
+        return board.containsLine(length);
+    }
+
+    @Override
+    public boolean completesLine(BitBoard board, int x, int y, int length) {
+        return board.completesLine(x, y, length);
+    }
+
+    @Override
+    public long getCompletingCells(BitBoard board, int length) {
+        return board.getCompletingCells(length);
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,44 @@
+package net.coderodde.connectfour.base;
+
+/**
+ * This class implements the rules of the cylindrical variant: the board wraps
+ * around so that the horizontal and diagonal lines may continue from the last
+ * column to the first one.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class WrapAroundRules implements Rules {
+
+    /**
+     * The only instance.
+     */
+    public static final WrapAroundRules INSTANCE = new WrapAroundRules();
+
+    private WrapAroundRules() {}
+
+    @Override
+    public String getName() {
+        return "wrap-around";
+    }
+
+    @Override
+    public boolean containsLine(BitBoard board, int length) {
+        return board.containsWrappedLine(length);
+    }
+
+    @Override
+    public boolean completesLine(BitBoard board, int x, int y, int length) {
+        return board.completesWrappedLine(x, y, length);
+    }
+
+    @Override
+    public long getCompletingCells(BitBoard board, int length) {
+        return board.getWrappedCompletingCells(length);
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
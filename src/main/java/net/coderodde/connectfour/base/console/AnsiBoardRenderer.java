@@ -0,0 +1,212 @@
+package net.coderodde.connectfour.base.console;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class renders the games on an ANSI terminal. The board is drawn in
+ * full at the top of the screen when a game starts; after that, only the
+ * cells that differ from the ones on the screen are redrawn, each with a
+ * cursor positioning escape sequence followed by the token, and the area
+ * below the board is cleared for the messages and the prompts.
+ * <p>
+ * The output is collected into a reused byte buffer and written to a channel,
+ * by default the standard output bypassing {@link System#out}. The buffer is
+ * written out when it fills up, on {@link #flush()}, after each message and,
+ * if {@code flushEveryUpdate} is set, after each update.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class AnsiBoardRenderer implements BoardRenderer {
+
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    private static final byte ESCAPE = 0x1b;
+
+    /**
+     * Moves the cursor home and clears the screen.
+     */
+    private static final byte[] CLEAR_SCREEN = {
+        ESCAPE, '[', 'H', ESCAPE, '[', '2', 'J'
+    };
+
+    /**
+     * Clears from the cursor to the end of the screen.
+     */
+    private static final byte[] CLEAR_BELOW = { ESCAPE, '[', 'J' };
+
+    /**
+     * The cell codes of the screen image, as well as the bytes drawn for
+     * them.
+     */
+    private static final byte EMPTY = ' ';
+    private static final byte WHITE =
+            (byte) PlayerColor.WHITE_PLAYER.getChar();
+    private static final byte RED = (byte) PlayerColor.RED_PLAYER.getChar();
+
+    private final WritableByteChannel channel;
+    private final boolean flushEveryUpdate;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * {@code screen[x * height + y]} is the cell {@code (x, y)} as shown on
+     * the screen.
+     */
+    private byte[] screen = new byte[0];
+    private int width;
+    private int height;
+
+    /**
+     * Constructs a renderer writing to the standard output and flushing after
+     * each update.
+     */
+    public AnsiBoardRenderer() {
+        this(Channels.newChannel(new FileOutputStream(FileDescriptor.out)),
+             true);
+    }
+
+    /**
+     * Constructs a renderer writing to the given channel.
+     * @param channel the target channel.
+     * @param flushEveryUpdate whether to write out each update at once.
+     */
+    public AnsiBoardRenderer(WritableByteChannel channel,
+                             boolean flushEveryUpdate) {
+        this.channel = Objects.requireNonNull(channel,
+                                              "The input channel is null.");
+        this.flushEveryUpdate = flushEveryUpdate;
+    }
+
+    @Override
+    public void start(ConnectFourState state) throws IOException {
+        width = state.getWidth();
+        height = state.getHeight();
+
+        if (screen.length != width * height) {
+            screen = new byte[width * height];
+        }
+
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                screen[x * height + y] = toCell(state.readCell(x, y));
+            }
+        }
+
+        put(CLEAR_SCREEN);
+        put(state.toString().getBytes(StandardCharsets.UTF_8));
+        putCursorBelowBoard();
+
+        if (flushEveryUpdate) {
+            flush();
+        }
+    }
+
+    @Override
+    public void update(ConnectFourState state, int x) throws IOException {
+        if (state.getWidth() != width || state.getHeight() != height) {
+            throw new IllegalStateException(
+                    "The state does not match the board on the screen.");
+        }
+
+        int offset = x * height;
+
+        for (int y = 0; y < height; y++) {
+            byte cell = toCell(state.readCell(x, y));
+
+            if (screen[offset + y] != cell) {
+                screen[offset + y] = cell;
+                putCursorPosition(y + 1, 2 * x + 2);
+                put(cell);
+            }
+        }
+
+        putCursorBelowBoard();
+
+        if (flushEveryUpdate) {
+            flush();
+        }
+    }
+
+    @Override
+    public void message(String text) throws IOException {
+        put(text.getBytes(StandardCharsets.UTF_8));
+        put((byte) '\n');
+        flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * Moves the cursor to the start of the line below the lower bar and
+     * clears everything below it.
+     */
+    private void putCursorBelowBoard() throws IOException {
+        putCursorPosition(height + 2, 1);
+        put(CLEAR_BELOW);
+    }
+
+    private void putCursorPosition(int row, int column) throws IOException {
+        ensureRemaining(32);
+        buffer.put(ESCAPE).put((byte) '[');
+        putDecimal(row);
+        buffer.put((byte) ';');
+        putDecimal(column);
+        buffer.put((byte) 'H');
+    }
+
+    private void putDecimal(int value) {
+        if (value >= 10) {
+            putDecimal(value / 10);
+        }
+
+        buffer.put((byte) ('0' + value % 10));
+    }
+
+    private void put(byte b) throws IOException {
+        ensureRemaining(1);
+        buffer.put(b);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        int offset = 0;
+
+        while (offset < bytes.length) {
+            ensureRemaining(1);
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private static byte toCell(PlayerColor player) {
+        if (player == null) {
+            return EMPTY;
+        }
+
+        return player == PlayerColor.WHITE_PLAYER ? WHITE : RED;
+    }
+}
@@ -0,0 +1,44 @@
+package net.coderodde.connectfour.base.console;
+
+import java.io.IOException;
+import net.coderodde.connectfour.base.ConnectFourState;
+
+/**
+ * This interface specifies the API for showing the course of a game. The
+ * board is drawn once at the start of the game, and after that the renderer
+ * is told which column each move changed, so that it may redraw only that.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public interface BoardRenderer {
+
+    /**
+     * Draws the initial state of a game.
+     * @param state the state.
+     * @throws IOException if writing fails.
+     */
+    public void start(ConnectFourState state) throws IOException;
+
+    /**
+     * Shows the state after a move that changed only the column {@code x},
+     * such as dropping a token to it or popping one out of it.
+     * @param state the state after the move.
+     * @param x the changed column.
+     * @throws IOException if writing fails.
+     */
+    public void update(ConnectFourState state, int x) throws IOException;
+
+    /**
+     * Shows a line of text below the board.
+     * @param text the text.
+     * @throws IOException if writing fails.
+     */
+    public void message(String text) throws IOException;
+
+    /**
+     * Writes out everything rendered so far.
+     * @throws IOException if writing fails.
+     */
+    public void flush() throws IOException;
+}
@@ -0,0 +1,29 @@
+package net.coderodde.connectfour.base.console;
+
+import net.coderodde.connectfour.base.ConnectFourState;
+
+/**
+ * This class implements a renderer that shows nothing, for running games at
+ * full speed.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class HeadlessRenderer implements BoardRenderer {
+
+    public static final HeadlessRenderer INSTANCE = new HeadlessRenderer();
+
+    private HeadlessRenderer() {}
+
+    @Override
+    public void start(ConnectFourState state) {}
+
+    @Override
+    public void update(ConnectFourState state, int x) {}
+
+    @Override
+    public void message(String text) {}
+
+    @Override
+    public void flush() {}
+}
@@ -0,0 +1,80 @@
+package net.coderodde.connectfour.base.dataset;
+
+import java.util.Objects;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class holds a single position of a dataset: the board, the player to
+ * move and the value of the position from the point of view of that player,
+ * with the best move and the search depth if the value comes from a search.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class LabelledPosition {
+
+    private final ConnectFourState state;
+    private final PlayerColor playerToMove;
+    private final double value;
+    private final int bestMove;
+    private final int depth;
+
+    /**
+     * Constructs a labelled position.
+     * @param state the board.
+     * @param playerToMove the player to move.
+     * @param value the value from the point of view of the player to move.
+     * @param bestMove the best move, or -1 if not known.
+     * @param depth the depth of the search, or zero if not searched.
+     */
+    public LabelledPosition(ConnectFourState state,
+                            PlayerColor playerToMove,
+                            double value,
+                            int bestMove,
+                            int depth) {
+        this.state = Objects.requireNonNull(state, "The input state is null.");
+        this.playerToMove = Objects.requireNonNull(
+                playerToMove,
+                "The player to move is null.");
+
+        if (bestMove < -1 || bestMove >= state.getWidth()) {
+            throw new IllegalArgumentException("bestMove = " + bestMove);
+        }
+
+        if (depth < 0) {
+            throw new IllegalArgumentException("depth = " + depth);
+        }
+
+        this.value = value;
+        this.bestMove = bestMove;
+        this.depth = depth;
+    }
+
+    public ConnectFourState getState() {
+        return state;
+    }
+
+    public PlayerColor getPlayerToMove() {
+        return playerToMove;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + playerToMove + " to move, value " + value +
+               ", best move " + bestMove + ", depth " + depth + "]\n" +
+               state;
+    }
+}
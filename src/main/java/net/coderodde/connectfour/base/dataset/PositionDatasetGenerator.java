@@ -0,0 +1,508 @@
+package net.coderodde.connectfour.base.dataset;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import net.coderodde.connectfour.base.Bot;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+import net.coderodde.connectfour.base.impl.RandomBot;
+import net.coderodde.connectfour.base.impl.SmartBot;
+import net.coderodde.connectfour.base.impl.TranspositionTable;
+
+/**
+ * This class generates position datasets. Each worker thread plays random
+ * openings with two {@link RandomBot}s, the white player moving first, drops
+ * the terminal positions and the ones seen before (by position key), and
+ * labels the rest either with a {@link SmartBot} search or with the mean
+ * result of random playouts. The labelled positions go through a bounded
+ * queue to the calling thread, which writes them with a
+ * {@link PositionDatasetWriter}; when the writer falls behind, the workers
+ * block on the full queue.
+ * <p>
+ * If the geometry has fewer distinct openings than requested, the workers
+ * give up after {@value #MAXIMUM_ATTEMPTS_PER_POSITION} openings per
+ * requested position and a shorter dataset is written.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class PositionDatasetGenerator {
+
+    /**
+     * The number of random openings played per requested position before
+     * giving up.
+     */
+    public static final int MAXIMUM_ATTEMPTS_PER_POSITION = 100;
+
+    /**
+     * The number of transposition table entries per worker.
+     */
+    private static final int TABLE_CAPACITY = 1 << 16;
+
+    /**
+     * The maximum positional weight of the evaluator.
+     */
+    private static final double MAXIMUM_WEIGHT = 10.0;
+
+    private final int width;
+    private final int height;
+    private final int winningLength;
+    private int minimumOpeningPlies;
+    private int maximumOpeningPlies;
+    private int searchDepth = 6;
+    private int playouts;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 1024;
+    private long seed = System.nanoTime();
+
+    /**
+     * The statistics of the last run.
+     */
+    private final AtomicLong attemptCount = new AtomicLong();
+    private final AtomicLong duplicateCount = new AtomicLong();
+
+    /**
+     * Constructs a generator for the given geometry.
+     * @param width the width of the board.
+     * @param height the height of the board.
+     * @param winningLength the winning length.
+     */
+    public PositionDatasetGenerator(int width, int height, int winningLength) {
+        // Validates the geometry:
+        new ConnectFourState(width, height, winningLength);
+        this.width = width;
+        this.height = height;
+        this.winningLength = winningLength;
+        this.maximumOpeningPlies = Math.min(16, width * height - 1);
+        this.minimumOpeningPlies = Math.min(4, maximumOpeningPlies);
+    }
+
+    /**
+     * Sets the range of the number of random moves in an opening. The
+     * default range is from 4 to 16, capped by the size of the board.
+     * @param minimumOpeningPlies the minimum number of moves.
+     * @param maximumOpeningPlies the maximum number of moves.
+     */
+    public void setOpeningPlies(int minimumOpeningPlies,
+                                int maximumOpeningPlies) {
+        if (minimumOpeningPlies < 0
+                || maximumOpeningPlies < minimumOpeningPlies
+                || minimumOpeningPlies >= width * height) {
+            throw new IllegalArgumentException(
+                    "Bad opening ply range: " + minimumOpeningPlies + ".." +
+                    maximumOpeningPlies);
+        }
+
+        this.minimumOpeningPlies = minimumOpeningPlies;
+        this.maximumOpeningPlies = Math.min(maximumOpeningPlies,
+                                            width * height - 1);
+    }
+
+    /**
+     * Sets the depth of the labelling searches. The default is 6.
+     * @param searchDepth the depth in plies.
+     */
+    public void setSearchDepth(int searchDepth) {
+        if (searchDepth < 1) {
+            throw new IllegalArgumentException(
+                    "searchDepth = " + searchDepth);
+        }
+
+        this.searchDepth = searchDepth;
+    }
+
+    /**
+     * Sets the number of random playouts per position. When positive, the
+     * positions are labelled with {@link ValueKind#PLAYOUT_SCORE} instead of
+     * being searched. The default is zero.
+     * @param playouts the number of playouts.
+     */
+    public void setPlayouts(int playouts) {
+        if (playouts < 0) {
+            throw new IllegalArgumentException("playouts = " + playouts);
+        }
+
+        this.playouts = playouts;
+    }
+
+    /**
+     * Sets the number of worker threads. The default is the number of
+     * processors.
+     * @param threads the number of workers.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads = " + threads);
+        }
+
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the capacity of the queue between the workers and the writer.
+     * @param queueCapacity the number of positions the queue may hold.
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException(
+                    "queueCapacity = " + queueCapacity);
+        }
+
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Sets the seed of the random openings. Worker {@code i} uses the
+     * {@code i}th stream split off from the seed, but the order in which the
+     * workers deliver positions is not deterministic.
+     * @param seed the seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the kind of the values produced with the current settings.
+     * @return the value kind.
+     */
+    public ValueKind getValueKind() {
+        return playouts > 0 ? ValueKind.PLAYOUT_SCORE : ValueKind.SEARCH_SCORE;
+    }
+
+    /**
+     * Returns the number of random openings played during the last run.
+     * @return the attempt count.
+     */
+    public long getAttemptCount() {
+        return attemptCount.get();
+    }
+
+    /**
+     * Returns the number of openings dropped as duplicates during the last
+     * run.
+     * @return the duplicate count.
+     */
+    public long getDuplicateCount() {
+        return duplicateCount.get();
+    }
+
+    /**
+     * Generates a dataset.
+     * @param file the output file.
+     * @param targetCount the number of positions to generate.
+     * @return the number of positions written.
+     * @throws IOException if writing fails.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public long generate(Path file, long targetCount)
+            throws IOException, InterruptedException {
+        if (targetCount < 0L) {
+            throw new IllegalArgumentException(
+                    "targetCount = " + targetCount);
+        }
+
+        attemptCount.set(0L);
+        duplicateCount.set(0L);
+
+        BlockingQueue<LabelledPosition> queue =
+                new ArrayBlockingQueue<>(queueCapacity);
+        Set<Long> seenKeys = ConcurrentHashMap.newKeySet();
+        AtomicLong claimedCount = new AtomicLong();
+        long maximumAttempts = Math.max(1L, targetCount) *
+                               MAXIMUM_ATTEMPTS_PER_POSITION;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>(threads);
+
+        try (PositionDatasetWriter writer =
+                new PositionDatasetWriter(file,
+                                          width,
+                                          height,
+                                          winningLength,
+                                          getValueKind())) {
+            SplittableRandom seedRandom = new SplittableRandom(seed);
+
+            for (int i = 0; i < threads; i++) {
+                Worker worker = new Worker(seedRandom.split(),
+                                           queue,
+                                           seenKeys,
+                                           claimedCount,
+                                           targetCount,
+                                           maximumAttempts);
+                futures.add(executor.submit(worker));
+            }
+
+            long written = 0L;
+
+            while (written < targetCount) {
+                LabelledPosition position =
+                        queue.poll(100L, TimeUnit.MILLISECONDS);
+
+                if (position != null) {
+                    writer.write(position);
+                    written++;
+                } else if (allDone(futures) && queue.isEmpty()) {
+                    break;
+                }
+            }
+
+            return written;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks whether all the workers have finished, rethrowing the failure of
+     * any.
+     */
+    private static boolean allDone(List<Future<?>> futures)
+            throws InterruptedException {
+        boolean done = true;
+
+        for (Future<?> future : futures) {
+            if (!future.isDone()) {
+                done = false;
+                continue;
+            }
+
+            try {
+                future.get();
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException(
+                        "Generating positions failed.", ex.getCause());
+            }
+        }
+
+        return done;
+    }
+
+    /**
+     * Produces labelled positions until the target count is claimed or the
+     * attempts run out.
+     */
+    private final class Worker implements Runnable {
+
+        private final SplittableRandom random;
+        private final BlockingQueue<LabelledPosition> queue;
+        private final Set<Long> seenKeys;
+        private final AtomicLong claimedCount;
+        private final long targetCount;
+        private final long maximumAttempts;
+        private final Bot whiteBot;
+        private final Bot redBot;
+        private final DefaultHeuristicFunction evaluator;
+        private final TranspositionTable table;
+
+        Worker(SplittableRandom random,
+               BlockingQueue<LabelledPosition> queue,
+               Set<Long> seenKeys,
+               AtomicLong claimedCount,
+               long targetCount,
+               long maximumAttempts) {
+            this.random = random;
+            this.queue = queue;
+            this.seenKeys = seenKeys;
+            this.claimedCount = claimedCount;
+            this.targetCount = targetCount;
+            this.maximumAttempts = maximumAttempts;
+            this.whiteBot = new RandomBot(PlayerColor.WHITE_PLAYER, random);
+            this.redBot = new RandomBot(PlayerColor.RED_PLAYER, random);
+            this.evaluator = new DefaultHeuristicFunction(width,
+                                                          height,
+                                                          MAXIMUM_WEIGHT,
+                                                          winningLength);
+            this.table = new TranspositionTable(width,
+                                                height,
+                                                winningLength,
+                                                TABLE_CAPACITY);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (claimedCount.get() < targetCount
+                        && attemptCount.incrementAndGet() <= maximumAttempts) {
+                    ConnectFourState state = playOpening();
+
+                    if (state == null) {
+                        continue;
+                    }
+
+                    if (!seenKeys.add(state.getPositionKey())) {
+                        duplicateCount.incrementAndGet();
+                        continue;
+                    }
+
+                    if (claimedCount.getAndIncrement() >= targetCount) {
+                        return;
+                    }
+
+                    queue.put(label(state));
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Plays a random opening.
+         * @return the position, or {@code null} if the game ended.
+         */
+        private ConnectFourState playOpening() {
+            int plies = minimumOpeningPlies +
+                        random.nextInt(maximumOpeningPlies -
+                                       minimumOpeningPlies + 1);
+            ConnectFourState state =
+                    new ConnectFourState(width, height, winningLength);
+
+            for (int ply = 0; ply < plies; ply++) {
+                state = (ply % 2 == 0 ? whiteBot : redBot)
+                        .computeNextState(state);
+
+                if (state.checkVictory() != null || state.isFull()) {
+                    return null;
+                }
+            }
+
+            return state;
+        }
+
+        private LabelledPosition label(ConnectFourState state) {
+            PlayerColor playerToMove = state.getMoveCount() % 2 == 0 ?
+                    PlayerColor.WHITE_PLAYER :
+                    PlayerColor.RED_PLAYER;
+
+            if (playouts > 0) {
+                return new LabelledPosition(state,
+                                            playerToMove,
+                                            playOut(state, playerToMove),
+                                            -1,
+                                            0);
+            }
+
+            SmartBot bot = new SmartBot(
+                    playerToMove,
+                    evaluator,
+                    Math.min(searchDepth, state.getEmptyCellCount()));
+            bot.setTranspositionTable(table);
+            ConnectFourState nextState = bot.computeNextState(state);
+            return new LabelledPosition(state,
+                                        playerToMove,
+                                        bot.getLastScore(),
+                                        state.findMoveColumn(nextState),
+                                        bot.getLastDepth());
+        }
+
+        /**
+         * Returns the mean result of the random playouts from the point of
+         * view of the player to move.
+         */
+        private double playOut(ConnectFourState state,
+                               PlayerColor playerToMove) {
+            double sum = 0.0;
+
+            for (int i = 0; i < playouts; i++) {
+                ConnectFourState current = state;
+                boolean whiteToMove =
+                        playerToMove == PlayerColor.WHITE_PLAYER;
+                PlayerColor winner;
+
+                while ((winner = current.checkVictory()) == null
+                        && !current.isFull()) {
+                    current = (whiteToMove ? whiteBot : redBot)
+                            .computeNextState(current);
+                    whiteToMove = !whiteToMove;
+                }
+
+                if (winner == null) {
+                    sum += 0.5;
+                } else if (winner == playerToMove) {
+                    sum += 1.0;
+                }
+            }
+
+            return sum / playouts;
+        }
+    }
+
+    /**
+     * Generates a dataset from the command line:
+     * {@code WIDTH HEIGHT WINNING_LENGTH COUNT FILE [depth N] [playouts N]
+     * [plies MIN-MAX] [threads N] [queue N] [seed N]}.
+     * @param args the command line arguments.
+     * @throws Exception if generating fails.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 5) {
+            System.out.println(
+                    "Usage: java " + PositionDatasetGenerator.class.getName() +
+                    " WIDTH HEIGHT WINNING_LENGTH COUNT FILE [depth N] " +
+                    "[playouts N] [plies MIN-MAX] [threads N] [queue N] " +
+                    "[seed N]");
+            return;
+        }
+
+        PositionDatasetGenerator generator =
+                new PositionDatasetGenerator(Integer.parseInt(args[0]),
+                                             Integer.parseInt(args[1]),
+                                             Integer.parseInt(args[2]));
+
+        for (int i = 5; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "depth":
+                    generator.setSearchDepth(Integer.parseInt(args[i + 1]));
+                    break;
+
+                case "playouts":
+                    generator.setPlayouts(Integer.parseInt(args[i + 1]));
+                    break;
+
+                case "plies":
+                    String[] range = args[i + 1].split("-");
+                    generator.setOpeningPlies(Integer.parseInt(range[0]),
+                                              Integer.parseInt(range[1]));
+                    break;
+
+                case "threads":
+                    generator.setThreads(Integer.parseInt(args[i + 1]));
+                    break;
+
+                case "queue":
+                    generator.setQueueCapacity(Integer.parseInt(args[i + 1]));
+                    break;
+
+                case "seed":
+                    generator.setSeed(Long.parseLong(args[i + 1]));
+                    break;
+
+                default:
+                    throw new IllegalArgumentException(
+                            "Unknown option: " + args[i]);
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
+        long count = generator.generate(Paths.get(args[4]),
+                                        Long.parseLong(args[3]));
+        long duration = System.currentTimeMillis() - startTime;
+        System.out.println(
+                "Wrote " + count + " positions in " + duration + " ms (" +
+                generator.getAttemptCount() + " openings, " +
+                generator.getDuplicateCount() + " duplicates).");
+    }
+}
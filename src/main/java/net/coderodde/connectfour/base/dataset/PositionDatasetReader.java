@@ -0,0 +1,238 @@
+package net.coderodde.connectfour.base.dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class streams the positions of a file written by
+ * {@link PositionDatasetWriter}. A position cut short at the end of the file,
+ * as left by a crashed writer, ends the stream.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class PositionDatasetReader implements Closeable,
+                                                    Iterable<LabelledPosition> {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final int width;
+    private final int height;
+    private final int winningLength;
+    private final ValueKind valueKind;
+    private boolean endOfFile;
+
+    /**
+     * Opens the file and reads the header.
+     * @param file the file to read.
+     * @throws IOException if the file cannot be read or is not a dataset.
+     */
+    public PositionDatasetReader(Path file) throws IOException {
+        Objects.requireNonNull(file, "The input file is null.");
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+
+        try {
+            buffer.limit(0);
+            fill();
+
+            if (buffer.remaining() < PositionDatasetWriter.HEADER_SIZE
+                    || buffer.getInt() != PositionDatasetWriter.MAGIC) {
+                throw new IOException("Not a position dataset: " + file);
+            }
+
+            int version = buffer.getInt();
+
+            if (version != PositionDatasetWriter.VERSION) {
+                throw new IOException("Unsupported dataset version: " +
+                                      version);
+            }
+
+            this.width = buffer.getInt();
+            this.height = buffer.getInt();
+            this.winningLength = buffer.getInt();
+            this.valueKind = ValueKind.values()[buffer.getInt()];
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads the next position.
+     * @return the next position, or {@code null} if there are no more.
+     * @throws IOException if reading fails or the file is corrupt.
+     */
+    public LabelledPosition read() throws IOException {
+        fill();
+
+        if (!buffer.hasRemaining()) {
+            return null;
+        }
+
+        int start = buffer.position();
+
+        try {
+            return decode();
+        } catch (BufferUnderflowException ex) {
+            // A torn last position.
+            buffer.position(start);
+            return null;
+        }
+    }
+
+    /**
+     * Returns an iterator over the remaining positions. Reading errors are
+     * rethrown as {@link UncheckedIOException}.
+     * @return the iterator.
+     */
+    @Override
+    public Iterator<LabelledPosition> iterator() {
+        return new Iterator<LabelledPosition>() {
+
+            private LabelledPosition next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = read();
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }
+
+                return next != null;
+            }
+
+            @Override
+            public LabelledPosition next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                LabelledPosition position = next;
+                next = null;
+                return position;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWinningLength() {
+        return winningLength;
+    }
+
+    public ValueKind getValueKind() {
+        return valueKind;
+    }
+
+    private LabelledPosition decode() throws IOException {
+        int playerOrdinal = buffer.get();
+
+        if (playerOrdinal < 0 || playerOrdinal >= PlayerColor.values().length) {
+            throw new IOException("Corrupt position data.");
+        }
+
+        int[] tokenCounts = new int[width];
+        int tokenCount = 0;
+
+        for (int x = 0; x < width; x++) {
+            tokenCounts[x] = buffer.get();
+
+            if (tokenCounts[x] < 0 || tokenCounts[x] > height) {
+                throw new IOException("Corrupt position data.");
+            }
+
+            tokenCount += tokenCounts[x];
+        }
+
+        ConnectFourState state =
+                new ConnectFourState(width, height, winningLength);
+        int bits = 0;
+        int bitIndex = Byte.SIZE;
+
+        for (int x = 0; x < width; x++) {
+            for (int i = 0; i < tokenCounts[x]; i++) {
+                if (bitIndex == Byte.SIZE) {
+                    bits = buffer.get();
+                    bitIndex = 0;
+                }
+
+                PlayerColor playerColor = (bits & (1 << bitIndex++)) != 0 ?
+                        PlayerColor.WHITE_PLAYER :
+                        PlayerColor.RED_PLAYER;
+                state = state.move(x, playerColor);
+            }
+        }
+
+        double value = buffer.getFloat();
+        int bestMove = readVarInt() - 1;
+        int depth = readVarInt();
+
+        return new LabelledPosition(state,
+                                    PlayerColor.values()[playerOrdinal],
+                                    value,
+                                    bestMove,
+                                    depth);
+    }
+
+    private int readVarInt() {
+        int value = 0;
+        int shift = 0;
+        byte b;
+
+        do {
+            b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        return value;
+    }
+
+    /**
+     * Tops up the buffer so that it holds a whole position unless the end of
+     * the file is near.
+     */
+    private void fill() throws IOException {
+        if (endOfFile || buffer.remaining() >= BUFFER_SIZE / 2) {
+            return;
+        }
+
+        buffer.compact();
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                endOfFile = true;
+                break;
+            }
+        }
+
+        buffer.flip();
+    }
+}
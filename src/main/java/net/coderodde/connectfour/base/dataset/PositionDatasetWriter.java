@@ -0,0 +1,217 @@
+package net.coderodde.connectfour.base.dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class writes a position dataset. A dataset file starts with the header
+ * <pre>
+ *   int MAGIC, int VERSION, int WIDTH, int HEIGHT, int WINNING_LENGTH,
+ *   int VALUE_KIND
+ * </pre>
+ * followed by the positions, each encoded as
+ * <pre>
+ *   byte PLAYER_TO_MOVE, byte[WIDTH] COLUMN_TOKEN_COUNTS,
+ *   byte[(TOKENS + 7) / 8] COLORS, float VALUE,
+ *   varint BEST_MOVE + 1, varint DEPTH
+ * </pre>
+ * where the color bits list the tokens column by column from the bottom up,
+ * a set bit standing for a white token. A 7x6 position searched shallower
+ * than 128 plies takes at most 20 bytes.
+ * <p>
+ * The writer may be shared by several threads.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class PositionDatasetWriter implements Closeable {
+
+    /**
+     * The magic number at the beginning of each dataset file ("C4DS").
+     */
+    static final int MAGIC = 0x43344453;
+
+    /**
+     * The version of the file format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The size of the header in bytes.
+     */
+    static final int HEADER_SIZE = 24;
+
+    /**
+     * The default size of the output buffer.
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int width;
+    private final int height;
+    private final int winningLength;
+    private long positionCount;
+
+    /**
+     * Creates or overwrites the dataset file and writes the header.
+     * @param file the target file.
+     * @param width the width of the boards.
+     * @param height the height of the boards.
+     * @param winningLength the winning length.
+     * @param valueKind the kind of the values.
+     * @throws IOException if the file cannot be written.
+     */
+    public PositionDatasetWriter(Path file,
+                                 int width,
+                                 int height,
+                                 int winningLength,
+                                 ValueKind valueKind) throws IOException {
+        Objects.requireNonNull(file, "The input file is null.");
+        Objects.requireNonNull(valueKind, "The value kind is null.");
+        this.width = width;
+        this.height = height;
+        this.winningLength = winningLength;
+        this.buffer = ByteBuffer.allocate(
+                Math.max(DEFAULT_BUFFER_SIZE,
+                         2 * getMaximumRecordSize(width, height)));
+        this.channel = FileChannel.open(file,
+                                        StandardOpenOption.CREATE,
+                                        StandardOpenOption.TRUNCATE_EXISTING,
+                                        StandardOpenOption.WRITE);
+        buffer.putInt(MAGIC)
+              .putInt(VERSION)
+              .putInt(width)
+              .putInt(height)
+              .putInt(winningLength)
+              .putInt(valueKind.ordinal());
+    }
+
+    /**
+     * Appends a position. The position reaches the file once the buffer fills
+     * up, or on {@link #flush()} or {@link #close()}.
+     * @param position the position to append.
+     * @throws IOException if writing a full buffer fails.
+     */
+    public synchronized void write(LabelledPosition position)
+            throws IOException {
+        Objects.requireNonNull(position, "The input position is null.");
+        ConnectFourState state = position.getState();
+
+        if (state.getWidth() != width
+                || state.getHeight() != height
+                || state.getWinningLength() != winningLength) {
+            throw new IllegalArgumentException(
+                    "The position does not match the geometry of the " +
+                    "dataset.");
+        }
+
+        if (buffer.remaining() < getMaximumRecordSize(width, height)) {
+            writeBuffer();
+        }
+
+        buffer.put((byte) position.getPlayerToMove().ordinal());
+
+        for (int x = 0; x < width; x++) {
+            buffer.put((byte) getTokenCount(state, x));
+        }
+
+        int bits = 0;
+        int bitCount = 0;
+
+        for (int x = 0; x < width; x++) {
+            for (int y = height - 1; y >= 0; y--) {
+                PlayerColor playerColor = state.readCell(x, y);
+
+                if (playerColor == null) {
+                    break;
+                }
+
+                if (playerColor == PlayerColor.WHITE_PLAYER) {
+                    bits |= 1 << bitCount;
+                }
+
+                if (++bitCount == Byte.SIZE) {
+                    buffer.put((byte) bits);
+                    bits = 0;
+                    bitCount = 0;
+                }
+            }
+        }
+
+        if (bitCount > 0) {
+            buffer.put((byte) bits);
+        }
+
+        buffer.putFloat((float) position.getValue());
+        writeVarInt(position.getBestMove() + 1);
+        writeVarInt(position.getDepth());
+        positionCount++;
+    }
+
+    /**
+     * Writes the buffered positions to the file.
+     * @throws IOException if writing fails.
+     */
+    public synchronized void flush() throws IOException {
+        writeBuffer();
+    }
+
+    /**
+     * Returns the number of positions written so far.
+     * @return the position count.
+     */
+    public synchronized long getPositionCount() {
+        return positionCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static int getTokenCount(ConnectFourState state, int x) {
+        int count = 0;
+
+        while (count < state.getHeight()
+                && state.readCell(x, state.getHeight() - 1 - count) != null) {
+            count++;
+        }
+
+        return count;
+    }
+
+    private static int getMaximumRecordSize(int width, int height) {
+        return 1 + width + (width * height + 7) / 8 + Float.BYTES + 10;
+    }
+
+    private void writeVarInt(int value) {
+        while ((value & ~0x7f) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+
+        buffer.put((byte) value);
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+}
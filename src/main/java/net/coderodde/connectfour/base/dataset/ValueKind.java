@@ -0,0 +1,22 @@
+package net.coderodde.connectfour.base.dataset;
+
+/**
+ * This enumeration lists the kinds of the values of a position dataset.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public enum ValueKind {
+
+    /**
+     * The score of a {@link net.coderodde.connectfour.base.impl.SmartBot}
+     * search, from the point of view of the player to move.
+     */
+    SEARCH_SCORE,
+
+    /**
+     * The mean result of random playouts from the point of view of the
+     * player to move: 1 for a win, 0.5 for a draw and 0 for a loss.
+     */
+    PLAYOUT_SCORE;
+}
@@ -0,0 +1,307 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.util.Objects;
+import java.util.SplittableRandom;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class validates the {@link TimeManager} by playing clocked self-play
+ * games between a {@link SmartBot} managing its time and one spending a fixed
+ * budget per move: the starting clock divided by the number of moves of a
+ * player in a full game, plus the increment. Both bots deepen up to the end
+ * of the game and use a transposition table. Each random opening is played
+ * twice, with the colors swapped. A bot whose clock runs out loses the game.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class ClockedMatch {
+
+    /**
+     * The number of random moves opening each game pair.
+     */
+    private static final int OPENING_PLIES = 2;
+
+    private static final int TABLE_CAPACITY = 1 << 18;
+
+    /**
+     * The statistics of one of the bots.
+     */
+    public static final class Side {
+
+        private final String name;
+        private int wins;
+        private int draws;
+        private int losses;
+        private int timeLosses;
+        private long moveCount;
+        private long depthSum;
+        private long thinkMillis;
+        private long maximumMoveMillis;
+        private double minimumClockFraction = 1.0;
+
+        Side(String name) {
+            this.name = name;
+        }
+
+        public int getWins() {
+            return wins;
+        }
+
+        public int getDraws() {
+            return draws;
+        }
+
+        public int getLosses() {
+            return losses;
+        }
+
+        /**
+         * Returns the number of games lost by running out of time.
+         * @return the number of time losses.
+         */
+        public int getTimeLosses() {
+            return timeLosses;
+        }
+
+        /**
+         * Returns the mean depth completed per move.
+         * @return the mean depth.
+         */
+        public double getMeanDepth() {
+            return moveCount == 0L ? 0.0 : (double) depthSum / moveCount;
+        }
+
+        /**
+         * Returns the mean thinking time per move.
+         * @return the mean time in milliseconds.
+         */
+        public double getMeanMoveMillis() {
+            return moveCount == 0L ? 0.0 : (double) thinkMillis / moveCount;
+        }
+
+        public long getMaximumMoveMillis() {
+            return maximumMoveMillis;
+        }
+
+        /**
+         * Returns the smallest fraction of the starting clock left after a
+         * move.
+         * @return the minimum clock fraction.
+         */
+        public double getMinimumClockFraction() {
+            return minimumClockFraction;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-8s +%d =%d -%d (%d on time), " +
+                                 "depth %.1f, %.1f ms per move " +
+                                 "(max %d), min clock %.0f%%",
+                                 name,
+                                 wins,
+                                 draws,
+                                 losses,
+                                 timeLosses,
+                                 getMeanDepth(),
+                                 getMeanMoveMillis(),
+                                 maximumMoveMillis,
+                                 100.0 * minimumClockFraction);
+        }
+    }
+
+    private final HeuristicFunction evaluator;
+    private final int width;
+    private final int height;
+    private final int winningLength;
+    private final long clockMillis;
+    private final long incrementMillis;
+    private final Side managed = new Side("managed");
+    private final Side fixed = new Side("fixed");
+
+    /**
+     * Constructs a match.
+     * @param evaluator the evaluator of both bots.
+     * @param width the width of the board.
+     * @param height the height of the board.
+     * @param winningLength the winning length.
+     * @param clockMillis the starting clock of each bot.
+     * @param incrementMillis the increment per move.
+     */
+    public ClockedMatch(HeuristicFunction evaluator,
+                        int width,
+                        int height,
+                        int winningLength,
+                        long clockMillis,
+                        long incrementMillis) {
+        this.evaluator = Objects.requireNonNull(evaluator,
+                                                "The input evaluator is null.");
+
+        if (clockMillis < 1L) {
+            throw new IllegalArgumentException(
+                    "clockMillis = " + clockMillis);
+        }
+
+        if (incrementMillis < 0L) {
+            throw new IllegalArgumentException(
+                    "incrementMillis = " + incrementMillis);
+        }
+
+        this.width = width;
+        this.height = height;
+        this.winningLength = winningLength;
+        this.clockMillis = clockMillis;
+        this.incrementMillis = incrementMillis;
+    }
+
+    /**
+     * Plays the given number of game pairs.
+     * @param pairCount the number of game pairs.
+     * @param seed the seed of the openings.
+     */
+    public void play(int pairCount, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        for (int pair = 0; pair < pairCount; pair++) {
+            ConnectFourState opening = createOpening(random);
+            playGame(opening, PlayerColor.WHITE_PLAYER);
+            playGame(opening, PlayerColor.RED_PLAYER);
+        }
+    }
+
+    /**
+     * Returns the statistics of the bot managing its time.
+     * @return the statistics.
+     */
+    public Side getManagedSide() {
+        return managed;
+    }
+
+    /**
+     * Returns the statistics of the bot with a fixed budget per move.
+     * @return the statistics.
+     */
+    public Side getFixedSide() {
+        return fixed;
+    }
+
+    private void playGame(ConnectFourState state, PlayerColor managedColor) {
+        PlayerColor fixedColor = managedColor.opponent();
+        TimeManager timeManager = new TimeManager();
+        SmartBot managedBot = createBot(managedColor);
+        managedBot.setTimeManager(timeManager);
+        SmartBot fixedBot = createBot(fixedColor);
+        int movesPerPlayer = (width * height + 1) / 2;
+        fixedBot.setTimeLimit(
+                Math.max(1L, clockMillis / movesPerPlayer + incrementMillis));
+
+        long managedClock = clockMillis;
+        long fixedClock = clockMillis;
+        // The openings have an even number of plies:
+        PlayerColor player = PlayerColor.WHITE_PLAYER;
+
+        while (state.checkVictory() == null && !state.isFull()) {
+            boolean isManaged = player == managedColor;
+            SmartBot bot = isManaged ? managedBot : fixedBot;
+            Side side = isManaged ? managed : fixed;
+
+            if (isManaged) {
+                timeManager.setClock(managedClock, incrementMillis);
+            }
+
+            long startTime = System.nanoTime();
+            state = bot.computeNextState(state);
+            long moveMillis = (System.nanoTime() - startTime) / 1_000_000L;
+            long clock = (isManaged ? managedClock : fixedClock) - moveMillis;
+
+            side.moveCount++;
+            side.depthSum += bot.getLastDepth();
+            side.thinkMillis += moveMillis;
+            side.maximumMoveMillis = Math.max(side.maximumMoveMillis,
+                                              moveMillis);
+            side.minimumClockFraction =
+                    Math.min(side.minimumClockFraction,
+                             Math.max(0.0, (double) clock / clockMillis));
+
+            if (clock < 0L) {
+                side.timeLosses++;
+                side.losses++;
+                (isManaged ? fixed : managed).wins++;
+                return;
+            }
+
+            clock += incrementMillis;
+
+            if (isManaged) {
+                managedClock = clock;
+            } else {
+                fixedClock = clock;
+            }
+
+            player = player.opponent();
+        }
+
+        PlayerColor winner = state.checkVictory();
+
+        if (winner == null) {
+            managed.draws++;
+            fixed.draws++;
+        } else if (winner == managedColor) {
+            managed.wins++;
+            fixed.losses++;
+        } else {
+            fixed.wins++;
+            managed.losses++;
+        }
+    }
+
+    private SmartBot createBot(PlayerColor player) {
+        SmartBot bot = new SmartBot(player, evaluator, width * height);
+        bot.setTranspositionTable(new TranspositionTable(width,
+                                                         height,
+                                                         winningLength,
+                                                         TABLE_CAPACITY));
+        return bot;
+    }
+
+    private ConnectFourState createOpening(SplittableRandom random) {
+        while (true) {
+            ConnectFourState state =
+                    new ConnectFourState(width, height, winningLength);
+            PlayerColor player = PlayerColor.WHITE_PLAYER;
+
+            for (int ply = 0; ply < OPENING_PLIES; ply++) {
+                state = state.move(random.nextInt(width), player);
+                player = player.opponent();
+            }
+
+            if (state.checkVictory() == null) {
+                return state;
+            }
+        }
+    }
+
+    /**
+     * Plays a clocked match on the standard board:
+     * {@code [PAIRS] [CLOCK_MILLIS] [INCREMENT_MILLIS] [SEED]}.
+     * @param args the command line arguments.
+     */
+    public static void main(String[] args) {
+        int pairs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        long clock = args.length > 1 ? Long.parseLong(args[1]) : 10_000L;
+        long increment = args.length > 2 ? Long.parseLong(args[2]) : 100L;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1L;
+        ClockedMatch match =
+                new ClockedMatch(new DefaultHeuristicFunction(7, 6, 10.0, 4),
+                                 7,
+                                 6,
+                                 4,
+                                 clock,
+                                 increment);
+        match.play(pairs, seed);
+        System.out.println(match.getManagedSide());
+        System.out.println(match.getFixedSide());
+    }
+}
@@ -1,5 +1,6 @@
 package net.coderodde.connectfour.base.impl;
 
+import java.util.Arrays;
 import net.coderodde.connectfour.base.ConnectFourState;
 import net.coderodde.connectfour.base.PlayerColor;
 import net.coderodde.connectfour.base.HeuristicFunction;
@@ -15,26 +16,78 @@ public final class DefaultHeuristicFunction implements HeuristicFunction {
 
     /**
      * The weight matrix. Maps each position to its weight. We need this in 
-     * order to 
+     * order to favour the tokens close to the center of the board. Shared
+     * with the weights this function was constructed with.
      */
     private final double[][] weightMatrix;
     
+    /**
+     * Maps each pattern length to the weight of a single such pattern.
+     */
+    private final double[] patternWeights;
+    
     /**
      * The winning length.
      */
     private final int winningLength;
     
+    /**
+     * Whether to count the patterns on bitboards when the board fits in a 
+     * single word.
+     */
+    private volatile boolean bitBoardCounting = true;
+    
+    /**
+     * The shared bitboard pattern counter for the geometry seen last, or 
+     * {@code null} if not yet needed.
+     */
+    private volatile BitBoardPatternCounter patternCounter;
+    
+    /**
+     * The identity of this function; it changes with the weights.
+     */
+    private final String identity;
+    
     /**
      * Constructs the default heuristic function.
-     * @param weightMatrix the weight matrix.
+     * @param width the width of the board.
+     * @param height the height of the board.
+     * @param maxWeight the maximum positional weight.
      * @param winningPatternLength the winning pattern length.
      */
     public DefaultHeuristicFunction(final int width,
                                     final int height,
                                     final double maxWeight,
                                     final int winningPatternLength) {
-        this.weightMatrix = getWeightMatrix(width, height, maxWeight);
-        this.winningLength = winningPatternLength;
+        this(HeuristicWeights.createDefault(width, 
+                                            height, 
+                                            maxWeight, 
+                                            winningPatternLength));
+    }
+    
+    /**
+     * Constructs the heuristic function with the given weights, for example
+     * the ones loaded from a file produced by {@link HeuristicTuner}.
+     * @param weights the weights.
+     */
+    public DefaultHeuristicFunction(final HeuristicWeights weights) {
+        this.weightMatrix = weights.getPositionWeights();
+        this.patternWeights = weights.getPatternWeights();
+        this.winningLength = weights.getWinningLength();
+        this.identity = getClass().getName() + "#" + 
+                        Long.toHexString(hashWeights());
+    }
+    
+    /**
+     * Selects the pattern counting path. The bitboard path, on by default, 
+     * counts the patterns of boards with at most 64 bits (including a 
+     * sentinel row) with a few shifts and population counts per pattern 
+     * length; larger boards are always scanned cell by cell. Both the paths 
+     * yield the same estimates.
+     * @param bitBoardCounting whether to use the bitboard path.
+     */
+    public void setBitBoardCounting(final boolean bitBoardCounting) {
+        this.bitBoardCounting = bitBoardCounting;
     }
     
     /**
@@ -48,6 +101,77 @@ public final class DefaultHeuristicFunction implements HeuristicFunction {
         int[] redPatternCounts = new int[state.getWinningLength() + 1];
         int[] whitePatternCounts = new int[redPatternCounts.length];
         
+        BitBoardPatternCounter counter = getPatternCounter(state);
+        
+        if (counter != null) {
+            counter.countPatterns(state, 
+                                  winningLength, 
+                                  redPatternCounts, 
+                                  whitePatternCounts);
+        } else {
+            countPatterns(state, 
+                          winningLength, 
+                          redPatternCounts, 
+                          whitePatternCounts);
+        }
+        
+        double score = computeBaseScore(redPatternCounts, 
+                                        whitePatternCounts);
+        
+        if (Double.isInfinite(score)) {
+            return score;
+        }
+        
+        return score + getWeights(weightMatrix, state);
+    }
+    
+    /**
+     * Returns the class name followed by a hash of the weights, so that the 
+     * scores stored with retuned weights are not mistaken for the current 
+     * ones. The counting path does not affect the estimates or the identity.
+     * @return the identity.
+     */
+    @Override
+    public String getIdentity() {
+        return identity;
+    }
+    
+    /**
+     * Returns the bitboard pattern counter for the geometry of the state.
+     * @param state the state to evaluate.
+     * @return the counter, or {@code null} if the state must be scanned.
+     */
+    private BitBoardPatternCounter getPatternCounter(ConnectFourState state) {
+        if (!bitBoardCounting || 
+                !BitBoardPatternCounter.supports(state.getWidth(), 
+                                                 state.getHeight())) {
+            return null;
+        }
+        
+        BitBoardPatternCounter counter = patternCounter;
+        
+        if (counter == null || !counter.matches(state)) {
+            counter = GeometryTables.get(state.getWidth(), 
+                                         state.getHeight(), 
+                                         state.getWinningLength())
+                                    .getPatternCounter();
+            patternCounter = counter;
+        }
+        
+        return counter;
+    }
+    
+    /**
+     * Counts the patterns of both the players by scanning the cells.
+     * @param state the state to scan.
+     * @param winningLength the winning length.
+     * @param redPatternCounts the red pattern counts indexed by length.
+     * @param whitePatternCounts the white pattern counts indexed by length.
+     */
+    static void countPatterns(ConnectFourState state,
+                              int winningLength,
+                              int[] redPatternCounts,
+                              int[] whitePatternCounts) {
         // Do not consider patterns of length one!
         for (int targetLength = 2; 
                 targetLength <= winningLength; 
@@ -76,15 +200,6 @@ public final class DefaultHeuristicFunction implements HeuristicFunction {
             
             whitePatternCounts[targetLength] = count;
         }
-        
-        double score = computeBaseScore(redPatternCounts, 
-                                              whitePatternCounts);
-        
-        if (Double.isInfinite(score)) {
-            return score;
-        }
-        
-        return score + getWeights(weightMatrix, state);
     }
     
     /**
@@ -311,6 +426,32 @@ public final class DefaultHeuristicFunction implements HeuristicFunction {
         return score;
     }
     
+    /**
+     * Records which cells {@link #getWeights(double[][], ConnectFourState)}
+     * weights and with which sign: {@code signs[y * width + x]} becomes 1 for
+     * a counted white token, -1 for a counted red token and 0 otherwise.
+     * @param state the state to scan.
+     * @param signs the target array.
+     */
+    static void getWeightSigns(final ConnectFourState state, 
+                               final int[] signs) {
+        Arrays.fill(signs, 0);
+        
+        outer:
+        for (int y = state.getHeight() - 1; y >= 0; y--) {
+            for (int x = 0; x < state.getWidth(); x++) {
+                PlayerColor playerColor = state.readCell(x, y);
+                
+                if (playerColor == null) {
+                    continue outer;
+                }
+                
+                signs[y * state.getWidth() + x] = 
+                        playerColor == PlayerColor.RED_PLAYER ? -1 : 1;
+            }
+        }
+    }
+    
     /**
      * Computes the base scorer that relies on number of patterns. For example,
      * {@code redPatternCounts[i]} will denote the number of patterns of length 
@@ -319,15 +460,18 @@ public final class DefaultHeuristicFunction implements HeuristicFunction {
      * @param whitePatternCounts the pattern count map for white patterns.
      * @return the base estimate.
      */
-    private static final double computeBaseScore(
-            int[] redPatternCounts,
-            int[] whitePatternCounts) {
-        final int winningLength = redPatternCounts.length - 1;
+    private double computeBaseScore(int[] redPatternCounts,
+                                    int[] whitePatternCounts) {
         double value = 0.0;
         
         for (int length = 2; length < redPatternCounts.length; length++) {
+            // Skip zero counts, since 0 * infinity would yield NaN for the
+            // winning length:
             final int redCount = redPatternCounts[length];
-            value -= redCount * (1.0 / (winningLength - length));
+            
+            if (redCount > 0) {
+                value -= redCount * patternWeights[length];
+            }
             
             if (Double.isInfinite(value)) {
                 // Red (minimizing) player wins:
@@ -335,7 +479,10 @@ public final class DefaultHeuristicFunction implements HeuristicFunction {
             }
             
             final int whiteCount = whitePatternCounts[length];
-            value += whiteCount * (1.0 / (winningLength - length));
+            
+            if (whiteCount > 0) {
+                value += whiteCount * patternWeights[length];
+            }
             
             if (Double.isInfinite(value)) {
                 // White (maximizing) player wins:
@@ -347,46 +494,25 @@ public final class DefaultHeuristicFunction implements HeuristicFunction {
     }
     
     /**
-     * Computes the weight matrix. The closer the entry in the board is to the
-     * center of the board, the closer the weight of that position will be to
-     * {@code maxWeight}.
-     * 
-     * @param width the width of the matrix.
-     * @param height the height of the matrix.
-     * @param maxWeight the maximum weight. The minimum weight will be always
-     * 1.0.
-     * @return the weight matrix. 
+     * Hashes the winning length and the weights into the identity of this
+     * function.
+     * @return the hash of the weights.
      */
-    private static final double[][] getWeightMatrix(final int width,
-                                                    final int height,
-                                                    final double maxWeight) {
-        final double[][] weightMatrix = new double[height][width];
+    private long hashWeights() {
+        long hash = winningLength;
+        
+        for (double weight : patternWeights) {
+            hash = 31L * hash + Double.doubleToLongBits(weight);
+        }
         
-        for (int y = 0; y < weightMatrix.length; y++) {
-            for (int x = 0; x < weightMatrix[0].length; x++) {
-                int left = x;
-                int right = weightMatrix[0].length - x - 1;
-                int top = y;
-                int bottom = weightMatrix.length - y - 1;
-                int horizontalDifference = Math.abs(left - right);
-                int verticalDifference = Math.abs(top - bottom);
-                weightMatrix[y][x] =
-                        1.0 + (maxWeight - 1.0) / 
-                              (horizontalDifference + verticalDifference);
+        for (double[] row : weightMatrix) {
+            hash = 31L * hash + row.length;
+            
+            for (double weight : row) {
+                hash = 31L * hash + Double.doubleToLongBits(weight);
             }
         }
         
-        return weightMatrix;
+        return hash;
     }
-    
-//    public static void main(String[] args) {
-//        double[][] wm  = getWeightMatrix(7, 6, 10.0);
-//        
-//        for (double[] row : wm) {
-//            for (double d : row) {
-//                System.out.print(d + " ");
-//            }
-//            System.out.println();
-//        }
-//    }
 }
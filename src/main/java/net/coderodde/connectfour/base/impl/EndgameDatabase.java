@@ -0,0 +1,222 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.Rules;
+
+/**
+ * This class implements a read-only, memory-mapped endgame database produced
+ * by {@link EndgameDatabaseGenerator}. The file consists of a header, the
+ * sorted position keys and the game values in the same order, so a probe is a
+ * binary search over the mapped key area. The header records the geometry and
+ * the name of the {@link Rules} the values were solved under; the database
+ * covers only the states played under rules of the same name.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class EndgameDatabase {
+
+    /**
+     * The value meaning that the white player wins with perfect play.
+     */
+    public static final int WHITE_WINS = 1;
+
+    /**
+     * The value meaning that the game is drawn with perfect play.
+     */
+    public static final int DRAW = 0;
+
+    /**
+     * The value meaning that the red player wins with perfect play.
+     */
+    public static final int RED_WINS = -1;
+
+    /**
+     * The value returned for positions not covered by the database.
+     */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    /**
+     * The magic number at the beginning of each database file ("C4EG").
+     */
+    static final int MAGIC = 0x43344547;
+
+    /**
+     * The version of the file format.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * The size of the header in bytes without the name of the rules.
+     */
+    static final int FIXED_HEADER_SIZE = 36;
+
+    private final int width;
+    private final int height;
+    private final int winningLength;
+    private final int maxEmptyCells;
+    private final String rulesName;
+    private final PlayerColor firstPlayer;
+    private final int entryCount;
+    private final LongBuffer keys;
+    private final MappedByteBuffer buffer;
+    private final int valueOffset;
+
+    private EndgameDatabase(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not an endgame database.");
+        }
+
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException(
+                    "Unsupported endgame database version: " +
+                    buffer.getInt(4));
+        }
+
+        this.width = buffer.getInt(8);
+        this.height = buffer.getInt(12);
+        this.winningLength = buffer.getInt(16);
+        this.maxEmptyCells = buffer.getInt(20);
+        this.firstPlayer = PlayerColor.values()[buffer.getInt(24)];
+        this.entryCount = buffer.getInt(28);
+
+        byte[] rulesBytes = new byte[buffer.getInt(32)];
+        buffer.position(FIXED_HEADER_SIZE);
+        buffer.get(rulesBytes);
+        this.rulesName = new String(rulesBytes, StandardCharsets.UTF_8);
+
+        int headerSize = getHeaderSize(rulesBytes.length);
+        buffer.position(headerSize);
+        this.keys = buffer.slice().asLongBuffer();
+        this.valueOffset = headerSize + Long.BYTES * entryCount;
+    }
+
+    /**
+     * Memory-maps the database in the given file.
+     * @param file the database file.
+     * @return the database.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static EndgameDatabase open(Path file) throws IOException {
+        Objects.requireNonNull(file, "The input file is null.");
+
+        try (FileChannel channel = FileChannel.open(file,
+                                                    StandardOpenOption.READ)) {
+            return new EndgameDatabase(
+                    channel.map(FileChannel.MapMode.READ_ONLY,
+                                0L,
+                                channel.size()));
+        }
+    }
+
+    /**
+     * Checks whether this database may contain the input state, that is, the
+     * geometry and the rules match, the rules do not allow pops and the state
+     * has few enough empty cells.
+     * @param state the state to check.
+     * @return {@code true} only if the state is within the database range.
+     */
+    public boolean covers(ConnectFourState state) {
+        return state.getWidth() == width
+            && state.getHeight() == height
+            && state.getWinningLength() == winningLength
+            && state.getEmptyCellCount() <= maxEmptyCells
+            && state.getRules().getName().equals(rulesName)
+            && !state.getRules().allowsPopOut();
+    }
+
+    /**
+     * Looks up the game value of a non-terminal state.
+     * @param state the state to look up.
+     * @param playerToMove the player to make the next move.
+     * @return one of {@link #WHITE_WINS}, {@link #DRAW}, {@link #RED_WINS} or
+     * {@link #UNKNOWN}.
+     */
+    public int probe(ConnectFourState state, PlayerColor playerToMove) {
+        if (!covers(state)) {
+            return UNKNOWN;
+        }
+
+        // The database was generated with 'firstPlayer' moving on even move
+        // counts; other positions may share the key but not the value:
+        boolean evenMoveCount = state.getMoveCount() % 2 == 0;
+
+        if ((playerToMove == firstPlayer) != evenMoveCount) {
+            return UNKNOWN;
+        }
+
+        long key = state.getPositionKey();
+        int low = 0;
+        int high = entryCount - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = keys.get(middle);
+
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return buffer.get(valueOffset + middle);
+            }
+        }
+
+        return UNKNOWN;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWinningLength() {
+        return winningLength;
+    }
+
+    public int getMaxEmptyCells() {
+        return maxEmptyCells;
+    }
+
+    /**
+     * Returns the name of the rules the values were solved under.
+     * @return the name of the rules.
+     */
+    public String getRulesName() {
+        return rulesName;
+    }
+
+    public PlayerColor getFirstPlayer() {
+        return firstPlayer;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the size of the header padded to a multiple of 8 bytes, so that
+     * the keys are aligned.
+     * @param rulesNameLength the length of the encoded name of the rules.
+     * @return the header size in bytes.
+     */
+    static int getHeaderSize(int rulesNameLength) {
+        return (FIXED_HEADER_SIZE + rulesNameLength + 7) & ~7;
+    }
+}
@@ -0,0 +1,568 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import net.coderodde.connectfour.base.BitBoard;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.Rules;
+import net.coderodde.connectfour.base.StandardRules;
+
+/**
+ * This class implements an offline generator for {@link EndgameDatabase}
+ * files. It walks forward from the empty board through every reachable
+ * position, in parallel over a fork-join pool, and solves each non-terminal
+ * position entering the range of at most {@code maxEmptyCells} empty cells
+ * with an alpha-beta search over the game values. The database stores every
+ * position whose value the searches proved exactly; the descendants cut off
+ * by the searches are left out, and a probe reports them as unknown.
+ * <p>
+ * The solved positions are kept in primitive open-addressing tables, one per
+ * worker thread, and merged into a sorted key array for writing. Since the
+ * walk above the range is exhaustive, the generator is meant for small
+ * geometries or small values of {@code maxEmptyCells}; the position keys must
+ * be exact, that is, a single bitboard must fit in a {@code long}. The solver
+ * only drops tokens and scores a full board as a draw, so the Pop Out rules
+ * are not supported.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class EndgameDatabaseGenerator {
+
+    private final int width;
+    private final int height;
+    private final int winningLength;
+    private final int maxEmptyCells;
+    private final Rules rules;
+    private final PlayerColor firstPlayer;
+
+    /**
+     * The solution tables of the worker threads.
+     */
+    private final List<SolutionTable> tables = new ArrayList<>();
+
+    /**
+     * The solution table of the current worker thread.
+     */
+    private final ThreadLocal<SolutionTable> localTable =
+            new ThreadLocal<SolutionTable>() {
+        @Override
+        protected SolutionTable initialValue() {
+            SolutionTable table = new SolutionTable();
+
+            synchronized (tables) {
+                tables.add(table);
+            }
+
+            return table;
+        }
+    };
+
+    /**
+     * The keys of the positions already walked through above the database
+     * range. Guarded by itself.
+     */
+    private final SolutionTable visited = new SolutionTable();
+
+    /**
+     * Constructs a generator for the standard rules.
+     * @param width the number of columns.
+     * @param height the number of rows.
+     * @param winningLength the length of the winning line.
+     * @param maxEmptyCells the maximum number of empty cells in a position
+     * stored in the database.
+     * @param firstPlayer the player making the first move of the game.
+     */
+    public EndgameDatabaseGenerator(int width,
+                                    int height,
+                                    int winningLength,
+                                    int maxEmptyCells,
+                                    PlayerColor firstPlayer) {
+        this(width,
+             height,
+             winningLength,
+             maxEmptyCells,
+             StandardRules.INSTANCE,
+             firstPlayer);
+    }
+
+    /**
+     * Constructs a generator.
+     * @param width the number of columns.
+     * @param height the number of rows.
+     * @param winningLength the length of the winning line.
+     * @param maxEmptyCells the maximum number of empty cells in a position
+     * stored in the database.
+     * @param rules the rules to solve the positions under.
+     * @param firstPlayer the player making the first move of the game.
+     */
+    public EndgameDatabaseGenerator(int width,
+                                    int height,
+                                    int winningLength,
+                                    int maxEmptyCells,
+                                    Rules rules,
+                                    PlayerColor firstPlayer) {
+        Objects.requireNonNull(rules, "The input rules are null.");
+
+        if (rules.allowsPopOut()) {
+            throw new IllegalArgumentException(
+                    "The Pop Out rules are not supported: " + rules.getName());
+        }
+
+        if (BitBoard.getWordCount(width, height) != 1) {
+            throw new IllegalArgumentException(
+                    "The board " + width + "x" + height + " is too large " +
+                    "for exact position keys.");
+        }
+
+        if (maxEmptyCells < 0) {
+            throw new IllegalArgumentException(
+                    "maxEmptyCells = " + maxEmptyCells);
+        }
+
+        this.width = width;
+        this.height = height;
+        this.winningLength = winningLength;
+        this.maxEmptyCells = maxEmptyCells;
+        this.rules = rules;
+        this.firstPlayer = Objects.requireNonNull(firstPlayer,
+                                                  "The first player is null.");
+    }
+
+    /**
+     * Generates the database and writes it to {@code file}.
+     * @param file the output file.
+     * @param parallelism the number of worker threads.
+     * @return the number of positions written.
+     * @throws IOException if writing fails.
+     */
+    public int generate(Path file, int parallelism) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try {
+            pool.invoke(new Explorer(new ConnectFourState(width,
+                                                          height,
+                                                          winningLength,
+                                                          rules),
+                                     firstPlayer));
+        } finally {
+            pool.shutdown();
+        }
+
+        SolutionTable values = new SolutionTable();
+
+        for (SolutionTable table : tables) {
+            table.copyExactValuesTo(values);
+        }
+
+        tables.clear();
+        return write(file, values);
+    }
+
+    /**
+     * Walks the positions above the database range and hands the ones within
+     * the range over to the solver.
+     */
+    private final class Explorer extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ConnectFourState state;
+        private final PlayerColor playerToMove;
+
+        Explorer(ConnectFourState state, PlayerColor playerToMove) {
+            this.state = state;
+            this.playerToMove = playerToMove;
+        }
+
+        @Override
+        protected void compute() {
+            if (state.getEmptyCellCount() <= maxEmptyCells) {
+                solve(localTable.get(),
+                      state,
+                      playerToMove,
+                      EndgameDatabase.RED_WINS,
+                      EndgameDatabase.WHITE_WINS);
+                return;
+            }
+
+            synchronized (visited) {
+                if (!visited.add(state.getPositionKey())) {
+                    return;
+                }
+            }
+
+            List<Explorer> children = new ArrayList<>(width);
+
+            for (int x = state.nextLegalColumn(0);
+                    x >= 0;
+                    x = state.nextLegalColumn(x + 1)) {
+                ConnectFourState child = state.move(x, playerToMove);
+
+                if (child.checkVictory() == null && !child.isFull()) {
+                    children.add(new Explorer(child,
+                                              playerToMove.opponent()));
+                }
+            }
+
+            invokeAll(children);
+        }
+    }
+
+    /**
+     * Solves a non-terminal state with an alpha-beta search over the game
+     * values, which are from the point of view of the white player, and
+     * memorizes the value or the bound proven for it and its non-terminal
+     * descendants. The values at the ends of the scale are exact even when
+     * found outside of the window.
+     * @param table the table of the current thread.
+     * @param state the state to solve.
+     * @param playerToMove the player to make the next move.
+     * @param alpha the lower end of the window.
+     * @param beta the upper end of the window.
+     * @return the game value of the state, or a bound of it outside of the
+     * window.
+     */
+    private int solve(SolutionTable table,
+                      ConnectFourState state,
+                      PlayerColor playerToMove,
+                      int alpha,
+                      int beta) {
+        long key = state.getPositionKey();
+        byte entry = table.get(key);
+
+        if (entry != 0) {
+            int value = SolutionTable.getValue(entry);
+            int bound = SolutionTable.getBound(entry);
+
+            if (bound == SolutionTable.EXACT) {
+                return value;
+            } else if (bound == SolutionTable.LOWER_BOUND) {
+                alpha = Math.max(alpha, value);
+            } else {
+                beta = Math.min(beta, value);
+            }
+
+            if (alpha >= beta) {
+                return value;
+            }
+        }
+
+        boolean white = playerToMove == PlayerColor.WHITE_PLAYER;
+        int winValue = white ?
+                EndgameDatabase.WHITE_WINS :
+                EndgameDatabase.RED_WINS;
+
+        // A win at once is the best value, so it is searched first:
+        for (int x = state.nextLegalColumn(0);
+                x >= 0;
+                x = state.nextLegalColumn(x + 1)) {
+            if (state.move(x, playerToMove).checkVictory() != null) {
+                table.put(key, SolutionTable.encode(winValue,
+                                                    SolutionTable.EXACT));
+                return winValue;
+            }
+        }
+
+        int[] moveOrder = GeometryTables.get(width, height, winningLength)
+                                        .getMoveOrder();
+        int low = alpha;
+        int high = beta;
+        int bestValue = -winValue;
+
+        for (int x : moveOrder) {
+            if (state.columnIsFull(x)) {
+                continue;
+            }
+
+            ConnectFourState child = state.move(x, playerToMove);
+            int value = child.isFull() ?
+                    EndgameDatabase.DRAW :
+                    solve(table, child, playerToMove.opponent(), low, high);
+
+            if (white) {
+                bestValue = Math.max(bestValue, value);
+                low = Math.max(low, bestValue);
+            } else {
+                bestValue = Math.min(bestValue, value);
+                high = Math.min(high, bestValue);
+            }
+
+            if (low >= high) {
+                break;
+            }
+        }
+
+        int bound;
+
+        if (bestValue <= alpha && bestValue > EndgameDatabase.RED_WINS) {
+            bound = SolutionTable.UPPER_BOUND;
+        } else if (bestValue >= beta
+                && bestValue < EndgameDatabase.WHITE_WINS) {
+            bound = SolutionTable.LOWER_BOUND;
+        } else {
+            bound = SolutionTable.EXACT;
+        }
+
+        table.put(key, SolutionTable.encode(bestValue, bound));
+        return bestValue;
+    }
+
+    /**
+     * Writes the exact values to the file.
+     * @return the number of positions written.
+     */
+    private int write(Path file, SolutionTable values) throws IOException {
+        long[] keys = values.getKeys();
+        Arrays.sort(keys);
+
+        byte[] rulesBytes = rules.getName().getBytes(StandardCharsets.UTF_8);
+        int headerSize = EndgameDatabase.getHeaderSize(rulesBytes.length);
+
+        if ((long) keys.length * (Long.BYTES + 1) +
+                headerSize > Integer.MAX_VALUE) {
+            throw new IllegalStateException(
+                    "Too many positions for a single mapped file: " +
+                    keys.length);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16)
+                                      .order(ByteOrder.BIG_ENDIAN);
+
+        try (FileChannel channel =
+                FileChannel.open(file,
+                                 StandardOpenOption.CREATE,
+                                 StandardOpenOption.TRUNCATE_EXISTING,
+                                 StandardOpenOption.WRITE)) {
+            buffer.putInt(EndgameDatabase.MAGIC)
+                  .putInt(EndgameDatabase.VERSION)
+                  .putInt(width)
+                  .putInt(height)
+                  .putInt(winningLength)
+                  .putInt(maxEmptyCells)
+                  .putInt(firstPlayer.ordinal())
+                  .putInt(keys.length)
+                  .putInt(rulesBytes.length)
+                  .put(rulesBytes);
+
+            while (buffer.position() < headerSize) {
+                buffer.put((byte) 0);
+            }
+
+            for (long key : keys) {
+                if (buffer.remaining() < Long.BYTES) {
+                    flush(buffer, channel);
+                }
+
+                buffer.putLong(key);
+            }
+
+            for (long key : keys) {
+                if (!buffer.hasRemaining()) {
+                    flush(buffer, channel);
+                }
+
+                buffer.put((byte) SolutionTable.getValue(values.get(key)));
+            }
+
+            flush(buffer, channel);
+        }
+
+        return keys.length;
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel)
+            throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * This class implements an open-addressing table mapping position keys to
+     * the game values or bounds proven for them, packed into a nonzero byte:
+     * the value plus two in the low two bits and the kind of the bound above
+     * them. It grows as needed and is not thread-safe.
+     */
+    static final class SolutionTable {
+
+        static final int EXACT = 0;
+        static final int LOWER_BOUND = 1;
+        static final int UPPER_BOUND = 2;
+
+        private static final int INITIAL_CAPACITY = 1 << 10;
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private byte[] data = new byte[INITIAL_CAPACITY];
+        private int size;
+
+        static byte encode(int value, int bound) {
+            return (byte) (bound << 2 | value + 2);
+        }
+
+        static int getValue(byte entry) {
+            return (entry & 3) - 2;
+        }
+
+        static int getBound(byte entry) {
+            return entry >>> 2;
+        }
+
+        /**
+         * Returns the entry of a key.
+         * @param key the position key.
+         * @return the entry, or zero if the key is not in the table.
+         */
+        byte get(long key) {
+            int mask = keys.length - 1;
+
+            for (int index = TranspositionTable.hash(key, 0) & mask;
+                    data[index] != 0;
+                    index = (index + 1) & mask) {
+                if (keys[index] == key) {
+                    return data[index];
+                }
+            }
+
+            return 0;
+        }
+
+        /**
+         * Maps a key to a nonzero entry, replacing the previous entry.
+         * @param key the position key.
+         * @param entry the entry.
+         */
+        void put(long key, byte entry) {
+            int mask = keys.length - 1;
+            int index = TranspositionTable.hash(key, 0) & mask;
+
+            while (data[index] != 0) {
+                if (keys[index] == key) {
+                    data[index] = entry;
+                    return;
+                }
+
+                index = (index + 1) & mask;
+            }
+
+            keys[index] = key;
+            data[index] = entry;
+
+            // Keep the load factor at most one half:
+            if (++size > keys.length / 2) {
+                grow();
+            }
+        }
+
+        /**
+         * Adds a key, using the table as a set.
+         * @param key the position key.
+         * @return {@code true} only if the key was not in the table.
+         */
+        boolean add(long key) {
+            if (get(key) != 0) {
+                return false;
+            }
+
+            put(key, encode(EndgameDatabase.DRAW, EXACT));
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Returns the keys in the table in no particular order.
+         * @return the keys.
+         */
+        long[] getKeys() {
+            long[] result = new long[size];
+            int count = 0;
+
+            for (int index = 0; index < keys.length; index++) {
+                if (data[index] != 0) {
+                    result[count++] = keys[index];
+                }
+            }
+
+            return result;
+        }
+
+        /**
+         * Copies the exact entries to another table.
+         * @param target the target table.
+         */
+        void copyExactValuesTo(SolutionTable target) {
+            for (int index = 0; index < keys.length; index++) {
+                if (data[index] != 0 && getBound(data[index]) == EXACT) {
+                    target.put(keys[index], data[index]);
+                }
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            byte[] oldData = data;
+            keys = new long[oldKeys.length * 2];
+            data = new byte[oldData.length * 2];
+            size = 0;
+
+            for (int index = 0; index < oldKeys.length; index++) {
+                if (oldData[index] != 0) {
+                    put(oldKeys[index], oldData[index]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates a database from the command line:
+     * {@code width height winningLength maxEmptyCells file [threads]}.
+     * @param args the command line arguments.
+     * @throws IOException if writing fails.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.out.println(
+                    "Usage: java " + EndgameDatabaseGenerator.class.getName() +
+                    " WIDTH HEIGHT WINNING_LENGTH MAX_EMPTY_CELLS FILE " +
+                    "[THREADS]");
+            return;
+        }
+
+        int threads = args.length > 5 ?
+                Integer.parseInt(args[5]) :
+                Runtime.getRuntime().availableProcessors();
+
+        EndgameDatabaseGenerator generator =
+                new EndgameDatabaseGenerator(Integer.parseInt(args[0]),
+                                             Integer.parseInt(args[1]),
+                                             Integer.parseInt(args[2]),
+                                             Integer.parseInt(args[3]),
+                                             PlayerColor.WHITE_PLAYER);
+
+        long startTime = System.currentTimeMillis();
+        int count = generator.generate(Paths.get(args[4]), threads);
+        System.out.println(
+                "Wrote " + count + " positions in " +
+                (System.currentTimeMillis() - startTime) + " ms.");
+    }
+}
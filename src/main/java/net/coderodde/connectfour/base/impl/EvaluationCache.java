@@ -0,0 +1,250 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+
+/**
+ * This class decorates a {@link HeuristicFunction} with a direct-mapped cache
+ * of the estimates of one board geometry, keyed by the position keys. The
+ * states of other geometries are passed to the decorated function.
+ * <p>
+ * Like {@link TranspositionTable}, the cache can be saved to a snapshot file
+ * and reloaded through memory mapping. The identity of the cache is that of
+ * the decorated function, so a snapshot is loaded only if it was taken with
+ * the same estimates.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class EvaluationCache implements HeuristicFunction {
+
+    /**
+     * The largest supported number of entries.
+     */
+    public static final int MAXIMUM_CAPACITY = 1 << 26;
+
+    /**
+     * The size of an entry in a snapshot: the key and the estimate.
+     */
+    private static final int ENTRY_SIZE = Long.BYTES + Double.BYTES;
+
+    private final HeuristicFunction delegate;
+    private final int width;
+    private final int height;
+    private final int winningLength;
+    private final int mask;
+
+    /**
+     * The keys of the cached states; zero marks an empty entry. A state with
+     * the key zero is never cached.
+     */
+    private final long[] keys;
+    private final double[] values;
+
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Constructs an empty cache.
+     * @param delegate the heuristic function to cache.
+     * @param width the width of the board.
+     * @param height the height of the board.
+     * @param winningLength the winning length.
+     * @param capacity the number of entries; rounded up to a power of two.
+     */
+    public EvaluationCache(HeuristicFunction delegate,
+                           int width,
+                           int height,
+                           int winningLength,
+                           int capacity) {
+        this.delegate = Objects.requireNonNull(delegate,
+                                               "The input evaluator is null.");
+
+        if (capacity < 1 || capacity > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("capacity = " + capacity);
+        }
+
+        this.width = width;
+        this.height = height;
+        this.winningLength = winningLength;
+
+        int roundedCapacity = Integer.highestOneBit(capacity);
+
+        if (roundedCapacity < capacity) {
+            roundedCapacity <<= 1;
+        }
+
+        this.mask = roundedCapacity - 1;
+        this.keys = new long[roundedCapacity];
+        this.values = new double[roundedCapacity];
+    }
+
+    @Override
+    public double evaluate(ConnectFourState state) {
+        if (state.getWidth() != width
+                || state.getHeight() != height
+                || state.getWinningLength() != winningLength) {
+            return delegate.evaluate(state);
+        }
+
+        long key = state.getPositionKey();
+        int index = getIndex(key);
+
+        if (key != 0L && keys[index] == key) {
+            hitCount++;
+            return values[index];
+        }
+
+        missCount++;
+        double value = delegate.evaluate(state);
+
+        if (key != 0L) {
+            keys[index] = key;
+            values[index] = value;
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the identity of the decorated function, since caching does not
+     * change the estimates.
+     * @return the identity.
+     */
+    @Override
+    public String getIdentity() {
+        return delegate.getIdentity();
+    }
+
+    /**
+     * Empties the cache and resets the statistics.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, 0.0);
+        hitCount = 0L;
+        missCount = 0L;
+    }
+
+    /**
+     * Saves the entries to a snapshot file.
+     * @param file the file to create or overwrite.
+     * @throws IOException if the file cannot be written.
+     */
+    public void saveSnapshot(Path file) throws IOException {
+        int capacity = keys.length;
+        MappedByteBuffer buffer =
+                SnapshotFile.create(file,
+                                    SnapshotFile.EVALUATION_CACHE,
+                                    width,
+                                    height,
+                                    winningLength,
+                                    SnapshotFile.ANY_RULES,
+                                    getIdentity(),
+                                    capacity,
+                                    ENTRY_SIZE);
+        int start = buffer.position();
+        buffer.asLongBuffer().put(keys);
+        buffer.position(start + Long.BYTES * capacity);
+        buffer.asDoubleBuffer().put(values);
+        buffer.force();
+    }
+
+    /**
+     * Replaces the entries with the ones in a snapshot file. A snapshot of
+     * another capacity is rehashed into this cache.
+     * @param file the snapshot file.
+     * @return {@code true} if the snapshot was loaded; {@code false} if it was
+     * taken for another geometry or heuristic function, in which case the
+     * cache is left intact.
+     * @throws IOException if the file cannot be mapped.
+     * @throws IllegalArgumentException if the file is not an evaluation cache
+     * snapshot.
+     */
+    public boolean loadSnapshot(Path file) throws IOException {
+        MappedByteBuffer buffer =
+                SnapshotFile.open(file,
+                                  SnapshotFile.EVALUATION_CACHE,
+                                  width,
+                                  height,
+                                  winningLength,
+                                  SnapshotFile.ANY_RULES,
+                                  getIdentity(),
+                                  ENTRY_SIZE);
+
+        if (buffer == null) {
+            return false;
+        }
+
+        int capacity = SnapshotFile.getCapacity(buffer);
+        int start = buffer.position();
+
+        if (capacity == keys.length) {
+            buffer.asLongBuffer().get(keys);
+            buffer.position(start + Long.BYTES * capacity);
+            buffer.asDoubleBuffer().get(values);
+            return true;
+        }
+
+        long[] snapshotKeys = new long[capacity];
+        double[] snapshotValues = new double[capacity];
+        buffer.asLongBuffer().get(snapshotKeys);
+        buffer.position(start + Long.BYTES * capacity);
+        buffer.asDoubleBuffer().get(snapshotValues);
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, 0.0);
+
+        for (int i = 0; i < capacity; i++) {
+            if (snapshotKeys[i] != 0L) {
+                int index = getIndex(snapshotKeys[i]);
+                keys[index] = snapshotKeys[i];
+                values[index] = snapshotValues[i];
+            }
+        }
+
+        return true;
+    }
+
+    public HeuristicFunction getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the number of estimates served from the cache since
+     * construction or the last {@link #clear()}.
+     * @return the hit count.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of estimates computed by the decorated function
+     * since construction or the last {@link #clear()}.
+     * @return the miss count.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    private int getIndex(long key) {
+        long z = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (z ^ (z >>> 31)) & mask;
+    }
+}
@@ -0,0 +1,61 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.util.Objects;
+import net.coderodde.connectfour.base.Bot;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class decorates a {@link Bot} with a {@link ForcedMoveDetector}: the
+ * forced moves are played at once, and only the other positions are passed
+ * to the decorated bot.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class ForcedMoveBot implements Bot {
+
+    private final Bot delegate;
+    private final ForcedMoveDetector detector;
+
+    public ForcedMoveBot(Bot delegate) {
+        this(delegate, new ForcedMoveDetector());
+    }
+
+    /**
+     * Constructs the decorator.
+     * @param delegate the bot choosing the moves that are not forced.
+     * @param detector the detector, which may be shared with other bots
+     * playing in the same thread.
+     */
+    public ForcedMoveBot(Bot delegate, ForcedMoveDetector detector) {
+        this.delegate = Objects.requireNonNull(delegate,
+                                               "The input bot is null.");
+        this.detector = Objects.requireNonNull(detector,
+                                               "The input detector is null.");
+    }
+
+    @Override
+    public ConnectFourState computeNextState(ConnectFourState state) {
+        int x = detector.findForcedMove(state, delegate.getPlayerColor());
+
+        if (x != ForcedMoveDetector.NO_FORCED_MOVE) {
+            return state.move(x, delegate.getPlayerColor());
+        }
+
+        return delegate.computeNextState(state);
+    }
+
+    @Override
+    public PlayerColor getPlayerColor() {
+        return delegate.getPlayerColor();
+    }
+
+    public Bot getDelegate() {
+        return delegate;
+    }
+
+    public ForcedMoveDetector getDetector() {
+        return detector;
+    }
+}
@@ -0,0 +1,226 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class holds the tables that depend on the board geometry only: the
+ * column order of {@link SmartBot}, the distances of the cells from the center
+ * of the board, the default {@link HeuristicWeights} derived from them for
+ * each maximum positional weight, and the {@link BitBoardPatternCounter} of
+ * {@link DefaultHeuristicFunction}. The tables of a geometry are built the
+ * first time that geometry is asked for and shared by all the bots and
+ * evaluators of the geometry afterwards, so a program pays only for the
+ * geometries it plays on, once.
+ * <p>
+ * The tables never change after construction, so they are safe to share
+ * between threads; the arrays handed out must not be modified.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+final class GeometryTables {
+
+    /**
+     * The tables built so far, keyed by the geometry.
+     */
+    private static final ConcurrentMap<Key, GeometryTables> TABLES =
+            new ConcurrentHashMap<>();
+
+    private final int[] moveOrder;
+
+    /**
+     * {@code centerDistances[y][x]} is the Manhattan distance of the cell
+     * {@code (x, y)} from the center, counted in half cells.
+     */
+    private final int[][] centerDistances;
+
+    /**
+     * The pattern counter, or {@code null} if the board does not fit in a
+     * single word.
+     */
+    private final BitBoardPatternCounter patternCounter;
+
+    /**
+     * The default weights built so far, keyed by the maximum positional
+     * weight.
+     */
+    private final ConcurrentMap<Double, HeuristicWeights> defaultWeights =
+            new ConcurrentHashMap<>();
+
+    private final int width;
+    private final int height;
+    private final int winningLength;
+
+    private GeometryTables(int width, int height, int winningLength) {
+        this.width = width;
+        this.height = height;
+        this.winningLength = winningLength;
+        this.moveOrder = createMoveOrder(width);
+        this.centerDistances = new int[height][width];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int horizontalDifference = Math.abs(x - (width - x - 1));
+                int verticalDifference = Math.abs(y - (height - y - 1));
+                centerDistances[y][x] = horizontalDifference +
+                                        verticalDifference;
+            }
+        }
+
+        this.patternCounter =
+                BitBoardPatternCounter.supports(width, height) ?
+                new BitBoardPatternCounter(width, height, winningLength) :
+                null;
+    }
+
+    /**
+     * Returns the tables of a geometry, building them on the first call.
+     * @param width the width of the board.
+     * @param height the height of the board.
+     * @param winningLength the winning length.
+     * @return the tables.
+     */
+    static GeometryTables get(int width, int height, int winningLength) {
+        Key key = new Key(width, height, winningLength);
+        GeometryTables tables = TABLES.get(key);
+
+        if (tables == null) {
+            // A lambda would cost a bootstrap on the first call of a JVM.
+            // Racing threads may build the tables twice, but all get the
+            // first ones stored:
+            tables = new GeometryTables(width, height, winningLength);
+            GeometryTables previous = TABLES.putIfAbsent(key, tables);
+
+            if (previous != null) {
+                tables = previous;
+            }
+        }
+
+        return tables;
+    }
+
+    /**
+     * Returns the columns ordered from the center outwards. The array is
+     * shared by all the bots of the geometry, so the callers must not write
+     * to it.
+     * @return the shared move order.
+     */
+    int[] getMoveOrder() {
+        return moveOrder;
+    }
+
+    /**
+     * Returns the distance of a cell from the center of the board in half
+     * cells: zero only at the exact center of an odd-sized board.
+     * @param x the column of the cell.
+     * @param y the row of the cell.
+     * @return the distance.
+     */
+    int getCenterDistance(int x, int y) {
+        return centerDistances[y][x];
+    }
+
+    /**
+     * Returns the default weights of the geometry: a pattern of length
+     * {@code length} weighs {@code 1 / (winningLength - length)}, and the cell
+     * weights grow from 1.0 at the borders towards {@code maxWeight} at the
+     * center. The weights are built on the first call with the given maximum
+     * weight.
+     * @param maxWeight the maximum positional weight.
+     * @return the shared weights.
+     */
+    HeuristicWeights getDefaultWeights(double maxWeight) {
+        HeuristicWeights weights = defaultWeights.get(maxWeight);
+
+        if (weights == null) {
+            weights = createDefaultWeights(maxWeight);
+            HeuristicWeights previous =
+                    defaultWeights.putIfAbsent(maxWeight, weights);
+
+            if (previous != null) {
+                weights = previous;
+            }
+        }
+
+        return weights;
+    }
+
+    /**
+     * Returns the bitboard pattern counter.
+     * @return the shared counter, or {@code null} if the board does not fit
+     * in a single word.
+     */
+    BitBoardPatternCounter getPatternCounter() {
+        return patternCounter;
+    }
+
+    /**
+     * Returns the columns ordered from the center outwards, since the central
+     * columns take part in more lines.
+     * @param width the number of columns.
+     * @return the move order.
+     */
+    private static int[] createMoveOrder(int width) {
+        int[] order = new int[width];
+
+        for (int i = 0; i < width; i++) {
+            order[i] = width / 2 + (i % 2 == 0 ? i / 2 : -(i + 1) / 2);
+        }
+
+        return order;
+    }
+
+    private HeuristicWeights createDefaultWeights(double maxWeight) {
+        double[] patternWeights = new double[winningLength + 1];
+
+        for (int length = 2; length < winningLength; length++) {
+            patternWeights[length] = 1.0 / (winningLength - length);
+        }
+
+        double[][] positionWeights = new double[height][width];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // The exact center of an odd-sized board has no distance:
+                positionWeights[y][x] =
+                        1.0 + (maxWeight - 1.0) /
+                              Math.max(1, centerDistances[y][x]);
+            }
+        }
+
+        return new HeuristicWeights(winningLength,
+                                    patternWeights,
+                                    positionWeights);
+    }
+
+    private static final class Key {
+
+        private final int width;
+        private final int height;
+        private final int winningLength;
+
+        Key(int width, int height, int winningLength) {
+            this.width = width;
+            this.height = height;
+            this.winningLength = winningLength;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) o;
+            return width == other.width
+                && height == other.height
+                && winningLength == other.winningLength;
+        }
+
+        @Override
+        public int hashCode() {
+            return (width * 31 + height) * 31 + winningLength;
+        }
+    }
+}
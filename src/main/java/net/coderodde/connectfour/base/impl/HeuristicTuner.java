@@ -0,0 +1,404 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.record.GameRecord;
+import net.coderodde.connectfour.base.record.GameRecordReader;
+import net.coderodde.connectfour.base.record.GameResult;
+
+/**
+ * This class implements an offline tuner for {@link HeuristicWeights} in the
+ * spirit of Texel's tuning method. Each position of the corpus is labelled
+ * with the outcome of its game (1 for a white win, 0.5 for a draw and 0 for a
+ * red win), and the weights are fitted so that a sigmoid of the evaluation
+ * predicts the outcome with the least mean squared error.
+ * <p>
+ * Since {@link DefaultHeuristicFunction} is linear in its weights, every
+ * position is reduced once to a feature vector: the pattern count
+ * differences per length and the signed token counts per positional weight.
+ * The positional weights are kept mirror-symmetric. The weights are then
+ * improved by coordinate-wise local search, and every error computation is
+ * spread over the cores.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class HeuristicTuner {
+
+    /**
+     * The initial step of the local search.
+     */
+    private static final double INITIAL_STEP = 0.1;
+
+    /**
+     * The local search stops once the step falls below this.
+     */
+    private static final double MINIMUM_STEP = 0.001;
+
+    private final int width;
+    private final int height;
+    private final int winningLength;
+
+    /**
+     * The number of pattern weights being tuned, one per length in
+     * {@code [2, winningLength)}.
+     */
+    private final int patternParameters;
+
+    /**
+     * The number of parameters per board row; columns {@code x} and
+     * {@code width - 1 - x} share a parameter.
+     */
+    private final int halfWidth;
+
+    /**
+     * The total number of parameters.
+     */
+    private final int parameterCount;
+
+    /**
+     * The current parameters.
+     */
+    private final double[] parameters;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * The feature vectors of all the positions, one after another.
+     */
+    private double[] features = new double[1024];
+
+    /**
+     * The game outcome of each position.
+     */
+    private double[] results = new double[16];
+
+    private int positionCount;
+
+    /**
+     * The scaling constant of the sigmoid.
+     */
+    private double scale = 1.0;
+
+    /**
+     * Scratch arrays for feature extraction.
+     */
+    private final int[] redCounts;
+    private final int[] whiteCounts;
+    private final int[] signs;
+
+    /**
+     * Constructs a tuner starting from the given weights.
+     * @param initialWeights the weights to start from.
+     * @param parallelism the number of threads computing the error.
+     */
+    public HeuristicTuner(HeuristicWeights initialWeights, int parallelism) {
+        Objects.requireNonNull(initialWeights, "The initial weights are null.");
+        this.width = initialWeights.getWidth();
+        this.height = initialWeights.getHeight();
+        this.winningLength = initialWeights.getWinningLength();
+        this.patternParameters = winningLength - 2;
+        this.halfWidth = (width + 1) / 2;
+        this.parameterCount = patternParameters + halfWidth * height;
+        this.parameters = new double[parameterCount];
+        this.pool = new ForkJoinPool(parallelism);
+        this.redCounts = new int[winningLength + 1];
+        this.whiteCounts = new int[winningLength + 1];
+        this.signs = new int[width * height];
+
+        for (int length = 2; length < winningLength; length++) {
+            parameters[length - 2] = initialWeights.getPatternWeight(length);
+        }
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < halfWidth; x++) {
+                // Start from the mean of the mirrored cells:
+                parameters[getPositionParameter(x, y)] =
+                        (initialWeights.getPositionWeight(x, y) +
+                         initialWeights.getPositionWeight(width - 1 - x, y)) /
+                        2.0;
+            }
+        }
+    }
+
+    /**
+     * Adds every non-terminal position of a finished game of the matching
+     * geometry to the corpus.
+     * @param record the game record.
+     * @return {@code true} only if the game was used.
+     */
+    public boolean addGame(GameRecord record) {
+        if (record.getWidth() != width
+                || record.getHeight() != height
+                || record.getWinningLength() != winningLength
+                || record.getResult() == GameResult.UNFINISHED) {
+            return false;
+        }
+
+        double result = record.getResult() == GameResult.WHITE_WINS ? 1.0 :
+                        record.getResult() == GameResult.RED_WINS ? 0.0 :
+                        0.5;
+
+        ConnectFourState state = record.getState(0);
+        PlayerColor player = record.getFirstPlayer();
+
+        for (int ply = 0; ply < record.getMoveCount(); ply++) {
+            addPosition(state, result);
+            state = state.move(record.getMove(ply), player);
+            player = player.opponent();
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds a position to the corpus. Positions that already contain a
+     * winning pattern are skipped.
+     * @param state the position.
+     * @param result the outcome of the game from the point of view of the
+     * white player: 1.0 for a win, 0.5 for a draw, 0.0 for a loss.
+     */
+    public void addPosition(ConnectFourState state, double result) {
+        Arrays.fill(redCounts, 0);
+        Arrays.fill(whiteCounts, 0);
+        DefaultHeuristicFunction.countPatterns(state,
+                                               winningLength,
+                                               redCounts,
+                                               whiteCounts);
+
+        if (redCounts[winningLength] > 0 || whiteCounts[winningLength] > 0) {
+            return;
+        }
+
+        if ((positionCount + 1) * parameterCount > features.length) {
+            features = Arrays.copyOf(features, 2 * features.length +
+                                               parameterCount);
+        }
+
+        if (positionCount == results.length) {
+            results = Arrays.copyOf(results, 2 * results.length);
+        }
+
+        int offset = positionCount * parameterCount;
+        Arrays.fill(features, offset, offset + parameterCount, 0.0);
+
+        for (int length = 2; length < winningLength; length++) {
+            features[offset + length - 2] =
+                    whiteCounts[length] - redCounts[length];
+        }
+
+        DefaultHeuristicFunction.getWeightSigns(state, signs);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                features[offset + getPositionParameter(x, y)] +=
+                        signs[y * width + x];
+            }
+        }
+
+        results[positionCount++] = result;
+    }
+
+    public int getPositionCount() {
+        return positionCount;
+    }
+
+    /**
+     * Fits the sigmoid scale to the current weights and then improves the
+     * weights by local search.
+     * @param maxRounds the maximum number of passes over the parameters.
+     * @return the tuned weights.
+     */
+    public HeuristicWeights tune(int maxRounds) {
+        if (positionCount == 0) {
+            throw new IllegalStateException("The corpus is empty.");
+        }
+
+        fitScale();
+        double error = computeError(parameters);
+        double step = INITIAL_STEP;
+
+        for (int round = 0; round < maxRounds && step >= MINIMUM_STEP;
+                round++) {
+            boolean improved = false;
+
+            for (int i = 0; i < parameterCount; i++) {
+                double original = parameters[i];
+                parameters[i] = original + step;
+                double newError = computeError(parameters);
+
+                if (newError >= error) {
+                    parameters[i] = original - step;
+                    newError = computeError(parameters);
+                }
+
+                if (newError < error) {
+                    error = newError;
+                    improved = true;
+                } else {
+                    parameters[i] = original;
+                }
+            }
+
+            if (!improved) {
+                step /= 2.0;
+            }
+        }
+
+        return getWeights();
+    }
+
+    /**
+     * Returns the mean squared prediction error of the current weights.
+     * @return the error.
+     */
+    public double getError() {
+        return computeError(parameters);
+    }
+
+    /**
+     * Returns the current weights.
+     * @return the weights.
+     */
+    public HeuristicWeights getWeights() {
+        double[] patternWeights = new double[winningLength + 1];
+
+        for (int length = 2; length < winningLength; length++) {
+            patternWeights[length] = parameters[length - 2];
+        }
+
+        double[][] positionWeights = new double[height][width];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                positionWeights[y][x] = parameters[getPositionParameter(x, y)];
+            }
+        }
+
+        return new HeuristicWeights(winningLength,
+                                    patternWeights,
+                                    positionWeights);
+    }
+
+    /**
+     * Finds the sigmoid scale minimizing the error of the current weights by
+     * a golden-section search.
+     */
+    private void fitScale() {
+        double low = 1e-4;
+        double high = 10.0;
+        double ratio = (Math.sqrt(5.0) - 1.0) / 2.0;
+
+        for (int iteration = 0; iteration < 40; iteration++) {
+            double a = high - ratio * (high - low);
+            double b = low + ratio * (high - low);
+            scale = a;
+            double errorA = computeError(parameters);
+            scale = b;
+            double errorB = computeError(parameters);
+
+            if (errorA < errorB) {
+                high = b;
+            } else {
+                low = a;
+            }
+        }
+
+        scale = (low + high) / 2.0;
+    }
+
+    private double computeError(double[] parameters) {
+        final double[] features = this.features;
+        final double[] results = this.results;
+        final int parameterCount = this.parameterCount;
+        final double scale = this.scale;
+
+        try {
+            double sum = pool.submit(() ->
+                IntStream.range(0, positionCount).parallel().mapToDouble(i -> {
+                    int offset = i * parameterCount;
+                    double evaluation = 0.0;
+
+                    for (int j = 0; j < parameterCount; j++) {
+                        evaluation += features[offset + j] * parameters[j];
+                    }
+
+                    double prediction =
+                            1.0 / (1.0 + Math.exp(-scale * evaluation));
+                    double difference = results[i] - prediction;
+                    return difference * difference;
+                }).sum()).get();
+
+            return sum / positionCount;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while tuning.", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Computing the error failed.",
+                                            ex.getCause());
+        }
+    }
+
+    private int getPositionParameter(int x, int y) {
+        return patternParameters + y * halfWidth + Math.min(x, width - 1 - x);
+    }
+
+    /**
+     * Tunes the weights over a game record file:
+     * {@code RECORD_FILE OUTPUT_FILE WIDTH HEIGHT WINNING_LENGTH [ROUNDS]
+     * [THREADS]}.
+     * @param args the command line arguments.
+     * @throws IOException if reading or writing fails.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.out.println(
+                    "Usage: java " + HeuristicTuner.class.getName() +
+                    " RECORD_FILE OUTPUT_FILE WIDTH HEIGHT WINNING_LENGTH " +
+                    "[ROUNDS] [THREADS]");
+            return;
+        }
+
+        Path recordFile = Paths.get(args[0]);
+        Path outputFile = Paths.get(args[1]);
+        int width = Integer.parseInt(args[2]);
+        int height = Integer.parseInt(args[3]);
+        int winningLength = Integer.parseInt(args[4]);
+        int rounds = args.length > 5 ? Integer.parseInt(args[5]) : 100;
+        int threads = args.length > 6 ?
+                Integer.parseInt(args[6]) :
+                Runtime.getRuntime().availableProcessors();
+
+        HeuristicTuner tuner = new HeuristicTuner(
+                HeuristicWeights.createDefault(width,
+                                               height,
+                                               10.0,
+                                               winningLength),
+                threads);
+        int games = 0;
+
+        try (GameRecordReader reader = new GameRecordReader(recordFile)) {
+            for (GameRecord record : reader) {
+                if (tuner.addGame(record)) {
+                    games++;
+                }
+            }
+        }
+
+        System.out.println("Loaded " + tuner.getPositionCount() +
+                           " positions from " + games + " games.");
+        long startTime = System.currentTimeMillis();
+        HeuristicWeights weights = tuner.tune(rounds);
+        System.out.println("Error " + tuner.getError() + " after " +
+                           (System.currentTimeMillis() - startTime) + " ms.");
+        weights.save(outputFile);
+    }
+}
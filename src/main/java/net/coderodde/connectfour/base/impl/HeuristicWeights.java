@@ -0,0 +1,237 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * This class holds the weights of {@link DefaultHeuristicFunction}: the weight
+ * of a pattern of each length and the positional weight of each cell. The
+ * weights can be stored in and loaded from a text file of the form
+ * <pre>
+ *   geometry WIDTH HEIGHT WINNING_LENGTH
+ *   pattern LENGTH WEIGHT
+ *   ...
+ *   row Y WEIGHT_0 WEIGHT_1 ... WEIGHT_(WIDTH - 1)
+ *   ...
+ * </pre>
+ * where lines starting with {@code #} are comments. The winning pattern is
+ * always weighted with infinity and is not stored.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class HeuristicWeights {
+
+    private final int width;
+    private final int height;
+    private final int winningLength;
+
+    /**
+     * {@code patternWeights[length]} is the weight of a single pattern of
+     * length {@code length}.
+     */
+    private final double[] patternWeights;
+
+    /**
+     * {@code positionWeights[y][x]} is the weight of the cell {@code (x, y)}.
+     */
+    private final double[][] positionWeights;
+
+    /**
+     * Constructs the weights.
+     * @param winningLength the winning length.
+     * @param patternWeights the pattern weights indexed by length; the entries
+     * below 2 and at {@code winningLength} are ignored.
+     * @param positionWeights the positional weights indexed by row and column.
+     */
+    public HeuristicWeights(int winningLength,
+                            double[] patternWeights,
+                            double[][] positionWeights) {
+        if (patternWeights.length != winningLength + 1) {
+            throw new IllegalArgumentException(
+                    "Expected " + (winningLength + 1) + " pattern weights, " +
+                    "got " + patternWeights.length + ".");
+        }
+
+        this.width = positionWeights[0].length;
+        this.height = positionWeights.length;
+        this.winningLength = winningLength;
+        this.patternWeights = patternWeights.clone();
+        this.patternWeights[winningLength] = Double.POSITIVE_INFINITY;
+        this.positionWeights = new double[height][];
+
+        for (int y = 0; y < height; y++) {
+            if (positionWeights[y].length != width) {
+                throw new IllegalArgumentException("Ragged position weights.");
+            }
+
+            this.positionWeights[y] = positionWeights[y].clone();
+        }
+    }
+
+    /**
+     * Returns the weights the evaluator has always used: a pattern of length
+     * {@code length} weighs {@code 1 / (winningLength - length)}, and the cell
+     * weights grow from 1.0 at the borders towards {@code maxWeight} at the
+     * center. The weights are immutable, so the same instance is returned for
+     * the same geometry and maximum weight.
+     * @param width the width of the board.
+     * @param height the height of the board.
+     * @param maxWeight the maximum positional weight.
+     * @param winningLength the winning length.
+     * @return the default weights.
+     */
+    public static HeuristicWeights createDefault(int width,
+                                                 int height,
+                                                 double maxWeight,
+                                                 int winningLength) {
+        return GeometryTables.get(width, height, winningLength)
+                             .getDefaultWeights(maxWeight);
+    }
+
+    /**
+     * Loads the weights from a file.
+     * @param file the file to load.
+     * @return the weights.
+     * @throws IOException if reading fails.
+     */
+    public static HeuristicWeights load(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        double[] patternWeights = null;
+        double[][] positionWeights = null;
+        int winningLength = 0;
+
+        for (String line : lines) {
+            line = line.trim();
+
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] fields = line.split("\\s+");
+
+            switch (fields[0]) {
+                case "geometry":
+                    winningLength = Integer.parseInt(fields[3]);
+                    patternWeights = new double[winningLength + 1];
+                    positionWeights =
+                            new double[Integer.parseInt(fields[2])]
+                                      [Integer.parseInt(fields[1])];
+                    break;
+
+                case "pattern":
+                    checkGeometry(patternWeights, file);
+                    patternWeights[Integer.parseInt(fields[1])] =
+                            Double.parseDouble(fields[2]);
+                    break;
+
+                case "row":
+                    checkGeometry(patternWeights, file);
+                    double[] row = positionWeights[Integer.parseInt(fields[1])];
+
+                    if (fields.length != row.length + 2) {
+                        throw new IOException(
+                                file + ": bad row length: " + line);
+                    }
+
+                    for (int x = 0; x < row.length; x++) {
+                        row[x] = Double.parseDouble(fields[x + 2]);
+                    }
+
+                    break;
+
+                default:
+                    throw new IOException(file + ": unknown entry: " + line);
+            }
+        }
+
+        checkGeometry(patternWeights, file);
+        return new HeuristicWeights(winningLength,
+                                    patternWeights,
+                                    positionWeights);
+    }
+
+    /**
+     * Saves the weights to a file.
+     * @param file the target file.
+     * @throws IOException if writing fails.
+     */
+    public void save(Path file) throws IOException {
+        try (BufferedWriter writer =
+                Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# DefaultHeuristicFunction weights");
+            writer.newLine();
+            writer.write("geometry " + width + " " + height + " " +
+                         winningLength);
+            writer.newLine();
+
+            for (int length = 2; length < winningLength; length++) {
+                writer.write("pattern " + length + " " +
+                             patternWeights[length]);
+                writer.newLine();
+            }
+
+            for (int y = 0; y < height; y++) {
+                StringBuilder stringBuilder = new StringBuilder("row ");
+                stringBuilder.append(y);
+
+                for (int x = 0; x < width; x++) {
+                    stringBuilder.append(' ').append(positionWeights[y][x]);
+                }
+
+                writer.write(stringBuilder.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWinningLength() {
+        return winningLength;
+    }
+
+    public double getPatternWeight(int length) {
+        return patternWeights[length];
+    }
+
+    public double getPositionWeight(int x, int y) {
+        return positionWeights[y][x];
+    }
+
+    /**
+     * Returns the pattern weights indexed by length. The array is shared with
+     * every evaluator of these weights, so the callers must not write to it.
+     * @return the pattern weights.
+     */
+    double[] getPatternWeights() {
+        return patternWeights;
+    }
+
+    /**
+     * Returns the positional weights indexed by row and column. The matrix is
+     * shared with every evaluator of these weights, so the callers must not
+     * write to it.
+     * @return the positional weights.
+     */
+    double[][] getPositionWeights() {
+        return positionWeights;
+    }
+
+    private static void checkGeometry(double[] patternWeights, Path file)
+            throws IOException {
+        if (patternWeights == null) {
+            throw new IOException(file + ": missing geometry entry.");
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.util.Objects;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.Rules;
+import net.coderodde.connectfour.base.StandardRules;
+
+/**
+ * This class implements a transposition table living off the heap in a
+ * memory-mapped file, so that the bots of several processes mapping the same
+ * file share their search results. The table is direct-mapped and replaces
+ * its entries the same way as {@link TranspositionTable}; the two compute the
+ * same slot for a position.
+ * <p>
+ * The processes do not lock the entries. An entry consists of three longs: the
+ * check word, the bits of the score and the data word, and the check word is
+ * the exclusive or of the position key and the other two. A probe accepts an
+ * entry only if the check word matches the words read with it, so an entry
+ * torn by concurrent writes of two processes reads as a miss instead of
+ * pairing a position with the score of another one. The only lock is taken
+ * while the header of the file is created or checked.
+ * <p>
+ * The file is created by the first process opening it and remembers the
+ * geometry, the name of the rules and the identity of the heuristic function,
+ * which the later processes must agree with, and its capacity, which the later
+ * processes adopt regardless of the capacity they ask for. An instance of this
+ * class is not thread-safe: each search thread needs an instance of its own,
+ * which may map the same file.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class MappedTranspositionTable
+        implements TranspositionStore, Closeable {
+
+    /**
+     * The size of an entry: the check word, the score and the data.
+     */
+    private static final int ENTRY_SIZE = 3 * Long.BYTES;
+
+    private final Path file;
+    private final int width;
+    private final int height;
+    private final int winningLength;
+    private final Rules rules;
+    private final int mask;
+
+    /**
+     * The entries in the native byte order.
+     */
+    private ByteBuffer entries;
+
+    // The entry found by the latest successful probe:
+    private double probedScore;
+    private int probedData;
+
+    private MappedTranspositionTable(Path file,
+                                     int width,
+                                     int height,
+                                     int winningLength,
+                                     Rules rules,
+                                     ByteBuffer entries) {
+        this.file = file;
+        this.width = width;
+        this.height = height;
+        this.winningLength = winningLength;
+        this.rules = rules;
+        this.entries = entries;
+        this.mask = entries.capacity() / ENTRY_SIZE - 1;
+    }
+
+    /**
+     * Maps a shared table for the standard rules, creating the file if it
+     * does not exist or is empty.
+     * @param file the file backing the table.
+     * @param width the width of the board.
+     * @param height the height of the board.
+     * @param winningLength the winning length.
+     * @param evaluator the heuristic function the scores are computed with.
+     * @param capacity the number of entries if the file is created; rounded
+     * up to a power of two. An existing file keeps its capacity.
+     * @return the table.
+     * @throws IOException if the file cannot be mapped.
+     * @throws IllegalArgumentException if the file was created for another
+     * geometry, rules or heuristic function, or is not a shared transposition
+     * table.
+     */
+    public static MappedTranspositionTable open(Path file,
+                                                int width,
+                                                int height,
+                                                int winningLength,
+                                                HeuristicFunction evaluator,
+                                                int capacity)
+            throws IOException {
+        return open(file,
+                    width,
+                    height,
+                    winningLength,
+                    StandardRules.INSTANCE,
+                    evaluator,
+                    capacity);
+    }
+
+    /**
+     * Maps a shared table, creating the file if it does not exist or is
+     * empty.
+     * @param file the file backing the table.
+     * @param width the width of the board.
+     * @param height the height of the board.
+     * @param winningLength the winning length.
+     * @param rules the rules the scores hold under.
+     * @param evaluator the heuristic function the scores are computed with.
+     * @param capacity the number of entries if the file is created; rounded
+     * up to a power of two. An existing file keeps its capacity.
+     * @return the table.
+     * @throws IOException if the file cannot be mapped.
+     * @throws IllegalArgumentException if the file was created for another
+     * geometry, rules or heuristic function, or is not a shared transposition
+     * table.
+     */
+    public static MappedTranspositionTable open(Path file,
+                                                int width,
+                                                int height,
+                                                int winningLength,
+                                                Rules rules,
+                                                HeuristicFunction evaluator,
+                                                int capacity)
+            throws IOException {
+        Objects.requireNonNull(rules, "The input rules are null.");
+        Objects.requireNonNull(evaluator, "The input evaluator is null.");
+
+        if (capacity < 1 || capacity > TranspositionTable.MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("capacity = " + capacity);
+        }
+
+        int roundedCapacity = Integer.highestOneBit(capacity);
+
+        if (roundedCapacity < capacity) {
+            roundedCapacity <<= 1;
+        }
+
+        MappedByteBuffer buffer =
+                SnapshotFile.openShared(file,
+                                        SnapshotFile.SHARED_TRANSPOSITION_TABLE,
+                                        width,
+                                        height,
+                                        winningLength,
+                                        rules.getName(),
+                                        evaluator.getIdentity(),
+                                        roundedCapacity,
+                                        ENTRY_SIZE);
+        int fileCapacity = SnapshotFile.getCapacity(buffer);
+
+        if (Integer.bitCount(fileCapacity) != 1) {
+            throw new IllegalArgumentException(
+                    "The capacity of the file is not a power of two: " +
+                    fileCapacity);
+        }
+
+        buffer.limit(buffer.position() + fileCapacity * ENTRY_SIZE);
+        ByteBuffer entries = buffer.slice().order(ByteOrder.nativeOrder());
+        return new MappedTranspositionTable(file,
+                                            width,
+                                            height,
+                                            winningLength,
+                                            rules,
+                                            entries);
+    }
+
+    @Override
+    public boolean covers(ConnectFourState state) {
+        return state.getWidth() == width
+            && state.getHeight() == height
+            && state.getWinningLength() == winningLength
+            && state.getRules().getName().equals(rules.getName());
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Counts the occupied entries. The count is a snapshot while other
+     * processes write to the table.
+     * @return the number of occupied entries.
+     */
+    public int countEntries() {
+        int count = 0;
+
+        for (int index = 0; index <= mask; index++) {
+            int offset = index * ENTRY_SIZE;
+
+            if ((entries.getLong(offset + 2 * Long.BYTES) &
+                    TranspositionTable.OCCUPIED_FLAG) != 0) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Empties the table for all the processes sharing it.
+     */
+    public void clear() {
+        for (int offset = 0; offset < entries.capacity();
+                offset += Long.BYTES) {
+            entries.putLong(offset, 0L);
+        }
+    }
+
+    @Override
+    public int probe(long key, PlayerColor player) {
+        int redFlag = player == PlayerColor.RED_PLAYER ?
+                TranspositionTable.RED_FLAG :
+                0;
+        int index = TranspositionTable.hash(key, redFlag) & mask;
+        int offset = index * ENTRY_SIZE;
+        long check = entries.getLong(offset);
+        long scoreBits = entries.getLong(offset + Long.BYTES);
+        long entryData = entries.getLong(offset + 2 * Long.BYTES);
+
+        if ((check ^ scoreBits ^ entryData) == key
+                && (entryData & TranspositionTable.OCCUPIED_FLAG) != 0
+                && (entryData & TranspositionTable.RED_FLAG) == redFlag) {
+            // Another process may overwrite the entry at any time, so keep
+            // the verified words:
+            probedScore = Double.longBitsToDouble(scoreBits);
+            probedData = (int) entryData;
+            return index;
+        }
+
+        return -1;
+    }
+
+    @Override
+    public void store(long key,
+                      PlayerColor player,
+                      int depth,
+                      int bound,
+                      double score,
+                      int move) {
+        int entryData =
+                TranspositionTable.packData(player, depth, bound, move);
+        int redFlag = entryData & TranspositionTable.RED_FLAG;
+        int offset = (TranspositionTable.hash(key, redFlag) & mask) *
+                     ENTRY_SIZE;
+        long oldCheck = entries.getLong(offset);
+        long oldScoreBits = entries.getLong(offset + Long.BYTES);
+        long oldData = entries.getLong(offset + 2 * Long.BYTES);
+
+        if ((oldCheck ^ oldScoreBits ^ oldData) == key
+                && (oldData & TranspositionTable.OCCUPIED_FLAG) != 0
+                && (oldData & TranspositionTable.RED_FLAG) == redFlag
+                && (oldData & TranspositionTable.DEPTH_MASK) >
+                   (entryData & TranspositionTable.DEPTH_MASK)) {
+            // Keep the deeper result of the same position.
+            return;
+        }
+
+        long scoreBits = Double.doubleToRawLongBits(score);
+        long data = entryData & 0xffffffffL;
+        entries.putLong(offset + Long.BYTES, scoreBits);
+        entries.putLong(offset + 2 * Long.BYTES, data);
+        entries.putLong(offset, key ^ scoreBits ^ data);
+    }
+
+    @Override
+    public int getDepth(int entry) {
+        return probedData & TranspositionTable.DEPTH_MASK;
+    }
+
+    @Override
+    public int getBound(int entry) {
+        return (probedData >>> TranspositionTable.BOUND_SHIFT) &
+               TranspositionTable.BOUND_MASK;
+    }
+
+    @Override
+    public double getScore(int entry) {
+        return probedScore;
+    }
+
+    @Override
+    public int getMove(int entry) {
+        return (probedData >>> TranspositionTable.MOVE_SHIFT) - 1;
+    }
+
+    /**
+     * Unmaps the table from this instance. The mapping is released by the
+     * garbage collector; the file and its entries remain for the other
+     * processes.
+     */
+    @Override
+    public void close() {
+        entries = null;
+    }
+}
@@ -0,0 +1,452 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicAccumulator;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class implements an n-tuple network evaluator. Every segment of
+ * {@code winningLength} cells in a row, column or diagonal is a tuple, and
+ * each tuple has a weight per each of the {@code 3^winningLength}
+ * configurations of its cells. The estimate of a state is the sum of the
+ * weights of the configurations present in it; trained with
+ * {@link NTupleTrainer}, it is the logit of the probability of the white
+ * player winning.
+ * <p>
+ * Unlike the pattern counting of {@link DefaultHeuristicFunction}, a tuple
+ * tells apart where its tokens lie and which empty cells are playable soon,
+ * and a move touches only the tuples through its cell. The accumulators of
+ * {@link #createAccumulator()} update the configurations and the sum on each
+ * move, so a leaf costs a few array reads. Neither path allocates. The
+ * weights are immutable, so a network may be shared by several threads; the
+ * accumulators may not.
+ * <p>
+ * The weights are stored in a binary file of the form
+ * <pre>
+ *   int magic, int version, int width, int height, int winningLength,
+ *   int weightCount, float[weightCount] weights
+ * </pre>
+ * in big-endian byte order.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class NTupleNetwork implements HeuristicFunction {
+
+    /**
+     * The largest supported number of weights.
+     */
+    public static final int MAXIMUM_WEIGHT_COUNT = 1 << 26;
+
+    /**
+     * The magic number of the weight file ("C4NT").
+     */
+    static final int MAGIC = 0x43344E54;
+
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 24;
+
+    private final int width;
+    private final int height;
+    private final int winningLength;
+
+    /**
+     * The number of weights per tuple, {@code 3^winningLength}.
+     */
+    private final int tableSize;
+
+    private final int tupleCount;
+
+    /**
+     * {@code tupleCells[t * winningLength + i]} is the index
+     * {@code y * width + x} of the {@code i}th cell of the tuple {@code t}.
+     */
+    private final int[] tupleCells;
+
+    /**
+     * The tuples through the cell {@code c} are
+     * {@code cellTuples[cellStart[c]]}, ...,
+     * {@code cellTuples[cellStart[c + 1] - 1]}, and {@code cellPowers} holds
+     * the place value {@code 3^i} of the cell in each of them.
+     */
+    private final int[] cellStart;
+    private final int[] cellTuples;
+    private final int[] cellPowers;
+
+    /**
+     * {@code weights[t * tableSize + index]} is the weight of the tuple
+     * {@code t} in the configuration {@code index}, where an empty cell
+     * counts as digit 0, a white token as 1 and a red token as 2 in base 3.
+     */
+    private final float[] weights;
+
+    /**
+     * The identity of this network; it changes with the weights.
+     */
+    private final String identity;
+
+    /**
+     * Constructs a network with all the weights zero.
+     * @param width the number of columns.
+     * @param height the number of rows.
+     * @param winningLength the winning length.
+     */
+    public NTupleNetwork(int width, int height, int winningLength) {
+        this(width, height, winningLength, null);
+    }
+
+    /**
+     * Constructs a network with the given weights.
+     * @param width the number of columns.
+     * @param height the number of rows.
+     * @param winningLength the winning length.
+     * @param weights the weights, as returned by {@link #getWeights()}.
+     */
+    public NTupleNetwork(int width,
+                         int height,
+                         int winningLength,
+                         float[] weights) {
+        if (width < 1 || height < 1 || winningLength < 1) {
+            throw new IllegalArgumentException(
+                    "Bad geometry: " + width + "x" + height + ", " +
+                    "winningLength = " + winningLength);
+        }
+
+        this.width = width;
+        this.height = height;
+        this.winningLength = winningLength;
+        this.tupleCount = countTuples(width, height, winningLength);
+
+        long tableSize = 1L;
+
+        for (int i = 0; i < winningLength
+                && tableSize <= MAXIMUM_WEIGHT_COUNT; i++) {
+            tableSize *= 3L;
+        }
+
+        if (tableSize > MAXIMUM_WEIGHT_COUNT
+                || tableSize * tupleCount > MAXIMUM_WEIGHT_COUNT) {
+            throw new IllegalArgumentException(
+                    "Too many weights for the geometry " + width + "x" +
+                    height + ", winningLength = " + winningLength + ".");
+        }
+
+        this.tableSize = (int) tableSize;
+        int weightCount = this.tableSize * tupleCount;
+
+        if (weights == null) {
+            this.weights = new float[weightCount];
+        } else if (weights.length != weightCount) {
+            throw new IllegalArgumentException(
+                    "Expected " + weightCount + " weights, got " +
+                    weights.length + ".");
+        } else {
+            this.weights = weights.clone();
+        }
+
+        this.tupleCells = new int[tupleCount * winningLength];
+        this.cellStart = new int[width * height + 1];
+        this.cellTuples = new int[tupleCount * winningLength];
+        this.cellPowers = new int[tupleCount * winningLength];
+        buildTuples();
+        this.identity = getClass().getName() + "#" +
+                        Integer.toHexString(Objects.hash(
+                                width,
+                                height,
+                                winningLength,
+                                Arrays.hashCode(this.weights)));
+    }
+
+    /**
+     * Loads a network from a file written by {@link #save(Path)}.
+     * @param file the file to load.
+     * @return the network.
+     * @throws IOException if reading fails or the file is not a network.
+     */
+    public static NTupleNetwork load(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+
+        if (buffer.remaining() < HEADER_SIZE
+                || buffer.getInt() != MAGIC) {
+            throw new IOException("Not an n-tuple network: " + file);
+        }
+
+        int version = buffer.getInt();
+
+        if (version != VERSION) {
+            throw new IOException("Unsupported network version: " + version);
+        }
+
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int winningLength = buffer.getInt();
+        int weightCount = buffer.getInt();
+
+        if (weightCount < 0 || buffer.remaining() / Float.BYTES < weightCount) {
+            throw new IOException(file + ": truncated weights.");
+        }
+
+        float[] weights = new float[weightCount];
+        buffer.asFloatBuffer().get(weights);
+
+        try {
+            return new NTupleNetwork(width, height, winningLength, weights);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(file + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Saves the weights to a file.
+     * @param file the target file.
+     * @throws IOException if writing fails.
+     */
+    public void save(Path file) throws IOException {
+        ByteBuffer buffer =
+                ByteBuffer.allocate(HEADER_SIZE + weights.length * Float.BYTES);
+        buffer.putInt(MAGIC)
+              .putInt(VERSION)
+              .putInt(width)
+              .putInt(height)
+              .putInt(winningLength)
+              .putInt(weights.length);
+        buffer.asFloatBuffer().put(weights);
+        Files.write(file, buffer.array());
+    }
+
+    /**
+     * Evaluates the state from scratch.
+     * @param state the state to estimate.
+     * @return the state quality estimate.
+     */
+    @Override
+    public double evaluate(ConnectFourState state) {
+        checkGeometry(state);
+        float sum = 0.0f;
+
+        for (int t = 0; t < tupleCount; t++) {
+            sum += weights[t * tableSize + computeIndex(state, t, false)];
+        }
+
+        return sum;
+    }
+
+    @Override
+    public HeuristicAccumulator createAccumulator() {
+        return new Accumulator();
+    }
+
+    @Override
+    public String getIdentity() {
+        return identity;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWinningLength() {
+        return winningLength;
+    }
+
+    public int getTupleCount() {
+        return tupleCount;
+    }
+
+    public int getWeightCount() {
+        return weights.length;
+    }
+
+    /**
+     * Returns a copy of the weights.
+     * @return the weights.
+     */
+    public float[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * Writes the index into the weights of each tuple of the state, or of its
+     * mirror image, to {@code entries} starting from {@code offset}.
+     * @param state the state.
+     * @param mirrored whether to mirror the columns.
+     * @param entries the target array.
+     * @param offset the index of the entry of the first tuple.
+     */
+    void computeEntries(ConnectFourState state,
+                        boolean mirrored,
+                        int[] entries,
+                        int offset) {
+        checkGeometry(state);
+
+        for (int t = 0; t < tupleCount; t++) {
+            entries[offset + t] =
+                    t * tableSize + computeIndex(state, t, mirrored);
+        }
+    }
+
+    private int computeIndex(ConnectFourState state,
+                             int tuple,
+                             boolean mirrored) {
+        int index = 0;
+        int offset = tuple * winningLength;
+
+        for (int i = winningLength - 1; i >= 0; i--) {
+            int cell = tupleCells[offset + i];
+            int x = cell % width;
+
+            if (mirrored) {
+                x = width - 1 - x;
+            }
+
+            PlayerColor player = state.readCell(x, cell / width);
+            index = 3 * index + (player == null ? 0 : digit(player));
+        }
+
+        return index;
+    }
+
+    private void checkGeometry(ConnectFourState state) {
+        if (state.getWidth() != width || state.getHeight() != height) {
+            throw new IllegalArgumentException(
+                    "The state is " + state.getWidth() + "x" +
+                    state.getHeight() + ", the network " + width + "x" +
+                    height + ".");
+        }
+    }
+
+    private static int digit(PlayerColor player) {
+        return player == PlayerColor.WHITE_PLAYER ? 1 : 2;
+    }
+
+    private static int countTuples(int width, int height, int winningLength) {
+        int horizontal = Math.max(0, width - winningLength + 1);
+        int vertical = Math.max(0, height - winningLength + 1);
+        return horizontal * height +
+               vertical * width +
+               2 * horizontal * vertical;
+    }
+
+    private void buildTuples() {
+        int[][] directions = { { 1, 0 }, { 0, 1 }, { 1, 1 }, { 1, -1 } };
+        int tuple = 0;
+
+        for (int[] direction : directions) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int lastX = x + (winningLength - 1) * direction[0];
+                    int lastY = y + (winningLength - 1) * direction[1];
+
+                    if (lastX >= width || lastY < 0 || lastY >= height) {
+                        continue;
+                    }
+
+                    for (int i = 0; i < winningLength; i++) {
+                        int cell = (y + i * direction[1]) * width +
+                                   x + i * direction[0];
+                        tupleCells[tuple * winningLength + i] = cell;
+                        cellStart[cell + 1]++;
+                    }
+
+                    tuple++;
+                }
+            }
+        }
+
+        for (int cell = 0; cell < width * height; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+
+        int[] next = Arrays.copyOf(cellStart, width * height);
+
+        for (int t = 0; t < tupleCount; t++) {
+            int power = 1;
+
+            for (int i = 0; i < winningLength; i++) {
+                int cell = tupleCells[t * winningLength + i];
+                cellTuples[next[cell]] = t;
+                cellPowers[next[cell]] = power;
+                next[cell]++;
+                power *= 3;
+            }
+        }
+    }
+
+    /**
+     * Keeps the weight index of each tuple and the sum of the weights of the
+     * current state. The sums of the states on the way from the root are
+     * kept on a stack, so unmaking a move restores the sum exactly.
+     */
+    private final class Accumulator implements HeuristicAccumulator {
+
+        private final int[] entries = new int[tupleCount];
+        private final float[] sums = new float[width * height + 1];
+        private final int[] cellStack = new int[width * height];
+        private final int[] digitStack = new int[width * height];
+        private int size;
+
+        @Override
+        public void reset(ConnectFourState state) {
+            computeEntries(state, false, entries, 0);
+            float sum = 0.0f;
+
+            for (int t = 0; t < tupleCount; t++) {
+                sum += weights[entries[t]];
+            }
+
+            sums[0] = sum;
+            size = 0;
+        }
+
+        @Override
+        public void makeMove(int x, int y, PlayerColor player) {
+            int cell = y * width + x;
+            int digit = digit(player);
+            float sum = sums[size];
+
+            for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                int t = cellTuples[i];
+                int entry = entries[t];
+                int newEntry = entry + digit * cellPowers[i];
+                sum += weights[newEntry] - weights[entry];
+                entries[t] = newEntry;
+            }
+
+            cellStack[size] = cell;
+            digitStack[size] = digit;
+            sums[++size] = sum;
+        }
+
+        @Override
+        public void unmakeMove() {
+            if (size == 0) {
+                throw new IllegalStateException("No move to unmake.");
+            }
+
+            size--;
+            int cell = cellStack[size];
+            int digit = digitStack[size];
+
+            for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                entries[cellTuples[i]] -= digit * cellPowers[i];
+            }
+        }
+
+        @Override
+        public double evaluate() {
+            return sums[size];
+        }
+    }
+}
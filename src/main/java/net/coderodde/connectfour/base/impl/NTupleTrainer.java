@@ -0,0 +1,294 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.record.GameRecord;
+import net.coderodde.connectfour.base.record.GameRecordReader;
+import net.coderodde.connectfour.base.record.GameResult;
+
+/**
+ * This class trains an {@link NTupleNetwork} over recorded games. As in
+ * {@link HeuristicTuner}, each position of the corpus is labelled with the
+ * outcome of its game (1 for a white win, 0.5 for a draw and 0 for a red win).
+ * The network output is read as the logit of the outcome, and the weights are
+ * fitted by stochastic gradient descent on the logistic loss. Every position
+ * is added together with its mirror image.
+ * <p>
+ * Each position is reduced once to the weight indices of its tuples, so an
+ * epoch is a pass of array reads and writes over the corpus on a single
+ * core.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class NTupleTrainer {
+
+    /**
+     * The default learning rate.
+     */
+    private static final double DEFAULT_LEARNING_RATE = 0.5;
+
+    /**
+     * The network defining the tuples.
+     */
+    private final NTupleNetwork network;
+
+    private final int tupleCount;
+
+    /**
+     * The weights being trained.
+     */
+    private final float[] weights;
+
+    /**
+     * The weight indices of the tuples of all the positions, one position
+     * after another.
+     */
+    private int[] entries = new int[1024];
+
+    /**
+     * The game outcome of each position.
+     */
+    private float[] results = new float[16];
+
+    private int positionCount;
+
+    private double learningRate = DEFAULT_LEARNING_RATE;
+
+    private final Random random = new Random();
+
+    /**
+     * Constructs a trainer starting from the weights of the given network.
+     * @param initialNetwork the network to start from.
+     */
+    public NTupleTrainer(NTupleNetwork initialNetwork) {
+        this.network = Objects.requireNonNull(initialNetwork,
+                                              "The initial network is null.");
+        this.tupleCount = initialNetwork.getTupleCount();
+        this.weights = initialNetwork.getWeights();
+    }
+
+    /**
+     * Sets the learning rate: a single step moves the output for a position
+     * by about the rate times the prediction error.
+     * @param learningRate the learning rate.
+     */
+    public void setLearningRate(double learningRate) {
+        if (!(learningRate > 0.0)) {
+            throw new IllegalArgumentException(
+                    "learningRate = " + learningRate);
+        }
+
+        this.learningRate = learningRate;
+    }
+
+    /**
+     * Sets the seed of the order in which the positions are visited.
+     * @param seed the seed.
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * Adds every non-terminal position of a finished game of the matching
+     * geometry to the corpus.
+     * @param record the game record.
+     * @return {@code true} only if the game was used.
+     */
+    public boolean addGame(GameRecord record) {
+        if (record.getWidth() != network.getWidth()
+                || record.getHeight() != network.getHeight()
+                || record.getWinningLength() != network.getWinningLength()
+                || record.getResult() == GameResult.UNFINISHED) {
+            return false;
+        }
+
+        double result = record.getResult() == GameResult.WHITE_WINS ? 1.0 :
+                        record.getResult() == GameResult.RED_WINS ? 0.0 :
+                        0.5;
+
+        ConnectFourState state = record.getState(0);
+        PlayerColor player = record.getFirstPlayer();
+
+        for (int ply = 0; ply < record.getMoveCount(); ply++) {
+            addPosition(state, result);
+            state = state.move(record.getMove(ply), player);
+            player = player.opponent();
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds a position and its mirror image to the corpus.
+     * @param state the position.
+     * @param result the outcome of the game from the point of view of the
+     * white player: 1.0 for a win, 0.5 for a draw, 0.0 for a loss.
+     */
+    public void addPosition(ConnectFourState state, double result) {
+        if (result < 0.0 || result > 1.0) {
+            throw new IllegalArgumentException("result = " + result);
+        }
+
+        if ((positionCount + 2) * tupleCount > entries.length) {
+            entries = Arrays.copyOf(entries, 2 * entries.length +
+                                             2 * tupleCount);
+        }
+
+        if (positionCount + 2 > results.length) {
+            results = Arrays.copyOf(results, 2 * results.length);
+        }
+
+        for (int mirrored = 0; mirrored < 2; mirrored++) {
+            network.computeEntries(state,
+                                   mirrored == 1,
+                                   entries,
+                                   positionCount * tupleCount);
+            results[positionCount++] = (float) result;
+        }
+    }
+
+    public int getPositionCount() {
+        return positionCount;
+    }
+
+    /**
+     * Runs the given number of passes over the corpus in random order.
+     * @param epochs the number of passes.
+     * @return the trained network.
+     */
+    public NTupleNetwork train(int epochs) {
+        if (positionCount == 0) {
+            throw new IllegalStateException("The corpus is empty.");
+        }
+
+        int[] order = new int[positionCount];
+
+        for (int i = 0; i < positionCount; i++) {
+            order[i] = i;
+        }
+
+        float rate = (float) (learningRate / Math.max(1, tupleCount));
+
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            for (int i = positionCount - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = order[i];
+                order[i] = order[j];
+                order[j] = tmp;
+            }
+
+            for (int i = 0; i < positionCount; i++) {
+                int position = order[i];
+                int offset = position * tupleCount;
+                float delta =
+                        rate * (results[position] - predict(offset));
+
+                for (int t = 0; t < tupleCount; t++) {
+                    weights[entries[offset + t]] += delta;
+                }
+            }
+        }
+
+        return getNetwork();
+    }
+
+    /**
+     * Returns the mean squared error of the predicted outcomes of the
+     * corpus.
+     * @return the error.
+     */
+    public double getError() {
+        double sum = 0.0;
+
+        for (int i = 0; i < positionCount; i++) {
+            double difference = results[i] - predict(i * tupleCount);
+            sum += difference * difference;
+        }
+
+        return positionCount == 0 ? 0.0 : sum / positionCount;
+    }
+
+    /**
+     * Returns a network with the current weights.
+     * @return the network.
+     */
+    public NTupleNetwork getNetwork() {
+        return new NTupleNetwork(network.getWidth(),
+                                 network.getHeight(),
+                                 network.getWinningLength(),
+                                 weights);
+    }
+
+    private float predict(int offset) {
+        float sum = 0.0f;
+
+        for (int t = 0; t < tupleCount; t++) {
+            sum += weights[entries[offset + t]];
+        }
+
+        return (float) (1.0 / (1.0 + Math.exp(-sum)));
+    }
+
+    /**
+     * Trains a network over a game record file:
+     * {@code RECORD_FILE OUTPUT_FILE WIDTH HEIGHT WINNING_LENGTH [EPOCHS]
+     * [LEARNING_RATE]}.
+     * @param args the command line arguments.
+     * @throws IOException if reading or writing fails.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.out.println(
+                    "Usage: java " + NTupleTrainer.class.getName() +
+                    " RECORD_FILE OUTPUT_FILE WIDTH HEIGHT WINNING_LENGTH " +
+                    "[EPOCHS] [LEARNING_RATE]");
+            return;
+        }
+
+        Path recordFile = Paths.get(args[0]);
+        Path outputFile = Paths.get(args[1]);
+        int width = Integer.parseInt(args[2]);
+        int height = Integer.parseInt(args[3]);
+        int winningLength = Integer.parseInt(args[4]);
+        int epochs = args.length > 5 ? Integer.parseInt(args[5]) : 10;
+
+        NTupleTrainer trainer = new NTupleTrainer(
+                new NTupleNetwork(width, height, winningLength));
+
+        if (args.length > 6) {
+            trainer.setLearningRate(Double.parseDouble(args[6]));
+        }
+
+        int games = 0;
+
+        try (GameRecordReader reader = new GameRecordReader(recordFile)) {
+            for (GameRecord record : reader) {
+                if (trainer.addGame(record)) {
+                    games++;
+                }
+            }
+        }
+
+        System.out.println("Loaded " + trainer.getPositionCount() +
+                           " positions from " + games + " games.");
+        long startTime = System.currentTimeMillis();
+
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            trainer.train(1);
+            System.out.println("Epoch " + epoch + ": error " +
+                               trainer.getError());
+        }
+
+        System.out.println("Trained in " +
+                           (System.currentTimeMillis() - startTime) + " ms.");
+        trainer.getNetwork().save(outputFile);
+    }
+}
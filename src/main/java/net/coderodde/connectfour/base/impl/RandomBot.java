@@ -2,13 +2,23 @@ package net.coderodde.connectfour.base.impl;
 
 import java.util.Objects;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.IntUnaryOperator;
 import java.util.stream.IntStream;
 import net.coderodde.connectfour.base.Bot;
 import net.coderodde.connectfour.base.ConnectFourState;
 import net.coderodde.connectfour.base.PlayerColor;
 
 /**
- * This class implements a bot that chooses the columns randomly.
+ * This class implements a bot that chooses the columns randomly. In the smart
+ * mode, the bot plays the moves forced by the immediate threats and otherwise
+ * chooses randomly among the columns that do not let the opponent win at 
+ * once.
+ * <p>
+ * The bot draws its numbers either from a {@link Random}, which may be shared
+ * by several bots, or from a {@link SplittableRandom} of its own. For
+ * reproducible runs, give each bot a stream split off from one seeded root,
+ * so that the moves of a bot do not depend on the other bots.
  * 
  * @author Rodion "rodde" Efremov
  * @version 1.6 (May 24, 2019)
@@ -16,24 +26,81 @@ import net.coderodde.connectfour.base.PlayerColor;
 public final class RandomBot implements Bot {
 
     private final PlayerColor myPlayerColor;
-    private final Random random;
+    
+    /**
+     * Returns a random number in {@code [0, bound)}.
+     */
+    private final IntUnaryOperator random;
+    
+    /**
+     * The detector of the forced moves in the smart mode, or {@code null}.
+     */
+    private final ForcedMoveDetector detector;
     
     public RandomBot(PlayerColor myPlayerColor, Random random) {
+        this(myPlayerColor, random, null);
+    }
+    
+    /**
+     * Constructs a random bot.
+     * @param myPlayerColor the color of this bot.
+     * @param random the random number generator.
+     * @param detector the detector of the forced moves for the smart mode, or
+     * {@code null} for the plain random mode.
+     */
+    public RandomBot(PlayerColor myPlayerColor, 
+                     Random random, 
+                     ForcedMoveDetector detector) {
+        this(myPlayerColor,
+             Objects.requireNonNull(random, 
+                                    "The input Random is null.")::nextInt,
+             detector);
+    }
+    
+    public RandomBot(PlayerColor myPlayerColor, SplittableRandom random) {
+        this(myPlayerColor, random, null);
+    }
+    
+    /**
+     * Constructs a random bot drawing from a splittable random stream. The
+     * stream must not be used by other threads.
+     * @param myPlayerColor the color of this bot.
+     * @param random the random stream.
+     * @param detector the detector of the forced moves for the smart mode, or
+     * {@code null} for the plain random mode.
+     */
+    public RandomBot(PlayerColor myPlayerColor,
+                     SplittableRandom random,
+                     ForcedMoveDetector detector) {
+        this(myPlayerColor,
+             Objects.requireNonNull(
+                     random,
+                     "The input SplittableRandom is null.")::nextInt,
+             detector);
+    }
+    
+    private RandomBot(PlayerColor myPlayerColor,
+                      IntUnaryOperator random,
+                      ForcedMoveDetector detector) {
         this.myPlayerColor = 
                 Objects.requireNonNull(myPlayerColor,
                                        "The given player is null.");
-        this.random = Objects.requireNonNull(random,
-                                             "The input Random is null.");
+        this.random = random;
+        this.detector = detector;
     }
     
     @Override
     public ConnectFourState computeNextState(ConnectFourState state) {
+        if (detector != null && state.getWidth() <= Long.SIZE) {
+            return computeSmartNextState(state);
+        }
+        
         int[] columnCoordinates = 
                 IntStream.range(0, state.getWidth())
                          .toArray();
         for (int i = 0; i < columnCoordinates.length * 2; i++) {
-            int index1 = random.nextInt(columnCoordinates.length);
-            int index2 = random.nextInt(columnCoordinates.length);
+            int index1 = random.applyAsInt(columnCoordinates.length);
+            int index2 = random.applyAsInt(columnCoordinates.length);
             int column = columnCoordinates[index1];
             columnCoordinates[index1] = columnCoordinates[index2];
             columnCoordinates[index2] = column;
@@ -48,6 +115,34 @@ public final class RandomBot implements Bot {
         throw new IllegalStateException("We should not get here. Ever.");
     }
 
+    /**
+     * Returns the detector of the forced moves.
+     * @return the detector, or {@code null} in the plain random mode.
+     */
+    public ForcedMoveDetector getDetector() {
+        return detector;
+    }
+    
+    private ConnectFourState computeSmartNextState(ConnectFourState state) {
+        int x = detector.findForcedMove(state, myPlayerColor);
+        
+        if (x == ForcedMoveDetector.NO_FORCED_MOVE) {
+            long columns = 
+                    ForcedMoveDetector.getSafeColumnMask(state, myPlayerColor);
+            
+            // Pick the column of a random set bit:
+            for (int i = random.applyAsInt(Long.bitCount(columns)); 
+                    i > 0; 
+                    i--) {
+                columns &= columns - 1L;
+            }
+            
+            x = Long.numberOfTrailingZeros(columns);
+        }
+        
+        return state.move(x, myPlayerColor);
+    }
+    
     @Override
     public PlayerColor getPlayerColor() {
         return myPlayerColor;
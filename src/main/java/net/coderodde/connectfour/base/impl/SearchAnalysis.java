@@ -0,0 +1,156 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.util.Arrays;
+
+/**
+ * This class holds the result of an analysis by
+ * {@link SmartBot#analyze(net.coderodde.connectfour.base.ConnectFourState, int)}:
+ * a score and a principal variation for every legal column, and the columns
+ * ranked from the best to the worst. The scores are from the point of view of
+ * the analyzing bot. The columns ranked below the requested number of lines
+ * are only known not to be better than the last of those lines, so their
+ * scores are upper bounds.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class SearchAnalysis {
+
+    private final int depth;
+    private final long nodeCount;
+    private final double[] scores;
+    private final boolean[] exact;
+    private final int[][] lines;
+    private final int[] rankedColumns;
+
+    SearchAnalysis(int depth,
+                   long nodeCount,
+                   double[] scores,
+                   boolean[] exact,
+                   int[][] lines) {
+        this.depth = depth;
+        this.nodeCount = nodeCount;
+        this.scores = scores.clone();
+        this.exact = exact.clone();
+        this.lines = new int[lines.length][];
+
+        int legalCount = 0;
+
+        for (int x = 0; x < lines.length; x++) {
+            if (lines[x] != null) {
+                this.lines[x] = lines[x].clone();
+                legalCount++;
+            }
+        }
+
+        // The exact scores rank above the bounds:
+        Integer[] columns = new Integer[legalCount];
+
+        for (int x = 0, i = 0; x < lines.length; x++) {
+            if (lines[x] != null) {
+                columns[i++] = x;
+            }
+        }
+
+        Arrays.sort(columns, (a, b) -> {
+            if (exact[a] != exact[b]) {
+                return exact[a] ? -1 : 1;
+            }
+
+            int comparison = Double.compare(scores[b], scores[a]);
+            return comparison != 0 ? comparison : Integer.compare(a, b);
+        });
+
+        this.rankedColumns = new int[legalCount];
+
+        for (int i = 0; i < legalCount; i++) {
+            rankedColumns[i] = columns[i];
+        }
+    }
+
+    /**
+     * Returns the depth of the analysis.
+     * @return the depth in plies.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of nodes visited so far in the analysis.
+     * @return the node count.
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the number of legal columns.
+     * @return the number of analyzed columns.
+     */
+    public int getColumnCount() {
+        return rankedColumns.length;
+    }
+
+    /**
+     * Returns the column at the given rank, the best column having rank
+     * zero.
+     * @param rank the rank.
+     * @return the column.
+     */
+    public int getColumn(int rank) {
+        return rankedColumns[rank];
+    }
+
+    /**
+     * Returns the best column.
+     * @return the best column.
+     */
+    public int getBestColumn() {
+        return rankedColumns[0];
+    }
+
+    /**
+     * Returns the score of dropping a token to the column {@code x}.
+     * @param x the column.
+     * @return the score, or {@code NaN} if the column is full.
+     */
+    public double getScore(int x) {
+        return scores[x];
+    }
+
+    /**
+     * Returns whether the score of the column {@code x} is exact rather than
+     * an upper bound.
+     * @param x the column.
+     * @return {@code true} if the score is exact.
+     */
+    public boolean isExact(int x) {
+        return exact[x];
+    }
+
+    /**
+     * Returns the principal variation starting with the column {@code x}.
+     * For a column with a bounded score, the line is the one refuting it.
+     * @param x the column.
+     * @return the line, or {@code null} if the column is full.
+     */
+    public int[] getPrincipalVariation(int x) {
+        return lines[x] == null ? null : lines[x].clone();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("depth ").append(depth);
+
+        for (int x : rankedColumns) {
+            sb.append(String.format("%n%3d: %s%12.2f  %s",
+                                    x,
+                                    exact[x] ? " " : "<",
+                                    scores[x],
+                                    Arrays.toString(lines[x])));
+        }
+
+        return sb.toString();
+    }
+}
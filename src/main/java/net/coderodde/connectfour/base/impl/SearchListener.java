@@ -0,0 +1,33 @@
+package net.coderodde.connectfour.base.impl;
+
+/**
+ * This interface defines the API for listening to the progress of the
+ * iteratively deepening {@link SmartBot} search.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public interface SearchListener {
+
+    /**
+     * Called after each completed iteration.
+     * @param depth the depth of the iteration.
+     * @param bestColumn the best column found.
+     * @param score the score from the point of view of the searching bot.
+     * @param nodeCount the number of nodes visited so far in this search.
+     * @param elapsedNanos the time elapsed since the start of the search.
+     */
+    public void onIterationCompleted(int depth,
+                                     int bestColumn,
+                                     double score,
+                                     long nodeCount,
+                                     long elapsedNanos);
+
+    /**
+     * Called after each completed iteration of an analysis, after
+     * {@link #onIterationCompleted(int, int, double, long, long)}.
+     * @param analysis the scores and the lines of the iteration.
+     */
+    public default void onAnalysisIterationCompleted(
+            SearchAnalysis analysis) {}
+}
@@ -0,0 +1,170 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import net.coderodde.connectfour.base.Bot;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class records the searches of a {@link SmartBot} so that they can be
+ * replayed later. Each search is recorded with its root state, its move, its
+ * node count, its depth and its score, and whether it was stopped by the time
+ * or the node limit.
+ * <p>
+ * A replay runs the recorded searches, in order, on a fresh bot configured
+ * like the recorded one; its transposition table, if any, must be empty and
+ * of the same capacity. A stopped search is replayed with its node count as
+ * the node limit, so even a search that ran out of time is reproduced exactly
+ * to the node.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class SearchRecorder implements Bot {
+
+    /**
+     * Returned by {@link #replay(SmartBot)} if every search was reproduced.
+     */
+    public static final int REPRODUCED = -1;
+
+    /**
+     * A single recorded search.
+     */
+    public static final class Entry {
+
+        private final ConnectFourState state;
+        private final int move;
+        private final long nodeCount;
+        private final int depth;
+        private final double score;
+        private final boolean aborted;
+
+        Entry(ConnectFourState state,
+              int move,
+              long nodeCount,
+              int depth,
+              double score,
+              boolean aborted) {
+            this.state = state;
+            this.move = move;
+            this.nodeCount = nodeCount;
+            this.depth = depth;
+            this.score = score;
+            this.aborted = aborted;
+        }
+
+        public ConnectFourState getState() {
+            return state;
+        }
+
+        public int getMove() {
+            return move;
+        }
+
+        public long getNodeCount() {
+            return nodeCount;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public boolean isAborted() {
+            return aborted;
+        }
+
+        /**
+         * Checks whether the search of {@code bot} ending in the move
+         * {@code move} matches this one.
+         */
+        boolean matches(SmartBot bot, int move) {
+            return this.move == move
+                && nodeCount == bot.getNodeCount()
+                && depth == bot.getLastDepth()
+                && Double.compare(score, bot.getLastScore()) == 0
+                && aborted == bot.isLastSearchAborted();
+        }
+
+        @Override
+        public String toString() {
+            return "move " + move + ", " + nodeCount + " nodes, depth " +
+                   depth + ", score " + score + (aborted ? ", aborted" : "");
+        }
+    }
+
+    private final SmartBot bot;
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Constructs a recorder of the searches of the given bot.
+     * @param bot the recorded bot.
+     */
+    public SearchRecorder(SmartBot bot) {
+        this.bot = Objects.requireNonNull(bot, "The input bot is null.");
+    }
+
+    @Override
+    public ConnectFourState computeNextState(ConnectFourState state) {
+        ConnectFourState nextState = bot.computeNextState(state);
+        entries.add(new Entry(state,
+                              state.findMoveColumn(nextState),
+                              bot.getNodeCount(),
+                              bot.getLastDepth(),
+                              bot.getLastScore(),
+                              bot.isLastSearchAborted()));
+        return nextState;
+    }
+
+    @Override
+    public PlayerColor getPlayerColor() {
+        return bot.getPlayerColor();
+    }
+
+    /**
+     * Returns the recorded searches in order.
+     * @return the recorded searches.
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Replays the recorded searches on {@code replayBot}, which is left with
+     * no time limit and the node limit of the last replayed search.
+     * @param replayBot a fresh bot configured like the recorded one.
+     * @return the index of the first search that did not match, or
+     * {@link #REPRODUCED}.
+     */
+    public int replay(SmartBot replayBot) {
+        Objects.requireNonNull(replayBot, "The replay bot is null.");
+
+        if (replayBot.getPlayerColor() != bot.getPlayerColor()) {
+            throw new IllegalArgumentException(
+                    "The replay bot plays the other color.");
+        }
+
+        replayBot.setTimeLimit(0L);
+
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            replayBot.setNodeLimit(entry.isAborted() ?
+                                   entry.getNodeCount() :
+                                   0L);
+            ConnectFourState state = entry.getState();
+            int move = state.findMoveColumn(replayBot.computeNextState(state));
+
+            if (!entry.matches(replayBot, move)) {
+                return i;
+            }
+        }
+
+        return REPRODUCED;
+    }
+}
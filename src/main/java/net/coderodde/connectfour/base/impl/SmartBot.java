@@ -1,37 +1,1180 @@
 package net.coderodde.connectfour.base.impl;
 
+import java.util.Arrays;
 import java.util.Objects;
 import net.coderodde.connectfour.base.Bot;
 import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicAccumulator;
 import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.StandardRules;
 import net.coderodde.connectfour.base.HeuristicFunction;
 
 /**
- * This class implements the smart bot relying on Alpha-beta pruning.
- * 
+ * This class implements the smart bot relying on Alpha-beta pruning. The bot
+ * deepens iteratively up to its depth; each iteration is searched with an
+ * aspiration window around the score of the previous one, and all but the
+ * first move of a node are scouted with a null window (principal variation
+ * search). The forced replies to immediate threats are searched without
+ * consuming depth, and optionally, the moves ordered late are searched with a
+ * reduced depth. An optional {@link TranspositionStore} shares the results
+ * between the transpositions, the iterations and the successive searches,
+ * and, if it is a {@link MappedTranspositionTable}, with the bots of other
+ * processes.
+ * If the evaluator supports incremental evaluation, the leaves are evaluated
+ * through its accumulator, which follows the moves of the search.
+ * <p>
+ * Besides choosing a move, the bot can {@linkplain #analyze(ConnectFourState,
+ * int) analyze} a position, scoring each column and finding its principal
+ * variation in one search, in which the columns share the iterations and the
+ * transposition table.
+ * <p>
+ * Apart from the time limit, the search is deterministic: the same sequence of
+ * searches from a fresh bot visits the same nodes. A time limit may be
+ * replaced by a node limit, which stops the search at the same node on every
+ * run; see {@link SearchRecorder}.
+ * <p>
+ * The search drops tokens only and scores a full board as a draw, so it
+ * supports the {@linkplain StandardRules standard rules} only; the states of
+ * the other variants are rejected rather than searched with wrong results.
+ *
  * @author Rodion "rodde" Efremov
  * @version 1.6 (May 24, 2019)
  */
 public final class SmartBot implements Bot {
-    
+
+    /**
+     * The default search depth in plies.
+     */
+    private static final int DEFAULT_DEPTH = 6;
+
+    /**
+     * The default half-width of the aspiration window.
+     */
+    private static final double DEFAULT_ASPIRATION_WINDOW = 2.0;
+
+    /**
+     * The score of a won position. Wins found closer to the root get higher
+     * scores so that the bot prefers the quickest win and the slowest loss.
+     */
+    public static final double WIN_SCORE = 1_000_000.0;
+
+    /**
+     * The scores at least this large in absolute value denote a forced win or
+     * loss.
+     */
+    public static final double WIN_THRESHOLD = WIN_SCORE / 2;
+
+    /**
+     * The clock is read once per this many nodes plus one.
+     */
+    private static final long TIME_CHECK_MASK = 1023L;
+
+    /**
+     * The late move reductions apply only at this depth and above.
+     */
+    private static final int LMR_MINIMUM_DEPTH = 3;
+
+    /**
+     * The number of moves of a node searched at the full depth before the
+     * late move reductions kick in.
+     */
+    private static final int LMR_FULL_DEPTH_MOVES = 3;
+
     private final PlayerColor myPlayerColor;
     private final HeuristicFunction evaluator;
-    
+    private final int depth;
+
+    /**
+     * The accumulator of the evaluator, or {@code null} if the evaluator does
+     * not support incremental evaluation.
+     */
+    private final HeuristicAccumulator accumulator;
+
+    /**
+     * The optional endgame database probed instead of the evaluator.
+     */
+    private EndgameDatabase endgameDatabase;
+
+    /**
+     * The optional transposition table.
+     */
+    private TranspositionStore transpositionTable;
+
+    /**
+     * The transposition table if it covers the state being searched,
+     * {@code null} otherwise.
+     */
+    private TranspositionStore activeTable;
+
+    /**
+     * Whether to deepen iteratively with aspiration windows.
+     */
+    private boolean useAspirationWindows = true;
+
+    /**
+     * Whether to scout the non-PV moves with a null window.
+     */
+    private boolean usePrincipalVariationSearch = true;
+
+    /**
+     * Whether to search the moves ordered late with a reduced depth.
+     */
+    private boolean useLateMoveReductions;
+
+    /**
+     * Whether to resolve the nodes with an immediate threat and to search the
+     * forced replies without consuming depth.
+     */
+    private boolean useThreatExtensions = true;
+
+    /**
+     * The deepest ply the extensions may reach in the current iteration.
+     */
+    private int maximumPly;
+
+    /**
+     * The half-width of the aspiration window.
+     */
+    private double aspirationWindow = DEFAULT_ASPIRATION_WINDOW;
+
+    /**
+     * The time limit per move in milliseconds, or zero for none.
+     */
+    private long timeLimitMillis;
+
+    /**
+     * The node limit per move, or zero for none.
+     */
+    private long nodeLimit;
+
+    /**
+     * The manager of the time under a game clock, or {@code null}.
+     */
+    private TimeManager timeManager;
+
+    /**
+     * The listener notified of each completed iteration.
+     */
+    private SearchListener searchListener;
+
+    /**
+     * The value of {@link System#nanoTime()} at the start of the search.
+     */
+    private long startTime;
+
+    /**
+     * The value of {@link System#nanoTime()} at which the search must stop,
+     * or zero for no deadline.
+     */
+    private long deadline;
+
+    /**
+     * Whether the current search ran out of time or nodes.
+     */
+    private boolean aborted;
+
+    /**
+     * The columns in the order they are searched, shared with the other bots
+     * of the geometry.
+     */
+    private int[] moveOrder = new int[0];
+
+    /**
+     * The per-ply move buffers.
+     */
+    private int[][] moveBuffers = new int[0][];
+
+    /**
+     * The triangular principal variation table: {@code pvTable[ply]} holds the
+     * best line found from {@code ply} on.
+     */
+    private int[][] pvTable = new int[0][];
+    private int[] pvLength = new int[0];
+
+    /**
+     * The principal variation of the previous iteration.
+     */
+    private int[] previousPv = new int[0];
+    private int previousPvLength;
+
+    /**
+     * Whether the current node lies on the previous principal variation.
+     */
+    private boolean followPv;
+
+    /**
+     * The number of nodes visited during the last search.
+     */
+    private long nodeCount;
+
+    /**
+     * The score of the last search from the point of view of this bot.
+     */
+    private double lastScore;
+
+    /**
+     * The depth completed by the last search.
+     */
+    private int lastDepth;
+
     public SmartBot(PlayerColor me, HeuristicFunction evaluator) {
+        this(me, evaluator, DEFAULT_DEPTH);
+    }
+
+    /**
+     * Constructs a smart bot.
+     * @param me the color of this bot.
+     * @param evaluator the evaluator for the leaf states.
+     * @param depth the search depth in plies.
+     */
+    public SmartBot(PlayerColor me, HeuristicFunction evaluator, int depth) {
         this.myPlayerColor =
                 Objects.requireNonNull(me, "The input player is null.");
-        
+
         this.evaluator = Objects.requireNonNull(evaluator,
                                                 "The input evaluator is null.");
+
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth = " + depth);
+        }
+
+        this.depth = depth;
+        this.accumulator = evaluator.createAccumulator();
+    }
+
+    /**
+     * Sets the endgame database. The states covered by the database are
+     * scored exactly and not searched any further.
+     * @param endgameDatabase the database, or {@code null} for none.
+     */
+    public void setEndgameDatabase(EndgameDatabase endgameDatabase) {
+        this.endgameDatabase = endgameDatabase;
+    }
+
+    /**
+     * Sets the transposition table. The table is kept between the searches,
+     * so it may be warmed up by the earlier games or loaded from a snapshot
+     * taken with an evaluator of the same identity, or shared with other
+     * processes through a file. It is used only for the states of its
+     * geometry.
+     * @param transpositionTable the table, or {@code null} for none.
+     */
+    public void setTranspositionTable(TranspositionStore transpositionTable) {
+        this.transpositionTable = transpositionTable;
+    }
+
+    /**
+     * Turns iterative deepening with aspiration windows on or off. When off,
+     * the bot runs a single full-window search at its depth.
+     * @param useAspirationWindows the flag.
+     */
+    public void setAspirationWindows(boolean useAspirationWindows) {
+        this.useAspirationWindows = useAspirationWindows;
+    }
+
+    /**
+     * Sets the half-width of the aspiration window.
+     * @param aspirationWindow the half-width.
+     */
+    public void setAspirationWindow(double aspirationWindow) {
+        if (!(aspirationWindow > 0.0)) {
+            throw new IllegalArgumentException(
+                    "aspirationWindow = " + aspirationWindow);
+        }
+
+        this.aspirationWindow = aspirationWindow;
+    }
+
+    /**
+     * Turns the null-window scouting of the non-PV moves on or off.
+     * @param usePrincipalVariationSearch the flag.
+     */
+    public void setPrincipalVariationSearch(
+            boolean usePrincipalVariationSearch) {
+        this.usePrincipalVariationSearch = usePrincipalVariationSearch;
+    }
+
+    /**
+     * Turns the late move reductions on or off. When on, the moves after the
+     * first {@value #LMR_FULL_DEPTH_MOVES} of a non-root node are first
+     * searched one ply shallower with a null window; a move beating alpha
+     * there is searched again at the full depth.
+     * @param useLateMoveReductions the flag.
+     */
+    public void setLateMoveReductions(boolean useLateMoveReductions) {
+        this.useLateMoveReductions = useLateMoveReductions;
+    }
+
+    /**
+     * Turns the threat extensions on or off. When on, which is the default, a
+     * node where the player to move can win at once is scored as a win, a
+     * node where the opponent threatens to win in two columns as a loss, and
+     * a node where the opponent threatens to win in one column is searched
+     * only for the blocking move, without consuming depth. The extensions of
+     * a line are capped at the depth of the iteration. Boards wider than 64
+     * columns are never extended.
+     * @param useThreatExtensions the flag.
+     */
+    public void setThreatExtensions(boolean useThreatExtensions) {
+        this.useThreatExtensions = useThreatExtensions;
+    }
+
+    /**
+     * Sets the time limit per move. The search deepens iteratively until the
+     * depth is reached or the time runs out, and returns the best move of the
+     * last completed iteration.
+     * @param timeLimitMillis the time limit in milliseconds, or zero for none.
+     */
+    public void setTimeLimit(long timeLimitMillis) {
+        if (timeLimitMillis < 0L) {
+            throw new IllegalArgumentException(
+                    "timeLimitMillis = " + timeLimitMillis);
+        }
+
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Sets the manager of the time under a game clock. While set, it replaces
+     * the time limit: the clock must be set on the manager before each move,
+     * and the manager decides when to stop deepening.
+     * @param timeManager the time manager, or {@code null} for none.
+     */
+    public void setTimeManager(TimeManager timeManager) {
+        this.timeManager = timeManager;
+    }
+
+    /**
+     * Sets the node limit per move. The limit is checked every 1024 nodes,
+     * like the time limit, so a search stops at the first check at or past
+     * the limit. A search that ran out of time stopped at a check, so its
+     * node count, used as the node limit, reproduces it.
+     * @param nodeLimit the node limit, or zero for none.
+     */
+    public void setNodeLimit(long nodeLimit) {
+        if (nodeLimit < 0L) {
+            throw new IllegalArgumentException("nodeLimit = " + nodeLimit);
+        }
+
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Sets the listener notified of each completed iteration.
+     * @param searchListener the listener, or {@code null} for none.
+     */
+    public void setSearchListener(SearchListener searchListener) {
+        this.searchListener = searchListener;
+    }
+
+    /**
+     * Returns the number of nodes visited during the last search, counting
+     * all the iterations and re-searches.
+     * @return the node count.
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns whether the last search ran out of time or nodes before
+     * reaching its depth.
+     * @return {@code true} if the last search was stopped.
+     */
+    public boolean isLastSearchAborted() {
+        return aborted;
+    }
+
+    /**
+     * Returns the score of the last search from the point of view of this bot.
+     * @return the score.
+     */
+    public double getLastScore() {
+        return lastScore;
+    }
+
+    /**
+     * Returns the depth completed by the last search.
+     * @return the depth.
+     */
+    public int getLastDepth() {
+        return lastDepth;
     }
 
     @Override
     public ConnectFourState computeNextState(ConnectFourState state) {
-        return null;
+        checkRules(state);
+
+        if (state.isFull() || state.checkVictory() != null) {
+            throw new IllegalStateException("The game is already over.");
+        }
+
+        prepare(state);
+
+        // A time or node limit needs iterations to fall back on:
+        boolean iterate = useAspirationWindows
+                       || timeLimitMillis > 0L
+                       || nodeLimit > 0L
+                       || timeManager != null;
+        double score = 0.0;
+
+        for (int currentDepth = iterate ? 1 : depth;
+                currentDepth <= depth;
+                currentDepth++) {
+            score = useAspirationWindows ?
+                    searchWithAspirationWindow(state, currentDepth, score) :
+                    searchRoot(state,
+                               currentDepth,
+                               Double.NEGATIVE_INFINITY,
+                               Double.POSITIVE_INFINITY);
+
+            if (aborted) {
+                break;
+            }
+
+            lastScore = score;
+            lastDepth = currentDepth;
+            savePrincipalVariation();
+
+            if (searchListener != null) {
+                searchListener.onIterationCompleted(
+                        currentDepth,
+                        previousPv[0],
+                        score,
+                        nodeCount,
+                        System.nanoTime() - startTime);
+            }
+
+            if (Math.abs(score) >= WIN_THRESHOLD) {
+                // A forced result does not change with more depth:
+                break;
+            }
+
+            if (timeManager != null
+                    && timeManager.shouldStop(currentDepth,
+                                              previousPv[0],
+                                              score,
+                                              System.nanoTime() - startTime)) {
+                break;
+            }
+        }
+
+        return state.move(previousPv[0], myPlayerColor);
     }
 
     @Override
     public PlayerColor getPlayerColor() {
         return myPlayerColor;
     }
+
+    /**
+     * Analyzes the state, in which this bot is to move, by searching every
+     * legal column. The best {@code lineCount} columns get exact scores; the
+     * others are scouted against the score of the last of them and get upper
+     * bounds, which saves most of their search. The search deepens
+     * iteratively under the same depth, limits and time manager as
+     * {@link #computeNextState(ConnectFourState)}, and the listener, if any,
+     * is notified of each completed iteration.
+     * @param state the state to analyze.
+     * @param lineCount the number of best columns to score exactly.
+     * @return the analysis of the last completed iteration.
+     * @throws IllegalArgumentException if the state is not played under the
+     * standard rules.
+     */
+    public SearchAnalysis analyze(ConnectFourState state, int lineCount) {
+        checkRules(state);
+
+        if (state.isFull() || state.checkVictory() != null) {
+            throw new IllegalStateException("The game is already over.");
+        }
+
+        if (lineCount < 1) {
+            throw new IllegalArgumentException("lineCount = " + lineCount);
+        }
+
+        prepare(state);
+
+        int width = state.getWidth();
+        double[] scores = new double[width];
+        boolean[] exact = new boolean[width];
+        int[][] lines = new int[width][];
+        SearchAnalysis analysis = null;
+
+        for (int currentDepth = 1; currentDepth <= depth; currentDepth++) {
+            searchRootColumns(state, currentDepth, lineCount, scores, exact,
+                              lines);
+
+            if (aborted) {
+                break;
+            }
+
+            analysis = new SearchAnalysis(currentDepth,
+                                          nodeCount,
+                                          scores,
+                                          exact,
+                                          lines);
+            int bestColumn = analysis.getBestColumn();
+            lastScore = scores[bestColumn];
+            lastDepth = currentDepth;
+
+            // Let the next iteration follow the best line:
+            previousPvLength = lines[bestColumn].length;
+            System.arraycopy(lines[bestColumn], 0,
+                             previousPv, 0,
+                             previousPvLength);
+
+            if (searchListener != null) {
+                searchListener.onIterationCompleted(
+                        currentDepth,
+                        bestColumn,
+                        lastScore,
+                        nodeCount,
+                        System.nanoTime() - startTime);
+                searchListener.onAnalysisIterationCompleted(analysis);
+            }
+
+            if (timeManager != null
+                    && timeManager.shouldStop(currentDepth,
+                                              bestColumn,
+                                              lastScore,
+                                              System.nanoTime() - startTime)) {
+                break;
+            }
+        }
+
+        return analysis;
+    }
+
+    /**
+     * Searches the root at {@code depth} with a window centered at the score
+     * of the previous iteration, widening the failing side until the score
+     * falls inside.
+     */
+    private double searchWithAspirationWindow(ConnectFourState state,
+                                              int depth,
+                                              double previousScore) {
+        if (depth == 1 || Math.abs(previousScore) >= WIN_THRESHOLD) {
+            return searchRoot(state,
+                              depth,
+                              Double.NEGATIVE_INFINITY,
+                              Double.POSITIVE_INFINITY);
+        }
+
+        double lowDelta = aspirationWindow;
+        double highDelta = aspirationWindow;
+
+        while (true) {
+            double alpha = previousScore - lowDelta;
+            double beta = previousScore + highDelta;
+            double score = searchRoot(state, depth, alpha, beta);
+
+            if (aborted) {
+                return score;
+            }
+
+            if (score <= alpha) {
+                lowDelta = widen(lowDelta);
+            } else if (score >= beta) {
+                highDelta = widen(highDelta);
+            } else {
+                return score;
+            }
+        }
+    }
+
+    private static double widen(double delta) {
+        double widened = 4.0 * delta;
+        return widened > WIN_THRESHOLD ? Double.POSITIVE_INFINITY : widened;
+    }
+
+    /**
+     * Searches the root state. Leaves the best line in {@code pvTable[0]}.
+     * @return the score of the root.
+     */
+    private double searchRoot(ConnectFourState state,
+                              int depth,
+                              double alpha,
+                              double beta) {
+        followPv = true;
+        maximumPly = 2 * depth;
+        return alphaBeta(state, depth, 0, alpha, beta, myPlayerColor);
+    }
+
+    /**
+     * Searches each legal column of the root at {@code depth}, in the order
+     * of their scores in the previous iteration. A column is searched with
+     * the lower bound of the {@code lineCount}th best exact score found so
+     * far, scouting it first with a null window, so its score is exact if it
+     * beats the bound and an upper bound otherwise. The scores, the exactness
+     * and the lines are written to the arrays, unless the search is aborted.
+     */
+    private void searchRootColumns(ConnectFourState state,
+                                   int depth,
+                                   int lineCount,
+                                   double[] scores,
+                                   boolean[] exact,
+                                   int[][] lines) {
+        int width = state.getWidth();
+        int[] columns = new int[width];
+        int columnCount = 0;
+
+        if (depth == 1) {
+            for (int x : moveOrder) {
+                if (!state.columnIsFull(x)) {
+                    columns[columnCount++] = x;
+                }
+            }
+        } else {
+            SearchAnalysis previous =
+                    new SearchAnalysis(depth - 1, 0L, scores, exact, lines);
+            columnCount = previous.getColumnCount();
+
+            for (int i = 0; i < columnCount; i++) {
+                columns[i] = previous.getColumn(i);
+            }
+        }
+
+        maximumPly = 2 * depth;
+        nodeCount++;
+        double[] newScores = new double[width];
+        boolean[] newExact = new boolean[width];
+        int[][] newLines = new int[width][];
+        Arrays.fill(newScores, Double.NaN);
+
+        // The best exact scores found so far, in descending order:
+        double[] bestScores = new double[Math.min(lineCount, columnCount)];
+        int bestCount = 0;
+        PlayerColor opponent = myPlayerColor.opponent();
+
+        for (int i = 0; i < columnCount; i++) {
+            int x = columns[i];
+            double alpha = bestCount == bestScores.length ?
+                    bestScores[bestCount - 1] :
+                    Double.NEGATIVE_INFINITY;
+            ConnectFourState child = state.move(x, myPlayerColor);
+            makeMove(state, x, myPlayerColor);
+            followPv = previousPvLength > 0 && previousPv[0] == x;
+            double score;
+
+            if (alpha == Double.NEGATIVE_INFINITY
+                    || !usePrincipalVariationSearch) {
+                score = -alphaBeta(child, depth - 1, 1,
+                                   Double.NEGATIVE_INFINITY, -alpha,
+                                   opponent);
+            } else {
+                score = -alphaBeta(child, depth - 1, 1,
+                                   -Math.nextUp(alpha), -alpha,
+                                   opponent);
+
+                if (score > alpha) {
+                    score = -alphaBeta(child, depth - 1, 1,
+                                       Double.NEGATIVE_INFINITY, -alpha,
+                                       opponent);
+                }
+            }
+
+            unmakeMove();
+            followPv = false;
+
+            if (aborted) {
+                return;
+            }
+
+            int[] line = new int[pvLength[1] + 1];
+            line[0] = x;
+            System.arraycopy(pvTable[1], 0, line, 1, pvLength[1]);
+            newScores[x] = score;
+            newLines[x] = line;
+            newExact[x] = score > alpha;
+
+            if (newExact[x]) {
+                // Insert the score into the best ones:
+                int j = Math.min(bestCount, bestScores.length - 1);
+
+                while (j > 0 && bestScores[j - 1] < score) {
+                    bestScores[j] = bestScores[j - 1];
+                    j--;
+                }
+
+                bestScores[j] = score;
+                bestCount = Math.min(bestCount + 1, bestScores.length);
+            }
+        }
+
+        System.arraycopy(newScores, 0, scores, 0, width);
+        System.arraycopy(newExact, 0, exact, 0, width);
+        System.arraycopy(newLines, 0, lines, 0, width);
+
+        if (activeTable != null) {
+            int bestColumn = -1;
+
+            for (int x = 0; x < width; x++) {
+                if (exact[x]
+                        && (bestColumn < 0 || scores[x] > scores[bestColumn])) {
+                    bestColumn = x;
+                }
+            }
+
+            activeTable.store(state.getPositionKey(),
+                              myPlayerColor,
+                              depth,
+                              TranspositionStore.EXACT,
+                              toTable(scores[bestColumn], 0),
+                              bestColumn);
+        }
+    }
+
+    /**
+     * Searches the state in the negamax fashion: the returned score is from
+     * the point of view of {@code player}.
+     * @param state the state to search.
+     * @param depth the remaining depth.
+     * @param ply the distance from the root.
+     * @param alpha the lower bound.
+     * @param beta the upper bound.
+     * @param player the player to move.
+     * @return the score of the state.
+     */
+    private double alphaBeta(ConnectFourState state,
+                             int depth,
+                             int ply,
+                             double alpha,
+                             double beta,
+                             PlayerColor player) {
+        if (aborted) {
+            // The result is discarded, so any value will do:
+            return 0.0;
+        }
+
+        nodeCount++;
+        pvLength[ply] = 0;
+
+        if ((nodeCount & TIME_CHECK_MASK) == 0L && isOutOfBudget()) {
+            // Stop counting here, so that the node count is the stop point:
+            aborted = true;
+            return 0.0;
+        }
+
+        if (state.checkVictory() != null) {
+            // The opponent has just completed a line:
+            return -(WIN_SCORE - ply);
+        }
+
+        if (state.isFull()) {
+            return 0.0;
+        }
+
+        if (endgameDatabase != null && ply > 0) {
+            int value = endgameDatabase.probe(state, player);
+
+            if (value != EndgameDatabase.UNKNOWN) {
+                return scoreGameValue(value, state, ply, player);
+            }
+        }
+
+        if (useThreatExtensions && state.getWidth() <= Long.SIZE) {
+            double score = searchForcedNode(state, depth, ply, alpha, beta,
+                                            player);
+
+            if (!Double.isNaN(score)) {
+                return score;
+            }
+        }
+
+        if (depth == 0) {
+            double score = accumulator != null ?
+                    accumulator.evaluate() :
+                    evaluator.evaluate(state);
+            return player == PlayerColor.WHITE_PLAYER ? score : -score;
+        }
+
+        long key = 0L;
+        int tableMove = -1;
+
+        if (activeTable != null) {
+            key = state.getPositionKey();
+            int index = activeTable.probe(key, player);
+
+            if (index >= 0) {
+                tableMove = activeTable.getMove(index);
+
+                if (ply > 0 && activeTable.getDepth(index) >= depth) {
+                    double score = fromTable(activeTable.getScore(index), ply);
+                    int bound = activeTable.getBound(index);
+
+                    if (bound == TranspositionStore.EXACT) {
+                        return Math.max(alpha, score);
+                    }
+
+                    if (bound == TranspositionStore.LOWER_BOUND
+                            && score >= beta) {
+                        return score;
+                    }
+
+                    if (bound == TranspositionStore.UPPER_BOUND
+                            && score <= alpha) {
+                        return alpha;
+                    }
+                }
+            }
+        }
+
+        int[] moves = orderMoves(state, ply, tableMove);
+        double originalAlpha = alpha;
+        int bestMove = tableMove;
+        boolean firstMove = true;
+        int moveIndex = 0;
+
+        for (int x : moves) {
+            if (x < 0) {
+                break;
+            }
+
+            ConnectFourState child = state.move(x, player);
+            makeMove(state, x, player);
+            int childDepth = depth - 1;
+            double score = 0.0;
+            boolean reducedFailLow = false;
+
+            if (useLateMoveReductions
+                    && ply > 0
+                    && depth >= LMR_MINIMUM_DEPTH
+                    && moveIndex >= LMR_FULL_DEPTH_MOVES) {
+                score = -alphaBeta(child,
+                                   childDepth - 1,
+                                   ply + 1,
+                                   -Math.nextUp(alpha),
+                                   -alpha,
+                                   player.opponent());
+                // A reduced move beating alpha is a surprise; verify it:
+                reducedFailLow = score <= alpha;
+            }
+
+            if (reducedFailLow) {
+                // Keep the reduced result.
+            } else if (firstMove || !usePrincipalVariationSearch) {
+                score = -alphaBeta(child,
+                                   childDepth,
+                                   ply + 1,
+                                   -beta,
+                                   -alpha,
+                                   player.opponent());
+            } else {
+                score = -alphaBeta(child,
+                                   childDepth,
+                                   ply + 1,
+                                   -Math.nextUp(alpha),
+                                   -alpha,
+                                   player.opponent());
+
+                if (score > alpha && score < beta) {
+                    score = -alphaBeta(child,
+                                       childDepth,
+                                       ply + 1,
+                                       -beta,
+                                       -alpha,
+                                       player.opponent());
+                }
+            }
+
+            unmakeMove();
+            // Only the leftmost path follows the previous variation:
+            followPv = false;
+
+            if (score > alpha || (ply == 0 && firstMove)) {
+                alpha = Math.max(alpha, score);
+                bestMove = x;
+                updatePrincipalVariation(ply, x);
+
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+
+            firstMove = false;
+            moveIndex++;
+        }
+
+        if (activeTable != null && !aborted) {
+            int bound = alpha <= originalAlpha ?
+                    TranspositionStore.UPPER_BOUND :
+                    alpha >= beta ?
+                            TranspositionStore.LOWER_BOUND :
+                            TranspositionStore.EXACT;
+            activeTable.store(key,
+                              player,
+                              depth,
+                              bound,
+                              toTable(alpha, ply),
+                              bestMove);
+        }
+
+        return alpha;
+    }
+
+    /**
+     * Tells the accumulator, if any, that {@code player} drops a token to the
+     * column {@code x} of {@code state}.
+     */
+    private void makeMove(ConnectFourState state, int x, PlayerColor player) {
+        if (accumulator != null) {
+            accumulator.makeMove(x,
+                                 state.getHeight() - 1 -
+                                 state.getColumnHeight(x),
+                                 player);
+        }
+    }
+
+    private void unmakeMove() {
+        if (accumulator != null) {
+            accumulator.unmakeMove();
+        }
+    }
+
+    /**
+     * Converts a score into one independent of the distance from the root:
+     * the wins are stored as distances from the node itself.
+     */
+    private static double toTable(double score, int ply) {
+        if (score >= WIN_THRESHOLD) {
+            return score + ply;
+        }
+
+        if (score <= -WIN_THRESHOLD) {
+            return score - ply;
+        }
+
+        return score;
+    }
+
+    /**
+     * Converts a score stored with {@link #toTable(double, int)} back into a
+     * score relative to the root.
+     */
+    private static double fromTable(double score, int ply) {
+        if (score >= WIN_THRESHOLD) {
+            return score - ply;
+        }
+
+        if (score <= -WIN_THRESHOLD) {
+            return score + ply;
+        }
+
+        return score;
+    }
+
+    /**
+     * Resolves the nodes with an immediate threat. If {@code player} can win
+     * at once, the node is won; if the opponent threatens to win in two
+     * columns, it is lost. If the opponent threatens to win in one column,
+     * blocking it is the only move, and it is searched without consuming
+     * depth, which extends the forced sequences beyond the horizon.
+     * @return the score of the node, or {@code NaN} if it is not forced.
+     */
+    private double searchForcedNode(ConnectFourState state,
+                                    int depth,
+                                    int ply,
+                                    double alpha,
+                                    double beta,
+                                    PlayerColor player) {
+        long wins = state.getWinningColumnMask(player);
+
+        if (wins != 0L) {
+            pvTable[ply][0] = Long.numberOfTrailingZeros(wins);
+            pvLength[ply] = 1;
+            return WIN_SCORE - (ply + 1);
+        }
+
+        PlayerColor opponent = player.opponent();
+        long threats = state.getWinningColumnMask(opponent);
+
+        if (threats == 0L) {
+            return Double.NaN;
+        }
+
+        int forcedMove = Long.numberOfTrailingZeros(threats);
+
+        if (Long.bitCount(threats) > 1) {
+            // Only one of the threats can be blocked:
+            pvTable[ply][0] = forcedMove;
+            pvLength[ply] = 1;
+            return -(WIN_SCORE - (ply + 2));
+        }
+
+        // The extension is capped at the depth of the iteration:
+        int childDepth = ply + depth < maximumPly ? depth : depth - 1;
+
+        if (childDepth < 0) {
+            return Double.NaN;
+        }
+
+        followPv = followPv
+                && ply < previousPvLength
+                && previousPv[ply] == forcedMove;
+
+        ConnectFourState child = state.move(forcedMove, player);
+        makeMove(state, forcedMove, player);
+        double score = -alphaBeta(child,
+                                  childDepth,
+                                  ply + 1,
+                                  -beta,
+                                  -alpha,
+                                  opponent);
+        unmakeMove();
+        followPv = false;
+
+        if (score > alpha || ply == 0) {
+            alpha = Math.max(alpha, score);
+            updatePrincipalVariation(ply, forcedMove);
+        }
+
+        return alpha;
+    }
+
+    /**
+     * Checks whether the time or the node limit has been exceeded. The first
+     * iteration is always completed so that there is a move to return.
+     */
+    private boolean isOutOfBudget() {
+        if (lastDepth == 0) {
+            return false;
+        }
+
+        return (nodeLimit != 0L && nodeCount >= nodeLimit)
+            || (deadline != 0L && System.nanoTime() - deadline > 0L);
+    }
+
+    /**
+     * Fills the move buffer of {@code ply} with the legal moves: the move of
+     * the previous principal variation first, then the best move stored in
+     * the transposition table, then the rest from the center outwards. The
+     * list is terminated by -1 if shorter than the width.
+     */
+    private int[] orderMoves(ConnectFourState state, int ply, int tableMove) {
+        int[] moves = moveBuffers[ply];
+        int size = 0;
+        int pvMove = -1;
+
+        if (followPv && ply < previousPvLength) {
+            pvMove = previousPv[ply];
+            moves[size++] = pvMove;
+        } else {
+            followPv = false;
+        }
+
+        if (tableMove >= 0
+                && tableMove < state.getWidth()
+                && tableMove != pvMove
+                && !state.columnIsFull(tableMove)) {
+            moves[size++] = tableMove;
+        } else {
+            tableMove = -1;
+        }
+
+        for (int x : moveOrder) {
+            if (x != pvMove && x != tableMove && !state.columnIsFull(x)) {
+                moves[size++] = x;
+            }
+        }
+
+        if (size < moves.length) {
+            moves[size] = -1;
+        }
+
+        return moves;
+    }
+
+    private void updatePrincipalVariation(int ply, int move) {
+        int[] line = pvTable[ply];
+        line[0] = move;
+        int childLength = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], 0, line, 1, childLength);
+        pvLength[ply] = childLength + 1;
+    }
+
+    private void savePrincipalVariation() {
+        previousPvLength = pvLength[0];
+        System.arraycopy(pvTable[0], 0, previousPv, 0, previousPvLength);
+    }
+
+    /**
+     * Checks that the state is played under the rules the search supports.
+     * @param state the state to search.
+     * @throws IllegalArgumentException if the rules are not the standard ones.
+     */
+    private static void checkRules(ConnectFourState state) {
+        if (state.getRules() != StandardRules.INSTANCE) {
+            throw new IllegalArgumentException(
+                    "The search does not support the rules: " +
+                    state.getRules().getName());
+        }
+    }
+
+    /**
+     * Resets the statistics and makes sure the per-ply buffers are large
+     * enough for searching {@code state}.
+     */
+    private void prepare(ConnectFourState state) {
+        int width = state.getWidth();
+
+        if (moveOrder.length != width) {
+            moveOrder = GeometryTables.get(width,
+                                           state.getHeight(),
+                                           state.getWinningLength())
+                                      .getMoveOrder();
+            moveBuffers = new int[0][];
+        }
+
+        // The extensions may double the depth of a line:
+        int maximumDepth = useThreatExtensions ? 2 * depth : depth;
+        int deepestPly =
+                Math.min(maximumDepth, state.getEmptyCellCount()) + 1;
+
+        if (moveBuffers.length < deepestPly + 1) {
+            moveBuffers = new int[deepestPly + 1][width];
+            pvTable = new int[deepestPly + 1][deepestPly + 1];
+            pvLength = new int[deepestPly + 1];
+            previousPv = new int[deepestPly + 1];
+        }
+
+        activeTable = transpositionTable != null
+                && transpositionTable.covers(state) ?
+                transpositionTable :
+                null;
+        if (accumulator != null) {
+            accumulator.reset(state);
+        }
+
+        previousPvLength = 0;
+        nodeCount = 0L;
+        aborted = false;
+        startTime = System.nanoTime();
+        long limitMillis = timeManager != null ?
+                timeManager.startSearch(state, depth) :
+                timeLimitMillis;
+        deadline = limitMillis > 0L ?
+                startTime + limitMillis * 1_000_000L :
+                0L;
+        lastScore = 0.0;
+        lastDepth = 0;
+    }
+
+    /**
+     * Converts an endgame database value into a score. The win is assumed to
+     * happen no later than when the board fills up.
+     */
+    private static double scoreGameValue(int value,
+                                         ConnectFourState state,
+                                         int ply,
+                                         PlayerColor player) {
+        if (value == EndgameDatabase.DRAW) {
+            return 0.0;
+        }
+
+        double score = WIN_SCORE - ply - state.getEmptyCellCount();
+        boolean whiteWins = value == EndgameDatabase.WHITE_WINS;
+        return whiteWins == (player == PlayerColor.WHITE_PLAYER) ?
+                score :
+                -score;
+    }
 }
@@ -0,0 +1,380 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This class reads and writes the headers of the cache snapshots written by
+ * {@link TranspositionTable} and {@link EvaluationCache}, and of the files
+ * backing a {@link MappedTranspositionTable}. A snapshot starts
+ * with the header
+ * <pre>
+ *   int MAGIC, int VERSION, int KIND,
+ *   int WIDTH, int HEIGHT, int WINNING_LENGTH,
+ *   int CAPACITY, int IDENTITY_LENGTH, int RULES_LENGTH,
+ *   byte[] IDENTITY (UTF-8), byte[] RULES (UTF-8)
+ * </pre>
+ * padded with zeros to a multiple of 8 bytes, followed by the entries. The
+ * identity is the one of the {@link net.coderodde.connectfour.base.HeuristicFunction}
+ * the cached scores were computed with, and the rules are the name of the
+ * {@link net.coderodde.connectfour.base.Rules} the scores hold under, or empty
+ * if the scores do not depend on the rules. The snapshots are memory-mapped
+ * both ways, so the entries are copied in bulk without any per-entry I/O.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+final class SnapshotFile {
+
+    /**
+     * The magic number at the beginning of each snapshot ("C4SN").
+     */
+    static final int MAGIC = 0x4334534E;
+
+    /**
+     * The version of the file format.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * The kind of a transposition table snapshot.
+     */
+    static final int TRANSPOSITION_TABLE = 1;
+
+    /**
+     * The kind of an evaluation cache snapshot.
+     */
+    static final int EVALUATION_CACHE = 2;
+
+    /**
+     * The kind of a file backing a shared transposition table.
+     */
+    static final int SHARED_TRANSPOSITION_TABLE = 3;
+
+    /**
+     * The rules name of the snapshots whose scores hold under any rules.
+     */
+    static final String ANY_RULES = "";
+
+    /**
+     * The size of the header without the identity and the rules.
+     */
+    private static final int FIXED_HEADER_SIZE = 36;
+
+    /**
+     * The offset of the capacity field.
+     */
+    private static final int CAPACITY_OFFSET = 24;
+
+    /**
+     * The offsets of the lengths of the identity and the rules.
+     */
+    private static final int IDENTITY_LENGTH_OFFSET = 28;
+    private static final int RULES_LENGTH_OFFSET = 32;
+
+    private SnapshotFile() {}
+
+    /**
+     * Creates the snapshot file, writes the header and maps the whole file.
+     * @param file the file to create or overwrite.
+     * @param kind the kind of the snapshot.
+     * @param width the width of the board.
+     * @param height the height of the board.
+     * @param winningLength the winning length.
+     * @param rulesName the name of the rules, or empty.
+     * @param identity the identity of the heuristic function.
+     * @param capacity the number of entries.
+     * @param entrySize the size of an entry in bytes.
+     * @return the buffer positioned at the first entry.
+     * @throws IOException if the file cannot be written.
+     */
+    static MappedByteBuffer create(Path file,
+                                   int kind,
+                                   int width,
+                                   int height,
+                                   int winningLength,
+                                   String rulesName,
+                                   String identity,
+                                   int capacity,
+                                   int entrySize) throws IOException {
+        Objects.requireNonNull(file, "The input file is null.");
+        byte[] identityBytes = identity.getBytes(StandardCharsets.UTF_8);
+        byte[] rulesBytes = rulesName.getBytes(StandardCharsets.UTF_8);
+        long size = getHeaderSize(identityBytes.length, rulesBytes.length) +
+                    (long) capacity * entrySize;
+
+        try (FileChannel channel =
+                FileChannel.open(file,
+                                 StandardOpenOption.CREATE,
+                                 StandardOpenOption.TRUNCATE_EXISTING,
+                                 StandardOpenOption.READ,
+                                 StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer =
+                    channel.map(FileChannel.MapMode.READ_WRITE, 0L, size);
+            writeHeader(buffer,
+                        kind,
+                        width,
+                        height,
+                        winningLength,
+                        rulesBytes,
+                        identityBytes,
+                        capacity);
+            return buffer;
+        }
+    }
+
+    /**
+     * Maps the snapshot file and checks its header.
+     * @param file the snapshot file.
+     * @param kind the expected kind of the snapshot.
+     * @param width the expected width of the board.
+     * @param height the expected height of the board.
+     * @param winningLength the expected winning length.
+     * @param rulesName the expected name of the rules, or empty.
+     * @param identity the expected identity of the heuristic function.
+     * @param entrySize the size of an entry in bytes.
+     * @return the buffer positioned at the first entry, or {@code null} if the
+     * snapshot was taken for another geometry, rules or heuristic function.
+     * @throws IOException if the file cannot be mapped.
+     * @throws IllegalArgumentException if the file is not a snapshot of the
+     * expected kind or is truncated.
+     */
+    static MappedByteBuffer open(Path file,
+                                 int kind,
+                                 int width,
+                                 int height,
+                                 int winningLength,
+                                 String rulesName,
+                                 String identity,
+                                 int entrySize) throws IOException {
+        Objects.requireNonNull(file, "The input file is null.");
+        MappedByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(file,
+                                                    StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                                 0L,
+                                 channel.size());
+        }
+
+        checkHeader(file, buffer, kind, entrySize);
+
+        if (!matches(buffer, width, height, winningLength, rulesName,
+                     identity)) {
+            return null;
+        }
+
+        buffer.position(getHeaderSize(buffer));
+        return buffer;
+    }
+
+    /**
+     * Sets the byte order of the header and checks the magic number, the
+     * version, the kind and the size.
+     * @throws IllegalArgumentException if the check fails.
+     */
+    private static void checkHeader(Path file,
+                                    MappedByteBuffer buffer,
+                                    int kind,
+                                    int entrySize) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        if (buffer.limit() < FIXED_HEADER_SIZE
+                || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a snapshot: " + file);
+        }
+
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException(
+                    "Unsupported snapshot version: " + buffer.getInt(4));
+        }
+
+        if (buffer.getInt(8) != kind) {
+            throw new IllegalArgumentException(
+                    "Unexpected snapshot kind: " + buffer.getInt(8));
+        }
+
+        int capacity = buffer.getInt(CAPACITY_OFFSET);
+        int identityLength = buffer.getInt(IDENTITY_LENGTH_OFFSET);
+        int rulesLength = buffer.getInt(RULES_LENGTH_OFFSET);
+
+        if (capacity < 0
+                || identityLength < 0
+                || identityLength > buffer.limit()
+                || rulesLength < 0
+                || rulesLength > buffer.limit()
+                || buffer.limit() < getHeaderSize(identityLength,
+                                                  rulesLength) +
+                                    (long) capacity * entrySize) {
+            throw new IllegalArgumentException("Truncated snapshot: " + file);
+        }
+    }
+
+    /**
+     * Checks whether a header checked by
+     * {@link #checkHeader(Path, MappedByteBuffer, int, int)} matches the
+     * geometry, the rules and the heuristic function.
+     */
+    private static boolean matches(MappedByteBuffer buffer,
+                                   int width,
+                                   int height,
+                                   int winningLength,
+                                   String rulesName,
+                                   String identity) {
+        int identityLength = buffer.getInt(IDENTITY_LENGTH_OFFSET);
+        byte[] identityBytes = new byte[identityLength];
+        byte[] rulesBytes = new byte[buffer.getInt(RULES_LENGTH_OFFSET)];
+        buffer.position(FIXED_HEADER_SIZE);
+        buffer.get(identityBytes);
+        buffer.get(rulesBytes);
+
+        return buffer.getInt(12) == width
+            && buffer.getInt(16) == height
+            && buffer.getInt(20) == winningLength
+            && Arrays.equals(rulesBytes,
+                             rulesName.getBytes(StandardCharsets.UTF_8))
+            && Arrays.equals(identityBytes,
+                             identity.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the header and positions the buffer at the first entry.
+     */
+    private static void writeHeader(MappedByteBuffer buffer,
+                                    int kind,
+                                    int width,
+                                    int height,
+                                    int winningLength,
+                                    byte[] rulesBytes,
+                                    byte[] identityBytes,
+                                    int capacity) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(kind);
+        buffer.putInt(width);
+        buffer.putInt(height);
+        buffer.putInt(winningLength);
+        buffer.putInt(capacity);
+        buffer.putInt(identityBytes.length);
+        buffer.putInt(rulesBytes.length);
+        buffer.put(identityBytes);
+        buffer.put(rulesBytes);
+        buffer.position(getHeaderSize(identityBytes.length,
+                                      rulesBytes.length));
+    }
+
+    /**
+     * Maps a file shared by several processes for reading and writing,
+     * creating it with the header and zeroed entries if it is empty. The
+     * header is written or checked under an exclusive lock on the file, so
+     * the processes opening the file at the same time agree on it.
+     * @param file the file to open or create.
+     * @param kind the kind of the file.
+     * @param width the width of the board.
+     * @param height the height of the board.
+     * @param winningLength the winning length.
+     * @param rulesName the name of the rules.
+     * @param identity the identity of the heuristic function.
+     * @param capacity the number of entries if the file is created.
+     * @param entrySize the size of an entry in bytes.
+     * @return the buffer positioned at the first entry.
+     * @throws IOException if the file cannot be mapped.
+     * @throws IllegalArgumentException if the file was created for another
+     * kind, geometry, rules or heuristic function, or is truncated.
+     */
+    static MappedByteBuffer openShared(Path file,
+                                       int kind,
+                                       int width,
+                                       int height,
+                                       int winningLength,
+                                       String rulesName,
+                                       String identity,
+                                       int capacity,
+                                       int entrySize) throws IOException {
+        Objects.requireNonNull(file, "The input file is null.");
+        byte[] identityBytes = identity.getBytes(StandardCharsets.UTF_8);
+        byte[] rulesBytes = rulesName.getBytes(StandardCharsets.UTF_8);
+
+        // A JVM may hold only one lock on a file, so the threads take turns:
+        synchronized (SnapshotFile.class) {
+            try (FileChannel channel =
+                    FileChannel.open(file,
+                                     StandardOpenOption.CREATE,
+                                     StandardOpenOption.READ,
+                                     StandardOpenOption.WRITE)) {
+                // Held until the header is written or checked:
+                FileLock lock = channel.lock();
+
+                try {
+                    if (channel.size() == 0L) {
+                        MappedByteBuffer buffer = channel.map(
+                                FileChannel.MapMode.READ_WRITE,
+                                0L,
+                                getHeaderSize(identityBytes.length,
+                                              rulesBytes.length) +
+                                (long) capacity * entrySize);
+                        writeHeader(buffer,
+                                    kind,
+                                    width,
+                                    height,
+                                    winningLength,
+                                    rulesBytes,
+                                    identityBytes,
+                                    capacity);
+                        return buffer;
+                    }
+
+                    MappedByteBuffer buffer = channel.map(
+                            FileChannel.MapMode.READ_WRITE,
+                            0L,
+                            channel.size());
+
+                    checkHeader(file, buffer, kind, entrySize);
+
+                    if (!matches(buffer,
+                                 width,
+                                 height,
+                                 winningLength,
+                                 rulesName,
+                                 identity)) {
+                        throw new IllegalArgumentException(
+                                "The file was created for another geometry, " +
+                                "rules or heuristic function: " + file);
+                    }
+
+                    buffer.position(getHeaderSize(buffer));
+                    return buffer;
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries in the snapshot.
+     * @param buffer the buffer returned by {@link #open}.
+     * @return the capacity.
+     */
+    static int getCapacity(MappedByteBuffer buffer) {
+        return buffer.getInt(CAPACITY_OFFSET);
+    }
+
+    private static int getHeaderSize(MappedByteBuffer buffer) {
+        return getHeaderSize(buffer.getInt(IDENTITY_LENGTH_OFFSET),
+                             buffer.getInt(RULES_LENGTH_OFFSET));
+    }
+
+    private static int getHeaderSize(int identityLength, int rulesLength) {
+        return (FIXED_HEADER_SIZE + identityLength + rulesLength + 7) & ~7;
+    }
+}
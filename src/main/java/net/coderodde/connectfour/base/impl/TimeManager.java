@@ -0,0 +1,251 @@
+package net.coderodde.connectfour.base.impl;
+
+import net.coderodde.connectfour.base.ConnectFourState;
+
+/**
+ * This class allocates the thinking time of a {@link SmartBot} playing under
+ * a game clock. Before each move, the remaining clock time and the increment
+ * are set with {@link #setClock(long, long)}. At the start of a search, the
+ * manager computes
+ * <ul>
+ *   <li>a target time: the remaining time shared evenly among the moves the
+ *       bot can still expect to make, which follow from the empty cells, plus
+ *       most of the increment, and</li>
+ *   <li>a hard limit, a few times the target, but never more than a fraction
+ *       of the remaining time.</li>
+ * </ul>
+ * After each iteration, the target is scaled up when the best move has just
+ * changed or the score swung, and down when the best move has stayed the same
+ * for several iterations. No iteration is started once the scaled target
+ * has passed, or when the next iteration, estimated from the growth of the
+ * iteration times, could not finish before the hard limit, which stops the
+ * search in the middle of an iteration.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class TimeManager {
+
+    /**
+     * The time reserved per move for the overhead outside the search.
+     */
+    private static final long DEFAULT_MOVE_OVERHEAD_MILLIS = 5L;
+
+    /**
+     * The bounds of the number of moves the remaining time is shared among.
+     */
+    private static final int MINIMUM_MOVES_TO_GO = 4;
+    private static final int MAXIMUM_MOVES_TO_GO = 20;
+
+    /**
+     * The fraction of the increment added to the target.
+     */
+    private static final double INCREMENT_FRACTION = 0.75;
+
+    /**
+     * The hard limit as a multiple of the target and as a fraction of the
+     * remaining time.
+     */
+    private static final double MAXIMUM_TARGET_MULTIPLE = 4.0;
+    private static final double MAXIMUM_REMAINING_FRACTION = 0.4;
+
+    /**
+     * The scale of the target after the best move changed, and after it has
+     * stayed the same for {@link #STABLE_ITERATIONS} iterations.
+     */
+    private static final double UNSTABLE_FACTOR = 1.6;
+    private static final double STABLE_FACTOR = 0.6;
+    private static final int STABLE_ITERATIONS = 3;
+
+    /**
+     * The scale of the target after a score swing.
+     */
+    private static final double SWING_FACTOR = 1.5;
+
+    /**
+     * The default score change between the iterations of the same parity
+     * counted as a swing.
+     */
+    private static final double DEFAULT_SWING_THRESHOLD = 3.0;
+
+    /**
+     * The bounds of the estimated growth of the time from an iteration to
+     * the next one.
+     */
+    private static final double MINIMUM_GROWTH = 1.5;
+    private static final double MAXIMUM_GROWTH = 8.0;
+
+    private long remainingMillis;
+    private long incrementMillis;
+    private long moveOverheadMillis = DEFAULT_MOVE_OVERHEAD_MILLIS;
+    private double swingThreshold = DEFAULT_SWING_THRESHOLD;
+
+    // The state of the current search:
+    private long targetNanos;
+    private long maximumNanos;
+    private long scaledTargetNanos;
+    private long previousElapsedNanos;
+    private long previousIterationNanos;
+    private int previousBestColumn;
+    private int stableIterations;
+    private double[] scores = new double[0];
+
+    /**
+     * Sets the clock for the next move.
+     * @param remainingMillis the time left on the clock of the bot.
+     * @param incrementMillis the time added to the clock after each move.
+     */
+    public void setClock(long remainingMillis, long incrementMillis) {
+        if (remainingMillis < 0L) {
+            throw new IllegalArgumentException(
+                    "remainingMillis = " + remainingMillis);
+        }
+
+        if (incrementMillis < 0L) {
+            throw new IllegalArgumentException(
+                    "incrementMillis = " + incrementMillis);
+        }
+
+        this.remainingMillis = remainingMillis;
+        this.incrementMillis = incrementMillis;
+    }
+
+    /**
+     * Sets the time reserved per move for the work outside the search, such
+     * as the communication with the opponent.
+     * @param moveOverheadMillis the overhead in milliseconds.
+     */
+    public void setMoveOverhead(long moveOverheadMillis) {
+        if (moveOverheadMillis < 0L) {
+            throw new IllegalArgumentException(
+                    "moveOverheadMillis = " + moveOverheadMillis);
+        }
+
+        this.moveOverheadMillis = moveOverheadMillis;
+    }
+
+    /**
+     * Sets the score change counted as a swing. It should match the scale of
+     * the evaluator.
+     * @param swingThreshold the threshold.
+     */
+    public void setSwingThreshold(double swingThreshold) {
+        if (!(swingThreshold > 0.0)) {
+            throw new IllegalArgumentException(
+                    "swingThreshold = " + swingThreshold);
+        }
+
+        this.swingThreshold = swingThreshold;
+    }
+
+    /**
+     * Returns the target time of the current search before the scaling.
+     * @return the target time in milliseconds.
+     */
+    public long getTargetMillis() {
+        return targetNanos / 1_000_000L;
+    }
+
+    /**
+     * Returns the hard limit of the current search.
+     * @return the hard limit in milliseconds.
+     */
+    public long getMaximumMillis() {
+        return maximumNanos / 1_000_000L;
+    }
+
+    /**
+     * Starts allocating the time of a search from {@code state}.
+     * @param state the root state.
+     * @param maximumDepth the maximum depth of the search.
+     * @return the hard limit of the search in milliseconds, at least one.
+     */
+    long startSearch(ConnectFourState state, int maximumDepth) {
+        long available = Math.max(1L, remainingMillis - moveOverheadMillis);
+        int movesToGo = Math.max(MINIMUM_MOVES_TO_GO,
+                                 Math.min(MAXIMUM_MOVES_TO_GO,
+                                          (state.getEmptyCellCount() + 1) /
+                                          2));
+        double target = (double) available / movesToGo +
+                        INCREMENT_FRACTION * incrementMillis;
+        double maximum = Math.min(MAXIMUM_TARGET_MULTIPLE * target,
+                                  MAXIMUM_REMAINING_FRACTION * available +
+                                  incrementMillis);
+        maximum = Math.min(maximum, available);
+        target = Math.min(target, maximum);
+
+        if (hasSingleLegalMove(state)) {
+            // Nothing to think about:
+            target = 0.0;
+        }
+
+        targetNanos = (long) (target * 1e6);
+        maximumNanos = Math.max(1_000_000L, (long) (maximum * 1e6));
+        scaledTargetNanos = targetNanos;
+        previousElapsedNanos = 0L;
+        previousIterationNanos = 0L;
+        previousBestColumn = -1;
+        stableIterations = 0;
+
+        if (scores.length < maximumDepth + 1) {
+            scores = new double[maximumDepth + 1];
+        }
+
+        return maximumNanos / 1_000_000L;
+    }
+
+    /**
+     * Updates the scaled target after a completed iteration and decides
+     * whether to start the next one.
+     * @param depth the depth of the completed iteration.
+     * @param bestColumn the best column of the iteration.
+     * @param score the score of the iteration.
+     * @param elapsedNanos the time elapsed since the start of the search.
+     * @return {@code true} if the search should stop.
+     */
+    boolean shouldStop(int depth,
+                       int bestColumn,
+                       double score,
+                       long elapsedNanos) {
+        long iterationNanos = elapsedNanos - previousElapsedNanos;
+        double factor = 1.0;
+
+        if (previousBestColumn >= 0 && bestColumn != previousBestColumn) {
+            stableIterations = 0;
+            factor *= UNSTABLE_FACTOR;
+        } else if (++stableIterations >= STABLE_ITERATIONS) {
+            factor *= STABLE_FACTOR;
+        }
+
+        scores[depth] = score;
+
+        // The scores of the odd and the even depths differ, so compare to
+        // the iteration before the previous one:
+        if (depth > 2
+                && Math.abs(score - scores[depth - 2]) > swingThreshold) {
+            factor *= SWING_FACTOR;
+        }
+
+        scaledTargetNanos = Math.min(maximumNanos,
+                                     (long) (targetNanos * factor));
+
+        double growth = previousIterationNanos > 0L ?
+                (double) iterationNanos / previousIterationNanos :
+                MAXIMUM_GROWTH;
+        growth = Math.max(MINIMUM_GROWTH, Math.min(MAXIMUM_GROWTH, growth));
+        double nextIterationNanos = iterationNanos * growth;
+
+        previousBestColumn = bestColumn;
+        previousElapsedNanos = elapsedNanos;
+        previousIterationNanos = iterationNanos;
+
+        // An iteration stopped by the hard limit is wasted:
+        return elapsedNanos >= scaledTargetNanos
+            || elapsedNanos + nextIterationNanos > maximumNanos;
+    }
+
+    private static boolean hasSingleLegalMove(ConnectFourState state) {
+        int x = state.nextLegalColumn(0);
+        return x >= 0 && state.nextLegalColumn(x + 1) < 0;
+    }
+}
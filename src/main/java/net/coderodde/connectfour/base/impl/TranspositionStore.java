@@ -0,0 +1,97 @@
+package net.coderodde.connectfour.base.impl;
+
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This interface defines the API of the transposition tables searched by
+ * {@link SmartBot}: maps from the position keys of one board geometry and the
+ * player to move to the score, bound type, remaining depth and best move of
+ * the last search of that position. The on-heap {@link TranspositionTable}
+ * belongs to a single bot, while a {@link MappedTranspositionTable} is shared
+ * through a file by the bots of several processes.
+ * <p>
+ * A successful {@link #probe(long, PlayerColor)} returns a handle to the
+ * entry found. The accessors of the entry may only be called with the handle
+ * returned by the latest probe, and only before the next store.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public interface TranspositionStore {
+
+    /**
+     * The bound type of an exact score.
+     */
+    public static final int EXACT = 0;
+
+    /**
+     * The bound type of a score that is a lower bound (a fail-high).
+     */
+    public static final int LOWER_BOUND = 1;
+
+    /**
+     * The bound type of a score that is an upper bound (a fail-low).
+     */
+    public static final int UPPER_BOUND = 2;
+
+    /**
+     * Checks whether this table is built for the geometry of the state.
+     * @param state the state to check.
+     * @return {@code true} only if the geometries match.
+     */
+    public boolean covers(ConnectFourState state);
+
+    /**
+     * Looks up a position.
+     * @param key the position key of the state.
+     * @param player the player to move.
+     * @return the handle of the entry, or -1 if the position is not stored.
+     */
+    public int probe(long key, PlayerColor player);
+
+    /**
+     * Stores a search result. An entry of the same position searched deeper
+     * is kept.
+     * @param key the position key of the state.
+     * @param player the player to move.
+     * @param depth the remaining depth of the search; capped at 255.
+     * @param bound the bound type of the score.
+     * @param score the score.
+     * @param move the best move, or -1 if not known.
+     */
+    public void store(long key,
+                      PlayerColor player,
+                      int depth,
+                      int bound,
+                      double score,
+                      int move);
+
+    /**
+     * Returns the remaining depth the entry was searched to.
+     * @param entry the handle of the entry.
+     * @return the depth.
+     */
+    public int getDepth(int entry);
+
+    /**
+     * Returns the bound type of the score of the entry.
+     * @param entry the handle of the entry.
+     * @return the bound type.
+     */
+    public int getBound(int entry);
+
+    /**
+     * Returns the score of the entry.
+     * @param entry the handle of the entry.
+     * @return the score.
+     */
+    public double getScore(int entry);
+
+    /**
+     * Returns the best move of the entry.
+     * @param entry the handle of the entry.
+     * @return the best move, or -1 if not known.
+     */
+    public int getMove(int entry);
+}
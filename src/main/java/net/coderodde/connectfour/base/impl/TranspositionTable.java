@@ -0,0 +1,369 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.Rules;
+import net.coderodde.connectfour.base.StandardRules;
+
+/**
+ * This class implements the on-heap transposition table of {@link SmartBot}:
+ * a direct-mapped table from the position keys of one board geometry and the
+ * player to move to the score, bound type, remaining depth and best move of
+ * the last search of that position. An entry is replaced by any other
+ * position, but by the same position only if searched at least as deep. The
+ * handle of an entry is its index.
+ * <p>
+ * The table outlives the searches, so the games played earlier warm it up
+ * for the later ones. Its contents can be saved to a snapshot file with
+ * {@link #saveSnapshot(Path, HeuristicFunction)} and reloaded with
+ * {@link #loadSnapshot(Path, HeuristicFunction)}, which lets the warmed
+ * knowledge survive restarts. A snapshot is loaded only if it was taken for
+ * the same geometry, the same rules and a heuristic function of the same
+ * identity. Loading maps the file only to copy it into the arrays of the
+ * table; the probes never read the mapping. A table probed in place in a
+ * mapped file is {@link MappedTranspositionTable}.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class TranspositionTable implements TranspositionStore {
+
+    /**
+     * The largest supported number of entries.
+     */
+    public static final int MAXIMUM_CAPACITY = 1 << 26;
+
+    /**
+     * The size of an entry in a snapshot: the key, the score and the data.
+     */
+    private static final int ENTRY_SIZE = Long.BYTES +
+                                          Double.BYTES +
+                                          Integer.BYTES;
+
+    /**
+     * The layout of the data word, shared with
+     * {@link MappedTranspositionTable}: the depth in the lowest 8 bits, then
+     * the bound type, the player to move, the occupancy flag and, in the
+     * highest 16 bits, the best move plus one.
+     */
+    static final int DEPTH_MASK = 0xff;
+    static final int BOUND_SHIFT = 8;
+    static final int BOUND_MASK = 0x3;
+    static final int RED_FLAG = 1 << 10;
+    static final int OCCUPIED_FLAG = 1 << 11;
+    static final int MOVE_SHIFT = 16;
+
+    /**
+     * Mixed into the keys of the positions with red to move.
+     */
+    private static final long RED_SALT = 0x9E3779B97F4A7C15L;
+
+    private final int width;
+    private final int height;
+    private final int winningLength;
+    private final Rules rules;
+    private final int mask;
+    private final long[] keys;
+    private final double[] scores;
+    private final int[] data;
+
+    /**
+     * The number of occupied entries.
+     */
+    private int size;
+
+    /**
+     * Constructs an empty table for the standard rules.
+     * @param width the width of the board.
+     * @param height the height of the board.
+     * @param winningLength the winning length.
+     * @param capacity the number of entries; rounded up to a power of two.
+     */
+    public TranspositionTable(int width,
+                              int height,
+                              int winningLength,
+                              int capacity) {
+        this(width, height, winningLength, StandardRules.INSTANCE, capacity);
+    }
+
+    /**
+     * Constructs an empty table.
+     * @param width the width of the board.
+     * @param height the height of the board.
+     * @param winningLength the winning length.
+     * @param rules the rules the scores hold under.
+     * @param capacity the number of entries; rounded up to a power of two.
+     */
+    public TranspositionTable(int width,
+                              int height,
+                              int winningLength,
+                              Rules rules,
+                              int capacity) {
+        if (capacity < 1 || capacity > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("capacity = " + capacity);
+        }
+
+        this.width = width;
+        this.height = height;
+        this.winningLength = winningLength;
+        this.rules = Objects.requireNonNull(rules, "The input rules are null.");
+
+        int roundedCapacity = Integer.highestOneBit(capacity);
+
+        if (roundedCapacity < capacity) {
+            roundedCapacity <<= 1;
+        }
+
+        this.mask = roundedCapacity - 1;
+        this.keys = new long[roundedCapacity];
+        this.scores = new double[roundedCapacity];
+        this.data = new int[roundedCapacity];
+    }
+
+    @Override
+    public boolean covers(ConnectFourState state) {
+        return state.getWidth() == width
+            && state.getHeight() == height
+            && state.getWinningLength() == winningLength
+            && state.getRules().getName().equals(rules.getName());
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(scores, 0.0);
+        Arrays.fill(data, 0);
+        size = 0;
+    }
+
+    /**
+     * Saves the entries to a snapshot file.
+     * @param file the file to create or overwrite.
+     * @param evaluator the heuristic function the scores were computed with.
+     * @throws IOException if the file cannot be written.
+     */
+    public void saveSnapshot(Path file, HeuristicFunction evaluator)
+            throws IOException {
+        Objects.requireNonNull(evaluator, "The input evaluator is null.");
+        int capacity = keys.length;
+        MappedByteBuffer buffer =
+                SnapshotFile.create(file,
+                                    SnapshotFile.TRANSPOSITION_TABLE,
+                                    width,
+                                    height,
+                                    winningLength,
+                                    rules.getName(),
+                                    evaluator.getIdentity(),
+                                    capacity,
+                                    ENTRY_SIZE);
+        int start = buffer.position();
+        buffer.asLongBuffer().put(keys);
+        buffer.position(start + Long.BYTES * capacity);
+        buffer.asDoubleBuffer().put(scores);
+        buffer.position(start + (Long.BYTES + Double.BYTES) * capacity);
+        buffer.asIntBuffer().put(data);
+        buffer.force();
+    }
+
+    /**
+     * Replaces the entries with the ones in a snapshot file. The file is
+     * mapped and copied into the arrays of this table, which do not refer to
+     * the file afterwards. A snapshot of another capacity is rehashed into
+     * this table.
+     * @param file the snapshot file.
+     * @param evaluator the heuristic function the scores will be used with.
+     * @return {@code true} if the snapshot was loaded; {@code false} if it was
+     * taken for another geometry, rules or heuristic function, in which case
+     * the table is left intact.
+     * @throws IOException if the file cannot be mapped.
+     * @throws IllegalArgumentException if the file is not a transposition
+     * table snapshot.
+     */
+    public boolean loadSnapshot(Path file, HeuristicFunction evaluator)
+            throws IOException {
+        Objects.requireNonNull(evaluator, "The input evaluator is null.");
+        MappedByteBuffer buffer =
+                SnapshotFile.open(file,
+                                  SnapshotFile.TRANSPOSITION_TABLE,
+                                  width,
+                                  height,
+                                  winningLength,
+                                  rules.getName(),
+                                  evaluator.getIdentity(),
+                                  ENTRY_SIZE);
+
+        if (buffer == null) {
+            return false;
+        }
+
+        int capacity = SnapshotFile.getCapacity(buffer);
+        int start = buffer.position();
+        long[] snapshotKeys =
+                capacity == keys.length ? keys : new long[capacity];
+        double[] snapshotScores =
+                capacity == keys.length ? scores : new double[capacity];
+        int[] snapshotData =
+                capacity == keys.length ? data : new int[capacity];
+
+        buffer.asLongBuffer().get(snapshotKeys);
+        buffer.position(start + Long.BYTES * capacity);
+        buffer.asDoubleBuffer().get(snapshotScores);
+        buffer.position(start + (Long.BYTES + Double.BYTES) * capacity);
+        buffer.asIntBuffer().get(snapshotData);
+
+        if (capacity == keys.length) {
+            size = 0;
+
+            for (int entryData : data) {
+                if (entryData != 0) {
+                    size++;
+                }
+            }
+        } else {
+            clear();
+
+            for (int i = 0; i < capacity; i++) {
+                if (snapshotData[i] != 0) {
+                    insert(snapshotKeys[i],
+                           snapshotScores[i],
+                           snapshotData[i]);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWinningLength() {
+        return winningLength;
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the number of occupied entries.
+     * @return the size.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public int probe(long key, PlayerColor player) {
+        int redFlag = player == PlayerColor.RED_PLAYER ? RED_FLAG : 0;
+        int index = getIndex(key, redFlag);
+        int entryData = data[index];
+
+        if (entryData != 0
+                && keys[index] == key
+                && (entryData & RED_FLAG) == redFlag) {
+            return index;
+        }
+
+        return -1;
+    }
+
+    @Override
+    public void store(long key,
+                      PlayerColor player,
+                      int depth,
+                      int bound,
+                      double score,
+                      int move) {
+        insert(key, score, packData(player, depth, bound, move));
+    }
+
+    @Override
+    public int getDepth(int index) {
+        return data[index] & DEPTH_MASK;
+    }
+
+    @Override
+    public int getBound(int index) {
+        return (data[index] >>> BOUND_SHIFT) & BOUND_MASK;
+    }
+
+    @Override
+    public double getScore(int index) {
+        return scores[index];
+    }
+
+    @Override
+    public int getMove(int index) {
+        return (data[index] >>> MOVE_SHIFT) - 1;
+    }
+
+    /**
+     * Packs the fields of an entry into a data word.
+     */
+    static int packData(PlayerColor player, int depth, int bound, int move) {
+        return Math.min(depth, DEPTH_MASK)
+             | bound << BOUND_SHIFT
+             | (player == PlayerColor.RED_PLAYER ? RED_FLAG : 0)
+             | OCCUPIED_FLAG
+             | (move + 1) << MOVE_SHIFT;
+    }
+
+    /**
+     * Mixes the position key and the player to move into a hash code.
+     * @param key the position key.
+     * @param redFlag {@link #RED_FLAG} if red is to move, zero otherwise.
+     * @return the hash code.
+     */
+    static int hash(long key, int redFlag) {
+        long z = redFlag == 0 ? key : key ^ RED_SALT;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (z ^ (z >>> 31));
+    }
+
+    private void insert(long key, double score, int entryData) {
+        int index = getIndex(key, entryData & RED_FLAG);
+        int oldData = data[index];
+
+        if (oldData == 0) {
+            size++;
+        } else if (keys[index] == key
+                && (oldData & RED_FLAG) == (entryData & RED_FLAG)
+                && (oldData & DEPTH_MASK) > (entryData & DEPTH_MASK)) {
+            // Keep the deeper result of the same position.
+            return;
+        }
+
+        keys[index] = key;
+        scores[index] = score;
+        data[index] = entryData;
+    }
+
+    private int getIndex(long key, int redFlag) {
+        return hash(key, redFlag) & mask;
+    }
+}
@@ -0,0 +1,38 @@
+package net.coderodde.connectfour.base.metrics;
+
+/**
+ * This interface defines the live metrics of a {@link MetricsBot} published
+ * through JMX by {@link JmxMetricsSink}. The latencies are in microseconds.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public interface BotMetricsMXBean {
+
+    public long getMoveCount();
+
+    public int getGameCount();
+
+    public double getMeanLatencyMicros();
+
+    public double getP50LatencyMicros();
+
+    public double getP99LatencyMicros();
+
+    public double getP999LatencyMicros();
+
+    public double getMaxLatencyMicros();
+
+    /**
+     * Returns the mean number of bytes allocated per move, or -1 if not
+     * measured.
+     * @return the mean allocation.
+     */
+    public double getMeanAllocatedBytes();
+
+    /**
+     * Returns the totals of the last completed game as text.
+     * @return the last game.
+     */
+    public String getLastGame();
+}
@@ -0,0 +1,75 @@
+package net.coderodde.connectfour.base.metrics;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * This class appends a CSV line per game to a file. The game columns hold the
+ * totals of the game; the percentile columns hold the latencies over all the
+ * games of the bot so far, in nanoseconds.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class CsvMetricsSink implements MetricsSink, Closeable {
+
+    /**
+     * The header line written to a new file.
+     */
+    static final String HEADER = "bot,game,moves,total_ns,max_ns," +
+                                 "allocated_bytes,p50_ns,p99_ns,p999_ns";
+
+    private final BufferedWriter writer;
+
+    /**
+     * Opens the file for appending, writing the header if the file is new.
+     * @param file the target file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public CsvMetricsSink(Path file) throws IOException {
+        Objects.requireNonNull(file, "The input file is null.");
+        boolean exists = Files.exists(file) && Files.size(file) > 0L;
+        this.writer = Files.newBufferedWriter(file,
+                                              StandardCharsets.UTF_8,
+                                              StandardOpenOption.CREATE,
+                                              StandardOpenOption.APPEND);
+
+        if (!exists) {
+            writer.write(HEADER);
+            writer.newLine();
+        }
+    }
+
+    @Override
+    public synchronized void gameCompleted(MetricsBot bot, GameMetrics game) {
+        Histogram latencies = bot.getLatencyHistogram();
+
+        try {
+            writer.write(bot.getName().replace(',', ';') + "," +
+                         game.getGameNumber() + "," +
+                         game.getMoveCount() + "," +
+                         game.getTotalNanos() + "," +
+                         game.getMaxNanos() + "," +
+                         game.getAllocatedBytes() + "," +
+                         latencies.getValueAtPercentile(50.0) + "," +
+                         latencies.getValueAtPercentile(99.0) + "," +
+                         latencies.getValueAtPercentile(99.9));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
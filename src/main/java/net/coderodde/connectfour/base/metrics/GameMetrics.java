@@ -0,0 +1,76 @@
+package net.coderodde.connectfour.base.metrics;
+
+/**
+ * This class holds the totals of a single game of a bot measured by
+ * {@link MetricsBot}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class GameMetrics {
+
+    private final int gameNumber;
+    private final int moveCount;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long allocatedBytes;
+
+    /**
+     * Constructs the game totals.
+     * @param gameNumber the number of the game, starting from 1.
+     * @param moveCount the number of moves the bot made.
+     * @param totalNanos the total time spent in the bot.
+     * @param maxNanos the time of the slowest move.
+     * @param allocatedBytes the bytes allocated by the bot, or -1 if not
+     * measured.
+     */
+    public GameMetrics(int gameNumber,
+                       int moveCount,
+                       long totalNanos,
+                       long maxNanos,
+                       long allocatedBytes) {
+        this.gameNumber = gameNumber;
+        this.moveCount = moveCount;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public int getGameNumber() {
+        return gameNumber;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the bot during the game, or -1
+     * if the JVM does not support measuring it.
+     * @return the allocated bytes.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("game %d: %d moves, total %.3f ms, " +
+                             "max %.3f ms, %s",
+                             gameNumber,
+                             moveCount,
+                             totalNanos / 1e6,
+                             maxNanos / 1e6,
+                             allocatedBytes < 0L ?
+                                     "allocation not measured" :
+                                     allocatedBytes + " bytes allocated");
+    }
+}
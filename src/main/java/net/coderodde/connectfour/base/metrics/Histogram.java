@@ -0,0 +1,194 @@
+package net.coderodde.connectfour.base.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class implements a log-linear histogram of non-negative {@code long}
+ * values in the spirit of HdrHistogram. The values below 256 are counted
+ * exactly; above that, each power-of-two range is split into 128 buckets, so
+ * any reported value lies within 1/128 (0.8%) of the recorded one. The
+ * histogram takes a fixed 59 KiB, recording is a few lock-free atomic
+ * increments, and it may be shared by several threads.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class Histogram {
+
+    /**
+     * The number of bits resolved within each power-of-two range.
+     */
+    private static final int SUB_BUCKET_BITS = 7;
+
+    /**
+     * The number of buckets per power-of-two range.
+     */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The total number of buckets covering all the non-negative longs.
+     */
+    private static final int BUCKET_COUNT =
+            (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT +
+            2 * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator min =
+            new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max =
+            new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    /**
+     * Records a value.
+     * @param value the value to record.
+     */
+    public void record(long value) {
+        if (value < 0L) {
+            throw new IllegalArgumentException("value = " + value);
+        }
+
+        counts.incrementAndGet(getBucketIndex(value));
+        totalCount.increment();
+        sum.add(value);
+        min.accumulate(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Adds all the values of another histogram to this one.
+     * @param other the histogram to add.
+     */
+    public void add(Histogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+
+            if (count != 0L) {
+                counts.addAndGet(i, count);
+            }
+        }
+
+        if (other.getCount() > 0L) {
+            totalCount.add(other.getCount());
+            sum.add(other.sum.sum());
+            min.accumulate(other.getMin());
+            max.accumulate(other.getMax());
+        }
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Returns the smallest recorded value, or zero if there are none.
+     * @return the minimum.
+     */
+    public long getMin() {
+        return getCount() == 0L ? 0L : min.get();
+    }
+
+    /**
+     * Returns the largest recorded value, or zero if there are none.
+     * @return the maximum.
+     */
+    public long getMax() {
+        return getCount() == 0L ? 0L : max.get();
+    }
+
+    /**
+     * Returns the mean of the recorded values, or zero if there are none.
+     * @return the mean.
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0L ? 0.0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * Returns the value below or at which the given percentage of the
+     * recorded values lie, for example 99.9 for the p999 value.
+     * @param percentile the percentile in {@code [0, 100]}.
+     * @return the value at the percentile, or zero if there are none.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0.0 && percentile <= 100.0)) {
+            throw new IllegalArgumentException("percentile = " + percentile);
+        }
+
+        long count = getCount();
+
+        if (count == 0L) {
+            return 0L;
+        }
+
+        long target = Math.max(1L, (long) Math.ceil(percentile / 100.0 *
+                                                    count));
+        long cumulative = 0L;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts.get(i);
+
+            if (cumulative >= target) {
+                return Math.min(getHighestValue(i), getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Forgets all the recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0L);
+        }
+
+        totalCount.reset();
+        sum.reset();
+        min.reset();
+        max.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count %d, min %d, p50 %d, p99 %d, p999 %d, " +
+                             "max %d",
+                             getCount(),
+                             getMin(),
+                             getValueAtPercentile(50.0),
+                             getValueAtPercentile(99.0),
+                             getValueAtPercentile(99.9),
+                             getMax());
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) -
+                    SUB_BUCKET_BITS;
+
+        // The top bits of the value lie in [SUB_BUCKET_COUNT,
+        // 2 * SUB_BUCKET_COUNT):
+        return shift * SUB_BUCKET_COUNT + (int)(value >>> shift);
+    }
+
+    /**
+     * Returns the largest value counted in the bucket.
+     */
+    static long getHighestValue(int bucketIndex) {
+        if (bucketIndex < 2 * SUB_BUCKET_COUNT) {
+            return bucketIndex;
+        }
+
+        int shift = bucketIndex / SUB_BUCKET_COUNT - 1;
+        long top = bucketIndex % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,139 @@
+package net.coderodde.connectfour.base.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class publishes the live metrics of each attached bot as an MXBean
+ * named {@code net.coderodde.connectfour:type=Bot,name=NAME} on the platform
+ * MBean server. A bot registered under an existing name replaces the former
+ * one.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class JmxMetricsSink implements MetricsSink {
+
+    /**
+     * The domain of the published object names.
+     */
+    static final String DOMAIN = "net.coderodde.connectfour";
+
+    private final MBeanServer server;
+    private final Map<MetricsBot, BotMetrics> beans =
+            new ConcurrentHashMap<>();
+
+    public JmxMetricsSink() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public JmxMetricsSink(MBeanServer server) {
+        this.server = server;
+    }
+
+    @Override
+    public void attach(MetricsBot bot) {
+        BotMetrics bean = new BotMetrics(bot);
+
+        try {
+            ObjectName objectName = getObjectName(bot.getName());
+
+            try {
+                server.registerMBean(bean, objectName);
+            } catch (InstanceAlreadyExistsException ex) {
+                server.unregisterMBean(objectName);
+                server.registerMBean(bean, objectName);
+            }
+        } catch (JMException ex) {
+            throw new IllegalStateException(
+                    "Could not register the metrics of " + bot.getName(), ex);
+        }
+
+        beans.put(bot, bean);
+    }
+
+    @Override
+    public void gameCompleted(MetricsBot bot, GameMetrics game) {
+        BotMetrics bean = beans.get(bot);
+
+        if (bean != null) {
+            bean.lastGame = game;
+        }
+    }
+
+    static ObjectName getObjectName(String botName) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Bot,name=" +
+                              ObjectName.quote(botName));
+    }
+
+    /**
+     * The MXBean reading the live histograms of a bot.
+     */
+    private static final class BotMetrics implements BotMetricsMXBean {
+
+        private final MetricsBot bot;
+        private volatile GameMetrics lastGame;
+
+        BotMetrics(MetricsBot bot) {
+            this.bot = bot;
+        }
+
+        @Override
+        public long getMoveCount() {
+            return bot.getLatencyHistogram().getCount();
+        }
+
+        @Override
+        public int getGameCount() {
+            return bot.getGameCount();
+        }
+
+        @Override
+        public double getMeanLatencyMicros() {
+            return bot.getLatencyHistogram().getMean() / 1e3;
+        }
+
+        @Override
+        public double getP50LatencyMicros() {
+            return getLatencyMicros(50.0);
+        }
+
+        @Override
+        public double getP99LatencyMicros() {
+            return getLatencyMicros(99.0);
+        }
+
+        @Override
+        public double getP999LatencyMicros() {
+            return getLatencyMicros(99.9);
+        }
+
+        @Override
+        public double getMaxLatencyMicros() {
+            return bot.getLatencyHistogram().getMax() / 1e3;
+        }
+
+        @Override
+        public double getMeanAllocatedBytes() {
+            return MetricsBot.isAllocationMeasured() ?
+                    bot.getAllocationHistogram().getMean() :
+                    -1.0;
+        }
+
+        @Override
+        public String getLastGame() {
+            GameMetrics game = lastGame;
+            return game == null ? "" : game.toString();
+        }
+
+        private double getLatencyMicros(double percentile) {
+            return bot.getLatencyHistogram()
+                      .getValueAtPercentile(percentile) / 1e3;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package net.coderodde.connectfour.base.metrics;
+
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class logs the totals of each game together with the latency
+ * percentiles of all the games so far.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class LoggingMetricsSink implements MetricsSink {
+
+    private final Logger logger;
+    private final Level level;
+
+    public LoggingMetricsSink() {
+        this(Logger.getLogger(MetricsBot.class.getName()), Level.INFO);
+    }
+
+    /**
+     * Constructs the sink.
+     * @param logger the logger to write to.
+     * @param level the level of the records.
+     */
+    public LoggingMetricsSink(Logger logger, Level level) {
+        this.logger = Objects.requireNonNull(logger,
+                                             "The input logger is null.");
+        this.level = Objects.requireNonNull(level, "The input level is null.");
+    }
+
+    @Override
+    public void gameCompleted(MetricsBot bot, GameMetrics game) {
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+
+        Histogram latencies = bot.getLatencyHistogram();
+        logger.log(level,
+                   String.format("%s %s; latency p50 %.3f ms, " +
+                                 "p99 %.3f ms, p999 %.3f ms",
+                                 bot.getName(),
+                                 game,
+                                 latencies.getValueAtPercentile(50.0) / 1e6,
+                                 latencies.getValueAtPercentile(99.0) / 1e6,
+                                 latencies.getValueAtPercentile(99.9) / 1e6));
+    }
+}
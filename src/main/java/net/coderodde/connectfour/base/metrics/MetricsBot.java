@@ -0,0 +1,219 @@
+package net.coderodde.connectfour.base.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+import net.coderodde.connectfour.base.Bot;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class decorates a {@link Bot} with metrics: the latency of every move
+ * goes to a latency histogram, the bytes allocated by the calling thread
+ * during every move (if the JVM can tell) go to an allocation histogram, and
+ * the totals of each game are reported to the sinks.
+ * <p>
+ * A game ends when the bot returns a terminal state, when the bot is asked to
+ * move in a state with no more moves made than the last one it returned (the
+ * previous game was finished by the opponent), or when
+ * {@link #finishGame()} is called. Under the Pop Out rules a full board is
+ * not the end of the game.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class MetricsBot implements Bot {
+
+    /**
+     * The allocation counter of the JVM, or {@code null} if not available.
+     */
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            getThreadMXBean();
+
+    private final Bot delegate;
+    private final String name;
+    private final MetricsSink[] sinks;
+    private final Histogram latencyHistogram = new Histogram();
+    private final Histogram allocationHistogram = new Histogram();
+
+    /**
+     * The totals of the current game.
+     */
+    private int gameNumber;
+    private int gameMoveCount;
+    private long gameTotalNanos;
+    private long gameMaxNanos;
+    private long gameAllocatedBytes;
+
+    /**
+     * The number of moves made in the last state returned, or -1 if no game
+     * is in progress.
+     */
+    private int lastMoveCount = -1;
+
+    /**
+     * Constructs the decorator.
+     * @param delegate the bot to measure.
+     * @param name the name used in reports.
+     * @param sinks the receivers of the metrics.
+     */
+    public MetricsBot(Bot delegate, String name, MetricsSink... sinks) {
+        this.delegate = Objects.requireNonNull(delegate,
+                                               "The input bot is null.");
+        this.name = Objects.requireNonNull(name, "The input name is null.");
+        this.sinks = sinks.clone();
+
+        for (MetricsSink sink : this.sinks) {
+            Objects.requireNonNull(sink, "A sink is null.");
+            sink.attach(this);
+        }
+    }
+
+    /**
+     * Tells whether the allocated bytes are measured on this JVM.
+     * @return {@code true} only if the allocations are measured.
+     */
+    public static boolean isAllocationMeasured() {
+        return THREAD_MX_BEAN != null;
+    }
+
+    @Override
+    public ConnectFourState computeNextState(ConnectFourState state) {
+        if (lastMoveCount >= 0 && state.getMoveCount() <= lastMoveCount) {
+            finishGame();
+        }
+
+        long allocatedBefore = getAllocatedBytes();
+        long startTime = System.nanoTime();
+        ConnectFourState nextState = delegate.computeNextState(state);
+        long duration = System.nanoTime() - startTime;
+        long allocated = allocatedBefore < 0L ?
+                -1L :
+                getAllocatedBytes() - allocatedBefore;
+
+        recordMove(duration, allocated);
+        lastMoveCount = nextState.getMoveCount();
+
+        if (nextState.checkVictory() != null
+                || (!nextState.getRules().allowsPopOut()
+                    && nextState.isFull())) {
+            finishGame();
+        }
+
+        return nextState;
+    }
+
+    @Override
+    public PlayerColor getPlayerColor() {
+        return delegate.getPlayerColor();
+    }
+
+    /**
+     * Reports the totals of the current game to the sinks, if the bot has
+     * moved in it.
+     */
+    public synchronized void finishGame() {
+        lastMoveCount = -1;
+
+        if (gameMoveCount == 0) {
+            return;
+        }
+
+        GameMetrics game = new GameMetrics(++gameNumber,
+                                           gameMoveCount,
+                                           gameTotalNanos,
+                                           gameMaxNanos,
+                                           THREAD_MX_BEAN == null ?
+                                                   -1L :
+                                                   gameAllocatedBytes);
+        gameMoveCount = 0;
+        gameTotalNanos = 0L;
+        gameMaxNanos = 0L;
+        gameAllocatedBytes = 0L;
+
+        for (MetricsSink sink : sinks) {
+            sink.gameCompleted(this, game);
+        }
+    }
+
+    public Bot getDelegate() {
+        return delegate;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the histogram of the move latencies in nanoseconds.
+     * @return the latency histogram.
+     */
+    public Histogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    /**
+     * Returns the histogram of the bytes allocated per move. It stays empty if
+     * the JVM cannot measure allocations.
+     * @return the allocation histogram.
+     */
+    public Histogram getAllocationHistogram() {
+        return allocationHistogram;
+    }
+
+    /**
+     * Returns the number of games completed so far.
+     * @return the game count.
+     */
+    public synchronized int getGameCount() {
+        return gameNumber;
+    }
+
+    private synchronized void recordMove(long duration, long allocated) {
+        latencyHistogram.record(duration);
+        gameMoveCount++;
+        gameTotalNanos += duration;
+        gameMaxNanos = Math.max(gameMaxNanos, duration);
+
+        if (allocated >= 0L) {
+            allocationHistogram.record(allocated);
+            gameAllocatedBytes += allocated;
+        }
+    }
+
+    private static long getAllocatedBytes() {
+        if (THREAD_MX_BEAN == null) {
+            return -1L;
+        }
+
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(
+                Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        try {
+            java.lang.management.ThreadMXBean bean =
+                    ManagementFactory.getThreadMXBean();
+
+            if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+                return null;
+            }
+
+            com.sun.management.ThreadMXBean sunBean =
+                    (com.sun.management.ThreadMXBean) bean;
+
+            if (!sunBean.isThreadAllocatedMemorySupported()) {
+                return null;
+            }
+
+            if (!sunBean.isThreadAllocatedMemoryEnabled()) {
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+            }
+
+            return sunBean;
+        } catch (LinkageError | UnsupportedOperationException |
+                 SecurityException ex) {
+            // Not a HotSpot-compatible JVM.
+            return null;
+        }
+    }
+}
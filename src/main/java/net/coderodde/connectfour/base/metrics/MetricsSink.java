@@ -0,0 +1,25 @@
+package net.coderodde.connectfour.base.metrics;
+
+/**
+ * This interface defines the API for the receivers of the metrics of
+ * {@link MetricsBot}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public interface MetricsSink {
+
+    /**
+     * Called once when a bot starts reporting to this sink. The sinks that
+     * poll the live metrics, such as the JMX one, may keep the bot.
+     * @param bot the bot.
+     */
+    public default void attach(MetricsBot bot) {}
+
+    /**
+     * Called at the end of each game of the bot.
+     * @param bot the bot, whose histograms cover all the games so far.
+     * @param game the totals of the game.
+     */
+    public void gameCompleted(MetricsBot bot, GameMetrics game);
+}
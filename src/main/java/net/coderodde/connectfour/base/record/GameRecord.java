@@ -0,0 +1,170 @@
+package net.coderodde.connectfour.base.record;
+
+import java.util.Arrays;
+import java.util.Objects;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class holds a single recorded game: the geometry, the IDs of the two
+ * bots, the result, the columns played and the time spent on each move.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class GameRecord {
+
+    private final int width;
+    private final int height;
+    private final int winningLength;
+    private final String whiteBotId;
+    private final String redBotId;
+    private final PlayerColor firstPlayer;
+    private final GameResult result;
+    private final long startTimeMillis;
+    private final int[] moves;
+    private final long[] moveNanos;
+
+    /**
+     * Constructs a game record.
+     * @param width the number of columns.
+     * @param height the number of rows.
+     * @param winningLength the length of the winning line.
+     * @param whiteBotId the ID of the white bot.
+     * @param redBotId the ID of the red bot.
+     * @param firstPlayer the player that made the first move.
+     * @param result the result of the game.
+     * @param startTimeMillis the wall-clock start time of the game.
+     * @param moves the columns played, starting from {@code firstPlayer}.
+     * @param moveNanos the time spent on each move in nanoseconds.
+     */
+    public GameRecord(int width,
+                      int height,
+                      int winningLength,
+                      String whiteBotId,
+                      String redBotId,
+                      PlayerColor firstPlayer,
+                      GameResult result,
+                      long startTimeMillis,
+                      int[] moves,
+                      long[] moveNanos) {
+        if (moves.length != moveNanos.length) {
+            throw new IllegalArgumentException(
+                    "The number of moves and move times differ: " +
+                    moves.length + " vs. " + moveNanos.length);
+        }
+
+        this.width = width;
+        this.height = height;
+        this.winningLength = winningLength;
+        this.whiteBotId = Objects.requireNonNull(whiteBotId,
+                                                 "The white bot ID is null.");
+        this.redBotId = Objects.requireNonNull(redBotId,
+                                               "The red bot ID is null.");
+        this.firstPlayer = Objects.requireNonNull(firstPlayer,
+                                                  "The first player is null.");
+        this.result = Objects.requireNonNull(result, "The result is null.");
+        this.startTimeMillis = startTimeMillis;
+        this.moves = moves.clone();
+        this.moveNanos = moveNanos.clone();
+    }
+
+    /**
+     * Replays the moves and returns the state after the first {@code ply}
+     * moves.
+     * @param ply the number of moves to replay.
+     * @return the state.
+     */
+    public ConnectFourState getState(int ply) {
+        ConnectFourState state =
+                new ConnectFourState(width, height, winningLength);
+        PlayerColor player = firstPlayer;
+
+        for (int i = 0; i < ply; i++) {
+            state = state.move(moves[i], player);
+            player = player.opponent();
+        }
+
+        return state;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWinningLength() {
+        return winningLength;
+    }
+
+    public String getWhiteBotId() {
+        return whiteBotId;
+    }
+
+    public String getRedBotId() {
+        return redBotId;
+    }
+
+    public PlayerColor getFirstPlayer() {
+        return firstPlayer;
+    }
+
+    public GameResult getResult() {
+        return result;
+    }
+
+    public long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    public int getMove(int ply) {
+        return moves[ply];
+    }
+
+    public long getMoveNanos(int ply) {
+        return moveNanos[ply];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+
+        if (!(o instanceof GameRecord)) {
+            return false;
+        }
+
+        GameRecord other = (GameRecord) o;
+        return width == other.width
+            && height == other.height
+            && winningLength == other.winningLength
+            && whiteBotId.equals(other.whiteBotId)
+            && redBotId.equals(other.redBotId)
+            && firstPlayer == other.firstPlayer
+            && result == other.result
+            && startTimeMillis == other.startTimeMillis
+            && Arrays.equals(moves, other.moves)
+            && Arrays.equals(moveNanos, other.moveNanos);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(whiteBotId, redBotId, result, startTimeMillis) ^
+               Arrays.hashCode(moves);
+    }
+
+    @Override
+    public String toString() {
+        return whiteBotId + " vs. " + redBotId + " (" + width + "x" + height +
+               "x" + winningLength + "): " + result + " in " + moves.length +
+               " moves";
+    }
+}
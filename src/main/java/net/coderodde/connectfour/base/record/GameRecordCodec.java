@@ -0,0 +1,165 @@
+package net.coderodde.connectfour.base.record;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class implements the compact binary encoding of a single
+ * {@link GameRecord}. All integers are written as variable-length quantities,
+ * so a move takes a single byte and a move time a few bytes.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+final class GameRecordCodec {
+
+    private GameRecordCodec() {}
+
+    /**
+     * Appends the encoding of {@code record} to {@code out}.
+     * @param record the record to encode.
+     * @param out the target buffer.
+     */
+    static void encode(GameRecord record, ByteSink out) {
+        writeVarLong(out, record.getWidth());
+        writeVarLong(out, record.getHeight());
+        writeVarLong(out, record.getWinningLength());
+        out.write(record.getFirstPlayer().ordinal());
+        out.write(record.getResult().ordinal());
+        writeVarLong(out, record.getStartTimeMillis());
+        writeString(out, record.getWhiteBotId());
+        writeString(out, record.getRedBotId());
+        writeVarLong(out, record.getMoveCount());
+
+        for (int ply = 0; ply < record.getMoveCount(); ply++) {
+            writeVarLong(out, record.getMove(ply));
+        }
+
+        for (int ply = 0; ply < record.getMoveCount(); ply++) {
+            writeVarLong(out, record.getMoveNanos(ply));
+        }
+    }
+
+    /**
+     * Decodes the next record from {@code in}.
+     * @param in the source buffer.
+     * @return the decoded record.
+     */
+    static GameRecord decode(ByteBuffer in) {
+        int width = (int) readVarLong(in);
+        int height = (int) readVarLong(in);
+        int winningLength = (int) readVarLong(in);
+        PlayerColor firstPlayer = PlayerColor.values()[in.get()];
+        GameResult result = GameResult.values()[in.get()];
+        long startTimeMillis = readVarLong(in);
+        String whiteBotId = readString(in);
+        String redBotId = readString(in);
+        int moveCount = (int) readVarLong(in);
+        int[] moves = new int[moveCount];
+        long[] moveNanos = new long[moveCount];
+
+        for (int ply = 0; ply < moveCount; ply++) {
+            moves[ply] = (int) readVarLong(in);
+        }
+
+        for (int ply = 0; ply < moveCount; ply++) {
+            moveNanos[ply] = readVarLong(in);
+        }
+
+        return new GameRecord(width,
+                              height,
+                              winningLength,
+                              whiteBotId,
+                              redBotId,
+                              firstPlayer,
+                              result,
+                              startTimeMillis,
+                              moves,
+                              moveNanos);
+    }
+
+    private static void writeVarLong(ByteSink out, long value) {
+        if (value < 0L) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+
+        while ((value & ~0x7FL) != 0L) {
+            out.write((int) ((value & 0x7FL) | 0x80L));
+            value >>>= 7;
+        }
+
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0L;
+        int shift = 0;
+        byte b;
+
+        do {
+            b = in.get();
+            value |= (long)(b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return value;
+    }
+
+    private static void writeString(ByteSink out, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A minimal growable byte array.
+     */
+    static final class ByteSink {
+
+        private byte[] bytes;
+        private int size;
+
+        ByteSink(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void write(int b) {
+            ensureCapacity(size + 1);
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] source, int offset, int length) {
+            ensureCapacity(size + length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        byte[] array() {
+            return bytes;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                byte[] newBytes =
+                        new byte[Math.max(capacity, 2 * bytes.length)];
+                System.arraycopy(bytes, 0, newBytes, 0, size);
+                bytes = newBytes;
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package net.coderodde.connectfour.base.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * This class streams the records of a file written by
+ * {@link GameRecordWriter}. Only one block is held in memory at a time, so
+ * files of any size can be iterated. A block cut short at the end of the file,
+ * as left by a crashed writer, ends the stream.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class GameRecordReader implements Closeable,
+                                               Iterable<GameRecord> {
+
+    private final FileChannel channel;
+    private final Inflater inflater = new Inflater();
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer header =
+            ByteBuffer.allocate(GameRecordWriter.BLOCK_HEADER_SIZE);
+    private ByteBuffer compressed = ByteBuffer.allocate(0);
+    private ByteBuffer block = ByteBuffer.allocate(0);
+    private int recordsLeftInBlock;
+
+    /**
+     * Opens the file for reading.
+     * @param file the file to read.
+     * @throws IOException if the file cannot be opened.
+     */
+    public GameRecordReader(Path file) throws IOException {
+        Objects.requireNonNull(file, "The input file is null.");
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    /**
+     * Reads the next record.
+     * @return the next record, or {@code null} if there are no more.
+     * @throws IOException if reading fails or the file is corrupt.
+     */
+    public GameRecord read() throws IOException {
+        while (recordsLeftInBlock == 0) {
+            if (!readBlock()) {
+                return null;
+            }
+        }
+
+        recordsLeftInBlock--;
+        return GameRecordCodec.decode(block);
+    }
+
+    /**
+     * Returns an iterator over the remaining records. Reading errors are
+     * rethrown as {@link UncheckedIOException}.
+     * @return the iterator.
+     */
+    @Override
+    public Iterator<GameRecord> iterator() {
+        return new Iterator<GameRecord>() {
+
+            private GameRecord next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = read();
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }
+
+                return next != null;
+            }
+
+            @Override
+            public GameRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                GameRecord record = next;
+                next = null;
+                return record;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+
+    /**
+     * Reads and inflates the next block.
+     * @return {@code false} if the end of the data was reached.
+     */
+    private boolean readBlock() throws IOException {
+        header.clear();
+
+        if (!readFully(header)) {
+            return false;
+        }
+
+        header.flip();
+
+        if (header.getInt() != GameRecordWriter.BLOCK_MAGIC) {
+            throw new IOException("Bad block magic at offset " +
+                                  (channel.position() - header.capacity()));
+        }
+
+        int recordCount = header.getInt();
+        int uncompressedLength = header.getInt();
+        int compressedLength = header.getInt();
+        int checksum = header.getInt();
+
+        if (compressed.capacity() < compressedLength) {
+            compressed = ByteBuffer.allocate(compressedLength);
+        }
+
+        compressed.clear().limit(compressedLength);
+
+        if (!readFully(compressed)) {
+            return false;
+        }
+
+        if (block.capacity() < uncompressedLength) {
+            block = ByteBuffer.allocate(uncompressedLength);
+        }
+
+        inflater.reset();
+        inflater.setInput(compressed.array(), 0, compressedLength);
+
+        try {
+            int length = inflater.inflate(block.array(),
+                                          0,
+                                          uncompressedLength);
+
+            if (length != uncompressedLength) {
+                throw new IOException("Truncated block data.");
+            }
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupt block data.", ex);
+        }
+
+        crc.reset();
+        crc.update(block.array(), 0, uncompressedLength);
+
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Block checksum mismatch.");
+        }
+
+        block.clear().limit(uncompressedLength);
+        recordsLeftInBlock = recordCount;
+        return true;
+    }
+
+    /**
+     * Fills the buffer from the channel.
+     * @return {@code false} if the end of the file came first.
+     */
+    private boolean readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
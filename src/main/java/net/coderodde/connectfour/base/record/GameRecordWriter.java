@@ -0,0 +1,165 @@
+package net.coderodde.connectfour.base.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * This class appends game records to a file. The records are collected into
+ * blocks, each of which is deflated and written with a single append through a
+ * {@link FileChannel}. Every block is self-contained:
+ * <pre>
+ *   int magic, int recordCount, int uncompressedLength,
+ *   int compressedLength, int crc32, byte[compressedLength] data
+ * </pre>
+ * so new blocks may be appended to an existing file at any time, and a block
+ * torn by a crash affects only the records in it.
+ * <p>
+ * The writer may be shared by several threads.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class GameRecordWriter implements Closeable {
+
+    /**
+     * The magic number at the beginning of each block ("C4GR").
+     */
+    static final int BLOCK_MAGIC = 0x43344752;
+
+    /**
+     * The size of the block header in bytes.
+     */
+    static final int BLOCK_HEADER_SIZE = 20;
+
+    /**
+     * The default number of uncompressed bytes collected before a block is
+     * written.
+     */
+    private static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private final GameRecordCodec.ByteSink block;
+    private final Deflater deflater = new Deflater();
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer header =
+            ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+    private byte[] compressed;
+    private int recordCount;
+
+    public GameRecordWriter(Path file) throws IOException {
+        this(file, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Opens the file for appending, creating it if needed.
+     * @param file the target file.
+     * @param blockSize the number of uncompressed bytes per block.
+     * @throws IOException if the file cannot be opened.
+     */
+    public GameRecordWriter(Path file, int blockSize) throws IOException {
+        Objects.requireNonNull(file, "The input file is null.");
+
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize = " + blockSize);
+        }
+
+        this.blockSize = blockSize;
+        this.block = new GameRecordCodec.ByteSink(blockSize + 256);
+        this.compressed = new byte[blockSize + 256];
+        this.channel = FileChannel.open(file,
+                                        StandardOpenOption.CREATE,
+                                        StandardOpenOption.WRITE,
+                                        StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Appends a record. The record reaches the file once its block fills up,
+     * or on {@link #flush()} or {@link #close()}.
+     * @param record the record to append.
+     * @throws IOException if writing a full block fails.
+     */
+    public synchronized void append(GameRecord record) throws IOException {
+        Objects.requireNonNull(record, "The input record is null.");
+        GameRecordCodec.encode(record, block);
+        recordCount++;
+
+        if (block.size() >= blockSize) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Writes the pending records as a block.
+     * @throws IOException if writing fails.
+     */
+    public synchronized void flush() throws IOException {
+        if (recordCount > 0) {
+            writeBlock();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            deflater.end();
+            channel.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        deflater.reset();
+        deflater.setInput(block.array(), 0, block.size());
+        deflater.finish();
+        int compressedLength = 0;
+
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                byte[] newCompressed = new byte[2 * compressed.length];
+                System.arraycopy(compressed,
+                                 0,
+                                 newCompressed,
+                                 0,
+                                 compressedLength);
+                compressed = newCompressed;
+            }
+
+            compressedLength += deflater.deflate(compressed,
+                                                 compressedLength,
+                                                 compressed.length -
+                                                 compressedLength);
+        }
+
+        crc.reset();
+        crc.update(block.array(), 0, block.size());
+
+        header.clear();
+        header.putInt(BLOCK_MAGIC)
+              .putInt(recordCount)
+              .putInt(block.size())
+              .putInt(compressedLength)
+              .putInt((int) crc.getValue())
+              .flip();
+
+        ByteBuffer[] buffers = {
+            header,
+            ByteBuffer.wrap(compressed, 0, compressedLength)
+        };
+
+        while (buffers[1].hasRemaining()) {
+            channel.write(buffers);
+        }
+
+        block.clear();
+        recordCount = 0;
+    }
+}
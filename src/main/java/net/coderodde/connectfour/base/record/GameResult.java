@@ -0,0 +1,41 @@
+package net.coderodde.connectfour.base.record;
+
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This enumeration lists the possible outcomes of a recorded game.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public enum GameResult {
+
+    WHITE_WINS,
+    RED_WINS,
+    DRAW,
+
+    /**
+     * The game was abandoned before it was over.
+     */
+    UNFINISHED;
+
+    /**
+     * Returns the result of the game ending in the given state.
+     * @param state the final state.
+     * @return the result.
+     */
+    public static GameResult of(ConnectFourState state) {
+        PlayerColor winner = state.checkVictory();
+
+        if (winner == PlayerColor.WHITE_PLAYER) {
+            return WHITE_WINS;
+        }
+
+        if (winner == PlayerColor.RED_PLAYER) {
+            return RED_WINS;
+        }
+
+        return state.isFull() ? DRAW : UNFINISHED;
+    }
+}
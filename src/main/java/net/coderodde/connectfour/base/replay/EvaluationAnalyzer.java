@@ -0,0 +1,49 @@
+package net.coderodde.connectfour.base.replay;
+
+import java.util.Objects;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicAccumulator;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class scores the positions with a heuristic function. If the function
+ * supports incremental evaluation, its accumulator follows the replayed
+ * moves, and a position costs only the update of the move leading to it.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class EvaluationAnalyzer implements PositionAnalyzer {
+
+    private final HeuristicFunction evaluator;
+    private final HeuristicAccumulator accumulator;
+
+    public EvaluationAnalyzer(HeuristicFunction evaluator) {
+        this.evaluator = Objects.requireNonNull(evaluator,
+                                                "The input evaluator is null.");
+        this.accumulator = evaluator.createAccumulator();
+    }
+
+    @Override
+    public void startGame(ConnectFourState state) {
+        if (accumulator != null) {
+            accumulator.reset(state);
+        }
+    }
+
+    @Override
+    public void moveMade(int x, int y, PlayerColor player) {
+        if (accumulator != null) {
+            accumulator.makeMove(x, y, player);
+        }
+    }
+
+    @Override
+    public double analyze(ConnectFourState state, PlayerColor playerToMove) {
+        double score = accumulator != null ?
+                accumulator.evaluate() :
+                evaluator.evaluate(state);
+        return playerToMove == PlayerColor.WHITE_PLAYER ? score : -score;
+    }
+}
@@ -0,0 +1,79 @@
+package net.coderodde.connectfour.base.replay;
+
+import java.util.Objects;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class holds the analysis of a single position of a replayed game: the
+ * position before the move of the ply {@code ply}, the move actually played
+ * there, and the score and the best move found by the analyzer. The score is
+ * from the point of view of the player to move.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class PlyAnalysis {
+
+    private final int ply;
+    private final PlayerColor playerToMove;
+    private final int playedMove;
+    private final double score;
+    private final int bestMove;
+    private final int depth;
+
+    /**
+     * Constructs a ply analysis.
+     * @param ply the number of moves made before the position.
+     * @param playerToMove the player to move.
+     * @param playedMove the column played in the game.
+     * @param score the score from the point of view of the player to move.
+     * @param bestMove the best move, or -1 if not known.
+     * @param depth the depth of the search, or zero if not searched.
+     */
+    public PlyAnalysis(int ply,
+                       PlayerColor playerToMove,
+                       int playedMove,
+                       double score,
+                       int bestMove,
+                       int depth) {
+        this.ply = ply;
+        this.playerToMove = Objects.requireNonNull(
+                playerToMove,
+                "The player to move is null.");
+        this.playedMove = playedMove;
+        this.score = score;
+        this.bestMove = bestMove;
+        this.depth = depth;
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    public PlayerColor getPlayerToMove() {
+        return playerToMove;
+    }
+
+    public int getPlayedMove() {
+        return playedMove;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return "[ply " + ply + ", " + playerToMove + " played " + playedMove +
+               ", score " + score + ", best " + bestMove + ", depth " + depth +
+               "]";
+    }
+}
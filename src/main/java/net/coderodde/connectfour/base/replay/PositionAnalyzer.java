@@ -0,0 +1,56 @@
+package net.coderodde.connectfour.base.replay;
+
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This interface specifies the API for analyzing the positions of the games
+ * replayed by {@link ReplayEngine}. The engine gives each of its threads an
+ * analyzer of its own, so an analyzer may keep state between the positions,
+ * and is told of every move replayed so that it can update that state
+ * incrementally.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public interface PositionAnalyzer {
+
+    /**
+     * Called before the first position of each game.
+     * @param state the initial state of the game.
+     */
+    public default void startGame(ConnectFourState state) {}
+
+    /**
+     * Called after each move replayed, whether or not the preceding position
+     * was analyzed.
+     * @param x the column of the move.
+     * @param y the row the token landed in, counting from the top.
+     * @param player the player that moved.
+     */
+    public default void moveMade(int x, int y, PlayerColor player) {}
+
+    /**
+     * Analyzes a non-terminal position.
+     * @param state the position.
+     * @param playerToMove the player to move.
+     * @return the score from the point of view of {@code playerToMove}.
+     */
+    public double analyze(ConnectFourState state, PlayerColor playerToMove);
+
+    /**
+     * Returns the best move found by the last analysis.
+     * @return the best move, or -1 if not known.
+     */
+    public default int getBestMove() {
+        return -1;
+    }
+
+    /**
+     * Returns the search depth of the last analysis.
+     * @return the depth, or zero if the position was not searched.
+     */
+    public default int getDepth() {
+        return 0;
+    }
+}
@@ -0,0 +1,415 @@
+package net.coderodde.connectfour.base.replay;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.StreamSupport;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+import net.coderodde.connectfour.base.record.GameRecord;
+import net.coderodde.connectfour.base.record.GameRecordReader;
+
+/**
+ * This class replays recorded games in bulk and analyzes their positions on a
+ * {@link ForkJoinPool}. The calling thread reads the games into batches and
+ * submits them to the pool, keeping a bounded number of batches in flight, so
+ * an input of any size is streamed through in constant memory. Each worker
+ * thread has an analyzer of its own, created on demand.
+ * <p>
+ * A game is replayed move by move from its initial state. The end of the game
+ * is detected by checking only the board of the player that moved, and the
+ * analyzer is told of each move so that it can update its own state
+ * incrementally. The position before each move, starting
+ * from the ply {@link #setFirstPly(int)}, is analyzed, and the analyses of a
+ * game are passed to the {@link ReplaySink} once the game is done.
+ * <p>
+ * By default, the analyzers keep their state, such as warm transposition
+ * tables, from game to game, and the games reach the sink as they are done,
+ * so the results depend on the schedule of the threads. In the
+ * {@linkplain #setDeterministic(boolean) deterministic mode}, each batch is
+ * analyzed by a fresh analyzer, and the calling thread passes the games to
+ * the sink in the input order, so the results are the same for any number of
+ * threads.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class ReplayEngine {
+
+    /**
+     * The default number of games per task.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 64;
+
+    /**
+     * The number of batches in flight per thread.
+     */
+    private static final int BATCHES_IN_FLIGHT_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final Supplier<? extends PositionAnalyzer> analyzerFactory;
+    private final ThreadLocal<PositionAnalyzer> analyzers;
+    private final int parallelism;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int firstPly;
+    private boolean deterministic;
+
+    private final AtomicLong gameCount = new AtomicLong();
+    private final AtomicLong positionCount = new AtomicLong();
+    private final AtomicLong invalidGameCount = new AtomicLong();
+
+    /**
+     * Constructs a replay engine.
+     * @param analyzerFactory the factory creating the analyzer of each thread.
+     * @param parallelism the number of threads.
+     */
+    public ReplayEngine(Supplier<? extends PositionAnalyzer> analyzerFactory,
+                        int parallelism) {
+        Objects.requireNonNull(analyzerFactory,
+                               "The analyzer factory is null.");
+
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(
+                    "parallelism = " + parallelism);
+        }
+
+        this.parallelism = parallelism;
+        this.pool = new ForkJoinPool(parallelism);
+        this.analyzerFactory = analyzerFactory;
+        this.analyzers = ThreadLocal.withInitial(this::createAnalyzer);
+    }
+
+    /**
+     * Sets the number of games replayed per task.
+     * @param batchSize the batch size.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize = " + batchSize);
+        }
+
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the first ply to analyze; the openings before it are only
+     * replayed.
+     * @param firstPly the first ply.
+     */
+    public void setFirstPly(int firstPly) {
+        if (firstPly < 0) {
+            throw new IllegalArgumentException("firstPly = " + firstPly);
+        }
+
+        this.firstPly = firstPly;
+    }
+
+    /**
+     * Sets whether the results must not depend on the schedule of the
+     * threads. The batch size must then be fixed too, as each batch gets a
+     * fresh analyzer.
+     * @param deterministic whether to run in the deterministic mode.
+     */
+    public void setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Replays and analyzes the games, and returns once all of them have been
+     * passed to the sink.
+     * @param games the games.
+     * @param sink the receiver of the analyses.
+     * @return the number of games replayed.
+     */
+    public long replay(Iterable<GameRecord> games, ReplaySink sink) {
+        Objects.requireNonNull(games, "The input games are null.");
+        Objects.requireNonNull(sink, "The input sink is null.");
+        Deque<ForkJoinTask<List<ReplayedGame>>> pending = new ArrayDeque<>();
+        int maximumPending = BATCHES_IN_FLIGHT_PER_THREAD * parallelism;
+        List<GameRecord> batch = new ArrayList<>(batchSize);
+        long firstIndex = 0L;
+        long index = 0L;
+
+        try {
+            for (GameRecord record : games) {
+                batch.add(Objects.requireNonNull(record,
+                                                 "The input game is null."));
+                index++;
+
+                if (batch.size() == batchSize) {
+                    pending.addLast(submit(batch, firstIndex, sink));
+                    batch = new ArrayList<>(batchSize);
+                    firstIndex = index;
+
+                    if (pending.size() >= maximumPending) {
+                        deliver(pending.removeFirst().join(), sink);
+                    }
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                pending.addLast(submit(batch, firstIndex, sink));
+            }
+
+            while (!pending.isEmpty()) {
+                deliver(pending.removeFirst().join(), sink);
+            }
+        } finally {
+            // Do not leave tasks behind on failure:
+            for (ForkJoinTask<?> task : pending) {
+                task.cancel(false);
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns the number of games replayed so far.
+     * @return the game count.
+     */
+    public long getGameCount() {
+        return gameCount.get();
+    }
+
+    /**
+     * Returns the number of positions analyzed so far.
+     * @return the position count.
+     */
+    public long getPositionCount() {
+        return positionCount.get();
+    }
+
+    /**
+     * Returns the number of games with an illegal move or moves after their
+     * end.
+     * @return the invalid game count.
+     */
+    public long getInvalidGameCount() {
+        return invalidGameCount.get();
+    }
+
+    private PositionAnalyzer createAnalyzer() {
+        return Objects.requireNonNull(analyzerFactory.get(),
+                                      "The analyzer factory returned null.");
+    }
+
+    /**
+     * Submits a batch. In the deterministic mode, the task returns the
+     * replayed games for the calling thread to pass on; otherwise, it passes
+     * them to the sink itself and returns {@code null}.
+     */
+    private ForkJoinTask<List<ReplayedGame>> submit(List<GameRecord> batch,
+                                                    long firstIndex,
+                                                    ReplaySink sink) {
+        boolean ordered = deterministic;
+
+        return pool.submit(() -> {
+            PositionAnalyzer analyzer = ordered ?
+                    createAnalyzer() :
+                    analyzers.get();
+            List<ReplayedGame> games =
+                    ordered ? new ArrayList<>(batch.size()) : null;
+
+            for (int i = 0; i < batch.size(); i++) {
+                ReplayedGame game =
+                        replayGame(firstIndex + i, batch.get(i), analyzer);
+
+                if (ordered) {
+                    games.add(game);
+                } else {
+                    synchronized (this) {
+                        game.passTo(sink);
+                    }
+                }
+            }
+
+            return games;
+        });
+    }
+
+    private static void deliver(List<ReplayedGame> games, ReplaySink sink) {
+        if (games != null) {
+            for (ReplayedGame game : games) {
+                game.passTo(sink);
+            }
+        }
+    }
+
+    private ReplayedGame replayGame(long gameIndex,
+                                    GameRecord record,
+                                    PositionAnalyzer analyzer) {
+        ConnectFourState state = new ConnectFourState(
+                record.getWidth(),
+                record.getHeight(),
+                record.getWinningLength());
+        PlayerColor player = record.getFirstPlayer();
+        int moveCount = record.getMoveCount();
+        List<PlyAnalysis> plies =
+                new ArrayList<>(Math.max(0, moveCount - firstPly));
+        boolean valid = true;
+        analyzer.startGame(state);
+
+        for (int ply = 0; ply < moveCount; ply++) {
+            int x = record.getMove(ply);
+
+            if (x < 0 || x >= state.getWidth() || state.columnIsFull(x)) {
+                valid = false;
+                break;
+            }
+
+            if (ply >= firstPly) {
+                double score = analyzer.analyze(state, player);
+                plies.add(new PlyAnalysis(ply,
+                                          player,
+                                          x,
+                                          score,
+                                          analyzer.getBestMove(),
+                                          analyzer.getDepth()));
+            }
+
+            int y = state.getHeight() - 1 - state.getColumnHeight(x);
+            state = state.move(x, player);
+            // Only the player dropping a token can complete a line:
+            boolean wins = state.getRules().containsLine(
+                    state.getBitBoard(player), state.getWinningLength());
+            analyzer.moveMade(x, y, player);
+
+            if (wins && ply < moveCount - 1) {
+                valid = false;
+                break;
+            }
+
+            player = player.opponent();
+        }
+
+        gameCount.incrementAndGet();
+        positionCount.addAndGet(plies.size());
+
+        if (!valid) {
+            invalidGameCount.incrementAndGet();
+        }
+
+        return new ReplayedGame(gameIndex, record, plies, valid);
+    }
+
+    /**
+     * A replayed game on its way to the sink.
+     */
+    private static final class ReplayedGame {
+
+        private final long gameIndex;
+        private final GameRecord record;
+        private final List<PlyAnalysis> plies;
+        private final boolean valid;
+
+        ReplayedGame(long gameIndex,
+                     GameRecord record,
+                     List<PlyAnalysis> plies,
+                     boolean valid) {
+            this.gameIndex = gameIndex;
+            this.record = record;
+            this.plies = plies;
+            this.valid = valid;
+        }
+
+        void passTo(ReplaySink sink) {
+            sink.gameReplayed(gameIndex, record, plies, valid);
+        }
+    }
+
+    /**
+     * Analyzes the games of a record file and writes the analyses of their
+     * positions as CSV:
+     * {@code RECORD_FILE OUTPUT_FILE WIDTH HEIGHT WINNING_LENGTH [DEPTH]
+     * [THREADS]}. Only the games of the given geometry are analyzed; a depth
+     * of zero evaluates the positions without searching.
+     * @param args the command line arguments.
+     * @throws IOException if reading or writing fails.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.out.println(
+                    "Usage: java " + ReplayEngine.class.getName() +
+                    " RECORD_FILE OUTPUT_FILE WIDTH HEIGHT WINNING_LENGTH " +
+                    "[DEPTH] [THREADS]");
+            return;
+        }
+
+        Path recordFile = Paths.get(args[0]);
+        Path outputFile = Paths.get(args[1]);
+        int width = Integer.parseInt(args[2]);
+        int height = Integer.parseInt(args[3]);
+        int winningLength = Integer.parseInt(args[4]);
+        int depth = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+        int threads = args.length > 6 ?
+                Integer.parseInt(args[6]) :
+                Runtime.getRuntime().availableProcessors();
+        HeuristicFunction evaluator =
+                new DefaultHeuristicFunction(width,
+                                             height,
+                                             10.0,
+                                             winningLength);
+        ReplayEngine engine = new ReplayEngine(() -> depth > 0 ?
+                new SearchAnalyzer(evaluator, depth) :
+                new EvaluationAnalyzer(evaluator),
+                threads);
+        long startTime = System.currentTimeMillis();
+
+        try (GameRecordReader reader = new GameRecordReader(recordFile);
+             BufferedWriter writer =
+                     Files.newBufferedWriter(outputFile,
+                                             StandardCharsets.UTF_8)) {
+            writer.write("game,ply,player,played,score,best,depth");
+            writer.newLine();
+            Iterable<GameRecord> games = () ->
+                    StreamSupport.stream(reader.spliterator(), false)
+                                 .filter(record ->
+                                         record.getWidth() == width
+                                         && record.getHeight() == height
+                                         && record.getWinningLength() ==
+                                            winningLength)
+                                 .iterator();
+
+            engine.replay(games, (gameIndex, record, plies, valid) -> {
+                try {
+                    for (PlyAnalysis ply : plies) {
+                        writer.write(gameIndex + "," +
+                                     ply.getPly() + "," +
+                                     ply.getPlayerToMove() + "," +
+                                     ply.getPlayedMove() + "," +
+                                     ply.getScore() + "," +
+                                     ply.getBestMove() + "," +
+                                     ply.getDepth());
+                        writer.newLine();
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+
+        long duration = Math.max(1L, System.currentTimeMillis() - startTime);
+        System.out.println("Replayed " + engine.getGameCount() + " games (" +
+                           engine.getInvalidGameCount() + " invalid) and " +
+                           "analyzed " + engine.getPositionCount() +
+                           " positions in " + duration + " ms, " +
+                           engine.getGameCount() * 3_600_000L / duration +
+                           " games per hour.");
+    }
+}
@@ -0,0 +1,30 @@
+package net.coderodde.connectfour.base.replay;
+
+import java.util.List;
+import net.coderodde.connectfour.base.record.GameRecord;
+
+/**
+ * This interface defines the API for the receivers of the analyses of
+ * {@link ReplayEngine}. The sink is called once per game by one thread at a
+ * time; the games arrive in the order they are completed, which may differ
+ * from the input order.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public interface ReplaySink {
+
+    /**
+     * Called when a game has been replayed.
+     * @param gameIndex the index of the game in the input, counting from
+     * zero.
+     * @param record the game.
+     * @param plies the analyses of its positions in ply order.
+     * @param valid {@code false} if the game contains an illegal move or moves
+     * after its end; the positions after that are not analyzed.
+     */
+    public void gameReplayed(long gameIndex,
+                             GameRecord record,
+                             List<PlyAnalysis> plies,
+                             boolean valid);
+}
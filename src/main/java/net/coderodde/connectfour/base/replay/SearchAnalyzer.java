@@ -0,0 +1,78 @@
+package net.coderodde.connectfour.base.replay;
+
+import java.util.Objects;
+import java.util.function.Function;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.impl.SmartBot;
+
+/**
+ * This class searches the positions with a {@link SmartBot} per color. The
+ * bots are created on first use and kept for the later positions, so that
+ * their transposition tables, if any, stay warm through a game and between
+ * the games.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class SearchAnalyzer implements PositionAnalyzer {
+
+    private final Function<PlayerColor, SmartBot> botFactory;
+    private SmartBot whiteBot;
+    private SmartBot redBot;
+    private int bestMove = -1;
+    private int depth;
+
+    /**
+     * Constructs an analyzer searching at a fixed depth.
+     * @param evaluator the evaluator of the bots.
+     * @param depth the search depth.
+     */
+    public SearchAnalyzer(HeuristicFunction evaluator, int depth) {
+        this(player -> new SmartBot(player, evaluator, depth));
+        Objects.requireNonNull(evaluator, "The input evaluator is null.");
+    }
+
+    /**
+     * Constructs an analyzer with the bots created by the given factory.
+     * @param botFactory the factory creating a bot of the given color.
+     */
+    public SearchAnalyzer(Function<PlayerColor, SmartBot> botFactory) {
+        this.botFactory = Objects.requireNonNull(botFactory,
+                                                 "The bot factory is null.");
+    }
+
+    @Override
+    public double analyze(ConnectFourState state, PlayerColor playerToMove) {
+        SmartBot bot;
+
+        if (playerToMove == PlayerColor.WHITE_PLAYER) {
+            if (whiteBot == null) {
+                whiteBot = botFactory.apply(playerToMove);
+            }
+
+            bot = whiteBot;
+        } else {
+            if (redBot == null) {
+                redBot = botFactory.apply(playerToMove);
+            }
+
+            bot = redBot;
+        }
+
+        bestMove = state.findMoveColumn(bot.computeNextState(state));
+        depth = bot.getLastDepth();
+        return bot.getLastScore();
+    }
+
+    @Override
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    @Override
+    public int getDepth() {
+        return depth;
+    }
+}
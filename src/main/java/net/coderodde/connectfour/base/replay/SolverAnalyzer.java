@@ -0,0 +1,128 @@
+package net.coderodde.connectfour.base.replay;
+
+import java.util.Objects;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.impl.EndgameDatabase;
+import net.coderodde.connectfour.base.impl.SmartBot;
+
+/**
+ * This class scores the positions covered by an {@link EndgameDatabase}
+ * exactly: a win scores {@link SmartBot#WIN_SCORE}, a draw zero and a loss
+ * {@code -WIN_SCORE}. The best move is found by probing the children. The
+ * positions outside the database are passed to the fallback analyzer, if
+ * any, and score {@code NaN} otherwise.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class SolverAnalyzer implements PositionAnalyzer {
+
+    private final EndgameDatabase database;
+    private final PositionAnalyzer fallback;
+    private int bestMove = -1;
+    private int depth;
+
+    /**
+     * Constructs a solver analyzer.
+     * @param database the endgame database.
+     * @param fallback the analyzer for the positions the database does not
+     * cover, or {@code null} for none.
+     */
+    public SolverAnalyzer(EndgameDatabase database, PositionAnalyzer fallback) {
+        this.database = Objects.requireNonNull(database,
+                                               "The input database is null.");
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void startGame(ConnectFourState state) {
+        if (fallback != null) {
+            fallback.startGame(state);
+        }
+    }
+
+    @Override
+    public void moveMade(int x, int y, PlayerColor player) {
+        if (fallback != null) {
+            fallback.moveMade(x, y, player);
+        }
+    }
+
+    @Override
+    public double analyze(ConnectFourState state, PlayerColor playerToMove) {
+        int value = toMover(database.probe(state, playerToMove), playerToMove);
+
+        if (value == EndgameDatabase.UNKNOWN) {
+            if (fallback == null) {
+                bestMove = -1;
+                depth = 0;
+                return Double.NaN;
+            }
+
+            double score = fallback.analyze(state, playerToMove);
+            bestMove = fallback.getBestMove();
+            depth = fallback.getDepth();
+            return score;
+        }
+
+        bestMove = findBestMove(state, playerToMove, value);
+        depth = state.getEmptyCellCount();
+        return value * SmartBot.WIN_SCORE;
+    }
+
+    @Override
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    @Override
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns a move keeping the value of the position, or -1 if the children
+     * are not in the database.
+     */
+    private int findBestMove(ConnectFourState state,
+                             PlayerColor playerToMove,
+                             int value) {
+        PlayerColor opponent = playerToMove.opponent();
+
+        for (int x = 0; x < state.getWidth(); x++) {
+            if (state.columnIsFull(x)) {
+                continue;
+            }
+
+            if (state.isWinningMove(x, playerToMove)) {
+                return x;
+            }
+
+            ConnectFourState child = state.move(x, playerToMove);
+            int childValue = child.isFull() ?
+                    EndgameDatabase.DRAW :
+                    toMover(database.probe(child, opponent), opponent);
+
+            if (childValue != EndgameDatabase.UNKNOWN
+                    && -childValue == value) {
+                return x;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Converts a database value into +1 for a win, 0 for a draw and -1 for a
+     * loss of {@code player}.
+     */
+    private static int toMover(int value, PlayerColor player) {
+        if (value == EndgameDatabase.UNKNOWN
+                || player == PlayerColor.WHITE_PLAYER) {
+            return value;
+        }
+
+        return -value;
+    }
+}
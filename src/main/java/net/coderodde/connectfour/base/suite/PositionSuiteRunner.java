@@ -0,0 +1,412 @@
+package net.coderodde.connectfour.base.suite;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import net.coderodde.connectfour.base.Bot;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+import net.coderodde.connectfour.base.impl.SearchListener;
+import net.coderodde.connectfour.base.impl.SmartBot;
+
+/**
+ * This class runs a position suite against bots and reports how many
+ * positions were solved and how fast. Each position gets a fresh bot from the
+ * bot factory, and the positions are run in parallel.
+ * <p>
+ * For a {@link SmartBot} the solution is tracked per iteration: a position is
+ * solved at the first iteration from which on every iteration satisfies the
+ * expectation, and the time and nodes spent until that iteration are
+ * reported. For other bots only the final move is checked, and expected game
+ * values cannot be verified.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class PositionSuiteRunner {
+
+    /**
+     * Creates a bot for each position.
+     */
+    private final Function<SuitePosition, Bot> botFactory;
+
+    public PositionSuiteRunner(Function<SuitePosition, Bot> botFactory) {
+        this.botFactory = Objects.requireNonNull(botFactory,
+                                                 "The bot factory is null.");
+    }
+
+    /**
+     * Runs the positions.
+     * @param positions the positions to run.
+     * @param threads the number of worker threads.
+     * @return the results in the order of {@code positions}.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public List<SuiteResult> run(List<SuitePosition> positions, int threads)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<SuiteResult>> futures =
+                    new ArrayList<>(positions.size());
+
+            for (SuitePosition position : positions) {
+                futures.add(executor.submit(() -> run(position)));
+            }
+
+            List<SuiteResult> results = new ArrayList<>(positions.size());
+
+            for (Future<SuiteResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException(
+                            "Running a position failed.", ex.getCause());
+                }
+            }
+
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs a single position.
+     * @param position the position to run.
+     * @return the result.
+     */
+    public SuiteResult run(SuitePosition position) {
+        Bot bot = botFactory.apply(position);
+
+        if (bot.getPlayerColor() != position.getPlayerToMove()) {
+            throw new IllegalStateException(
+                    "The bot plays the wrong color in " + position.getId());
+        }
+
+        List<Iteration> iterations = new ArrayList<>();
+
+        if (bot instanceof SmartBot) {
+            ((SmartBot) bot).setSearchListener(
+                    new IterationRecorder(iterations));
+        }
+
+        ConnectFourState state = position.getState();
+        long startTime = System.nanoTime();
+        ConnectFourState nextState = bot.computeNextState(state);
+        long duration = System.nanoTime() - startTime;
+        int column = nextState == null ? -1 : state.findMoveColumn(nextState);
+
+        if (iterations.isEmpty()) {
+            boolean solved = position.hasExpectedColumns() &&
+                             position.isExpectedColumn(column);
+            return new SuiteResult(position.getId(),
+                                   solved,
+                                   column,
+                                   -1,
+                                   duration,
+                                   -1L);
+        }
+
+        // Find the first iteration after which the expectation always held:
+        int solutionIndex = iterations.size();
+
+        while (solutionIndex > 0 &&
+                isSatisfied(position, iterations.get(solutionIndex - 1))) {
+            solutionIndex--;
+        }
+
+        Iteration last = iterations.get(iterations.size() - 1);
+
+        if (solutionIndex == iterations.size()) {
+            return new SuiteResult(position.getId(),
+                                   false,
+                                   column,
+                                   last.depth,
+                                   duration,
+                                   last.nodeCount);
+        }
+
+        Iteration solution = iterations.get(solutionIndex);
+        return new SuiteResult(position.getId(),
+                               true,
+                               column,
+                               last.depth,
+                               solution.elapsedNanos,
+                               solution.nodeCount);
+    }
+
+    /**
+     * Prints the per-position results and the summary.
+     * @param results the results.
+     * @param out the output stream.
+     */
+    public static void printReport(List<SuiteResult> results,
+                                   PrintStream out) {
+        int solved = 0;
+        long totalTime = 0L;
+        long totalNodes = 0L;
+
+        for (SuiteResult result : results) {
+            out.printf("%-16s %-8s column %2d depth %3d %10.3f ms %12s%n",
+                       result.getId(),
+                       result.isSolved() ? "solved" : "FAILED",
+                       result.getColumn(),
+                       result.getDepth(),
+                       result.getTimeToSolutionNanos() / 1e6,
+                       result.getNodesToSolution() < 0L ?
+                               "-" :
+                               result.getNodesToSolution() + " nodes");
+
+            if (result.isSolved()) {
+                solved++;
+                totalTime += result.getTimeToSolutionNanos();
+                totalNodes += Math.max(0L, result.getNodesToSolution());
+            }
+        }
+
+        out.printf("Solved %d/%d, time to solution %.3f ms, " +
+                   "nodes to solution %d%n",
+                   solved,
+                   results.size(),
+                   totalTime / 1e6,
+                   totalNodes);
+    }
+
+    /**
+     * Prints how the results differ from a baseline. Time and nodes are
+     * compared over the positions solved in both runs.
+     * @param results the current results.
+     * @param baseline the baseline results.
+     * @param out the output stream.
+     */
+    public static void printComparison(List<SuiteResult> results,
+                                       List<SuiteResult> baseline,
+                                       PrintStream out) {
+        Map<String, SuiteResult> baselineMap = new LinkedHashMap<>();
+
+        for (SuiteResult result : baseline) {
+            baselineMap.put(result.getId(), result);
+        }
+
+        int gained = 0;
+        int lost = 0;
+        long time = 0L;
+        long baselineTime = 0L;
+        long nodes = 0L;
+        long baselineNodes = 0L;
+
+        for (SuiteResult result : results) {
+            SuiteResult old = baselineMap.get(result.getId());
+
+            if (old == null) {
+                continue;
+            }
+
+            if (result.isSolved() && !old.isSolved()) {
+                gained++;
+                out.println("Newly solved: " + result.getId());
+            } else if (!result.isSolved() && old.isSolved()) {
+                lost++;
+                out.println("Regressed:    " + result.getId());
+            } else if (result.isSolved()) {
+                time += result.getTimeToSolutionNanos();
+                baselineTime += old.getTimeToSolutionNanos();
+                nodes += Math.max(0L, result.getNodesToSolution());
+                baselineNodes += Math.max(0L, old.getNodesToSolution());
+            }
+        }
+
+        out.printf("Against baseline: +%d solved, -%d regressed, " +
+                   "time x%.3f, nodes x%.3f%n",
+                   gained,
+                   lost,
+                   baselineTime == 0L ? 1.0 : (double) time / baselineTime,
+                   baselineNodes == 0L ? 1.0 : (double) nodes / baselineNodes);
+    }
+
+    /**
+     * Writes the results as a baseline file.
+     * @param results the results to write.
+     * @param file the target file.
+     * @throws IOException if writing fails.
+     */
+    public static void writeBaseline(List<SuiteResult> results, Path file)
+            throws IOException {
+        try (BufferedWriter writer =
+                Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (SuiteResult result : results) {
+                writer.write(result.toBaselineLine());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Reads a baseline file written by {@link #writeBaseline(List, Path)}.
+     * @param file the baseline file.
+     * @return the baseline results.
+     * @throws IOException if reading fails.
+     */
+    public static List<SuiteResult> readBaseline(Path file)
+            throws IOException {
+        List<SuiteResult> results = new ArrayList<>();
+
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.trim().isEmpty()) {
+                results.add(SuiteResult.parseBaselineLine(line.trim()));
+            }
+        }
+
+        return results;
+    }
+
+    private static boolean isSatisfied(SuitePosition position,
+                                       Iteration iteration) {
+        if (position.hasExpectedColumns()) {
+            return position.isExpectedColumn(iteration.bestColumn);
+        }
+
+        switch (position.getExpectedValue()) {
+            case SuitePosition.WIN:
+                return iteration.score >= SmartBot.WIN_THRESHOLD;
+
+            case SuitePosition.LOSS:
+                return iteration.score <= -SmartBot.WIN_THRESHOLD;
+
+            default:
+                // A draw is proven only by searching to the end of the game:
+                return Math.abs(iteration.score) < SmartBot.WIN_THRESHOLD &&
+                       iteration.depth >=
+                       position.getState().getEmptyCellCount();
+        }
+    }
+
+    /**
+     * Holds the data of a completed iteration.
+     */
+    private static final class Iteration {
+        int depth;
+        int bestColumn;
+        double score;
+        long nodeCount;
+        long elapsedNanos;
+    }
+
+    private static final class IterationRecorder implements SearchListener {
+
+        private final List<Iteration> iterations;
+
+        IterationRecorder(List<Iteration> iterations) {
+            this.iterations = iterations;
+        }
+
+        @Override
+        public void onIterationCompleted(int depth,
+                                         int bestColumn,
+                                         double score,
+                                         long nodeCount,
+                                         long elapsedNanos) {
+            Iteration iteration = new Iteration();
+            iteration.depth = depth;
+            iteration.bestColumn = bestColumn;
+            iteration.score = score;
+            iteration.nodeCount = nodeCount;
+            iteration.elapsedNanos = elapsedNanos;
+            iterations.add(iteration);
+        }
+    }
+
+    /**
+     * Runs a suite with {@link SmartBot} and the default evaluator:
+     * {@code SUITE_FILE (depth N | time MILLISECONDS) [threads N]
+     * [baseline FILE] [save FILE]}.
+     * @param args the command line arguments.
+     * @throws Exception if running fails.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println(
+                    "Usage: java " + PositionSuiteRunner.class.getName() +
+                    " SUITE_FILE (depth N | time MILLISECONDS) " +
+                    "[threads N] [baseline FILE] [save FILE]");
+            return;
+        }
+
+        int depth = 42;
+        long timeLimit = 0L;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path baselineFile = null;
+        Path saveFile = null;
+
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "depth":
+                    depth = Integer.parseInt(args[i + 1]);
+                    break;
+
+                case "time":
+                    timeLimit = Long.parseLong(args[i + 1]);
+                    break;
+
+                case "threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+
+                case "baseline":
+                    baselineFile = Paths.get(args[i + 1]);
+                    break;
+
+                case "save":
+                    saveFile = Paths.get(args[i + 1]);
+                    break;
+
+                default:
+                    throw new IllegalArgumentException(
+                            "Unknown option: " + args[i]);
+            }
+        }
+
+        final int searchDepth = depth;
+        final long searchTimeLimit = timeLimit;
+
+        PositionSuiteRunner runner = new PositionSuiteRunner(position -> {
+            ConnectFourState state = position.getState();
+            SmartBot bot = new SmartBot(
+                    position.getPlayerToMove(),
+                    new DefaultHeuristicFunction(state.getWidth(),
+                                                 state.getHeight(),
+                                                 10.0,
+                                                 state.getWinningLength()),
+                    Math.min(searchDepth, state.getEmptyCellCount()));
+            bot.setTimeLimit(searchTimeLimit);
+            return bot;
+        });
+
+        List<SuiteResult> results =
+                runner.run(SuitePosition.load(Paths.get(args[0])), threads);
+        printReport(results, System.out);
+
+        if (baselineFile != null) {
+            printComparison(results, readBaseline(baselineFile), System.out);
+        }
+
+        if (saveFile != null) {
+            writeBaseline(results, saveFile);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package net.coderodde.connectfour.base.suite;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class implements a single test position of a position suite. A suite
+ * file holds one position per line in the form
+ * <pre>
+ *   ID WIDTHxHEIGHTxWINNING_LENGTH MOVES bm COLUMN[,COLUMN...]
+ *   ID WIDTHxHEIGHTxWINNING_LENGTH MOVES value win|draw|loss
+ * </pre>
+ * where {@code MOVES} is a comma-separated list of zero-based columns played
+ * alternately from the empty board by the white and the red player, or
+ * {@code -} for the empty board. The expected game value is given from the
+ * point of view of the player to move. Empty lines and lines starting with
+ * {@code #} are ignored.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class SuitePosition {
+
+    /**
+     * The expected value meaning that the player to move wins.
+     */
+    public static final int WIN = 1;
+
+    /**
+     * The expected value meaning that the game is drawn.
+     */
+    public static final int DRAW = 0;
+
+    /**
+     * The expected value meaning that the player to move loses.
+     */
+    public static final int LOSS = -1;
+
+    private final String id;
+    private final ConnectFourState state;
+    private final PlayerColor playerToMove;
+    private final int[] expectedColumns;
+    private final Integer expectedValue;
+
+    private SuitePosition(String id,
+                          ConnectFourState state,
+                          PlayerColor playerToMove,
+                          int[] expectedColumns,
+                          Integer expectedValue) {
+        this.id = id;
+        this.state = state;
+        this.playerToMove = playerToMove;
+        this.expectedColumns = expectedColumns;
+        this.expectedValue = expectedValue;
+    }
+
+    /**
+     * Loads all the positions of a suite file.
+     * @param file the suite file.
+     * @return the list of positions in file order.
+     * @throws IOException if reading fails.
+     */
+    public static List<SuitePosition> load(Path file) throws IOException {
+        List<SuitePosition> positions = new ArrayList<>();
+
+        try (BufferedReader reader =
+                Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                try {
+                    positions.add(parse(line));
+                } catch (RuntimeException ex) {
+                    throw new IllegalArgumentException(
+                            file + ":" + lineNumber + ": " + ex.getMessage(),
+                            ex);
+                }
+            }
+        }
+
+        return positions;
+    }
+
+    /**
+     * Parses a single suite line.
+     * @param line the line to parse.
+     * @return the position.
+     */
+    public static SuitePosition parse(String line) {
+        String[] fields = Objects.requireNonNull(line, "The line is null.")
+                                 .trim()
+                                 .split("\\s+");
+
+        if (fields.length != 5) {
+            throw new IllegalArgumentException(
+                    "Expected 5 fields, got " + fields.length + ".");
+        }
+
+        String[] geometry = fields[1].split("x");
+
+        if (geometry.length != 3) {
+            throw new IllegalArgumentException(
+                    "Bad geometry: " + fields[1] + ".");
+        }
+
+        ConnectFourState state =
+                new ConnectFourState(Integer.parseInt(geometry[0]),
+                                     Integer.parseInt(geometry[1]),
+                                     Integer.parseInt(geometry[2]));
+        PlayerColor player = PlayerColor.WHITE_PLAYER;
+
+        if (!fields[2].equals("-")) {
+            for (String move : fields[2].split(",")) {
+                if (state.checkVictory() != null) {
+                    throw new IllegalArgumentException(
+                            "Moves continue after the game is over.");
+                }
+
+                state = state.move(Integer.parseInt(move), player);
+                player = player.opponent();
+            }
+        }
+
+        if (state.checkVictory() != null || state.isFull()) {
+            throw new IllegalArgumentException("The game is already over.");
+        }
+
+        switch (fields[3]) {
+            case "bm":
+                return new SuitePosition(fields[0],
+                                         state,
+                                         player,
+                                         parseColumns(fields[4], state),
+                                         null);
+
+            case "value":
+                return new SuitePosition(fields[0],
+                                         state,
+                                         player,
+                                         null,
+                                         parseValue(fields[4]));
+
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown expectation: " + fields[3] + ".");
+        }
+    }
+
+    /**
+     * Checks whether the column is among the expected best columns.
+     * @param column the column to check.
+     * @return {@code true} only if the column is expected.
+     */
+    public boolean isExpectedColumn(int column) {
+        if (expectedColumns == null) {
+            return false;
+        }
+
+        for (int expectedColumn : expectedColumns) {
+            if (expectedColumn == column) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ConnectFourState getState() {
+        return state;
+    }
+
+    public PlayerColor getPlayerToMove() {
+        return playerToMove;
+    }
+
+    public boolean hasExpectedColumns() {
+        return expectedColumns != null;
+    }
+
+    public boolean hasExpectedValue() {
+        return expectedValue != null;
+    }
+
+    /**
+     * Returns the expected game value: {@link #WIN}, {@link #DRAW} or
+     * {@link #LOSS}.
+     * @return the expected game value.
+     */
+    public int getExpectedValue() {
+        if (expectedValue == null) {
+            throw new IllegalStateException(
+                    "Position " + id + " has no expected value.");
+        }
+
+        return expectedValue;
+    }
+
+    @Override
+    public String toString() {
+        return id + (expectedColumns != null ?
+                     " bm " + Arrays.toString(expectedColumns) :
+                     " value " + expectedValue);
+    }
+
+    private static int[] parseColumns(String field, ConnectFourState state) {
+        String[] tokens = field.split(",");
+        int[] columns = new int[tokens.length];
+
+        for (int i = 0; i < tokens.length; i++) {
+            columns[i] = Integer.parseInt(tokens[i]);
+
+            if (columns[i] < 0 || columns[i] >= state.getWidth()) {
+                throw new IllegalArgumentException(
+                        "Bad column: " + columns[i] + ".");
+            }
+        }
+
+        return columns;
+    }
+
+    private static int parseValue(String field) {
+        switch (field) {
+            case "win":
+                return WIN;
+
+            case "draw":
+                return DRAW;
+
+            case "loss":
+                return LOSS;
+
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown value: " + field + ".");
+        }
+    }
+}
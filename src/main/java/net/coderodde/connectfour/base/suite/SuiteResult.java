@@ -0,0 +1,96 @@
+package net.coderodde.connectfour.base.suite;
+
+/**
+ * This class holds the outcome of running a single suite position.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class SuiteResult {
+
+    private final String id;
+    private final boolean solved;
+    private final int column;
+    private final int depth;
+    private final long timeToSolutionNanos;
+    private final long nodesToSolution;
+
+    /**
+     * Constructs a result.
+     * @param id the position ID.
+     * @param solved whether the position was solved.
+     * @param column the column played.
+     * @param depth the depth reached, or -1 if unknown.
+     * @param timeToSolutionNanos the time at which the solution was found and
+     * kept, or the total time if not solved.
+     * @param nodesToSolution the nodes searched until the solution was found
+     * and kept, or the total nodes if not solved; -1 if unknown.
+     */
+    public SuiteResult(String id,
+                       boolean solved,
+                       int column,
+                       int depth,
+                       long timeToSolutionNanos,
+                       long nodesToSolution) {
+        this.id = id;
+        this.solved = solved;
+        this.column = column;
+        this.depth = depth;
+        this.timeToSolutionNanos = timeToSolutionNanos;
+        this.nodesToSolution = nodesToSolution;
+    }
+
+    /**
+     * Parses a result from the baseline format produced by
+     * {@link #toBaselineLine()}.
+     * @param line the line to parse.
+     * @return the result.
+     */
+    public static SuiteResult parseBaselineLine(String line) {
+        String[] fields = line.split(",");
+
+        if (fields.length != 6) {
+            throw new IllegalArgumentException("Bad baseline line: " + line);
+        }
+
+        return new SuiteResult(fields[0],
+                               Boolean.parseBoolean(fields[1]),
+                               Integer.parseInt(fields[2]),
+                               Integer.parseInt(fields[3]),
+                               Long.parseLong(fields[4]),
+                               Long.parseLong(fields[5]));
+    }
+
+    /**
+     * Returns this result as a comma-separated baseline line.
+     * @return the baseline line.
+     */
+    public String toBaselineLine() {
+        return id + "," + solved + "," + column + "," + depth + "," +
+               timeToSolutionNanos + "," + nodesToSolution;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isSolved() {
+        return solved;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getTimeToSolutionNanos() {
+        return timeToSolutionNanos;
+    }
+
+    public long getNodesToSolution() {
+        return nodesToSolution;
+    }
+}
@@ -0,0 +1,162 @@
+package net.coderodde.connectfour.base;
+
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class BitBoardTest {
+
+    @Test
+    public void testSetAndGet() {
+        BitBoard board = new BitBoard(20, 20);
+        assertEquals(7, board.getWordCount());
+
+        BitBoard board2 = board.set(19, 0).set(3, 7);
+        assertFalse(board.get(19, 0));
+        assertTrue(board2.get(19, 0));
+        assertTrue(board2.get(3, 7));
+        assertFalse(board2.get(3, 8));
+        assertEquals(2, board2.getTokenCount());
+    }
+
+    @Test
+    public void testHorizontalLineAcrossWords() {
+        // Each column takes 13 bits, so the line crosses word boundaries:
+        BitBoard board = new BitBoard(15, 12);
+
+        for (int x = 3; x < 7; x++) {
+            board = board.set(x, 11);
+        }
+
+        assertFalse(board.containsLine(5));
+        board = board.set(7, 11);
+        assertTrue(board.containsLine(5));
+    }
+
+    @Test
+    public void testColumnsDoNotWrap() {
+        BitBoard board = new BitBoard(10, 10);
+
+        // Top of column 0 and bottom of column 1 are adjacent in bit order:
+        board = board.set(0, 0).set(0, 1).set(1, 9).set(1, 8);
+        assertFalse(board.containsLine(3));
+    }
+
+    @Test
+    public void testAgainstBruteForce() {
+        Random random = new Random(13L);
+        int[][] geometries = { { 7, 6, 4 }, { 10, 10, 5 }, { 15, 12, 5 },
+                               { 20, 20, 6 } };
+
+        for (int[] geometry : geometries) {
+            int width = geometry[0];
+            int height = geometry[1];
+            int length = geometry[2];
+
+            for (int iteration = 0; iteration < 300; iteration++) {
+                boolean[][] cells = new boolean[height][width];
+                BitBoard board = new BitBoard(width, height);
+                double density = random.nextDouble() * 0.6;
+
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        if (random.nextDouble() < density) {
+                            cells[y][x] = true;
+                            board = board.set(x, y);
+                        }
+                    }
+                }
+
+                assertEquals(bruteForce(cells, length),
+                             board.containsLine(length));
+            }
+        }
+    }
+
+    @Test
+    public void testCompletingCells() {
+        Random random = new Random(17L);
+        int[][] geometries = { { 7, 6, 4 }, { 5, 5, 3 }, { 8, 7, 5 },
+                               { 20, 20, 5 } };
+
+        for (int[] geometry : geometries) {
+            int width = geometry[0];
+            int height = geometry[1];
+            int length = geometry[2];
+
+            for (int iteration = 0; iteration < 200; iteration++) {
+                BitBoard board = new BitBoard(width, height);
+                double density = random.nextDouble() * 0.5;
+
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        if (random.nextDouble() < density) {
+                            board = board.set(x, y);
+                        }
+                    }
+                }
+
+                if (board.containsLine(length)) {
+                    // Every cell would "complete" a line.
+                    continue;
+                }
+
+                long completing = board.getWordCount() == 1 ?
+                        board.getCompletingCells(length) :
+                        0L;
+
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        if (board.get(x, y)) {
+                            continue;
+                        }
+
+                        boolean expected =
+                                board.set(x, y).containsLine(length);
+                        assertEquals(expected,
+                                     board.completesLine(x, y, length));
+
+                        if (board.getWordCount() == 1) {
+                            long bit = 1L << (x * (height + 1) +
+                                              height - 1 - y);
+                            assertEquals(expected,
+                                         (completing & bit) != 0L);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean bruteForce(boolean[][] cells, int length) {
+        int[][] directions = { { 1, 0 }, { 0, 1 }, { 1, 1 }, { 1, -1 } };
+
+        for (int y = 0; y < cells.length; y++) {
+            for (int x = 0; x < cells[0].length; x++) {
+                for (int[] direction : directions) {
+                    int i = 0;
+
+                    while (i < length) {
+                        int xx = x + i * direction[0];
+                        int yy = y + i * direction[1];
+
+                        if (xx < 0 || yy < 0 || xx >= cells[0].length
+                                || yy >= cells.length || !cells[yy][xx]) {
+                            break;
+                        }
+
+                        i++;
+                    }
+
+                    if (i == length) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+}
@@ -88,4 +88,68 @@ public class ConnectFourStateTest {
         
         assertEquals(PlayerColor.WHITE_PLAYER, state.checkVictory());
     }
+    
+    @Test
+    public void testLegalMoves() {
+        ConnectFourState state = new ConnectFourState(3, 3, 3);
+        assertEquals(0b111L, state.getLegalMoveMask());
+        
+        for (int i = 0; i < 3; i++) {
+            assertFalse(state.isFull());
+            state = state.move(1, PlayerColor.RED_PLAYER);
+        }
+        
+        assertEquals(3, state.getTokenCount());
+        assertEquals(3, state.getMoveCount());
+        assertEquals(0b101L, state.getLegalMoveMask());
+        assertEquals(0, state.nextLegalColumn(0));
+        assertEquals(2, state.nextLegalColumn(1));
+        assertEquals(-1, state.nextLegalColumn(3));
+        
+        for (int i = 0; i < 3; i++) {
+            state = state.move(0, PlayerColor.WHITE_PLAYER);
+            state = state.move(2, PlayerColor.RED_PLAYER);
+        }
+        
+        assertEquals(0L, state.getLegalMoveMask());
+        assertEquals(-1, state.nextLegalColumn(0));
+        assertTrue(state.isFull());
+    }
+    
+    @Test
+    public void testLegalMovesOnWideBoard() {
+        ConnectFourState state = new ConnectFourState(70, 3, 3);
+        
+        for (int i = 0; i < 3; i++) {
+            state = state.move(65, PlayerColor.RED_PLAYER);
+        }
+        
+        assertEquals(64, state.nextLegalColumn(64));
+        assertEquals(66, state.nextLegalColumn(65));
+        assertEquals(-1, state.nextLegalColumn(70));
+    }
+    
+    @Test
+    public void testWinningColumns() {
+        ConnectFourState state = new ConnectFourState();
+        
+        for (int x = 1; x < 4; x++) {
+            state = state.move(x, PlayerColor.WHITE_PLAYER);
+            state = state.move(x, PlayerColor.RED_PLAYER);
+        }
+        
+        assertEquals(0b10001L, 
+                     state.getWinningColumnMask(PlayerColor.WHITE_PLAYER));
+        // The red tokens lie one row above the landing cells:
+        assertEquals(0L, 
+                     state.getWinningColumnMask(PlayerColor.RED_PLAYER));
+        assertTrue(state.isWinningMove(4, PlayerColor.WHITE_PLAYER));
+        assertFalse(state.isWinningMove(5, PlayerColor.WHITE_PLAYER));
+        
+        state = state.move(0, PlayerColor.RED_PLAYER);
+        assertEquals(0b10000L, 
+                     state.getWinningColumnMask(PlayerColor.WHITE_PLAYER));
+        assertEquals(0b1L, 
+                     state.getWinningColumnMask(PlayerColor.RED_PLAYER));
+    }
 }
@@ -0,0 +1,207 @@
+package net.coderodde.connectfour.base;
+
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class RulesTest {
+
+    @Test
+    public void testWrappedLinesAgainstBruteForce() {
+        Random random = new Random(19L);
+        int[][] geometries = { { 7, 6, 4 }, { 4, 4, 4 }, { 8, 7, 5 },
+                               { 15, 12, 5 } };
+
+        for (int[] geometry : geometries) {
+            int width = geometry[0];
+            int height = geometry[1];
+            int length = geometry[2];
+
+            for (int iteration = 0; iteration < 300; iteration++) {
+                boolean[][] cells = new boolean[height][width];
+                BitBoard board = new BitBoard(width, height);
+                double density = random.nextDouble() * 0.5;
+
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        if (random.nextDouble() < density) {
+                            cells[y][x] = true;
+                            board = board.set(x, y);
+                        }
+                    }
+                }
+
+                boolean expected = bruteForce(cells, length);
+                assertEquals(expected, board.containsWrappedLine(length));
+
+                if (expected) {
+                    continue;
+                }
+
+                long completing = board.getWordCount() == 1 ?
+                        board.getWrappedCompletingCells(length) :
+                        0L;
+
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        if (cells[y][x]) {
+                            continue;
+                        }
+
+                        cells[y][x] = true;
+                        boolean completes = bruteForce(cells, length);
+                        cells[y][x] = false;
+                        assertEquals(completes,
+                                     board.completesWrappedLine(x, y,
+                                                                length));
+
+                        if (board.getWordCount() == 1) {
+                            long bit = 1L << (x * (height + 1) +
+                                              height - 1 - y);
+                            assertEquals(completes,
+                                         (completing & bit) != 0L);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWrapAroundState() {
+        ConnectFourState state =
+                new ConnectFourState(7, 6, 4, WrapAroundRules.INSTANCE);
+        PlayerColor white = PlayerColor.WHITE_PLAYER;
+        state = state.move(5, white).move(6, white).move(0, white);
+        assertNull(state.checkVictory());
+        assertTrue(state.isWinningMove(1, white));
+        assertTrue(state.isWinningMove(4, white));
+        assertFalse(state.isWinningMove(2, white));
+        assertEquals((1L << 1) | (1L << 4),
+                     state.getWinningColumnMask(white));
+        assertEquals(white, state.move(1, white).checkVictory());
+
+        // The standard rules see no line across the edge:
+        ConnectFourState standard = new ConnectFourState()
+                .move(5, white).move(6, white).move(0, white).move(1, white);
+        assertNull(standard.checkVictory());
+    }
+
+    @Test
+    public void testPopOut() {
+        PlayerColor white = PlayerColor.WHITE_PLAYER;
+        PlayerColor red = PlayerColor.RED_PLAYER;
+        ConnectFourState state =
+                new ConnectFourState(7, 6, 4, PopOutRules.INSTANCE)
+                        .move(2, white)
+                        .move(2, red)
+                        .move(2, white)
+                        .move(3, red);
+
+        assertTrue(state.canPop(2, white));
+        assertFalse(state.canPop(2, red));
+        assertFalse(state.canPop(0, white));
+        assertEquals(1L << 2, state.getPopMoveMask(white));
+        assertEquals(1L << 3, state.getPopMoveMask(red));
+        assertEquals(0L, new ConnectFourState().move(2, white)
+                                               .getPopMoveMask(white));
+
+        ConnectFourState popped = state.pop(2, white);
+        assertEquals(3, popped.getTokenCount());
+        assertEquals(5, popped.getMoveCount());
+        assertEquals(red, popped.readCell(2, 5));
+        assertEquals(white, popped.readCell(2, 4));
+        assertNull(popped.readCell(2, 3));
+        assertEquals(popped.getPositionKey(),
+                     new ConnectFourState(7, 6, 4, PopOutRules.INSTANCE)
+                             .move(2, red)
+                             .move(2, white)
+                             .move(3, red)
+                             .getPositionKey());
+    }
+
+    @Test
+    public void testPopOutOnWideBoard() {
+        // A board spanning several words takes the general path:
+        PlayerColor white = PlayerColor.WHITE_PLAYER;
+        PlayerColor red = PlayerColor.RED_PLAYER;
+        ConnectFourState state =
+                new ConnectFourState(15, 12, 5, PopOutRules.INSTANCE);
+
+        for (int i = 0; i < 12; i++) {
+            state = state.move(9, i % 2 == 0 ? white : red);
+        }
+
+        ConnectFourState popped = state.pop(9, white);
+
+        for (int y = 1; y < 12; y++) {
+            assertEquals(state.readCell(9, y - 1), popped.readCell(9, y));
+        }
+
+        assertNull(popped.readCell(9, 0));
+        assertFalse(popped.columnIsFull(9));
+        assertEquals(1L << 9, popped.getPopMoveMask(red));
+    }
+
+    @Test
+    public void testPopCompletingBothLinesWinsForThePopper() {
+        PlayerColor white = PlayerColor.WHITE_PLAYER;
+        PlayerColor red = PlayerColor.RED_PLAYER;
+        ConnectFourState state =
+                new ConnectFourState(7, 6, 4, PopOutRules.INSTANCE);
+
+        // The two bottom rows of the columns 0..2 hold R R R and W W W,
+        // and the column 3 holds W R W from the bottom up. Popping the
+        // bottom white token completes both the rows:
+        state = state.move(0, red).move(1, red).move(2, red)
+                     .move(0, white).move(1, white).move(2, white)
+                     .move(3, white).move(3, red).move(3, white);
+        assertNull(state.checkVictory());
+
+        ConnectFourState popped = state.pop(3, white);
+        assertTrue(popped.getBitBoard(white).containsLine(4));
+        assertTrue(popped.getBitBoard(red).containsLine(4));
+        assertEquals(white, popped.checkVictory());
+
+        // The same with the colors swapped:
+        state = new ConnectFourState(7, 6, 4, PopOutRules.INSTANCE)
+                .move(0, white).move(1, white).move(2, white)
+                .move(0, red).move(1, red).move(2, red)
+                .move(3, red).move(3, white).move(3, red);
+        assertEquals(red, state.pop(3, red).checkVictory());
+    }
+
+    private static boolean bruteForce(boolean[][] cells, int length) {
+        int height = cells.length;
+        int width = cells[0].length;
+        int[][] directions = { { 1, 0 }, { 0, 1 }, { 1, 1 }, { 1, -1 } };
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                for (int[] direction : directions) {
+                    int i = 0;
+
+                    while (i < length) {
+                        int xx = Math.floorMod(x + i * direction[0], width);
+                        int yy = y + i * direction[1];
+
+                        if (yy < 0 || yy >= height || !cells[yy][xx]) {
+                            break;
+                        }
+
+                        i++;
+                    }
+
+                    if (i == length) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,128 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+import net.coderodde.connectfour.base.impl.SmartBot;
+import net.coderodde.connectfour.base.impl.TranspositionTable;
+
+/**
+ * This class compares scoring every column of a position with
+ * {@link SmartBot#analyze(ConnectFourState, int)} against searching each
+ * child position with a bot of its own, and measures the savings of asking
+ * for fewer exact lines.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class AnalysisBenchmark {
+
+    private static final int POSITIONS = 20;
+    private static final int DEPTH = 9;
+    private static final int TABLE_CAPACITY = 1 << 18;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        HeuristicFunction evaluator =
+                new DefaultHeuristicFunction(7, 6, 10.0, 4);
+        List<ConnectFourState> positions = createPositions(new Random(1L));
+
+        for (int round = 0; round < ROUNDS; round++) {
+            System.out.printf("Round %d:%n", round + 1);
+            runIndependent(positions, evaluator);
+
+            for (int lineCount : new int[] { 7, 3, 1 }) {
+                runAnalysis(positions, evaluator, lineCount);
+            }
+        }
+    }
+
+    private static void runIndependent(List<ConnectFourState> positions,
+                                       HeuristicFunction evaluator) {
+        long nodeCount = 0L;
+        long startTime = System.nanoTime();
+
+        for (ConnectFourState state : positions) {
+            for (int x = 0; x < state.getWidth(); x++) {
+                if (state.columnIsFull(x)) {
+                    continue;
+                }
+
+                ConnectFourState child =
+                        state.move(x, PlayerColor.WHITE_PLAYER);
+
+                if (child.checkVictory() != null || child.isFull()) {
+                    continue;
+                }
+
+                SmartBot bot = new SmartBot(PlayerColor.RED_PLAYER,
+                                            evaluator,
+                                            DEPTH - 1);
+                bot.setTranspositionTable(
+                        new TranspositionTable(7, 6, 4, TABLE_CAPACITY));
+                bot.computeNextState(child);
+                nodeCount += bot.getNodeCount();
+            }
+        }
+
+        report("independent searches", nodeCount, startTime);
+    }
+
+    private static void runAnalysis(List<ConnectFourState> positions,
+                                    HeuristicFunction evaluator,
+                                    int lineCount) {
+        long nodeCount = 0L;
+        long startTime = System.nanoTime();
+
+        for (ConnectFourState state : positions) {
+            SmartBot bot =
+                    new SmartBot(PlayerColor.WHITE_PLAYER, evaluator, DEPTH);
+            bot.setTranspositionTable(
+                    new TranspositionTable(7, 6, 4, TABLE_CAPACITY));
+            bot.analyze(state, lineCount);
+            nodeCount += bot.getNodeCount();
+        }
+
+        report("analysis, " + lineCount + " line(s)", nodeCount, startTime);
+    }
+
+    private static void report(String name, long nodeCount, long startTime) {
+        System.out.printf("  %-22s %,12d nodes %9.1f ms%n",
+                          name,
+                          nodeCount,
+                          (System.nanoTime() - startTime) / 1e6);
+    }
+
+    /**
+     * Creates unfinished positions with the white player to move.
+     */
+    private static List<ConnectFourState> createPositions(Random random) {
+        List<ConnectFourState> positions = new ArrayList<>(POSITIONS);
+
+        while (positions.size() < POSITIONS) {
+            ConnectFourState state = new ConnectFourState();
+            PlayerColor player = PlayerColor.WHITE_PLAYER;
+            int plies = 2 * random.nextInt(8);
+
+            for (int ply = 0; ply < plies && state.checkVictory() == null;) {
+                int x = random.nextInt(7);
+
+                if (!state.columnIsFull(x)) {
+                    state = state.move(x, player);
+                    player = player.opponent();
+                    ply++;
+                }
+            }
+
+            if (state.checkVictory() == null && !state.isFull()) {
+                positions.add(state);
+            }
+        }
+
+        return positions;
+    }
+}
@@ -0,0 +1,108 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+import net.coderodde.connectfour.base.impl.NTupleNetwork;
+import net.coderodde.connectfour.base.impl.SmartBot;
+
+/**
+ * This class measures the search speed of {@link SmartBot} with
+ * {@link DefaultHeuristicFunction} and with an {@link NTupleNetwork},
+ * evaluated both from scratch at every leaf and incrementally through its
+ * accumulator. The network weights are random, since only the speed is
+ * measured.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class EvaluatorBenchmark {
+
+    private static final int POSITIONS = 20;
+
+    public static void main(String[] args) {
+        int[][] geometries = { { 7, 6, 4, 7 }, { 15, 12, 5, 5 } };
+
+        for (int[] geometry : geometries) {
+            int width = geometry[0];
+            int height = geometry[1];
+            int winningLength = geometry[2];
+            int depth = geometry[3];
+            List<ConnectFourState> positions =
+                    SearchNodeBenchmark.createPositions(width,
+                                                        height,
+                                                        winningLength,
+                                                        POSITIONS,
+                                                        new Random(1L));
+            NTupleNetwork network = randomNetwork(width,
+                                                  height,
+                                                  winningLength);
+            HeuristicFunction[] evaluators = {
+                new DefaultHeuristicFunction(width,
+                                             height,
+                                             10.0,
+                                             winningLength),
+                network::evaluate,
+                network,
+            };
+            String[] names = { "default", "n-tuple", "n-tuple, incr." };
+
+            System.out.printf("%dx%d connect-%d, depth %d:%n",
+                              width,
+                              height,
+                              winningLength,
+                              depth);
+
+            for (HeuristicFunction evaluator : evaluators) {
+                // Warm up the JIT:
+                search(positions, evaluator, depth);
+            }
+
+            for (int i = 0; i < evaluators.length; i++) {
+                long startTime = System.nanoTime();
+                long nodes = search(positions, evaluators[i], depth);
+                double millis = (System.nanoTime() - startTime) / 1e6;
+                System.out.printf("  %-15s %8.1f ms, %10d nodes, " +
+                                  "%6.0f nodes/ms%n",
+                                  names[i],
+                                  millis,
+                                  nodes,
+                                  nodes / millis);
+            }
+        }
+    }
+
+    private static long search(List<ConnectFourState> positions,
+                               HeuristicFunction evaluator,
+                               int depth) {
+        long nodes = 0L;
+
+        for (ConnectFourState position : positions) {
+            SmartBot bot = new SmartBot(
+                    SearchNodeBenchmark.sideToMove(position),
+                    evaluator,
+                    depth);
+            bot.computeNextState(position);
+            nodes += bot.getNodeCount();
+        }
+
+        return nodes;
+    }
+
+    private static NTupleNetwork randomNetwork(int width,
+                                               int height,
+                                               int winningLength) {
+        Random random = new Random(3L);
+        float[] weights =
+                new float[new NTupleNetwork(width, height, winningLength)
+                                  .getWeightCount()];
+
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (float) random.nextGaussian();
+        }
+
+        return new NTupleNetwork(width, height, winningLength, weights);
+    }
+}
@@ -0,0 +1,171 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.connectfour.base.Bot;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+import net.coderodde.connectfour.base.impl.ForcedMoveBot;
+import net.coderodde.connectfour.base.impl.ForcedMoveDetector;
+import net.coderodde.connectfour.base.impl.RandomBot;
+import net.coderodde.connectfour.base.impl.SmartBot;
+
+/**
+ * This class measures the latency of a {@link ForcedMoveDetector} probe, how
+ * often the probes fire in self-play, and how much time the
+ * {@link ForcedMoveBot} decorator saves a {@link SmartBot}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class ForcedMoveBenchmark {
+
+    private static final int STATES = 10_000;
+    private static final int ROUNDS = 100;
+    private static final int RANDOM_GAMES = 10_000;
+    private static final int SMART_GAMES = 10;
+    private static final int DEPTH = 6;
+
+    public static void main(String[] args) {
+        List<ConnectFourState> states = createStates(new Random(1L));
+        probe(states);
+        System.out.printf("Probe: %.1f ns%n",
+                          (double) probe(states) / (ROUNDS * states.size()));
+
+        ForcedMoveDetector detector = new ForcedMoveDetector();
+        int smartWins = 0;
+        Random random = new Random(2L);
+
+        for (int game = 0; game < RANDOM_GAMES; game++) {
+            Bot smart = new RandomBot(PlayerColor.WHITE_PLAYER,
+                                      random,
+                                      detector);
+            Bot plain = new RandomBot(PlayerColor.RED_PLAYER, random);
+
+            if (play(game % 2 == 0 ? smart : plain,
+                     game % 2 == 0 ? plain : smart) ==
+                    PlayerColor.WHITE_PLAYER) {
+                smartWins++;
+            }
+        }
+
+        System.out.printf("Smart random vs random: %.1f%% wins, %s%n",
+                          100.0 * smartWins / RANDOM_GAMES,
+                          detector);
+
+        playSmart(false);
+        playSmart(true);
+    }
+
+    private static void playSmart(boolean decorated) {
+        ForcedMoveDetector detector = new ForcedMoveDetector();
+        long startTime = System.nanoTime();
+        int moves = 0;
+
+        for (int game = 0; game < SMART_GAMES; game++) {
+            Bot white = createSmartBot(PlayerColor.WHITE_PLAYER,
+                                       decorated,
+                                       detector);
+            Bot red = createSmartBot(PlayerColor.RED_PLAYER,
+                                     decorated,
+                                     detector);
+            moves += countMoves(white, red, game);
+        }
+
+        long duration = System.nanoTime() - startTime;
+        System.out.printf("SmartBot%s: %.1f us per move%s%n",
+                          decorated ? " with forced moves" : "",
+                          duration / 1000.0 / moves,
+                          decorated ? ", " + detector : "");
+    }
+
+    private static Bot createSmartBot(PlayerColor player,
+                                      boolean decorated,
+                                      ForcedMoveDetector detector) {
+        Bot bot = new SmartBot(player,
+                               new DefaultHeuristicFunction(7, 6, 10.0, 4),
+                               DEPTH);
+        return decorated ? new ForcedMoveBot(bot, detector) : bot;
+    }
+
+    private static int countMoves(Bot white, Bot red, int game) {
+        // The opening move keeps the games apart:
+        ConnectFourState state = new ConnectFourState()
+                .move(game % 7, PlayerColor.WHITE_PLAYER);
+        Bot bot = red;
+        int moves = 0;
+
+        while (state.checkVictory() == null && !state.isFull()) {
+            state = bot.computeNextState(state);
+            bot = bot == white ? red : white;
+            moves++;
+        }
+
+        return moves;
+    }
+
+    private static PlayerColor play(Bot first, Bot second) {
+        ConnectFourState state = new ConnectFourState();
+        Bot bot = first;
+
+        while (state.checkVictory() == null && !state.isFull()) {
+            state = bot.computeNextState(state);
+            bot = bot == first ? second : first;
+        }
+
+        return state.checkVictory();
+    }
+
+    private static long probe(List<ConnectFourState> states) {
+        ForcedMoveDetector detector = new ForcedMoveDetector();
+        long sum = 0L;
+        long startTime = System.nanoTime();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (ConnectFourState state : states) {
+                sum += detector.findForcedMove(state,
+                                               PlayerColor.WHITE_PLAYER);
+            }
+        }
+
+        long duration = System.nanoTime() - startTime;
+
+        if (sum == Long.MIN_VALUE) {
+            // Keeps the JIT from eliminating the loop.
+            System.out.println(sum);
+        }
+
+        return duration;
+    }
+
+    private static List<ConnectFourState> createStates(Random random) {
+        List<ConnectFourState> states = new ArrayList<>(STATES);
+
+        while (states.size() < STATES) {
+            ConnectFourState state = new ConnectFourState();
+            PlayerColor player = PlayerColor.WHITE_PLAYER;
+            int plies = 2 * random.nextInt(18);
+
+            // Leave white to move:
+            for (int ply = 0; ply < plies && state.checkVictory() == null;) {
+                int x = random.nextInt(7);
+
+                if (state.columnIsFull(x)) {
+                    continue;
+                }
+
+                state = state.move(x, player);
+                ply++;
+                player = player.opponent();
+            }
+
+            if (state.checkVictory() == null && !state.isFull()) {
+                states.add(state);
+            }
+        }
+
+        return states;
+    }
+}
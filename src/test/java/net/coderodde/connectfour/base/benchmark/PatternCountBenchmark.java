@@ -0,0 +1,125 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+
+/**
+ * This class compares the bitboard pattern counting of
+ * {@link DefaultHeuristicFunction} against the cell-by-cell scanning on
+ * random midgame states.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class PatternCountBenchmark {
+
+    private static final int STATES_PER_GEOMETRY = 10_000;
+    private static final int ROUNDS = 50;
+
+    public static void main(String[] args) {
+        Random random = new Random(args.length > 0 ?
+                                   Long.parseLong(args[0]) :
+                                   System.nanoTime());
+        int[][] geometries = { { 7, 6, 4 }, { 6, 9, 4 }, { 7, 8, 5 } };
+
+        for (int[] geometry : geometries) {
+            List<ConnectFourState> states =
+                    createStates(geometry[0],
+                                 geometry[1],
+                                 geometry[2],
+                                 random);
+            DefaultHeuristicFunction scanning =
+                    new DefaultHeuristicFunction(geometry[0],
+                                                 geometry[1],
+                                                 10.0,
+                                                 geometry[2]);
+            DefaultHeuristicFunction bitBoard =
+                    new DefaultHeuristicFunction(geometry[0],
+                                                 geometry[1],
+                                                 10.0,
+                                                 geometry[2]);
+            scanning.setBitBoardCounting(false);
+
+            // Warm up both paths:
+            run(states, scanning);
+            run(states, bitBoard);
+
+            long scanDuration = run(states, scanning);
+            long bitBoardDuration = run(states, bitBoard);
+
+            System.out.printf(
+                    "%dx%d connect-%d: scan %d ms, bitboard %d ms, " +
+                    "speedup %.2fx%n",
+                    geometry[0],
+                    geometry[1],
+                    geometry[2],
+                    scanDuration / 1_000_000L,
+                    bitBoardDuration / 1_000_000L,
+                    (double) scanDuration / bitBoardDuration);
+        }
+    }
+
+    private static long run(List<ConnectFourState> states,
+                            DefaultHeuristicFunction heuristicFunction) {
+        double sum = 0.0;
+        long startTime = System.nanoTime();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (ConnectFourState state : states) {
+                sum += heuristicFunction.evaluate(state);
+            }
+        }
+
+        long duration = System.nanoTime() - startTime;
+
+        if (sum == 42.0) {
+            // Keeps the JIT from eliminating the loop.
+            System.out.println(sum);
+        }
+
+        return duration;
+    }
+
+    /**
+     * Creates random states with no winner by playing random moves until the
+     * board is up to half full.
+     */
+    private static List<ConnectFourState> createStates(int width,
+                                                       int height,
+                                                       int winningLength,
+                                                       Random random) {
+        List<ConnectFourState> states = new ArrayList<>(STATES_PER_GEOMETRY);
+
+        while (states.size() < STATES_PER_GEOMETRY) {
+            ConnectFourState state =
+                    new ConnectFourState(width, height, winningLength);
+            PlayerColor player = PlayerColor.WHITE_PLAYER;
+            int plies = random.nextInt(width * height / 2);
+
+            for (int ply = 0; ply < plies; ply++) {
+                int x = random.nextInt(width);
+
+                if (state.columnIsFull(x)) {
+                    continue;
+                }
+
+                ConnectFourState next = state.move(x, player);
+
+                if (next.checkVictory() != null) {
+                    break;
+                }
+
+                state = next;
+                player = player.opponent();
+            }
+
+            states.add(state);
+        }
+
+        return states;
+    }
+}
@@ -0,0 +1,120 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.console.AnsiBoardRenderer;
+import net.coderodde.connectfour.base.console.BoardRenderer;
+import net.coderodde.connectfour.base.console.HeadlessRenderer;
+
+/**
+ * This class measures the cost of showing random games on 7x6 and 15x12
+ * boards: printing the whole board after each move, as {@code Demo} used to,
+ * against {@link AnsiBoardRenderer} writing out each move or only full
+ * buffers, and against {@link HeadlessRenderer}. The output goes to
+ * {@code /dev/null}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class RenderBenchmark {
+
+    private static final int GAMES = 20_000;
+    private static final String NULL_DEVICE = "/dev/null";
+
+    public static void main(String[] args) throws IOException {
+        int[][] geometries = { { 7, 6, 4 }, { 15, 12, 5 } };
+
+        try (PrintStream printStream =
+                     new PrintStream(new FileOutputStream(NULL_DEVICE));
+             FileChannel channel =
+                     FileChannel.open(Paths.get(NULL_DEVICE),
+                                      StandardOpenOption.WRITE)) {
+            BoardRenderer[] renderers = {
+                new AnsiBoardRenderer(channel, true),
+                new AnsiBoardRenderer(channel, false),
+                HeadlessRenderer.INSTANCE,
+            };
+            String[] names = { "ANSI, every move", "ANSI, buffered",
+                               "headless" };
+
+            for (int[] geometry : geometries) {
+                System.out.printf("%dx%d:%n", geometry[0], geometry[1]);
+
+                for (int round = 0; round < 2; round++) {
+                    long startTime = System.nanoTime();
+                    long moves = play(geometry, null, printStream);
+                    report("println(state)", startTime, moves, round);
+
+                    for (int i = 0; i < renderers.length; i++) {
+                        startTime = System.nanoTime();
+                        moves = play(geometry, renderers[i], null);
+                        renderers[i].flush();
+                        report(names[i], startTime, moves, round);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void report(String name,
+                               long startTime,
+                               long moves,
+                               int round) {
+        if (round > 0) {
+            // The first round warms up the JIT.
+            System.out.printf("  %-18s %8.1f ns per move%n",
+                              name,
+                              (double) (System.nanoTime() - startTime) /
+                              moves);
+        }
+    }
+
+    private static long play(int[] geometry,
+                             BoardRenderer renderer,
+                             PrintStream printStream) throws IOException {
+        Random random = new Random(1L);
+        long moves = 0L;
+
+        for (int game = 0; game < GAMES; game++) {
+            ConnectFourState state = new ConnectFourState(geometry[0],
+                                                          geometry[1],
+                                                          geometry[2]);
+            PlayerColor player = PlayerColor.WHITE_PLAYER;
+
+            if (renderer != null) {
+                renderer.start(state);
+            } else {
+                printStream.println(state);
+                printStream.println();
+            }
+
+            while (state.checkVictory() == null && !state.isFull()) {
+                int x = random.nextInt(state.getWidth());
+
+                if (state.columnIsFull(x)) {
+                    continue;
+                }
+
+                state = state.move(x, player);
+                moves++;
+                player = player.opponent();
+
+                if (renderer != null) {
+                    renderer.update(state, x);
+                } else {
+                    printStream.println(state);
+                    printStream.println();
+                }
+            }
+        }
+
+        return moves;
+    }
+}
@@ -0,0 +1,122 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+import net.coderodde.connectfour.base.record.GameRecord;
+import net.coderodde.connectfour.base.record.GameResult;
+import net.coderodde.connectfour.base.replay.EvaluationAnalyzer;
+import net.coderodde.connectfour.base.replay.ReplayEngine;
+
+/**
+ * This class measures the throughput of {@link ReplayEngine} evaluating
+ * every position of random games, against a plain loop that rebuilds the
+ * positions with {@link ConnectFourState#move(int, PlayerColor)} and checks
+ * for a victory after every move.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class ReplayBenchmark {
+
+    private static final int GAMES = 50_000;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        List<GameRecord> games = createGames(new Random(1L));
+        HeuristicFunction evaluator =
+                new DefaultHeuristicFunction(7, 6, 10.0, 4);
+        int threads = Runtime.getRuntime().availableProcessors();
+        ReplayEngine engine = new ReplayEngine(
+                () -> new EvaluationAnalyzer(evaluator),
+                threads);
+        double[] sink = new double[1];
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long startTime = System.nanoTime();
+
+            for (GameRecord record : games) {
+                sink[0] += replayNaively(record, evaluator);
+            }
+
+            report("plain loop", System.nanoTime() - startTime);
+
+            startTime = System.nanoTime();
+            engine.replay(games, (gameIndex, record, plies, valid) -> {
+                sink[0] += plies.size();
+            });
+            report("engine, " + threads + " thread(s)",
+                   System.nanoTime() - startTime);
+        }
+
+        if (sink[0] == 0.0) {
+            // Keeps the JIT from eliminating the loops.
+            System.out.println(sink[0]);
+        }
+    }
+
+    private static void report(String name, long nanos) {
+        System.out.printf("  %-20s %8.1f ms, %,14.0f games per hour%n",
+                          name,
+                          nanos / 1e6,
+                          GAMES * 3.6e12 / nanos);
+    }
+
+    private static double replayNaively(GameRecord record,
+                                        HeuristicFunction evaluator) {
+        ConnectFourState state = record.getState(0);
+        PlayerColor player = record.getFirstPlayer();
+        double sum = 0.0;
+
+        for (int ply = 0; ply < record.getMoveCount(); ply++) {
+            sum += evaluator.evaluate(state);
+            state = state.move(record.getMove(ply), player);
+
+            if (state.checkVictory() != null) {
+                break;
+            }
+
+            player = player.opponent();
+        }
+
+        return sum;
+    }
+
+    private static List<GameRecord> createGames(Random random) {
+        List<GameRecord> games = new ArrayList<>(GAMES);
+
+        for (int game = 0; game < GAMES; game++) {
+            ConnectFourState state = new ConnectFourState();
+            PlayerColor player = PlayerColor.WHITE_PLAYER;
+            int[] moves = new int[42];
+            int moveCount = 0;
+
+            while (state.checkVictory() == null && !state.isFull()) {
+                int x = random.nextInt(7);
+
+                if (state.columnIsFull(x)) {
+                    continue;
+                }
+
+                state = state.move(x, player);
+                moves[moveCount++] = x;
+                player = player.opponent();
+            }
+
+            int[] played = new int[moveCount];
+            System.arraycopy(moves, 0, played, 0, moveCount);
+            games.add(new GameRecord(7, 6, 4, "white", "red",
+                                     PlayerColor.WHITE_PLAYER,
+                                     GameResult.of(state),
+                                     0L,
+                                     played,
+                                     new long[moveCount]));
+        }
+
+        return games;
+    }
+}
@@ -0,0 +1,128 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+import net.coderodde.connectfour.base.impl.RandomBot;
+import net.coderodde.connectfour.base.impl.SmartBot;
+import net.coderodde.connectfour.base.record.GameRecord;
+import net.coderodde.connectfour.base.record.GameResult;
+import net.coderodde.connectfour.base.replay.EvaluationAnalyzer;
+import net.coderodde.connectfour.base.replay.ReplayEngine;
+
+/**
+ * This class measures the cost of the reproducibility features: the
+ * {@link SmartBot} search speed without limits and with a node limit, and the
+ * {@link ReplayEngine} throughput in the default and the deterministic mode.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class ReproducibilityBenchmark {
+
+    private static final int POSITIONS = 40;
+    private static final int DEPTH = 8;
+    private static final int GAMES = 50_000;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        HeuristicFunction evaluator =
+                new DefaultHeuristicFunction(7, 6, 10.0, 4);
+        List<ConnectFourState> positions = new ArrayList<>(POSITIONS);
+        List<GameRecord> games = new ArrayList<>(GAMES);
+        SplittableRandom random = new SplittableRandom(1L);
+
+        while (games.size() < GAMES) {
+            games.add(playRandomGame(random.split(), positions));
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ReplayEngine engine = new ReplayEngine(
+                () -> new EvaluationAnalyzer(evaluator),
+                threads);
+        long[] sink = new long[1];
+
+        for (int round = 0; round < ROUNDS; round++) {
+            System.out.printf("  %-24s %8.1f ms%n",
+                              "search, no limit",
+                              search(positions, evaluator, 0L) / 1e6);
+            System.out.printf("  %-24s %8.1f ms%n",
+                              "search, node limit",
+                              search(positions, evaluator, Long.MAX_VALUE) /
+                              1e6);
+
+            for (boolean deterministic : new boolean[] { false, true }) {
+                engine.setDeterministic(deterministic);
+                long startTime = System.nanoTime();
+                engine.replay(games, (gameIndex, record, plies, valid) -> {
+                    sink[0] += plies.size();
+                });
+                System.out.printf("  %-24s %8.1f ms%n",
+                                  deterministic ?
+                                          "replay, deterministic" :
+                                          "replay, default",
+                                  (System.nanoTime() - startTime) / 1e6);
+            }
+        }
+
+        if (sink[0] == 0L) {
+            // Keeps the JIT from eliminating the loops.
+            System.out.println(sink[0]);
+        }
+    }
+
+    private static long search(List<ConnectFourState> positions,
+                               HeuristicFunction evaluator,
+                               long nodeLimit) {
+        long startTime = System.nanoTime();
+
+        for (ConnectFourState state : positions) {
+            // The positions are taken with the white player to move:
+            SmartBot bot =
+                    new SmartBot(PlayerColor.WHITE_PLAYER, evaluator, DEPTH);
+            bot.setNodeLimit(nodeLimit);
+            bot.computeNextState(state);
+        }
+
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * Plays a random game, keeping its position after the tenth move if more
+     * positions are needed.
+     */
+    private static GameRecord playRandomGame(
+            SplittableRandom random,
+            List<ConnectFourState> positions) {
+        RandomBot white = new RandomBot(PlayerColor.WHITE_PLAYER, random);
+        RandomBot red = new RandomBot(PlayerColor.RED_PLAYER, random);
+        ConnectFourState state = new ConnectFourState();
+        int[] moves = new int[42];
+        int moveCount = 0;
+
+        while (state.checkVictory() == null && !state.isFull()) {
+            if (moveCount == 10 && positions.size() < POSITIONS) {
+                positions.add(state);
+            }
+
+            ConnectFourState next = moveCount % 2 == 0 ?
+                    white.computeNextState(state) :
+                    red.computeNextState(state);
+            moves[moveCount++] = state.findMoveColumn(next);
+            state = next;
+        }
+
+        int[] played = new int[moveCount];
+        System.arraycopy(moves, 0, played, 0, moveCount);
+        return new GameRecord(7, 6, 4, "white", "red",
+                              PlayerColor.WHITE_PLAYER,
+                              GameResult.of(state),
+                              0L,
+                              played,
+                              new long[moveCount]);
+    }
+}
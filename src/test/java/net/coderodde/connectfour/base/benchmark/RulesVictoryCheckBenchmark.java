@@ -0,0 +1,174 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.PopOutRules;
+import net.coderodde.connectfour.base.Rules;
+import net.coderodde.connectfour.base.StandardRules;
+import net.coderodde.connectfour.base.WrapAroundRules;
+
+/**
+ * This class measures {@link ConnectFourState#checkVictory()} under each of
+ * the rule variants, and compares the wrap-around detection against a
+ * generic cell-by-cell scan of the cylinder.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class RulesVictoryCheckBenchmark {
+
+    private static final int STATES_PER_GEOMETRY = 2_000;
+    private static final int ROUNDS = 200;
+
+    private static final Rules[] RULES = {
+        StandardRules.INSTANCE,
+        WrapAroundRules.INSTANCE,
+        PopOutRules.INSTANCE,
+    };
+
+    public static void main(String[] args) {
+        int[][] geometries = { { 7, 6, 4 }, { 15, 12, 5 } };
+
+        for (int[] geometry : geometries) {
+            System.out.printf("%dx%d connect-%d:%n",
+                              geometry[0],
+                              geometry[1],
+                              geometry[2]);
+
+            for (Rules rules : RULES) {
+                List<ConnectFourState> states =
+                        createStates(geometry[0],
+                                     geometry[1],
+                                     geometry[2],
+                                     rules,
+                                     new Random(1L));
+                run(states, false);
+                System.out.printf("  %-12s %6.1f ns per check%n",
+                                  rules.getName(),
+                                  (double) run(states, false) /
+                                  (ROUNDS * states.size()));
+
+                if (rules == WrapAroundRules.INSTANCE) {
+                    run(states, true);
+                    System.out.printf("  %-12s %6.1f ns per check%n",
+                                      "scan",
+                                      (double) run(states, true) /
+                                      (ROUNDS * states.size()));
+                }
+            }
+        }
+    }
+
+    private static long run(List<ConnectFourState> states, boolean scan) {
+        int wins = 0;
+        long startTime = System.nanoTime();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (ConnectFourState state : states) {
+                PlayerColor winner = scan ?
+                        scanCylinder(state) :
+                        state.checkVictory();
+
+                if (winner != null) {
+                    wins++;
+                }
+            }
+        }
+
+        long duration = System.nanoTime() - startTime;
+
+        if (wins < 0) {
+            // Keeps the JIT from eliminating the loop.
+            System.out.println(wins);
+        }
+
+        return duration;
+    }
+
+    /**
+     * Looks for a line from every cell in every direction, wrapping the
+     * columns around.
+     */
+    private static PlayerColor scanCylinder(ConnectFourState state) {
+        int width = state.getWidth();
+        int height = state.getHeight();
+        int length = state.getWinningLength();
+        int[][] directions = { { 1, 0 }, { 0, 1 }, { 1, 1 }, { 1, -1 } };
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                PlayerColor player = state.readCell(x, y);
+
+                if (player == null) {
+                    continue;
+                }
+
+                for (int[] direction : directions) {
+                    int i = 1;
+
+                    while (i < length) {
+                        int xx = Math.floorMod(x + i * direction[0], width);
+                        int yy = y + i * direction[1];
+
+                        if (yy < 0 || yy >= height
+                                || state.readCell(xx, yy) != player) {
+                            break;
+                        }
+
+                        i++;
+                    }
+
+                    if (i == length) {
+                        return player;
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates random midgame states by playing random moves, and under Pop
+     * Out some pops, until someone wins or the board is half full.
+     */
+    private static List<ConnectFourState> createStates(int width,
+                                                       int height,
+                                                       int winningLength,
+                                                       Rules rules,
+                                                       Random random) {
+        List<ConnectFourState> states = new ArrayList<>(STATES_PER_GEOMETRY);
+
+        while (states.size() < STATES_PER_GEOMETRY) {
+            ConnectFourState state =
+                    new ConnectFourState(width, height, winningLength, rules);
+            PlayerColor player = PlayerColor.WHITE_PLAYER;
+            int plies = random.nextInt(width * height / 2);
+
+            for (int ply = 0; ply < plies; ply++) {
+                int x = random.nextInt(width);
+
+                if (state.canPop(x, player) && random.nextInt(4) == 0) {
+                    state = state.pop(x, player);
+                } else if (!state.columnIsFull(x)) {
+                    state = state.move(x, player);
+                } else {
+                    continue;
+                }
+
+                player = player.opponent();
+
+                if (state.checkVictory() != null) {
+                    break;
+                }
+            }
+
+            states.add(state);
+        }
+
+        return states;
+    }
+}
@@ -0,0 +1,122 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class retains the original cell-by-cell victory check of
+ * {@link ConnectFourState} as a baseline for the benchmarks.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+final class ScanningVictoryCheck {
+
+    private ScanningVictoryCheck() {}
+
+    static PlayerColor checkVictory(ConnectFourState state) {
+        if (checkVictory(state, PlayerColor.WHITE_PLAYER)) {
+            return PlayerColor.WHITE_PLAYER;
+        }
+
+        if (checkVictory(state, PlayerColor.RED_PLAYER)) {
+            return PlayerColor.RED_PLAYER;
+        }
+
+        return null;
+    }
+
+    private static boolean checkVictory(ConnectFourState state,
+                                        PlayerColor player) {
+        return checkVictoryHorizontal(state, player)
+                || checkVictoryVertical(state, player)
+                || checkVictoryAscendingDiagonal(state, player)
+                || checkVictoryDescendingDiagonal(state, player);
+    }
+
+    private static boolean checkVictoryDescendingDiagonal(
+            ConnectFourState state,
+            PlayerColor player) {
+        int winningLength = state.getWinningLength();
+
+        for (int startY = state.getHeight() - 1;
+                startY >= winningLength - 1;
+                startY--) {
+            for (int startX = winningLength - 1;
+                    startX < state.getWidth();
+                    startX++) {
+                int count = 0;
+
+                for (int i = 0; i < winningLength; i++) {
+                    if (state.readCell(startX - i, startY - i) != player) {
+                        count = 0;
+                    } else if (++count == winningLength) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean checkVictoryAscendingDiagonal(
+            ConnectFourState state,
+            PlayerColor player) {
+        int winningLength = state.getWinningLength();
+
+        for (int startY = state.getHeight() - 1;
+                startY >= winningLength - 1;
+                startY--) {
+            for (int startX = 0;
+                    startX <= state.getWidth() - winningLength;
+                    startX++) {
+                int count = 0;
+
+                for (int i = 0; i < winningLength; i++) {
+                    if (state.readCell(startX + i, startY - i) != player) {
+                        count = 0;
+                    } else if (++count == winningLength) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean checkVictoryVertical(ConnectFourState state,
+                                                PlayerColor player) {
+        for (int x = 0; x < state.getWidth(); x++) {
+            int count = 0;
+
+            for (int y = state.getHeight() - 1; y >= 0; y--) {
+                if (state.readCell(x, y) != player) {
+                    count = 0;
+                } else if (++count == state.getWinningLength()) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean checkVictoryHorizontal(ConnectFourState state,
+                                                  PlayerColor player) {
+        for (int y = state.getHeight() - 1; y >= 0; y--) {
+            int count = 0;
+
+            for (int x = 0; x < state.getWidth(); x++) {
+                if (state.readCell(x, y) != player) {
+                    count = 0;
+                } else if (++count == state.getWinningLength()) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
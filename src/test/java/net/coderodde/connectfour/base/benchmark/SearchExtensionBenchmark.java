@@ -0,0 +1,145 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+import net.coderodde.connectfour.base.impl.SmartBot;
+
+/**
+ * This class measures the late move reductions and the threat extensions of
+ * {@link SmartBot}: the average depth completed within a fixed time budget,
+ * and the result of time-limited self-play against the bot without them.
+ * Each opening is played twice with the colors swapped.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class SearchExtensionBenchmark {
+
+    private static final int POSITIONS = 40;
+    private static final int MAXIMUM_DEPTH = 42;
+    private static final long DEFAULT_TIME_LIMIT = 100L;
+    private static final int DEFAULT_OPENINGS = 20;
+
+    private static final String[] NAMES = {
+        "baseline", "LMR", "extensions", "LMR + extensions"
+    };
+
+    public static void main(String[] args) {
+        long timeLimit = args.length > 0 ?
+                Long.parseLong(args[0]) :
+                DEFAULT_TIME_LIMIT;
+        int openings = args.length > 1 ?
+                Integer.parseInt(args[1]) :
+                DEFAULT_OPENINGS;
+        HeuristicFunction evaluator =
+                new DefaultHeuristicFunction(7, 6, 10.0, 4);
+        List<ConnectFourState> positions =
+                SearchNodeBenchmark.createPositions(7, 6, 4, POSITIONS,
+                                                    new Random(1L));
+
+        System.out.printf("Depth reached in %d ms, %d positions:%n",
+                          timeLimit,
+                          positions.size());
+
+        for (int config = 0; config < NAMES.length; config++) {
+            long depthSum = 0L;
+            long nodes = 0L;
+
+            for (ConnectFourState position : positions) {
+                SmartBot bot = createBot(
+                        SearchNodeBenchmark.sideToMove(position),
+                        evaluator,
+                        config,
+                        timeLimit);
+                bot.computeNextState(position);
+                depthSum += bot.getLastDepth();
+                nodes += bot.getNodeCount();
+            }
+
+            System.out.printf("  %-18s depth %5.2f, %8d nodes per move%n",
+                              NAMES[config],
+                              (double) depthSum / positions.size(),
+                              nodes / positions.size());
+        }
+
+        List<ConnectFourState> openingPositions =
+                SearchNodeBenchmark.createPositions(7, 6, 4, openings,
+                                                    new Random(2L));
+
+        System.out.printf("Self-play against the baseline, %d ms per move, " +
+                          "%d games:%n",
+                          timeLimit,
+                          2 * openings);
+
+        for (int config = 1; config < NAMES.length; config++) {
+            int wins = 0;
+            int draws = 0;
+            int losses = 0;
+
+            for (ConnectFourState opening : openingPositions) {
+                for (PlayerColor color : PlayerColor.values()) {
+                    PlayerColor winner = play(opening,
+                                              color,
+                                              config,
+                                              evaluator,
+                                              timeLimit);
+
+                    if (winner == null) {
+                        draws++;
+                    } else if (winner == color) {
+                        wins++;
+                    } else {
+                        losses++;
+                    }
+                }
+            }
+
+            System.out.printf("  %-18s +%d =%d -%d (score %.1f%%)%n",
+                              NAMES[config],
+                              wins,
+                              draws,
+                              losses,
+                              100.0 * (wins + 0.5 * draws) /
+                                      (wins + draws + losses));
+        }
+    }
+
+    /**
+     * Plays a game from {@code opening} between a bot using the configuration
+     * {@code config} with the color {@code color} and the baseline bot.
+     * @return the winner, or {@code null} for a draw.
+     */
+    private static PlayerColor play(ConnectFourState opening,
+                                    PlayerColor color,
+                                    int config,
+                                    HeuristicFunction evaluator,
+                                    long timeLimit) {
+        PlayerColor opponentColor = color.opponent();
+        SmartBot bot = createBot(color, evaluator, config, timeLimit);
+        SmartBot baseline = createBot(opponentColor, evaluator, 0, timeLimit);
+        ConnectFourState state = opening;
+
+        while (state.checkVictory() == null && !state.isFull()) {
+            state = SearchNodeBenchmark.sideToMove(state) == color ?
+                    bot.computeNextState(state) :
+                    baseline.computeNextState(state);
+        }
+
+        return state.checkVictory();
+    }
+
+    private static SmartBot createBot(PlayerColor color,
+                                      HeuristicFunction evaluator,
+                                      int config,
+                                      long timeLimit) {
+        SmartBot bot = new SmartBot(color, evaluator, MAXIMUM_DEPTH);
+        bot.setTimeLimit(timeLimit);
+        bot.setLateMoveReductions((config & 1) != 0);
+        bot.setThreatExtensions((config & 2) != 0);
+        return bot;
+    }
+}
@@ -0,0 +1,111 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+import net.coderodde.connectfour.base.impl.SmartBot;
+
+/**
+ * This class compares the number of nodes {@link SmartBot} visits at equal
+ * depth with plain full-window alpha-beta, with aspiration windows and with
+ * aspiration windows plus principal variation search.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class SearchNodeBenchmark {
+
+    private static final int POSITIONS = 40;
+    private static final int DEPTH = 7;
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEPTH;
+        List<ConnectFourState> positions =
+                createPositions(7, 6, 4, POSITIONS, new Random(1L));
+        HeuristicFunction evaluator =
+                new DefaultHeuristicFunction(7, 6, 10.0, 4);
+
+        long plain = countNodes(positions, evaluator, depth, false, false);
+        long aspiration = countNodes(positions, evaluator, depth, true, false);
+        long pvs = countNodes(positions, evaluator, depth, true, true);
+
+        System.out.printf("%d positions, depth %d%n", positions.size(), depth);
+        System.out.printf("plain alpha-beta:        %12d nodes%n", plain);
+        System.out.printf("aspiration windows:      %12d nodes (%+.1f%%)%n",
+                          aspiration,
+                          percentChange(plain, aspiration));
+        System.out.printf("aspiration windows + PVS: %11d nodes (%+.1f%%)%n",
+                          pvs,
+                          percentChange(plain, pvs));
+    }
+
+    private static long countNodes(List<ConnectFourState> positions,
+                                   HeuristicFunction evaluator,
+                                   int depth,
+                                   boolean aspirationWindows,
+                                   boolean principalVariationSearch) {
+        long nodes = 0L;
+
+        for (ConnectFourState position : positions) {
+            SmartBot bot = new SmartBot(sideToMove(position), evaluator, depth);
+            bot.setAspirationWindows(aspirationWindows);
+            bot.setPrincipalVariationSearch(principalVariationSearch);
+            bot.computeNextState(position);
+            nodes += bot.getNodeCount();
+        }
+
+        return nodes;
+    }
+
+    private static double percentChange(long base, long value) {
+        return 100.0 * (value - base) / base;
+    }
+
+    static PlayerColor sideToMove(ConnectFourState state) {
+        return state.getMoveCount() % 2 == 0 ?
+                PlayerColor.WHITE_PLAYER :
+                PlayerColor.RED_PLAYER;
+    }
+
+    /**
+     * Creates a reproducible suite of non-terminal positions by playing
+     * random openings of 4 to 15 plies with the white player moving first.
+     */
+    static List<ConnectFourState> createPositions(int width,
+                                                  int height,
+                                                  int winningLength,
+                                                  int count,
+                                                  Random random) {
+        List<ConnectFourState> positions = new ArrayList<>(count);
+
+        while (positions.size() < count) {
+            ConnectFourState state =
+                    new ConnectFourState(width, height, winningLength);
+            int plies = 4 + random.nextInt(12);
+
+            for (int ply = 0; ply < plies; ply++) {
+                int x;
+
+                do {
+                    x = random.nextInt(width);
+                } while (state.columnIsFull(x));
+
+                state = state.move(x, sideToMove(state));
+
+                if (state.checkVictory() != null || state.isFull()) {
+                    break;
+                }
+            }
+
+            if (state.checkVictory() == null && !state.isFull()) {
+                positions.add(state);
+            }
+        }
+
+        return positions;
+    }
+}
@@ -0,0 +1,153 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+import net.coderodde.connectfour.base.impl.MappedTranspositionTable;
+import net.coderodde.connectfour.base.impl.SmartBot;
+import net.coderodde.connectfour.base.impl.TranspositionStore;
+import net.coderodde.connectfour.base.impl.TranspositionTable;
+
+/**
+ * This class compares the on-heap {@link TranspositionTable} to the
+ * {@link MappedTranspositionTable}: the cost of the probes and the stores,
+ * the time of searching a set of positions with each, and a second worker
+ * mapping the file after the first one has searched the positions, as a
+ * second process would. Each worker maps the file on its own.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class SharedTableBenchmark {
+
+    private static final int DEFAULT_DEPTH = 8;
+    private static final int POSITIONS = 40;
+    private static final int TABLE_CAPACITY = 1 << 20;
+    private static final int OPERATIONS = 10_000_000;
+
+    public static void main(String[] args) throws IOException {
+        int depth = args.length > 0 ?
+                Integer.parseInt(args[0]) :
+                DEFAULT_DEPTH;
+        HeuristicFunction evaluator =
+                new DefaultHeuristicFunction(7, 6, 10.0, 4);
+        List<ConnectFourState> positions =
+                SearchNodeBenchmark.createPositions(7, 6, 4, POSITIONS,
+                                                    new Random(1L));
+        Path file = Files.createTempFile("shared", ".c4tt");
+        Files.delete(file);
+
+        try {
+            TranspositionTable heap =
+                    new TranspositionTable(7, 6, 4, TABLE_CAPACITY);
+            MappedTranspositionTable mapped =
+                    MappedTranspositionTable.open(file, 7, 6, 4, evaluator,
+                                                  TABLE_CAPACITY);
+
+            for (int round = 0; round < 3; round++) {
+                operate(null, heap);
+                operate(null, mapped);
+            }
+
+            operate("heap", heap);
+            operate("mapped", mapped);
+            heap.clear();
+            mapped.clear();
+
+            // Warm up the JIT so that the first row is not penalized:
+            search(positions, evaluator, null, depth);
+
+            System.out.printf("Depth %d, %d positions:%n",
+                              depth,
+                              positions.size());
+            search("heap", positions, evaluator, heap, depth);
+            search("mapped", positions, evaluator, mapped, depth);
+            mapped.close();
+
+            MappedTranspositionTable worker =
+                    MappedTranspositionTable.open(file, 7, 6, 4, evaluator,
+                                                  TABLE_CAPACITY);
+            search("second worker", positions, evaluator, worker, depth);
+            System.out.printf("  %d of %d entries occupied, %d bytes%n",
+                              worker.countEntries(),
+                              worker.getCapacity(),
+                              Files.size(file));
+            worker.close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void operate(String name, TranspositionStore table) {
+        Random random = new Random(3L);
+        long[] keys = new long[1 << 16];
+
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+
+        long startTime = System.nanoTime();
+        long sum = 0L;
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            long key = keys[i & (keys.length - 1)];
+            PlayerColor player = (i & 1) == 0 ?
+                    PlayerColor.WHITE_PLAYER :
+                    PlayerColor.RED_PLAYER;
+            int entry = table.probe(key, player);
+
+            if (entry >= 0) {
+                sum += table.getMove(entry);
+            } else {
+                table.store(key, player, i & 15,
+                            TranspositionStore.EXACT, i, i % 7);
+            }
+        }
+
+        if (name != null) {
+            System.out.printf("%-8s %6.1f ns per probe or store (%d)%n",
+                              name,
+                              (double) (System.nanoTime() - startTime) /
+                              OPERATIONS,
+                              sum);
+        }
+    }
+
+    private static void search(String name,
+                               List<ConnectFourState> positions,
+                               HeuristicFunction evaluator,
+                               TranspositionStore table,
+                               int depth) {
+        long startTime = System.nanoTime();
+        long nodes = search(positions, evaluator, table, depth);
+        System.out.printf("  %-14s %8.1f ms, %10d nodes%n",
+                          name,
+                          (System.nanoTime() - startTime) / 1e6,
+                          nodes);
+    }
+
+    private static long search(List<ConnectFourState> positions,
+                               HeuristicFunction evaluator,
+                               TranspositionStore table,
+                               int depth) {
+        long nodes = 0L;
+
+        for (ConnectFourState position : positions) {
+            SmartBot bot = new SmartBot(
+                    SearchNodeBenchmark.sideToMove(position),
+                    evaluator,
+                    depth);
+            bot.setTranspositionTable(table);
+            bot.computeNextState(position);
+            nodes += bot.getNodeCount();
+        }
+
+        return nodes;
+    }
+}
@@ -0,0 +1,167 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+import net.coderodde.connectfour.base.impl.SmartBot;
+
+/**
+ * This class measures the time to the first move of a fresh JVM, as paid by
+ * every short-lived run of a {@code Demo}-style program: each run starts a
+ * JVM that creates an evaluator and a {@link SmartBot} and makes a single
+ * move on the empty board. The runs are repeated with class-data sharing
+ * turned off, with the default archive of the JDK, and with an application
+ * archive dumped by a training run, which needs JDK 13 or newer and the
+ * classes packaged in jars. For each setting, the
+ * median over the runs is printed of
+ * <ul>
+ *   <li>the wall time of the whole process,</li>
+ *   <li>the time from entering {@code main} to creating the evaluator and
+ *       the bot, which includes loading their classes and building the
+ *       tables of the geometry, and</li>
+ *   <li>the time of the first search.</li>
+ * </ul>
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class StartupBenchmark {
+
+    private static final String CHILD_OPTION = "--child";
+    private static final int DEFAULT_RUNS = 7;
+    private static final int DEPTH = 6;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(CHILD_OPTION)) {
+            runChild();
+            return;
+        }
+
+        int runs = args.length > 0 ?
+                Integer.parseInt(args[0]) :
+                DEFAULT_RUNS;
+        Path archive = Files.createTempFile("startup", ".jsa");
+        Files.delete(archive);
+
+        try {
+            System.out.printf("%d runs, first move at depth %d:%n",
+                              runs,
+                              DEPTH);
+            measure("CDS off", runs, "-Xshare:off");
+            measure("default CDS", runs);
+
+            // The training run dumps the classes it loaded. The archive
+            // needs the class path to consist of jars:
+            try {
+                launch("-XX:ArchiveClassesAtExit=" + archive);
+            } catch (IOException ex) {
+                System.out.println("  AppCDS needs JDK 13+ and a class path " +
+                                   "of jars");
+                return;
+            }
+
+            measure("AppCDS", runs, "-XX:SharedArchiveFile=" + archive);
+        } finally {
+            Files.deleteIfExists(archive);
+        }
+    }
+
+    private static void measure(String name, int runs, String... options)
+            throws IOException, InterruptedException {
+        long[] wallNanos = new long[runs];
+        long[] initNanos = new long[runs];
+        long[] searchNanos = new long[runs];
+
+        for (int run = 0; run < runs; run++) {
+            long startTime = System.nanoTime();
+            String[] fields = launch(options).split(" ");
+            wallNanos[run] = System.nanoTime() - startTime;
+            initNanos[run] = Long.parseLong(fields[0]);
+            searchNanos[run] = Long.parseLong(fields[1]);
+        }
+
+        System.out.printf("  %-12s process %6.1f ms, init %5.1f ms, " +
+                          "first search %6.1f ms%n",
+                          name,
+                          median(wallNanos) / 1e6,
+                          median(initNanos) / 1e6,
+                          median(searchNanos) / 1e6);
+    }
+
+    /**
+     * Runs a child JVM with the given options.
+     * @return the timings printed by the child.
+     */
+    private static String launch(String... options)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java")
+                         .toString());
+        command.addAll(Arrays.asList(options));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StartupBenchmark.class.getName());
+        command.add(CHILD_OPTION);
+
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .redirectInput(new File(
+                        System.getProperty("os.name").startsWith("Windows") ?
+                        "NUL" :
+                        "/dev/null"))
+                .start();
+        String line = null;
+
+        // Read to the end, past the log lines of the archive dump:
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(),
+                                      StandardCharsets.UTF_8))) {
+            String next;
+
+            while ((next = reader.readLine()) != null) {
+                if (next.matches("\\d+ \\d+")) {
+                    line = next;
+                }
+            }
+        }
+
+        // The archive dump fails after the child printed its timings:
+        if (process.waitFor() != 0 || line == null) {
+            throw new IOException("The child JVM failed: " + command);
+        }
+
+        return line;
+    }
+
+    private static void runChild() {
+        long startTime = System.nanoTime();
+        HeuristicFunction evaluator =
+                new DefaultHeuristicFunction(7, 6, 10.0, 4);
+        SmartBot bot = new SmartBot(PlayerColor.WHITE_PLAYER,
+                                    evaluator,
+                                    DEPTH);
+        long initTime = System.nanoTime();
+        bot.computeNextState(new ConnectFourState());
+        long searchTime = System.nanoTime();
+        System.out.println((initTime - startTime) + " " +
+                           (searchTime - initTime));
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,81 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class estimates the retained heap size of a single
+ * {@link ConnectFourState} by keeping a large number of random midgame states
+ * alive and measuring the growth of the used heap. All the states descend from
+ * the same empty state, and only the states themselves are retained, as in a
+ * position cache.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class StateFootprintBenchmark {
+
+    private static final int STATE_COUNT = 200_000;
+
+    public static void main(String[] args) {
+        Random random = new Random(args.length > 0 ?
+                                   Long.parseLong(args[0]) :
+                                   System.nanoTime());
+        int[][] geometries = { { 7, 6, 4 }, { 10, 10, 5 }, { 20, 20, 5 } };
+
+        for (int[] geometry : geometries) {
+            ConnectFourState root = new ConnectFourState(geometry[0],
+                                                         geometry[1],
+                                                         geometry[2]);
+            ConnectFourState[] states = new ConnectFourState[STATE_COUNT];
+            long usedBefore = getUsedMemory();
+
+            for (int i = 0; i < STATE_COUNT; i++) {
+                states[i] = createState(root, random);
+            }
+
+            long usedAfter = getUsedMemory();
+            System.out.printf("%dx%d connect-%d: %.1f bytes per state%n",
+                              geometry[0],
+                              geometry[1],
+                              geometry[2],
+                              (double)(usedAfter - usedBefore) / STATE_COUNT);
+
+            if (states[random.nextInt(STATE_COUNT)] == null) {
+                // Keeps the states reachable until measured.
+                System.out.println();
+            }
+        }
+    }
+
+    private static ConnectFourState createState(ConnectFourState root,
+                                                Random random) {
+        ConnectFourState state = root;
+        PlayerColor player = PlayerColor.WHITE_PLAYER;
+        int plies = random.nextInt(root.getWidth() * root.getHeight() / 2);
+
+        for (int ply = 0; ply < plies; ply++) {
+            int x = random.nextInt(root.getWidth());
+
+            if (state.columnIsFull(x)) {
+                continue;
+            }
+
+            state = state.move(x, player);
+            player = player.opponent();
+        }
+
+        return state;
+    }
+
+    private static long getUsedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,116 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class compares the bitboard victory check of
+ * {@link ConnectFourState#checkVictory()} against the former cell-by-cell
+ * scanning implementation on large boards.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class VictoryCheckBenchmark {
+
+    private static final int STATES_PER_GEOMETRY = 2_000;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        Random random = new Random(args.length > 0 ?
+                                   Long.parseLong(args[0]) :
+                                   System.nanoTime());
+        int[][] geometries = { { 10, 10, 5 }, { 15, 12, 5 }, { 20, 20, 5 } };
+
+        for (int[] geometry : geometries) {
+            List<ConnectFourState> states =
+                    createStates(geometry[0],
+                                 geometry[1],
+                                 geometry[2],
+                                 random);
+
+            // Warm up both paths:
+            run(states, true);
+            run(states, false);
+
+            long scanDuration = run(states, true);
+            long bitBoardDuration = run(states, false);
+
+            System.out.printf(
+                    "%dx%d connect-%d: scan %d ms, bitboard %d ms, " +
+                    "speedup %.2fx%n",
+                    geometry[0],
+                    geometry[1],
+                    geometry[2],
+                    scanDuration / 1_000_000L,
+                    bitBoardDuration / 1_000_000L,
+                    (double) scanDuration / bitBoardDuration);
+        }
+    }
+
+    private static long run(List<ConnectFourState> states, boolean scan) {
+        int wins = 0;
+        long startTime = System.nanoTime();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (ConnectFourState state : states) {
+                PlayerColor winner = scan ?
+                        ScanningVictoryCheck.checkVictory(state) :
+                        state.checkVictory();
+
+                if (winner != null) {
+                    wins++;
+                }
+            }
+        }
+
+        long duration = System.nanoTime() - startTime;
+
+        if (wins < 0) {
+            // Keeps the JIT from eliminating the loop.
+            System.out.println(wins);
+        }
+
+        return duration;
+    }
+
+    /**
+     * Creates random midgame states by playing random moves until someone wins
+     * or the board is half full.
+     */
+    private static List<ConnectFourState> createStates(int width,
+                                                       int height,
+                                                       int winningLength,
+                                                       Random random) {
+        List<ConnectFourState> states = new ArrayList<>(STATES_PER_GEOMETRY);
+
+        while (states.size() < STATES_PER_GEOMETRY) {
+            ConnectFourState state =
+                    new ConnectFourState(width, height, winningLength);
+            PlayerColor player = PlayerColor.WHITE_PLAYER;
+            int plies = random.nextInt(width * height / 2);
+
+            for (int ply = 0; ply < plies; ply++) {
+                int x = random.nextInt(width);
+
+                if (state.columnIsFull(x)) {
+                    continue;
+                }
+
+                state = state.move(x, player);
+                player = player.opponent();
+
+                if (state.checkVictory() != null) {
+                    break;
+                }
+            }
+
+            states.add(state);
+        }
+
+        return states;
+    }
+}
@@ -0,0 +1,131 @@
+package net.coderodde.connectfour.base.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+import net.coderodde.connectfour.base.impl.EvaluationCache;
+import net.coderodde.connectfour.base.impl.SmartBot;
+import net.coderodde.connectfour.base.impl.TranspositionTable;
+
+/**
+ * This class measures the warm start of {@link SmartBot}: the time to search
+ * a set of positions without a transposition table, with a cold table and
+ * evaluation cache, and with the ones reloaded from the snapshots of the cold
+ * run, as after a restart. The last row searches positions not seen by the
+ * cold run, so that it shows how much of the warm-up carries over to related
+ * positions.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+public final class WarmStartBenchmark {
+
+    private static final int DEFAULT_DEPTH = 8;
+    private static final int POSITIONS = 40;
+    private static final int TABLE_CAPACITY = 1 << 20;
+    private static final int CACHE_CAPACITY = 1 << 18;
+
+    public static void main(String[] args) throws IOException {
+        int depth = args.length > 0 ?
+                Integer.parseInt(args[0]) :
+                DEFAULT_DEPTH;
+        HeuristicFunction evaluator =
+                new DefaultHeuristicFunction(7, 6, 10.0, 4);
+        List<ConnectFourState> positions =
+                SearchNodeBenchmark.createPositions(7, 6, 4, POSITIONS,
+                                                    new Random(1L));
+        List<ConnectFourState> otherPositions =
+                SearchNodeBenchmark.createPositions(7, 6, 4, POSITIONS,
+                                                    new Random(2L));
+        Path tableFile = Files.createTempFile("table", ".c4sn");
+        Path cacheFile = Files.createTempFile("cache", ".c4sn");
+
+        try {
+            System.out.printf("Depth %d, %d positions:%n",
+                              depth,
+                              positions.size());
+
+            // Warm up the JIT so that the first row is not penalized:
+            search(positions, evaluator, null, depth);
+
+            search("no table", positions, evaluator, null, depth);
+
+            TranspositionTable table = createTable();
+            EvaluationCache cache = createCache(evaluator);
+            search("cold start", positions, cache, table, depth);
+
+            long startTime = System.nanoTime();
+            table.saveSnapshot(tableFile, cache);
+            cache.saveSnapshot(cacheFile);
+            System.out.printf("  snapshots saved in %.1f ms (%d + %d bytes)%n",
+                              (System.nanoTime() - startTime) / 1e6,
+                              Files.size(tableFile),
+                              Files.size(cacheFile));
+
+            for (int run = 0; run < 2; run++) {
+                table = createTable();
+                cache = createCache(evaluator);
+                startTime = System.nanoTime();
+                table.loadSnapshot(tableFile, cache);
+                cache.loadSnapshot(cacheFile);
+                System.out.printf("  snapshots loaded in %.1f ms%n",
+                                  (System.nanoTime() - startTime) / 1e6);
+
+                if (run == 0) {
+                    search("warm start", positions, cache, table, depth);
+                } else {
+                    search("warm, unseen", otherPositions, cache, table,
+                           depth);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tableFile);
+            Files.deleteIfExists(cacheFile);
+        }
+    }
+
+    private static TranspositionTable createTable() {
+        return new TranspositionTable(7, 6, 4, TABLE_CAPACITY);
+    }
+
+    private static EvaluationCache createCache(HeuristicFunction evaluator) {
+        return new EvaluationCache(evaluator, 7, 6, 4, CACHE_CAPACITY);
+    }
+
+    private static void search(String name,
+                               List<ConnectFourState> positions,
+                               HeuristicFunction evaluator,
+                               TranspositionTable table,
+                               int depth) {
+        long startTime = System.nanoTime();
+        long nodes = search(positions, evaluator, table, depth);
+        System.out.printf("  %-14s %8.1f ms, %10d nodes%n",
+                          name,
+                          (System.nanoTime() - startTime) / 1e6,
+                          nodes);
+    }
+
+    private static long search(List<ConnectFourState> positions,
+                               HeuristicFunction evaluator,
+                               TranspositionTable table,
+                               int depth) {
+        long nodes = 0L;
+
+        for (ConnectFourState position : positions) {
+            SmartBot bot = new SmartBot(
+                    SearchNodeBenchmark.sideToMove(position),
+                    evaluator,
+                    depth);
+            bot.setTranspositionTable(table);
+            bot.computeNextState(position);
+            nodes += bot.getNodeCount();
+        }
+
+        return nodes;
+    }
+}
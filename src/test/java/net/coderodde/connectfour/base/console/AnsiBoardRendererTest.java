@@ -0,0 +1,167 @@
+package net.coderodde.connectfour.base.console;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.PopOutRules;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class AnsiBoardRendererTest {
+
+    @Test
+    public void testScreenMatchesTheStates() throws IOException {
+        Random random = new Random(11L);
+        int[][] geometries = { { 7, 6, 4 }, { 15, 12, 5 } };
+
+        for (int[] geometry : geometries) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            AnsiBoardRenderer renderer = new AnsiBoardRenderer(
+                    Channels.newChannel(output), false);
+            Terminal terminal = new Terminal();
+
+            for (int game = 0; game < 5; game++) {
+                ConnectFourState state = new ConnectFourState(
+                        geometry[0],
+                        geometry[1],
+                        geometry[2],
+                        PopOutRules.INSTANCE);
+                PlayerColor player = PlayerColor.WHITE_PLAYER;
+                renderer.start(state);
+
+                for (int ply = 0; ply < 60; ply++) {
+                    int x = random.nextInt(state.getWidth());
+
+                    if (state.canPop(x, player) && random.nextInt(3) == 0) {
+                        state = state.pop(x, player);
+                    } else if (!state.columnIsFull(x)) {
+                        state = state.move(x, player);
+                    } else {
+                        continue;
+                    }
+
+                    renderer.update(state, x);
+                    renderer.flush();
+                    terminal.apply(output);
+                    assertTrue(terminal.showsBoard(state));
+                    player = player.opponent();
+                }
+
+                renderer.message("game over");
+                terminal.apply(output);
+                assertTrue(terminal.showsBoard(state));
+                assertEquals("game over",
+                             terminal.getLine(state.getHeight() + 1).trim());
+            }
+        }
+    }
+
+    @Test
+    public void testDropWritesOnlyTheCell() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        AnsiBoardRenderer renderer =
+                new AnsiBoardRenderer(Channels.newChannel(output), true);
+        ConnectFourState state = new ConnectFourState();
+        renderer.start(state);
+        output.reset();
+        renderer.update(state.move(3, PlayerColor.WHITE_PLAYER), 3);
+
+        // Position the cursor on the cell, draw the token, move below the
+        // board and clear the rest of the screen:
+        assertEquals("\u001b[6;8HO\u001b[8;1H\u001b[J",
+                     new String(output.toByteArray(),
+                                StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A minimal terminal supporting the escape sequences of the renderer.
+     */
+    private static final class Terminal {
+
+        private final char[][] screen = new char[40][80];
+        private int row;
+        private int column;
+
+        Terminal() {
+            clear(0);
+        }
+
+        void apply(ByteArrayOutputStream output) {
+            String text = new String(output.toByteArray(),
+                                     StandardCharsets.UTF_8);
+            output.reset();
+            int i = 0;
+
+            while (i < text.length()) {
+                char c = text.charAt(i++);
+
+                if (c == '\u001b') {
+                    int end = i + 1;
+
+                    while (!Character.isLetter(text.charAt(end))) {
+                        end++;
+                    }
+
+                    String parameters = text.substring(i + 1, end);
+
+                    switch (text.charAt(end)) {
+                        case 'H':
+                            if (parameters.isEmpty()) {
+                                row = 0;
+                                column = 0;
+                            } else {
+                                String[] fields = parameters.split(";");
+                                row = Integer.parseInt(fields[0]) - 1;
+                                column = Integer.parseInt(fields[1]) - 1;
+                            }
+
+                            break;
+
+                        case 'J':
+                            clear(parameters.equals("2") ? 0 : row);
+                            break;
+
+                        default:
+                            throw new IllegalStateException(
+                                    "Unexpected escape: " + text.charAt(end));
+                    }
+
+                    i = end + 1;
+                } else if (c == '\n') {
+                    row++;
+                    column = 0;
+                } else {
+                    screen[row][column++] = c;
+                }
+            }
+        }
+
+        boolean showsBoard(ConnectFourState state) {
+            String[] lines = state.toString().split("\n");
+
+            for (int y = 0; y < lines.length; y++) {
+                if (!getLine(y).startsWith(lines[y])) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        String getLine(int y) {
+            return new String(screen[y]);
+        }
+
+        private void clear(int fromRow) {
+            for (int y = fromRow; y < screen.length; y++) {
+                Arrays.fill(screen[y], ' ');
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package net.coderodde.connectfour.base.dataset;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class PositionDatasetTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        ConnectFourState state = new ConnectFourState()
+                .move(3, PlayerColor.WHITE_PLAYER)
+                .move(3, PlayerColor.RED_PLAYER)
+                .move(4, PlayerColor.WHITE_PLAYER);
+        Path file = Files.createTempFile("dataset", ".c4ds");
+
+        try {
+            try (PositionDatasetWriter writer =
+                    new PositionDatasetWriter(file, 7, 6, 4,
+                                              ValueKind.SEARCH_SCORE)) {
+                writer.write(new LabelledPosition(state,
+                                                  PlayerColor.RED_PLAYER,
+                                                  -2.5,
+                                                  2,
+                                                  7));
+                writer.write(new LabelledPosition(new ConnectFourState(),
+                                                  PlayerColor.WHITE_PLAYER,
+                                                  0.0,
+                                                  -1,
+                                                  0));
+            }
+
+            try (PositionDatasetReader reader =
+                    new PositionDatasetReader(file)) {
+                assertEquals(7, reader.getWidth());
+                assertEquals(ValueKind.SEARCH_SCORE, reader.getValueKind());
+
+                LabelledPosition position = reader.read();
+                assertEquals(state.getPositionKey(),
+                             position.getState().getPositionKey());
+                assertEquals(PlayerColor.RED_PLAYER,
+                             position.getPlayerToMove());
+                assertEquals(-2.5, position.getValue(), 0.0);
+                assertEquals(2, position.getBestMove());
+                assertEquals(7, position.getDepth());
+
+                position = reader.read();
+                assertEquals(0, position.getState().getTokenCount());
+                assertEquals(-1, position.getBestMove());
+                assertNull(reader.read());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testGeneratedPositionsAreDistinct() throws Exception {
+        PositionDatasetGenerator generator =
+                new PositionDatasetGenerator(5, 4, 3);
+        generator.setSearchDepth(3);
+        generator.setThreads(2);
+        generator.setQueueCapacity(4);
+        generator.setSeed(1L);
+        Path file = Files.createTempFile("dataset", ".c4ds");
+
+        try {
+            assertEquals(300L, generator.generate(file, 300L));
+            Set<Long> keys = new HashSet<>();
+
+            try (PositionDatasetReader reader =
+                    new PositionDatasetReader(file)) {
+                for (LabelledPosition position : reader) {
+                    ConnectFourState state = position.getState();
+                    assertTrue(keys.add(state.getPositionKey()));
+                    assertTrue(state.getMoveCount() >= 4);
+                    assertTrue(position.getBestMove() >= 0);
+                    assertTrue(position.getDepth() > 0);
+                }
+            }
+
+            assertEquals(300, keys.size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testGeneratorStopsWhenOpeningsRunOut() throws Exception {
+        PositionDatasetGenerator generator =
+                new PositionDatasetGenerator(3, 3, 3);
+        generator.setOpeningPlies(1, 1);
+        generator.setPlayouts(10);
+        generator.setThreads(2);
+        Path file = Files.createTempFile("dataset", ".c4ds");
+
+        try {
+            // There are only three positions after one move:
+            assertEquals(3L, generator.generate(file, 10L));
+            assertTrue(generator.getDuplicateCount() > 0L);
+
+            try (PositionDatasetReader reader =
+                    new PositionDatasetReader(file)) {
+                assertEquals(ValueKind.PLAYOUT_SCORE, reader.getValueKind());
+
+                for (LabelledPosition position : reader) {
+                    assertTrue(position.getValue() >= 0.0);
+                    assertTrue(position.getValue() <= 1.0);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class DefaultHeuristicFunctionTest {
+
+    @Test
+    public void testBitBoardCountingMatchesScanning() {
+        // The scanner needs height >= 2 * winningLength - 2:
+        int[][] geometries = {
+            { 7, 6, 4 }, { 4, 4, 3 }, { 5, 6, 4 }, { 7, 8, 5 },
+            { 6, 9, 3 }, { 3, 15, 3 }
+        };
+        Random random = new Random(23L);
+
+        for (int[] geometry : geometries) {
+            DefaultHeuristicFunction scanning =
+                    new DefaultHeuristicFunction(geometry[0],
+                                                 geometry[1],
+                                                 10.0,
+                                                 geometry[2]);
+            DefaultHeuristicFunction bitBoard =
+                    new DefaultHeuristicFunction(geometry[0],
+                                                 geometry[1],
+                                                 10.0,
+                                                 geometry[2]);
+            scanning.setBitBoardCounting(false);
+
+            for (int i = 0; i < 500; i++) {
+                ConnectFourState state = RandomPositions.random(
+                        random,
+                        geometry[0],
+                        geometry[1],
+                        geometry[2],
+                        random.nextInt(geometry[0] * geometry[1]));
+                assertEquals(scanning.evaluate(state),
+                             bitBoard.evaluate(state),
+                             0.0);
+            }
+        }
+    }
+}
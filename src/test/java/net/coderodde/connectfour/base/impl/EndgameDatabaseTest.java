@@ -0,0 +1,230 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.PopOutRules;
+import net.coderodde.connectfour.base.WrapAroundRules;
+import net.coderodde.connectfour.base.impl.EndgameDatabaseGenerator.SolutionTable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class EndgameDatabaseTest {
+
+    private static Path file;
+    private static EndgameDatabase database;
+
+    @BeforeClass
+    public static void generate() throws IOException {
+        file = Files.createTempFile("endgame", ".c4eg");
+        new EndgameDatabaseGenerator(4, 4, 3, 9, PlayerColor.WHITE_PLAYER)
+                .generate(file, 2);
+        database = EndgameDatabase.open(file);
+    }
+
+    @AfterClass
+    public static void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testHeader() {
+        assertEquals(4, database.getWidth());
+        assertEquals(4, database.getHeight());
+        assertEquals(3, database.getWinningLength());
+        assertEquals(9, database.getMaxEmptyCells());
+        assertEquals("standard", database.getRulesName());
+        assertTrue(database.getEntryCount() > 0);
+    }
+
+    @Test
+    public void testOtherRulesAreNotCovered() throws IOException {
+        ConnectFourState standard = new ConnectFourState(4, 4, 3);
+        ConnectFourState wrapped =
+                new ConnectFourState(4, 4, 3, WrapAroundRules.INSTANCE);
+
+        for (int x = 0; x < 4; x++) {
+            for (int i = 0; i < 2; i++) {
+                PlayerColor player = (x + i) % 2 == 0 ?
+                        PlayerColor.WHITE_PLAYER :
+                        PlayerColor.RED_PLAYER;
+                standard = standard.move(x, player);
+                wrapped = wrapped.move(x, player);
+            }
+        }
+
+        assertTrue(database.covers(standard));
+        assertFalse(database.covers(wrapped));
+        assertEquals(EndgameDatabase.UNKNOWN,
+                     database.probe(wrapped, PlayerColor.WHITE_PLAYER));
+
+        Path wrappedFile = Files.createTempFile("endgame", ".c4eg");
+
+        try {
+            new EndgameDatabaseGenerator(4, 4, 3, 9, WrapAroundRules.INSTANCE,
+                                         PlayerColor.WHITE_PLAYER)
+                    .generate(wrappedFile, 1);
+            EndgameDatabase wrappedDatabase = EndgameDatabase.open(wrappedFile);
+            assertEquals("wrap-around", wrappedDatabase.getRulesName());
+            assertTrue(wrappedDatabase.covers(wrapped));
+            assertFalse(wrappedDatabase.covers(standard));
+        } finally {
+            Files.deleteIfExists(wrappedFile);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPopOutIsRejected() {
+        new EndgameDatabaseGenerator(4, 4, 3, 9, PopOutRules.INSTANCE,
+                                     PlayerColor.WHITE_PLAYER);
+    }
+
+    @Test
+    public void testProbeAgreesWithSolver() {
+        Random random = new Random(7L);
+        int probed = 0;
+
+        while (probed < 200) {
+            ConnectFourState state = new ConnectFourState(4, 4, 3);
+            PlayerColor player = PlayerColor.WHITE_PLAYER;
+
+            while (state.checkVictory() == null && !state.isFull()) {
+                int value = database.probe(state, player);
+
+                // The positions entering the range are always stored, the
+                // deeper ones only if no search cut them off:
+                if (state.getEmptyCellCount() == 9
+                        || (state.getEmptyCellCount() < 9
+                            && value != EndgameDatabase.UNKNOWN)) {
+                    assertEquals(solve(state, player), value);
+                    probed++;
+                }
+
+                int x;
+
+                do {
+                    x = random.nextInt(4);
+                } while (state.columnIsFull(x));
+
+                state = state.move(x, player);
+                player = player.opponent();
+            }
+        }
+    }
+
+    @Test
+    public void testWrongSideToMoveIsUnknown() {
+        ConnectFourState state = new ConnectFourState(4, 4, 3);
+
+        for (int x = 0; x < 4; x++) {
+            state = state.move(x, x % 2 == 0 ?
+                                  PlayerColor.WHITE_PLAYER :
+                                  PlayerColor.RED_PLAYER);
+            state = state.move(x, x % 2 == 0 ?
+                                  PlayerColor.RED_PLAYER :
+                                  PlayerColor.WHITE_PLAYER);
+        }
+
+        assertEquals(EndgameDatabase.UNKNOWN,
+                     database.probe(state, PlayerColor.RED_PLAYER));
+    }
+
+    @Test
+    public void testBotPlaysSolvedMoves() {
+        Random random = new Random(11L);
+        int checked = 0;
+
+        while (checked < 50) {
+            ConnectFourState state = new ConnectFourState(4, 4, 3);
+            PlayerColor player = PlayerColor.WHITE_PLAYER;
+
+            while (state.checkVictory() == null
+                    && state.getEmptyCellCount() > 10) {
+                int x;
+
+                do {
+                    x = random.nextInt(4);
+                } while (state.columnIsFull(x));
+
+                state = state.move(x, player);
+                player = player.opponent();
+            }
+
+            if (state.checkVictory() != null) {
+                continue;
+            }
+
+            // A single ply reaches the database, which scores it exactly:
+            SmartBot bot = new SmartBot(player,
+                                        new DefaultHeuristicFunction(4, 4,
+                                                                     3.0, 3),
+                                        1);
+            bot.setEndgameDatabase(database);
+            ConnectFourState next = bot.computeNextState(state);
+            int value = next.checkVictory() != null ?
+                    (player == PlayerColor.WHITE_PLAYER ? 1 : -1) :
+                    solve(next, player.opponent());
+            assertEquals(solve(state, player), value);
+            checked++;
+        }
+    }
+
+    @Test
+    public void testSolutionTable() {
+        SolutionTable table = new SolutionTable();
+
+        for (long key = 0; key < 5000; key++) {
+            table.put(key * 31,
+                      SolutionTable.encode((int) (key % 3) - 1,
+                                           (int) (key % 2)));
+        }
+
+        assertEquals(5000, table.size());
+        assertTrue(table.add(1L));
+        assertFalse(table.add(1L));
+
+        for (long key = 0; key < 5000; key++) {
+            byte entry = table.get(key * 31);
+            assertEquals((int) (key % 3) - 1,
+                         SolutionTable.getValue(entry));
+            assertEquals((int) (key % 2),
+                         SolutionTable.getBound(entry));
+        }
+
+        assertEquals(0, table.get(2L));
+    }
+
+    private static int solve(ConnectFourState state, PlayerColor player) {
+        int best = player == PlayerColor.WHITE_PLAYER ? -1 : 1;
+
+        for (int x = 0; x < state.getWidth(); x++) {
+            if (state.columnIsFull(x)) {
+                continue;
+            }
+
+            ConnectFourState child = state.move(x, player);
+            int value;
+
+            if (child.checkVictory() != null) {
+                value = player == PlayerColor.WHITE_PLAYER ? 1 : -1;
+            } else if (child.isFull()) {
+                value = 0;
+            } else {
+                value = solve(child, player.opponent());
+            }
+
+            best = player == PlayerColor.WHITE_PLAYER ?
+                    Math.max(best, value) :
+                    Math.min(best, value);
+        }
+
+        return best;
+    }
+}
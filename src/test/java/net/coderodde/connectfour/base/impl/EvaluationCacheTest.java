@@ -0,0 +1,60 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class EvaluationCacheTest {
+
+    @Test
+    public void testSnapshotRoundTrip() throws IOException {
+        HeuristicFunction evaluator =
+                new DefaultHeuristicFunction(7, 6, 10.0, 4);
+        EvaluationCache cache = new EvaluationCache(evaluator, 7, 6, 4, 4096);
+        Random random = new Random(3L);
+        ConnectFourState[] states = new ConnectFourState[200];
+
+        for (int i = 0; i < states.length; i++) {
+            states[i] = RandomPositions.random(random, 8);
+            assertEquals(evaluator.evaluate(states[i]),
+                         cache.evaluate(states[i]),
+                         0.0);
+        }
+
+        assertEquals(evaluator.getIdentity(), cache.getIdentity());
+        Path file = Files.createTempFile("cache", ".c4sn");
+
+        try {
+            cache.saveSnapshot(file);
+
+            EvaluationCache loaded =
+                    new EvaluationCache(new DefaultHeuristicFunction(
+                                                7, 6, 10.0, 4),
+                                        7, 6, 4, 8192);
+            assertTrue(loaded.loadSnapshot(file));
+
+            for (ConnectFourState state : states) {
+                assertEquals(evaluator.evaluate(state),
+                             loaded.evaluate(state),
+                             0.0);
+            }
+
+            assertTrue(loaded.getHitCount() > 0L);
+
+            EvaluationCache retuned =
+                    new EvaluationCache(new DefaultHeuristicFunction(
+                                                7, 6, 5.0, 4),
+                                        7, 6, 4, 4096);
+            assertFalse(retuned.loadSnapshot(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.util.Random;
+import net.coderodde.connectfour.base.Bot;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.Rules;
+import net.coderodde.connectfour.base.StandardRules;
+import net.coderodde.connectfour.base.WrapAroundRules;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ForcedMoveDetectorTest {
+
+    private static final PlayerColor WHITE = PlayerColor.WHITE_PLAYER;
+    private static final PlayerColor RED = PlayerColor.RED_PLAYER;
+
+    @Test
+    public void testUnsafeColumnsAgainstBruteForce() {
+        Random random = new Random(47L);
+        int[][] geometries = { { 7, 6, 4 }, { 15, 12, 5 } };
+        Rules[] rules = { StandardRules.INSTANCE, WrapAroundRules.INSTANCE };
+
+        for (int[] geometry : geometries) {
+            for (Rules rule : rules) {
+                for (int game = 0; game < 100; game++) {
+                    ConnectFourState state = new ConnectFourState(geometry[0],
+                                                                  geometry[1],
+                                                                  geometry[2],
+                                                                  rule);
+                    PlayerColor player = WHITE;
+
+                    while (state.checkVictory() == null && !state.isFull()) {
+                        assertEquals(bruteForceUnsafe(state, player),
+                                     state.getUnsafeColumnMask(player));
+                        int x = random.nextInt(state.getWidth());
+
+                        if (!state.columnIsFull(x)) {
+                            state = state.move(x, player);
+                            player = player == WHITE ? RED : WHITE;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testForcedMoves() {
+        ForcedMoveDetector detector = new ForcedMoveDetector();
+
+        // White wins in the column 3:
+        ConnectFourState state = new ConnectFourState()
+                .move(0, WHITE).move(6, RED)
+                .move(1, WHITE).move(6, RED)
+                .move(2, WHITE);
+        assertEquals(3, detector.findForcedMove(state, WHITE));
+
+        // Red must block the column 3:
+        assertEquals(3, detector.findForcedMove(state, RED));
+
+        // After the block, nothing is forced:
+        assertEquals(ForcedMoveDetector.NO_FORCED_MOVE,
+                     detector.findForcedMove(state.move(3, RED), WHITE));
+
+        // White threatens both ends of a row, so red is lost:
+        ConnectFourState lost = new ConnectFourState()
+                .move(2, WHITE).move(2, RED)
+                .move(3, WHITE).move(3, RED)
+                .move(4, WHITE);
+        assertEquals(1, detector.findForcedMove(lost, RED));
+
+        assertEquals(4, detector.getProbeCount());
+        assertEquals(3, detector.getForcedMoveCount());
+        assertEquals(1, detector.getWinCount());
+        assertEquals(1, detector.getBlockCount());
+        assertEquals(1, detector.getLostCount());
+        assertEquals(0, detector.getOnlySafeMoveCount());
+
+        detector.resetCounters();
+        assertEquals(0, detector.getProbeCount());
+    }
+
+    @Test
+    public void testOnlySafeMove() {
+        // The column 1 is full. White may not drop into the column 0 or 2,
+        // since red would then complete a line on top of the white token:
+        ConnectFourState state = new ConnectFourState(4, 4, 3)
+                .move(1, WHITE).move(1, RED)
+                .move(1, WHITE).move(2, RED)
+                .move(1, WHITE).move(0, RED);
+        ForcedMoveDetector detector = new ForcedMoveDetector();
+
+        assertEquals(0b101L, state.getUnsafeColumnMask(WHITE));
+        assertEquals(0b1000L,
+                     ForcedMoveDetector.getSafeColumnMask(state, WHITE));
+        assertEquals(3, detector.findForcedMove(state, WHITE));
+        assertEquals(1, detector.getOnlySafeMoveCount());
+    }
+
+    @Test
+    public void testSmartRandomBeatsRandom() {
+        Random random = new Random(53L);
+        ForcedMoveDetector detector = new ForcedMoveDetector();
+        int smartWins = 0;
+
+        for (int game = 0; game < 200; game++) {
+            Bot smart = new RandomBot(WHITE, random, detector);
+            Bot plain = new RandomBot(RED, random);
+            ConnectFourState state = new ConnectFourState();
+            Bot bot = game % 2 == 0 ? smart : plain;
+
+            while (state.checkVictory() == null && !state.isFull()) {
+                state = bot.computeNextState(state);
+                bot = bot == smart ? plain : smart;
+            }
+
+            if (state.checkVictory() == WHITE) {
+                smartWins++;
+            }
+        }
+
+        assertTrue("smart wins: " + smartWins, smartWins > 160);
+        assertTrue(detector.getForcedMoveCount() > 0);
+    }
+
+    @Test
+    public void testForcedMoveBotSkipsTheDelegate() {
+        Bot failing = new Bot() {
+            @Override
+            public ConnectFourState computeNextState(ConnectFourState state) {
+                throw new AssertionError("The delegate was asked.");
+            }
+
+            @Override
+            public PlayerColor getPlayerColor() {
+                return RED;
+            }
+        };
+
+        ForcedMoveBot bot = new ForcedMoveBot(failing);
+        ConnectFourState state = new ConnectFourState()
+                .move(0, WHITE).move(6, RED)
+                .move(1, WHITE).move(6, RED)
+                .move(2, WHITE);
+        assertEquals(RED, bot.computeNextState(state).readCell(3, 5));
+        assertEquals(1, bot.getDetector().getBlockCount());
+    }
+
+    private static long bruteForceUnsafe(ConnectFourState state,
+                                         PlayerColor player) {
+        PlayerColor opponent = player == WHITE ? RED : WHITE;
+        long columns = 0L;
+
+        for (int x = 0; x < state.getWidth(); x++) {
+            if (state.columnIsFull(x)) {
+                continue;
+            }
+
+            ConnectFourState child = state.move(x, player);
+
+            if (child.isWinningMove(x, opponent)) {
+                columns |= 1L << x;
+            }
+        }
+
+        return columns;
+    }
+}
@@ -0,0 +1,75 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import net.coderodde.connectfour.base.ConnectFourState;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class GeometryTablesTest {
+
+    @Test
+    public void testTablesAreSharedPerGeometry() throws Exception {
+        GeometryTables tables = GeometryTables.get(7, 6, 4);
+        assertSame(tables, GeometryTables.get(7, 6, 4));
+        assertNotSame(tables, GeometryTables.get(7, 6, 5));
+        assertNotSame(tables, GeometryTables.get(6, 7, 4));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            Future<?>[] futures = new Future<?>[8];
+
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> GeometryTables.get(9, 7, 4));
+            }
+
+            for (Future<?> future : futures) {
+                assertSame(GeometryTables.get(9, 7, 4), future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testTables() {
+        GeometryTables tables = GeometryTables.get(7, 6, 4);
+        assertArrayEquals(new int[]{ 3, 2, 4, 1, 5, 0, 6 },
+                          tables.getMoveOrder());
+        assertEquals(1, tables.getCenterDistance(3, 2));
+        assertEquals(11, tables.getCenterDistance(0, 0));
+        assertEquals(0, GeometryTables.get(5, 5, 4).getCenterDistance(2, 2));
+        assertTrue(tables.getPatternCounter()
+                         .matches(new ConnectFourState(7, 6, 4)));
+        assertNull(GeometryTables.get(10, 10, 4).getPatternCounter());
+    }
+
+    @Test
+    public void testDefaultWeightsAreUnchanged() {
+        HeuristicWeights weights =
+                HeuristicWeights.createDefault(7, 6, 10.0, 4);
+        assertEquals(10.0, weights.getPositionWeight(3, 2), 0.0);
+        assertEquals(1.0 + 9.0 / 11, weights.getPositionWeight(0, 0), 1e-12);
+        assertEquals(1.0 + 9.0 / 3, weights.getPositionWeight(2, 3), 1e-12);
+    }
+
+    @Test
+    public void testDefaultWeightsAreShared() {
+        HeuristicWeights weights =
+                HeuristicWeights.createDefault(7, 6, 10.0, 4);
+        assertSame(weights, HeuristicWeights.createDefault(7, 6, 10.0, 4));
+        assertSame(weights,
+                   GeometryTables.get(7, 6, 4).getDefaultWeights(10.0));
+        assertNotSame(weights, HeuristicWeights.createDefault(7, 6, 5.0, 4));
+        assertNotSame(weights, HeuristicWeights.createDefault(7, 6, 10.0, 5));
+        assertSame(weights.getPositionWeights(),
+                   weights.getPositionWeights());
+    }
+}
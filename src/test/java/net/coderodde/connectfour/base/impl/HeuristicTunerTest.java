@@ -0,0 +1,71 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class HeuristicTunerTest {
+
+    @Test
+    public void testSavedWeightsEvaluateTheSame() throws IOException {
+        HeuristicWeights weights =
+                HeuristicWeights.createDefault(7, 6, 10.0, 4);
+        Path file = Files.createTempFile("weights", ".txt");
+
+        try {
+            weights.save(file);
+            DefaultHeuristicFunction original =
+                    new DefaultHeuristicFunction(7, 6, 10.0, 4);
+            DefaultHeuristicFunction loaded =
+                    new DefaultHeuristicFunction(HeuristicWeights.load(file));
+            Random random = new Random(13L);
+
+            for (int i = 0; i < 200; i++) {
+                ConnectFourState state = RandomPositions.random(random, 12);
+                assertEquals(original.evaluate(state),
+                             loaded.evaluate(state),
+                             0.0);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testTuningDoesNotIncreaseError() {
+        HeuristicTuner tuner = new HeuristicTuner(
+                HeuristicWeights.createDefault(7, 6, 10.0, 4), 2);
+        Random random = new Random(17L);
+
+        // White is more likely to win the positions where it has more tokens
+        // in the center:
+        for (int i = 0; i < 300; i++) {
+            ConnectFourState state = RandomPositions.random(random, 10);
+            int center = 0;
+
+            for (int y = 0; y < state.getHeight(); y++) {
+                PlayerColor playerColor = state.readCell(3, y);
+
+                if (playerColor == PlayerColor.WHITE_PLAYER) {
+                    center++;
+                } else if (playerColor == PlayerColor.RED_PLAYER) {
+                    center--;
+                }
+            }
+
+            tuner.addPosition(state, center > 0 ? 1.0 :
+                                     center < 0 ? 0.0 : 0.5);
+        }
+
+        assertTrue(tuner.getPositionCount() > 0);
+        double initialError = tuner.getError();
+        tuner.tune(5);
+        assertTrue(tuner.getError() <= initialError);
+    }
+}
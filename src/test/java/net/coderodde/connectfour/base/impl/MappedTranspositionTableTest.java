@@ -0,0 +1,202 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.WrapAroundRules;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedTranspositionTableTest {
+
+    private static final HeuristicFunction EVALUATOR =
+            new DefaultHeuristicFunction(7, 6, 10.0, 4);
+
+    private Path file;
+
+    @Before
+    public void before() throws IOException {
+        file = Files.createTempFile("shared", ".c4tt");
+        Files.delete(file);
+    }
+
+    @After
+    public void after() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testStoreAndProbe() throws IOException {
+        MappedTranspositionTable table =
+                MappedTranspositionTable.open(file, 7, 6, 4, EVALUATOR, 1000);
+        assertEquals(1024, table.getCapacity());
+        assertEquals(0, table.countEntries());
+
+        long key = new ConnectFourState().move(3, PlayerColor.WHITE_PLAYER)
+                                         .getPositionKey();
+        table.store(key, PlayerColor.RED_PLAYER, 5,
+                    TranspositionStore.LOWER_BOUND, -1.5, 2);
+
+        int entry = table.probe(key, PlayerColor.RED_PLAYER);
+        assertTrue(entry >= 0);
+        assertEquals(5, table.getDepth(entry));
+        assertEquals(TranspositionStore.LOWER_BOUND, table.getBound(entry));
+        assertEquals(-1.5, table.getScore(entry), 0.0);
+        assertEquals(2, table.getMove(entry));
+        assertEquals(-1, table.probe(key, PlayerColor.WHITE_PLAYER));
+
+        // A shallower result does not replace a deeper one:
+        table.store(key, PlayerColor.RED_PLAYER, 3,
+                    TranspositionStore.EXACT, 0.5, -1);
+        entry = table.probe(key, PlayerColor.RED_PLAYER);
+        assertEquals(5, table.getDepth(entry));
+        assertEquals(1, table.countEntries());
+
+        table.clear();
+        assertEquals(-1, table.probe(key, PlayerColor.RED_PLAYER));
+    }
+
+    @Test
+    public void testInstancesShareTheFile() throws IOException {
+        MappedTranspositionTable first =
+                MappedTranspositionTable.open(file, 7, 6, 4, EVALUATOR, 1000);
+        // The capacity of an existing file wins:
+        MappedTranspositionTable second =
+                MappedTranspositionTable.open(file, 7, 6, 4, EVALUATOR, 16);
+        assertEquals(1024, second.getCapacity());
+
+        long key = new ConnectFourState().move(0, PlayerColor.WHITE_PLAYER)
+                                         .getPositionKey();
+        first.store(key, PlayerColor.RED_PLAYER, 7,
+                    TranspositionStore.EXACT, 3.25, 4);
+
+        int entry = second.probe(key, PlayerColor.RED_PLAYER);
+        assertTrue(entry >= 0);
+        assertEquals(7, second.getDepth(entry));
+        assertEquals(3.25, second.getScore(entry), 0.0);
+        assertEquals(4, second.getMove(entry));
+        first.close();
+        second.close();
+
+        MappedTranspositionTable reopened =
+                MappedTranspositionTable.open(file, 7, 6, 4, EVALUATOR, 1000);
+        assertTrue(reopened.probe(key, PlayerColor.RED_PLAYER) >= 0);
+    }
+
+    @Test
+    public void testTornEntryIsRejected() throws IOException {
+        MappedTranspositionTable table =
+                MappedTranspositionTable.open(file, 7, 6, 4, EVALUATOR, 64);
+        long key = new ConnectFourState().move(5, PlayerColor.WHITE_PLAYER)
+                                         .getPositionKey();
+        table.store(key, PlayerColor.WHITE_PLAYER, 4,
+                    TranspositionStore.EXACT, 2.0, 1);
+        assertTrue(table.probe(key, PlayerColor.WHITE_PLAYER) >= 0);
+
+        // Overwrite the score as if another process was halfway through
+        // writing the entry:
+        try (FileChannel channel = FileChannel.open(file,
+                                                    StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            MappedByteBuffer raw = channel.map(FileChannel.MapMode.READ_WRITE,
+                                               0L,
+                                               channel.size());
+            raw.order(ByteOrder.nativeOrder());
+            int entriesStart = (int) channel.size() - 64 * 3 * Long.BYTES;
+            int index = TranspositionTable.hash(key, 0) & 63;
+            raw.putLong(entriesStart + index * 3 * Long.BYTES + Long.BYTES,
+                        Double.doubleToRawLongBits(-2.0));
+        }
+
+        assertEquals(-1, table.probe(key, PlayerColor.WHITE_PLAYER));
+    }
+
+    @Test
+    public void testMismatchedFileIsRejected() throws IOException {
+        MappedTranspositionTable.open(file, 7, 6, 4, EVALUATOR, 64).close();
+
+        try {
+            MappedTranspositionTable.open(file, 8, 6, 4, EVALUATOR, 64);
+            fail("Another geometry opened the file.");
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+
+        try {
+            MappedTranspositionTable.open(
+                    file, 7, 6, 4, new DefaultHeuristicFunction(7, 6, 5.0, 4),
+                    64);
+            fail("Another heuristic function opened the file.");
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+
+        try {
+            MappedTranspositionTable.open(file, 7, 6, 4,
+                                          WrapAroundRules.INSTANCE,
+                                          EVALUATOR, 64);
+            fail("Other rules opened the file.");
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testRulesAreMatched() throws IOException {
+        MappedTranspositionTable table =
+                MappedTranspositionTable.open(file, 7, 6, 4,
+                                              WrapAroundRules.INSTANCE,
+                                              EVALUATOR, 64);
+        assertTrue(table.covers(
+                new ConnectFourState(7, 6, 4, WrapAroundRules.INSTANCE)));
+        assertFalse(table.covers(new ConnectFourState()));
+    }
+
+    @Test
+    public void testSearchMatchesHeapTable() throws IOException {
+        MappedTranspositionTable mapped =
+                MappedTranspositionTable.open(file, 7, 6, 4, EVALUATOR,
+                                              1 << 14);
+        Random random = new Random(13L);
+
+        for (int i = 0; i < 10; i++) {
+            ConnectFourState state = RandomPositions.random(random, 4);
+
+            if (state.checkVictory() != null) {
+                continue;
+            }
+
+            PlayerColor player = state.getMoveCount() % 2 == 0 ?
+                    PlayerColor.WHITE_PLAYER :
+                    PlayerColor.RED_PLAYER;
+            SmartBot heapBot = new SmartBot(player, EVALUATOR, 6);
+            SmartBot mappedBot = new SmartBot(player, EVALUATOR, 6);
+            heapBot.setTranspositionTable(
+                    new TranspositionTable(7, 6, 4, 1 << 14));
+            mapped.clear();
+            mappedBot.setTranspositionTable(mapped);
+
+            ConnectFourState heapState = heapBot.computeNextState(state);
+            ConnectFourState mappedState = mappedBot.computeNextState(state);
+            assertEquals(heapState.getPositionKey(),
+                         mappedState.getPositionKey());
+            assertEquals(heapBot.getLastScore(),
+                         mappedBot.getLastScore(),
+                         0.0);
+            assertEquals(heapBot.getNodeCount(), mappedBot.getNodeCount());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import net.coderodde.connectfour.base.Bot;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicAccumulator;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.record.GameRecord;
+import net.coderodde.connectfour.base.record.GameResult;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class NTupleNetworkTest {
+
+    @Test
+    public void testAccumulatorMatchesEvaluation() {
+        Random random = new Random(23L);
+        int[][] geometries = { { 7, 6, 4 }, { 8, 7, 5 }, { 5, 4, 3 } };
+
+        for (int[] geometry : geometries) {
+            NTupleNetwork network = randomNetwork(geometry[0],
+                                                  geometry[1],
+                                                  geometry[2],
+                                                  random);
+            HeuristicAccumulator accumulator = network.createAccumulator();
+
+            for (int game = 0; game < 20; game++) {
+                ConnectFourState root = new ConnectFourState(geometry[0],
+                                                             geometry[1],
+                                                             geometry[2]);
+                accumulator.reset(root);
+                assertEquals(network.evaluate(root),
+                             accumulator.evaluate(),
+                             0.0);
+
+                ConnectFourState state = root;
+                PlayerColor player = PlayerColor.WHITE_PLAYER;
+                int moves = 0;
+
+                while (!state.isFull()) {
+                    int x = random.nextInt(state.getWidth());
+
+                    if (state.columnIsFull(x)) {
+                        continue;
+                    }
+
+                    accumulator.makeMove(x,
+                                         state.getHeight() - 1 -
+                                         state.getColumnHeight(x),
+                                         player);
+                    state = state.move(x, player);
+                    moves++;
+                    player = player.opponent();
+                    assertEquals(network.evaluate(state),
+                                 accumulator.evaluate(),
+                                 1e-4);
+                }
+
+                for (int i = 0; i < moves; i++) {
+                    accumulator.unmakeMove();
+                }
+
+                assertEquals(network.evaluate(root),
+                             accumulator.evaluate(),
+                             0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        NTupleNetwork network = randomNetwork(7, 6, 4, new Random(29L));
+        Path file = Files.createTempFile("network", ".c4nt");
+
+        try {
+            network.save(file);
+            NTupleNetwork loaded = NTupleNetwork.load(file);
+            assertEquals(network.getIdentity(), loaded.getIdentity());
+            assertArrayEquals(network.getWeights(), loaded.getWeights(), 0.0f);
+            assertEquals(69, loaded.getTupleCount());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testSearchWithAccumulatorScoresTheSame() {
+        NTupleNetwork network = randomNetwork(7, 6, 4, new Random(31L));
+        Random random = new Random(37L);
+
+        for (int i = 0; i < 10; i++) {
+            ConnectFourState state = new ConnectFourState();
+
+            for (int ply = 0; ply < 6; ply++) {
+                state = state.move(random.nextInt(7),
+                                   ply % 2 == 0 ?
+                                           PlayerColor.WHITE_PLAYER :
+                                           PlayerColor.RED_PLAYER);
+            }
+
+            if (state.checkVictory() != null) {
+                continue;
+            }
+
+            SmartBot incremental =
+                    new SmartBot(PlayerColor.WHITE_PLAYER, network, 5);
+            SmartBot scratch = new SmartBot(PlayerColor.WHITE_PLAYER,
+                                            network::evaluate,
+                                            5);
+            incremental.computeNextState(state);
+            scratch.computeNextState(state);
+            assertEquals(scratch.getLastScore(),
+                         incremental.getLastScore(),
+                         1e-3);
+        }
+    }
+
+    @Test
+    public void testTrainingLearnsWhoWins() {
+        // A searching white player against a random red player wins most of
+        // the games:
+        Random random = new Random(41L);
+        NTupleTrainer trainer =
+                new NTupleTrainer(new NTupleNetwork(5, 4, 3));
+        trainer.setSeed(43L);
+
+        for (int game = 0; game < 200; game++) {
+            assertTrue(trainer.addGame(playGame(
+                    new SmartBot(PlayerColor.WHITE_PLAYER,
+                                 new DefaultHeuristicFunction(5, 4, 1.0, 3),
+                                 2),
+                    new RandomBot(PlayerColor.RED_PLAYER, random))));
+        }
+
+        double initialError = trainer.getError();
+        NTupleNetwork network = trainer.train(5);
+        assertTrue(trainer.getError() < initialError);
+        assertTrue(network.evaluate(new ConnectFourState(5, 4, 3)) > 0.0);
+    }
+
+    private static GameRecord playGame(Bot white, Bot red) {
+        ConnectFourState state = new ConnectFourState(5, 4, 3);
+        int[] moves = new int[20];
+        int moveCount = 0;
+        Bot bot = white;
+
+        while (state.checkVictory() == null && !state.isFull()) {
+            ConnectFourState next = bot.computeNextState(state);
+            moves[moveCount++] = state.findMoveColumn(next);
+            state = next;
+            bot = bot == white ? red : white;
+        }
+
+        int[] played = new int[moveCount];
+        System.arraycopy(moves, 0, played, 0, moveCount);
+        return new GameRecord(5, 4, 3, "white", "red",
+                              PlayerColor.WHITE_PLAYER,
+                              GameResult.of(state),
+                              0L,
+                              played,
+                              new long[moveCount]);
+    }
+
+    private static NTupleNetwork randomNetwork(int width,
+                                               int height,
+                                               int winningLength,
+                                               Random random) {
+        NTupleNetwork network =
+                new NTupleNetwork(width, height, winningLength);
+        float[] weights = new float[network.getWeightCount()];
+
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (float) random.nextGaussian();
+        }
+
+        return new NTupleNetwork(width, height, winningLength, weights);
+    }
+}
@@ -0,0 +1,61 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+
+/**
+ * This class generates the random positions of the tests.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (May 24, 2019)
+ */
+final class RandomPositions {
+
+    private RandomPositions() {}
+
+    /**
+     * Plays random moves on the empty 7x6 board with four to win, the white
+     * player first.
+     * @param random the source of the moves.
+     * @param moves the number of moves.
+     * @return the position, which has fewer moves if the game ended earlier.
+     */
+    static ConnectFourState random(Random random, int moves) {
+        return random(random, 7, 6, 4, moves);
+    }
+
+    /**
+     * Plays random moves on an empty board, the white player first.
+     * @param random the source of the moves.
+     * @param width the width of the board.
+     * @param height the height of the board.
+     * @param winningLength the winning length.
+     * @param moves the number of moves.
+     * @return the position, which has fewer moves if the game ended earlier.
+     */
+    static ConnectFourState random(Random random,
+                                   int width,
+                                   int height,
+                                   int winningLength,
+                                   int moves) {
+        ConnectFourState state =
+                new ConnectFourState(width, height, winningLength);
+        PlayerColor player = PlayerColor.WHITE_PLAYER;
+
+        for (int i = 0;
+                i < moves && state.checkVictory() == null && !state.isFull();
+                i++) {
+            int x;
+
+            do {
+                x = random.nextInt(state.getWidth());
+            } while (state.columnIsFull(x));
+
+            state = state.move(x, player);
+            player = player.opponent();
+        }
+
+        return state;
+    }
+}
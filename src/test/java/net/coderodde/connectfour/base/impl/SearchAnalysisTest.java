@@ -0,0 +1,215 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class SearchAnalysisTest {
+
+    private static final HeuristicFunction EVALUATOR =
+            new DefaultHeuristicFunction(7, 6, 10.0, 4);
+
+    private static final int DEPTH = 5;
+
+    @Test
+    public void testScoresMatchIndependentSearches() {
+        Random random = new Random(17L);
+
+        for (int i = 0; i < 20; i++) {
+            ConnectFourState state = randomState(random);
+            SmartBot bot = new SmartBot(PlayerColor.WHITE_PLAYER,
+                                        EVALUATOR,
+                                        DEPTH);
+            bot.setThreatExtensions(false);
+            SearchAnalysis analysis = bot.analyze(state, state.getWidth());
+            assertEquals(DEPTH, analysis.getDepth());
+
+            for (int x = 0; x < state.getWidth(); x++) {
+                if (state.columnIsFull(x)) {
+                    assertTrue(Double.isNaN(analysis.getScore(x)));
+                    assertNull(analysis.getPrincipalVariation(x));
+                    continue;
+                }
+
+                assertTrue(analysis.isExact(x));
+                assertEquals(x, analysis.getPrincipalVariation(x)[0]);
+                assertEquals(independentScore(state, x),
+                             analysis.getScore(x),
+                             1e-9);
+            }
+
+            // The ranking follows the scores:
+            for (int rank = 1; rank < analysis.getColumnCount(); rank++) {
+                assertTrue(analysis.getScore(analysis.getColumn(rank - 1)) >=
+                           analysis.getScore(analysis.getColumn(rank)));
+            }
+        }
+    }
+
+    @Test
+    public void testTopLinesAreExact() {
+        Random random = new Random(19L);
+        long fullNodeCount = 0L;
+        long singleLineNodeCount = 0L;
+
+        for (int i = 0; i < 20; i++) {
+            ConnectFourState state = randomState(random);
+            SmartBot full = new SmartBot(PlayerColor.WHITE_PLAYER,
+                                         EVALUATOR,
+                                         DEPTH);
+            SearchAnalysis expected = full.analyze(state, state.getWidth());
+            fullNodeCount += full.getNodeCount();
+
+            for (int lineCount = 1; lineCount <= 3; lineCount++) {
+                SmartBot bot = new SmartBot(PlayerColor.WHITE_PLAYER,
+                                            EVALUATOR,
+                                            DEPTH);
+                SearchAnalysis analysis = bot.analyze(state, lineCount);
+                int lines = Math.min(lineCount, analysis.getColumnCount());
+
+                for (int rank = 0; rank < lines; rank++) {
+                    int x = analysis.getColumn(rank);
+                    assertTrue(analysis.isExact(x));
+                    assertEquals(expected.getScore(expected.getColumn(rank)),
+                                 analysis.getScore(x),
+                                 0.0);
+                }
+
+                for (int rank = lines;
+                        rank < analysis.getColumnCount();
+                        rank++) {
+                    int x = analysis.getColumn(rank);
+
+                    if (!analysis.isExact(x)) {
+                        assertTrue(expected.getScore(x) <=
+                                   analysis.getScore(x));
+                    }
+                }
+
+                if (lineCount == 1) {
+                    singleLineNodeCount += bot.getNodeCount();
+                }
+            }
+        }
+
+        // Scouting the columns below the best lines saves nodes:
+        assertTrue(singleLineNodeCount < fullNodeCount);
+    }
+
+    @Test
+    public void testIterationsAreStreamed() {
+        List<SearchAnalysis> iterations = new ArrayList<>();
+        SmartBot bot = new SmartBot(PlayerColor.WHITE_PLAYER, EVALUATOR, 6);
+        bot.setTranspositionTable(new TranspositionTable(7, 6, 4, 1 << 14));
+        bot.setSearchListener(new SearchListener() {
+            @Override
+            public void onIterationCompleted(int depth,
+                                             int bestColumn,
+                                             double score,
+                                             long nodeCount,
+                                             long elapsedNanos) {}
+
+            @Override
+            public void onAnalysisIterationCompleted(
+                    SearchAnalysis analysis) {
+                iterations.add(analysis);
+            }
+        });
+
+        SearchAnalysis analysis = bot.analyze(new ConnectFourState(), 7);
+        assertEquals(6, iterations.size());
+
+        for (int i = 0; i < iterations.size(); i++) {
+            assertEquals(i + 1, iterations.get(i).getDepth());
+        }
+
+        assertEquals(analysis, iterations.get(5));
+        assertEquals(7, analysis.getColumnCount());
+        assertEquals(analysis.getScore(analysis.getBestColumn()),
+                     bot.getLastScore(),
+                     0.0);
+    }
+
+    @Test
+    public void testImmediateWinAndBlock() {
+        ConnectFourState state = new ConnectFourState()
+                .move(0, PlayerColor.WHITE_PLAYER)
+                .move(6, PlayerColor.RED_PLAYER)
+                .move(1, PlayerColor.WHITE_PLAYER)
+                .move(6, PlayerColor.RED_PLAYER)
+                .move(2, PlayerColor.WHITE_PLAYER);
+        SmartBot white = new SmartBot(PlayerColor.WHITE_PLAYER, EVALUATOR, 4);
+        SearchAnalysis analysis = white.analyze(state, 7);
+        assertEquals(3, analysis.getBestColumn());
+        assertEquals(SmartBot.WIN_SCORE - 1, analysis.getScore(3), 0.0);
+
+        SmartBot red = new SmartBot(PlayerColor.RED_PLAYER, EVALUATOR, 4);
+        analysis = red.analyze(state, 7);
+        assertEquals(3, analysis.getBestColumn());
+
+        for (int x = 0; x < 7; x++) {
+            if (x != 3) {
+                assertTrue(analysis.getScore(x) <= -SmartBot.WIN_THRESHOLD);
+            }
+        }
+
+        assertFalse(analysis.getScore(3) <= -SmartBot.WIN_THRESHOLD);
+    }
+
+    /**
+     * Scores the column {@code x} of {@code state} from the point of view of
+     * the white player by searching the child state on its own.
+     */
+    private static double independentScore(ConnectFourState state, int x) {
+        ConnectFourState child = state.move(x, PlayerColor.WHITE_PLAYER);
+
+        if (child.checkVictory() != null) {
+            return SmartBot.WIN_SCORE - 1;
+        }
+
+        if (child.isFull()) {
+            return 0.0;
+        }
+
+        SmartBot red = new SmartBot(PlayerColor.RED_PLAYER,
+                                    EVALUATOR,
+                                    DEPTH - 1);
+        red.setThreatExtensions(false);
+        red.computeNextState(child);
+        double score = -red.getLastScore();
+
+        // The wins are scored by their distance from the root:
+        if (score >= SmartBot.WIN_THRESHOLD) {
+            return score - 1;
+        }
+
+        if (score <= -SmartBot.WIN_THRESHOLD) {
+            return score + 1;
+        }
+
+        return score;
+    }
+
+    /**
+     * Plays an even number of random moves, leaving the white player to
+     * move in an unfinished game.
+     */
+    private static ConnectFourState randomState(Random random) {
+        while (true) {
+            ConnectFourState state =
+                    RandomPositions.random(random, 2 * random.nextInt(12));
+
+            if (state.checkVictory() == null && !state.isFull()) {
+                return state;
+            }
+        }
+    }
+}
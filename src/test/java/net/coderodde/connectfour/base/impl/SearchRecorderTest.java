@@ -0,0 +1,103 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.util.SplittableRandom;
+import net.coderodde.connectfour.base.Bot;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class SearchRecorderTest {
+
+    private static final HeuristicFunction EVALUATOR =
+            new DefaultHeuristicFunction(7, 6, 10.0, 4);
+
+    @Test
+    public void testTimedSearchesAreReproduced() {
+        SearchRecorder white =
+                new SearchRecorder(createBot(PlayerColor.WHITE_PLAYER, 2L));
+        SearchRecorder red =
+                new SearchRecorder(createBot(PlayerColor.RED_PLAYER, 2L));
+        play(white, red);
+
+        int aborted = 0;
+
+        for (SearchRecorder.Entry entry : white.getEntries()) {
+            if (entry.isAborted()) {
+                aborted++;
+                assertEquals(0L, entry.getNodeCount() & 1023L);
+            }
+        }
+
+        assertTrue(aborted > 0);
+        assertEquals(SearchRecorder.REPRODUCED,
+                     white.replay(createBot(PlayerColor.WHITE_PLAYER, 0L)));
+        assertEquals(SearchRecorder.REPRODUCED,
+                     red.replay(createBot(PlayerColor.RED_PLAYER, 0L)));
+
+        // A bot without the table searches differently:
+        assertNotEquals(SearchRecorder.REPRODUCED,
+                        white.replay(new SmartBot(PlayerColor.WHITE_PLAYER,
+                                                  EVALUATOR,
+                                                  20)));
+    }
+
+    @Test
+    public void testNodeLimitStopsAtTheSameNode() {
+        ConnectFourState state = new ConnectFourState()
+                .move(3, PlayerColor.WHITE_PLAYER)
+                .move(2, PlayerColor.RED_PLAYER);
+        long nodeCount = -1L;
+
+        for (int run = 0; run < 3; run++) {
+            SmartBot bot = createBot(PlayerColor.WHITE_PLAYER, 0L);
+            bot.setNodeLimit(50_000L);
+            bot.computeNextState(state);
+            assertTrue(bot.isLastSearchAborted());
+            assertEquals(50_176L, bot.getNodeCount());
+
+            if (nodeCount >= 0L) {
+                assertEquals(nodeCount, bot.getNodeCount());
+            }
+
+            nodeCount = bot.getNodeCount();
+        }
+    }
+
+    @Test
+    public void testSplitStreamsReplayRandomGames() {
+        for (long seed = 0L; seed < 5L; seed++) {
+            assertEquals(playRandom(seed), playRandom(seed));
+        }
+    }
+
+    private static String playRandom(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Bot white = new RandomBot(PlayerColor.WHITE_PLAYER, random.split());
+        Bot red = new RandomBot(PlayerColor.RED_PLAYER, random.split());
+        return play(white, red).toString();
+    }
+
+    private static SmartBot createBot(PlayerColor player,
+                                      long timeLimitMillis) {
+        SmartBot bot = new SmartBot(player, EVALUATOR, 20);
+        bot.setTranspositionTable(new TranspositionTable(7, 6, 4, 1 << 14));
+        bot.setTimeLimit(timeLimitMillis);
+        return bot;
+    }
+
+    private static ConnectFourState play(Bot white, Bot red) {
+        ConnectFourState state = new ConnectFourState();
+        Bot bot = white;
+
+        while (state.checkVictory() == null && !state.isFull()) {
+            state = bot.computeNextState(state);
+            bot = bot == white ? red : white;
+        }
+
+        return state;
+    }
+}
@@ -0,0 +1,119 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.PopOutRules;
+import net.coderodde.connectfour.base.WrapAroundRules;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class SmartBotTest {
+
+    private static final HeuristicFunction EVALUATOR =
+            new DefaultHeuristicFunction(7, 6, 10.0, 4);
+
+    @Test
+    public void testWindowsDoNotChangeTheScore() {
+        Random random = new Random(60L);
+
+        for (int i = 0; i < 60; i++) {
+            ConnectFourState state = RandomPositions.random(random, 4 + i % 12);
+
+            if (state.checkVictory() != null) {
+                continue;
+            }
+
+            PlayerColor player = state.getMoveCount() % 2 == 0 ?
+                    PlayerColor.WHITE_PLAYER :
+                    PlayerColor.RED_PLAYER;
+            SmartBot windowBot = new SmartBot(player, EVALUATOR, 6);
+            SmartBot plainBot = new SmartBot(player, EVALUATOR, 6);
+            windowBot.setAspirationWindows(true);
+            windowBot.setPrincipalVariationSearch(true);
+            windowBot.setThreatExtensions(false);
+            plainBot.setAspirationWindows(false);
+            plainBot.setPrincipalVariationSearch(false);
+            plainBot.setThreatExtensions(false);
+
+            windowBot.computeNextState(state);
+            plainBot.computeNextState(state);
+            assertEquals(plainBot.getLastScore(),
+                         windowBot.getLastScore(),
+                         0.0);
+        }
+    }
+
+    @Test
+    public void testExtensionsFindWinAtDepthOne() {
+        ConnectFourState state = play(2, 2, 3, 3, 4, 6);
+        SmartBot bot = new SmartBot(PlayerColor.WHITE_PLAYER, EVALUATOR, 1);
+        bot.setThreatExtensions(true);
+        assertEquals(PlayerColor.WHITE_PLAYER,
+                     bot.computeNextState(state).checkVictory());
+        assertTrue(bot.getLastScore() > SmartBot.WIN_THRESHOLD);
+    }
+
+    @Test
+    public void testExtensionsFindBlockAtDepthOne() {
+        ConnectFourState state = play(0, 6, 1, 6, 2);
+        SmartBot bot = new SmartBot(PlayerColor.RED_PLAYER, EVALUATOR, 1);
+        bot.setThreatExtensions(true);
+        assertEquals(3, state.findMoveColumn(bot.computeNextState(state)));
+    }
+
+    @Test
+    public void testReductionsFindWinningLine() {
+        // White wins by making an open three on the bottom row:
+        ConnectFourState state = play(2, 6, 3, 6);
+        SmartBot white = new SmartBot(PlayerColor.WHITE_PLAYER, EVALUATOR, 5);
+        SmartBot red = new SmartBot(PlayerColor.RED_PLAYER, EVALUATOR, 5);
+        white.setLateMoveReductions(true);
+        white.setThreatExtensions(false);
+
+        for (int i = 0; i < 3; i++) {
+            state = white.computeNextState(state);
+            assertTrue(white.getLastScore() > SmartBot.WIN_THRESHOLD);
+
+            if (state.checkVictory() != null) {
+                break;
+            }
+
+            state = red.computeNextState(state);
+        }
+
+        assertEquals(PlayerColor.WHITE_PLAYER, state.checkVictory());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPopOutIsRejected() {
+        new SmartBot(PlayerColor.WHITE_PLAYER, EVALUATOR, 4)
+                .computeNextState(
+                        new ConnectFourState(7, 6, 4, PopOutRules.INSTANCE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrapAroundAnalysisIsRejected() {
+        new SmartBot(PlayerColor.WHITE_PLAYER, EVALUATOR, 4)
+                .analyze(new ConnectFourState(7, 6, 4,
+                                              WrapAroundRules.INSTANCE),
+                         1);
+    }
+
+    /**
+     * Plays the given columns on the empty board, the white player first.
+     */
+    private static ConnectFourState play(int... columns) {
+        ConnectFourState state = new ConnectFourState();
+        PlayerColor player = PlayerColor.WHITE_PLAYER;
+
+        for (int x : columns) {
+            state = state.move(x, player);
+            player = player.opponent();
+        }
+
+        return state;
+    }
+}
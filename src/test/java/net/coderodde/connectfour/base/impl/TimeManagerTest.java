@@ -0,0 +1,121 @@
+package net.coderodde.connectfour.base.impl;
+
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TimeManagerTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    public void testTargetAndMaximum() {
+        TimeManager timeManager = new TimeManager();
+        timeManager.setMoveOverhead(5L);
+
+        // 10 s shared among 20 moves plus 3/4 of the increment; the hard
+        // limit is four times the target:
+        timeManager.setClock(10_005L, 100L);
+        assertEquals(2_300L,
+                     timeManager.startSearch(new ConnectFourState(), 42));
+        assertEquals(575L, timeManager.getTargetMillis());
+        assertEquals(2_300L, timeManager.getMaximumMillis());
+
+        // With little time left, the hard limit keeps most of it:
+        timeManager.setClock(105L, 0L);
+        timeManager.startSearch(new ConnectFourState(), 42);
+        assertEquals(5L, timeManager.getTargetMillis());
+        assertEquals(20L, timeManager.getMaximumMillis());
+    }
+
+    @Test
+    public void testSingleLegalMoveTakesNoTime() {
+        ConnectFourState state = new ConnectFourState(4, 4, 3);
+        PlayerColor player = PlayerColor.WHITE_PLAYER;
+
+        for (char c : "010001112222".toCharArray()) {
+            state = state.move(c - '0', player);
+            player = player.opponent();
+        }
+
+        assertEquals(1L << 3, state.getLegalMoveMask());
+
+        TimeManager timeManager = new TimeManager();
+        timeManager.setClock(10_000L, 0L);
+        timeManager.startSearch(state, 16);
+        assertEquals(0L, timeManager.getTargetMillis());
+        assertTrue(timeManager.shouldStop(1, 3, 0.0, 1L));
+    }
+
+    @Test
+    public void testStableBestMoveStopsEarly() {
+        TimeManager timeManager = startSearch();
+        assertFalse(timeManager.shouldStop(1, 3, 0.0, 100 * MILLIS));
+        assertFalse(timeManager.shouldStop(2, 3, 0.0, 200 * MILLIS));
+        // The target of 500 ms is scaled down to 300 ms:
+        assertTrue(timeManager.shouldStop(3, 3, 0.0, 320 * MILLIS));
+    }
+
+    @Test
+    public void testChangedBestMoveExtendsTheTarget() {
+        TimeManager timeManager = startSearch();
+        assertFalse(timeManager.shouldStop(1, 3, 0.0, 100 * MILLIS));
+        assertFalse(timeManager.shouldStop(2, 3, 0.0, 200 * MILLIS));
+        assertFalse(timeManager.shouldStop(3, 4, 0.0, 320 * MILLIS));
+        assertTrue(timeManager.shouldStop(4, 4, 0.0, 900 * MILLIS));
+    }
+
+    @Test
+    public void testScoreSwingExtendsTheTarget() {
+        TimeManager timeManager = startSearch();
+        assertFalse(timeManager.shouldStop(1, 3, 0.0, 100 * MILLIS));
+        assertFalse(timeManager.shouldStop(2, 3, 0.0, 200 * MILLIS));
+        // Stable but swinging: 500 ms * 0.6 * 1.5 = 450 ms.
+        assertFalse(timeManager.shouldStop(3, 3, 10.0, 320 * MILLIS));
+    }
+
+    @Test
+    public void testIterationNotFinishingIsNotStarted() {
+        TimeManager timeManager = startSearch();
+        // The next iteration would take about 8 * 300 ms, over the hard
+        // limit of 2 s:
+        assertTrue(timeManager.shouldStop(1, 3, 0.0, 300 * MILLIS));
+    }
+
+    @Test
+    public void testSmartBotStaysWithinTheHardLimit() {
+        SmartBot bot = new SmartBot(PlayerColor.WHITE_PLAYER,
+                                    new DefaultHeuristicFunction(7,
+                                                                 6,
+                                                                 10.0,
+                                                                 4),
+                                    42);
+        TimeManager timeManager = new TimeManager();
+        bot.setTimeManager(timeManager);
+        timeManager.setClock(1_000L, 0L);
+
+        long startTime = System.nanoTime();
+        bot.computeNextState(new ConnectFourState());
+        long elapsedMillis = (System.nanoTime() - startTime) / MILLIS;
+
+        assertTrue(bot.getLastDepth() >= 1);
+        assertTrue("elapsed: " + elapsedMillis,
+                   elapsedMillis <= timeManager.getMaximumMillis() + 200L);
+    }
+
+    /**
+     * Starts a search with a target of 500 ms and a hard limit of 2 s.
+     */
+    private static TimeManager startSearch() {
+        TimeManager timeManager = new TimeManager();
+        timeManager.setMoveOverhead(0L);
+        timeManager.setClock(10_000L, 0L);
+        timeManager.startSearch(new ConnectFourState(), 42);
+        assertEquals(500L, timeManager.getTargetMillis());
+        assertEquals(2_000L, timeManager.getMaximumMillis());
+        return timeManager;
+    }
+}
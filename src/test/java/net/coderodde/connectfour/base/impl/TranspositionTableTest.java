@@ -0,0 +1,173 @@
+package net.coderodde.connectfour.base.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.PopOutRules;
+import net.coderodde.connectfour.base.WrapAroundRules;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TranspositionTableTest {
+
+    private static final HeuristicFunction EVALUATOR =
+            new DefaultHeuristicFunction(7, 6, 10.0, 4);
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(7, 6, 4, 1000);
+        assertEquals(1024, table.getCapacity());
+
+        long key = new ConnectFourState().move(3, PlayerColor.WHITE_PLAYER)
+                                         .getPositionKey();
+        table.store(key, PlayerColor.RED_PLAYER, 5,
+                    TranspositionTable.LOWER_BOUND, 1.5, 2);
+
+        int index = table.probe(key, PlayerColor.RED_PLAYER);
+        assertTrue(index >= 0);
+        assertEquals(5, table.getDepth(index));
+        assertEquals(TranspositionTable.LOWER_BOUND, table.getBound(index));
+        assertEquals(1.5, table.getScore(index), 0.0);
+        assertEquals(2, table.getMove(index));
+        assertEquals(-1, table.probe(key, PlayerColor.WHITE_PLAYER));
+
+        // A shallower result does not replace a deeper one:
+        table.store(key, PlayerColor.RED_PLAYER, 3,
+                    TranspositionTable.EXACT, 0.5, -1);
+        index = table.probe(key, PlayerColor.RED_PLAYER);
+        assertEquals(5, table.getDepth(index));
+        assertEquals(1, table.getSize());
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() throws IOException {
+        TranspositionTable table = new TranspositionTable(7, 6, 4, 1 << 12);
+        SmartBot bot = new SmartBot(PlayerColor.WHITE_PLAYER, EVALUATOR, 5);
+        bot.setTranspositionTable(table);
+        bot.computeNextState(new ConnectFourState());
+        assertTrue(table.getSize() > 0);
+
+        Path file = Files.createTempFile("table", ".c4sn");
+
+        try {
+            table.saveSnapshot(file, EVALUATOR);
+
+            TranspositionTable sameCapacity =
+                    new TranspositionTable(7, 6, 4, 1 << 12);
+            assertTrue(sameCapacity.loadSnapshot(file, EVALUATOR));
+            assertEquals(table.getSize(), sameCapacity.getSize());
+            assertSameEntries(table, sameCapacity);
+
+            TranspositionTable larger =
+                    new TranspositionTable(7, 6, 4, 1 << 14);
+            assertTrue(larger.loadSnapshot(file, EVALUATOR));
+            assertSameEntries(table, larger);
+
+            // Other weights or geometries do not load:
+            HeuristicFunction otherEvaluator =
+                    new DefaultHeuristicFunction(7, 6, 5.0, 4);
+            assertFalse(new TranspositionTable(7, 6, 4, 16)
+                    .loadSnapshot(file, otherEvaluator));
+            assertFalse(new TranspositionTable(8, 6, 4, 16)
+                    .loadSnapshot(file, EVALUATOR));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testRulesAreMatched() throws IOException {
+        TranspositionTable table = new TranspositionTable(7, 6, 4, 16);
+        TranspositionTable wrappedTable =
+                new TranspositionTable(7, 6, 4, WrapAroundRules.INSTANCE, 16);
+        ConnectFourState standard = new ConnectFourState();
+        ConnectFourState wrapped =
+                new ConnectFourState(7, 6, 4, WrapAroundRules.INSTANCE);
+
+        assertTrue(table.covers(standard));
+        assertFalse(table.covers(wrapped));
+        assertFalse(table.covers(
+                new ConnectFourState(7, 6, 4, PopOutRules.INSTANCE)));
+        assertTrue(wrappedTable.covers(wrapped));
+        assertFalse(wrappedTable.covers(standard));
+
+        Path file = Files.createTempFile("table", ".c4sn");
+
+        try {
+            table.saveSnapshot(file, EVALUATOR);
+            assertFalse(wrappedTable.loadSnapshot(file, EVALUATOR));
+            assertTrue(new TranspositionTable(7, 6, 4, 16)
+                    .loadSnapshot(file, EVALUATOR));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testSearchScoresDoNotChange() {
+        Random random = new Random(11L);
+
+        for (int i = 0; i < 30; i++) {
+            ConnectFourState state = RandomPositions.random(random, 6);
+
+            if (state.checkVictory() != null) {
+                continue;
+            }
+
+            PlayerColor player = state.getMoveCount() % 2 == 0 ?
+                    PlayerColor.WHITE_PLAYER :
+                    PlayerColor.RED_PLAYER;
+            SmartBot plain = new SmartBot(player, EVALUATOR, 5);
+            SmartBot cached = new SmartBot(player, EVALUATOR, 5);
+            plain.setThreatExtensions(false);
+            cached.setThreatExtensions(false);
+            cached.setTranspositionTable(
+                    new TranspositionTable(7, 6, 4, 1 << 14));
+
+            plain.computeNextState(state);
+            cached.computeNextState(state);
+            assertEquals(plain.getLastScore(), cached.getLastScore(), 1e-9);
+            assertTrue(cached.getNodeCount() <= plain.getNodeCount());
+        }
+    }
+
+    private static void assertSameEntries(TranspositionTable expected,
+                                          TranspositionTable actual) {
+        Random random = new Random(5L);
+        int found = 0;
+
+        for (int i = 0; i < 500; i++) {
+            ConnectFourState state = RandomPositions.random(random, 1 + i % 5);
+
+            for (PlayerColor player : PlayerColor.values()) {
+                long key = state.getPositionKey();
+                int expectedIndex = expected.probe(key, player);
+
+                if (expectedIndex < 0) {
+                    continue;
+                }
+
+                int actualIndex = actual.probe(key, player);
+                assertTrue(actualIndex >= 0);
+                assertEquals(expected.getDepth(expectedIndex),
+                             actual.getDepth(actualIndex));
+                assertEquals(expected.getBound(expectedIndex),
+                             actual.getBound(actualIndex));
+                assertEquals(expected.getScore(expectedIndex),
+                             actual.getScore(actualIndex),
+                             0.0);
+                assertEquals(expected.getMove(expectedIndex),
+                             actual.getMove(actualIndex));
+                found++;
+            }
+        }
+
+        assertTrue(found > 0);
+    }
+}
@@ -0,0 +1,156 @@
+package net.coderodde.connectfour.base.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import net.coderodde.connectfour.base.Bot;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.PopOutRules;
+import net.coderodde.connectfour.base.impl.RandomBot;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class MetricsBotTest {
+
+    @Test
+    public void testHistogramPercentiles() {
+        Histogram histogram = new Histogram();
+
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000L);
+        }
+
+        assertEquals(100_000L, histogram.getCount());
+        assertEquals(1000L, histogram.getMin());
+        assertEquals(100_000_000L, histogram.getMax());
+        assertClose(50_000_000L, histogram.getValueAtPercentile(50.0));
+        assertClose(99_000_000L, histogram.getValueAtPercentile(99.0));
+        assertClose(99_900_000L, histogram.getValueAtPercentile(99.9));
+        assertEquals(100_000_000L, histogram.getValueAtPercentile(100.0));
+
+        for (long value = 0; value < 256; value++) {
+            assertEquals(value,
+                         Histogram.getHighestValue(
+                                 Histogram.getBucketIndex(value)));
+        }
+
+        assertEquals(Long.MAX_VALUE,
+                     Histogram.getHighestValue(
+                             Histogram.getBucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testGamesAreReported() throws IOException {
+        List<GameMetrics> games = new ArrayList<>();
+        Path file = Files.createTempFile("metrics", ".csv");
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+
+        try (CsvMetricsSink csvSink = new CsvMetricsSink(file)) {
+            MetricsBot bot = new MetricsBot(
+                    new RandomBot(PlayerColor.WHITE_PLAYER, new Random(1L)),
+                    "random",
+                    (metricsBot, game) -> games.add(game),
+                    csvSink,
+                    new JmxMetricsSink(server));
+            Bot opponent = new RandomBot(PlayerColor.RED_PLAYER,
+                                         new Random(2L));
+            int moves = 0;
+
+            for (int i = 0; i < 5; i++) {
+                moves += play(bot, opponent);
+            }
+
+            // The last game may have been ended by the opponent:
+            bot.finishGame();
+
+            assertEquals(5, games.size());
+            assertEquals(5, bot.getGameCount());
+            assertEquals(moves, bot.getLatencyHistogram().getCount());
+            assertEquals(moves,
+                         games.stream()
+                              .mapToInt(GameMetrics::getMoveCount)
+                              .sum());
+
+            if (MetricsBot.isAllocationMeasured()) {
+                assertTrue(games.get(0).getAllocatedBytes() > 0L);
+            }
+
+            assertEquals((long) moves,
+                         server.getAttribute(
+                                 JmxMetricsSink.getObjectName("random"),
+                                 "MoveCount"));
+        } catch (javax.management.JMException ex) {
+            throw new AssertionError(ex);
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Files.delete(file);
+        assertEquals(CsvMetricsSink.HEADER, lines.get(0));
+        assertEquals(6, lines.size());
+        assertTrue(lines.get(5).startsWith("random,5,"));
+    }
+
+    @Test
+    public void testPopDoesNotEndPopOutGame() {
+        MetricsBot bot = new MetricsBot(
+                new RandomBot(PlayerColor.WHITE_PLAYER, new Random(3L)),
+                "random");
+        ConnectFourState start =
+                new ConnectFourState(7, 6, 4, PopOutRules.INSTANCE);
+        ConnectFourState state = bot.computeNextState(start);
+        // Red puts its token at the bottom of a column white did not play:
+        int x = (start.findMoveColumn(state) + 1) % 7;
+        state = state.move(x, PlayerColor.RED_PLAYER);
+        state = bot.computeNextState(state);
+
+        // Red pops out its own token, leaving fewer tokens than white left:
+        state = state.pop(x, PlayerColor.RED_PLAYER);
+        bot.computeNextState(state);
+        assertEquals(0, bot.getGameCount());
+
+        // A new game starts with fewer moves made:
+        bot.computeNextState(start);
+        assertEquals(1, bot.getGameCount());
+
+        bot.finishGame();
+        assertEquals(2, bot.getGameCount());
+        assertEquals(4, bot.getLatencyHistogram().getCount());
+    }
+
+    /**
+     * Plays a game with the white bot moving first.
+     * @return the number of moves of the white bot.
+     */
+    private static int play(Bot white, Bot red) {
+        ConnectFourState state = new ConnectFourState();
+        int moves = 0;
+
+        while (true) {
+            state = white.computeNextState(state);
+            moves++;
+
+            if (state.checkVictory() != null || state.isFull()) {
+                return moves;
+            }
+
+            state = red.computeNextState(state);
+
+            if (state.checkVictory() != null || state.isFull()) {
+                return moves;
+            }
+        }
+    }
+
+    private static void assertClose(long expected, long actual) {
+        assertTrue(expected + " vs. " + actual,
+                   Math.abs(expected - actual) <= expected / 128);
+    }
+}
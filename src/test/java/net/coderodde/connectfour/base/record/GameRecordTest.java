@@ -0,0 +1,131 @@
+package net.coderodde.connectfour.base.record;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GameRecordTest {
+
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("games", ".c4gr");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testAppendAndStream() throws IOException {
+        Random random = new Random(3L);
+        List<GameRecord> expected = new ArrayList<>();
+
+        // Small blocks so that the records span many of them:
+        try (GameRecordWriter writer = new GameRecordWriter(file, 512)) {
+            for (int i = 0; i < 500; i++) {
+                GameRecord record = randomGame(random);
+                expected.add(record);
+                writer.append(record);
+            }
+        }
+
+        // Reopening appends to the existing blocks:
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            for (int i = 0; i < 10; i++) {
+                GameRecord record = randomGame(random);
+                expected.add(record);
+                writer.append(record);
+            }
+        }
+
+        List<GameRecord> actual = new ArrayList<>();
+
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            for (GameRecord record : reader) {
+                actual.add(record);
+            }
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testTornBlockEndsStream() throws IOException {
+        Random random = new Random(5L);
+        GameRecord first = randomGame(random);
+
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            writer.append(first);
+            writer.flush();
+            writer.append(randomGame(random));
+        }
+
+        try (FileChannel channel =
+                FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            assertEquals(first, reader.read());
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    public void testReplay() {
+        GameRecord record = randomGame(new Random(11L));
+        ConnectFourState state = record.getState(record.getMoveCount());
+        assertEquals(record.getResult(), GameResult.of(state));
+    }
+
+    private static GameRecord randomGame(Random random) {
+        ConnectFourState state = new ConnectFourState();
+        PlayerColor player = random.nextBoolean() ?
+                PlayerColor.WHITE_PLAYER :
+                PlayerColor.RED_PLAYER;
+        PlayerColor firstPlayer = player;
+        int[] moves = new int[42];
+        long[] moveNanos = new long[42];
+        int moveCount = 0;
+
+        while (state.checkVictory() == null && !state.isFull()) {
+            int x;
+
+            do {
+                x = random.nextInt(7);
+            } while (state.columnIsFull(x));
+
+            state = state.move(x, player);
+            moveNanos[moveCount] = random.nextInt(10_000_000);
+            moves[moveCount++] = x;
+            player = player.opponent();
+        }
+
+        return new GameRecord(7,
+                              6,
+                              4,
+                              "RandomBot",
+                              "SmartBot-" + random.nextInt(100),
+                              firstPlayer,
+                              GameResult.of(state),
+                              random.nextLong() >>> 1,
+                              Arrays.copyOf(moves, moveCount),
+                              Arrays.copyOf(moveNanos, moveCount));
+    }
+}
@@ -0,0 +1,279 @@
+package net.coderodde.connectfour.base.replay;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.HeuristicFunction;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+import net.coderodde.connectfour.base.impl.EndgameDatabase;
+import net.coderodde.connectfour.base.impl.EndgameDatabaseGenerator;
+import net.coderodde.connectfour.base.impl.NTupleNetwork;
+import net.coderodde.connectfour.base.impl.SmartBot;
+import net.coderodde.connectfour.base.impl.TranspositionTable;
+import net.coderodde.connectfour.base.record.GameRecord;
+import net.coderodde.connectfour.base.record.GameResult;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ReplayEngineTest {
+
+    @Test
+    public void testEvaluationMatchesReplayedStates() {
+        List<GameRecord> games = randomGames(7, 6, 4, 300, new Random(3L));
+        HeuristicFunction[] evaluators = {
+            new DefaultHeuristicFunction(7, 6, 10.0, 4),
+            randomNetwork(new Random(5L)),
+        };
+
+        for (HeuristicFunction evaluator : evaluators) {
+            ReplayEngine engine = new ReplayEngine(
+                    () -> new EvaluationAnalyzer(evaluator), 3);
+            engine.setBatchSize(7);
+            Map<Long, List<PlyAnalysis>> analyses = replay(engine, games);
+
+            assertEquals(games.size(), engine.getGameCount());
+            assertEquals(0L, engine.getInvalidGameCount());
+
+            for (int i = 0; i < games.size(); i++) {
+                GameRecord record = games.get(i);
+                List<PlyAnalysis> plies = analyses.get((long) i);
+                assertEquals(record.getMoveCount(), plies.size());
+
+                for (PlyAnalysis ply : plies) {
+                    double score = evaluator.evaluate(
+                            record.getState(ply.getPly()));
+
+                    if (ply.getPlayerToMove() == PlayerColor.RED_PLAYER) {
+                        score = -score;
+                    }
+
+                    assertEquals(record.getMove(ply.getPly()),
+                                 ply.getPlayedMove());
+                    assertEquals(score, ply.getScore(), 1e-4);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidGames() {
+        // The red player keeps playing after the white one has won:
+        GameRecord afterWin = createRecord(0, 1, 0, 1, 0, 1, 0, 1);
+        // The sixth token does not fit in the column:
+        GameRecord fullColumn = createRecord(0, 0, 0, 0, 0, 0, 0);
+        GameRecord valid = createRecord(0, 1, 0, 1, 0, 1, 0);
+        List<GameRecord> games = new ArrayList<>();
+        games.add(afterWin);
+        games.add(fullColumn);
+        games.add(valid);
+
+        ReplayEngine engine = new ReplayEngine(
+                () -> new EvaluationAnalyzer(
+                        new DefaultHeuristicFunction(7, 6, 10.0, 4)),
+                1);
+        engine.setFirstPly(2);
+        List<Boolean> validity = new ArrayList<>();
+        Map<Long, List<PlyAnalysis>> analyses = new HashMap<>();
+        engine.replay(games, (gameIndex, record, plies, isValid) -> {
+            validity.add(isValid);
+            analyses.put(gameIndex, plies);
+        });
+
+        assertEquals(3, validity.size());
+        assertEquals(2L, engine.getInvalidGameCount());
+        assertFalse(validity.get(0));
+        assertFalse(validity.get(1));
+        assertTrue(validity.get(2));
+        assertEquals(5, analyses.get(0L).size());
+        assertEquals(4, analyses.get(1L).size());
+        assertEquals(5, analyses.get(2L).size());
+        assertEquals(2, analyses.get(2L).get(0).getPly());
+    }
+
+    @Test
+    public void testSearchAnalysis() {
+        List<GameRecord> games = randomGames(7, 6, 4, 20, new Random(7L));
+        HeuristicFunction evaluator =
+                new DefaultHeuristicFunction(7, 6, 10.0, 4);
+        ReplayEngine engine = new ReplayEngine(
+                () -> new SearchAnalyzer(evaluator, 3), 2);
+        engine.setFirstPly(4);
+        Map<Long, List<PlyAnalysis>> analyses = replay(engine, games);
+
+        for (int i = 0; i < games.size(); i++) {
+            for (PlyAnalysis ply : analyses.get((long) i)) {
+                ConnectFourState state = games.get(i).getState(ply.getPly());
+                SmartBot bot =
+                        new SmartBot(ply.getPlayerToMove(), evaluator, 3);
+                ConnectFourState next = bot.computeNextState(state);
+                assertEquals(state.findMoveColumn(next), ply.getBestMove());
+                assertEquals(bot.getLastScore(), ply.getScore(), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testDeterministicModeIgnoresTheThreads() {
+        List<GameRecord> games = randomGames(7, 6, 4, 40, new Random(13L));
+        HeuristicFunction evaluator =
+                new DefaultHeuristicFunction(7, 6, 10.0, 4);
+        List<List<PlyAnalysis>> expected = null;
+
+        for (int threads = 1; threads <= 3; threads++) {
+            // The warm tables would make the results depend on the schedule:
+            ReplayEngine engine = new ReplayEngine(
+                    () -> new SearchAnalyzer(player -> {
+                        SmartBot bot = new SmartBot(player, evaluator, 5);
+                        bot.setTranspositionTable(
+                                new TranspositionTable(7, 6, 4, 1 << 12));
+                        return bot;
+                    }),
+                    threads);
+            engine.setBatchSize(3);
+            engine.setFirstPly(6);
+            engine.setDeterministic(true);
+            List<List<PlyAnalysis>> analyses = new ArrayList<>();
+            List<Long> indices = new ArrayList<>();
+            engine.replay(games, (gameIndex, record, plies, valid) -> {
+                indices.add(gameIndex);
+                analyses.add(plies);
+            });
+
+            for (int i = 0; i < games.size(); i++) {
+                assertEquals(i, (long) indices.get(i));
+            }
+
+            if (expected == null) {
+                expected = analyses;
+                continue;
+            }
+
+            for (int i = 0; i < games.size(); i++) {
+                for (int j = 0; j < expected.get(i).size(); j++) {
+                    PlyAnalysis a = expected.get(i).get(j);
+                    PlyAnalysis b = analyses.get(i).get(j);
+                    assertEquals(a.getBestMove(), b.getBestMove());
+                    assertEquals(a.getScore(), b.getScore(), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSolverAnalysis() throws IOException {
+        Path file = Files.createTempFile("endgame", ".c4eg");
+
+        try {
+            new EndgameDatabaseGenerator(4, 4, 3, 9, PlayerColor.WHITE_PLAYER)
+                    .generate(file, 2);
+            EndgameDatabase database = EndgameDatabase.open(file);
+            List<GameRecord> games = randomGames(4, 4, 3, 50, new Random(9L));
+            ReplayEngine engine = new ReplayEngine(
+                    () -> new SolverAnalyzer(database, null), 2);
+            Map<Long, List<PlyAnalysis>> analyses = replay(engine, games);
+            int solved = 0;
+
+            for (List<PlyAnalysis> plies : analyses.values()) {
+                for (PlyAnalysis ply : plies) {
+                    // The positions entering the database range are always
+                    // solved, the deeper ones only if no search cut them off:
+                    if (Double.isNaN(ply.getScore())) {
+                        assertTrue(ply.getPly() != 7);
+                        continue;
+                    }
+
+                    solved++;
+                    assertTrue(ply.getBestMove() >= 0);
+
+                    if (ply.getScore() > 0.0) {
+                        assertEquals(SmartBot.WIN_SCORE, ply.getScore(), 0.0);
+                    }
+                }
+            }
+
+            assertTrue(solved > 0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Map<Long, List<PlyAnalysis>> replay(
+            ReplayEngine engine,
+            List<GameRecord> games) {
+        Map<Long, List<PlyAnalysis>> analyses = new HashMap<>();
+        engine.replay(games, (gameIndex, record, plies, valid) -> {
+            assertTrue(valid);
+            analyses.put(gameIndex, plies);
+        });
+        return analyses;
+    }
+
+    private static GameRecord createRecord(int... moves) {
+        return new GameRecord(7, 6, 4, "white", "red",
+                              PlayerColor.WHITE_PLAYER,
+                              GameResult.UNFINISHED,
+                              0L,
+                              moves,
+                              new long[moves.length]);
+    }
+
+    private static List<GameRecord> randomGames(int width,
+                                                int height,
+                                                int winningLength,
+                                                int count,
+                                                Random random) {
+        List<GameRecord> games = new ArrayList<>(count);
+
+        for (int game = 0; game < count; game++) {
+            ConnectFourState state =
+                    new ConnectFourState(width, height, winningLength);
+            PlayerColor player = PlayerColor.WHITE_PLAYER;
+            int[] moves = new int[width * height];
+            int moveCount = 0;
+
+            while (state.checkVictory() == null && !state.isFull()) {
+                int x = random.nextInt(width);
+
+                if (state.columnIsFull(x)) {
+                    continue;
+                }
+
+                state = state.move(x, player);
+                moves[moveCount++] = x;
+                player = player.opponent();
+            }
+
+            int[] played = new int[moveCount];
+            System.arraycopy(moves, 0, played, 0, moveCount);
+            games.add(new GameRecord(width, height, winningLength,
+                                     "white", "red",
+                                     PlayerColor.WHITE_PLAYER,
+                                     GameResult.of(state),
+                                     0L,
+                                     played,
+                                     new long[moveCount]));
+        }
+
+        return games;
+    }
+
+    private static NTupleNetwork randomNetwork(Random random) {
+        float[] weights =
+                new float[new NTupleNetwork(7, 6, 4).getWeightCount()];
+
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (float) random.nextGaussian();
+        }
+
+        return new NTupleNetwork(7, 6, 4, weights);
+    }
+}
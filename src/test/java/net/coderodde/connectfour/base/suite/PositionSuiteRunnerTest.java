@@ -0,0 +1,98 @@
+package net.coderodde.connectfour.base.suite;
+
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.connectfour.base.ConnectFourState;
+import net.coderodde.connectfour.base.PlayerColor;
+import net.coderodde.connectfour.base.impl.DefaultHeuristicFunction;
+import net.coderodde.connectfour.base.impl.RandomBot;
+import net.coderodde.connectfour.base.impl.SmartBot;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class PositionSuiteRunnerTest {
+
+    @Test
+    public void testParse() {
+        SuitePosition position =
+                SuitePosition.parse("p1 7x6x4 3,3,2 bm 1,4");
+
+        assertEquals("p1", position.getId());
+        assertEquals(PlayerColor.RED_PLAYER, position.getPlayerToMove());
+        assertEquals(PlayerColor.WHITE_PLAYER,
+                     position.getState().readCell(3, 5));
+        assertTrue(position.isExpectedColumn(4));
+        assertFalse(position.isExpectedColumn(3));
+        assertFalse(position.hasExpectedValue());
+
+        position = SuitePosition.parse("p2 5x4x3 - value draw");
+        assertEquals(SuitePosition.DRAW, position.getExpectedValue());
+        assertEquals(0, position.getState().getTokenCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseRejectsFinishedGame() {
+        SuitePosition.parse("p 7x6x4 0,1,0,1,0,1,0 bm 3");
+    }
+
+    @Test
+    public void testSmartBotSolvesBasicSuite() throws Exception {
+        List<SuitePosition> positions = SuitePosition.load(getSuite());
+        PositionSuiteRunner runner = new PositionSuiteRunner(position -> {
+            ConnectFourState state = position.getState();
+            return new SmartBot(
+                    position.getPlayerToMove(),
+                    new DefaultHeuristicFunction(state.getWidth(),
+                                                 state.getHeight(),
+                                                 10.0,
+                                                 state.getWinningLength()),
+                    6);
+        });
+
+        List<SuiteResult> results = runner.run(positions, 2);
+        assertEquals(positions.size(), results.size());
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(positions.get(i).getId(), results.get(i).getId());
+            assertTrue(results.get(i).getId(), results.get(i).isSolved());
+            assertTrue(results.get(i).getNodesToSolution() > 0L);
+        }
+    }
+
+    @Test
+    public void testGenericBotHasNoNodeCount() throws Exception {
+        SuitePosition position = SuitePosition.parse("p 7x6x4 - bm 3");
+        SuiteResult result =
+                new PositionSuiteRunner(
+                        p -> new RandomBot(p.getPlayerToMove(),
+                                           new Random(1L)))
+                        .run(position);
+
+        assertEquals(-1L, result.getNodesToSolution());
+        assertEquals(result.getColumn() == 3, result.isSolved());
+    }
+
+    @Test
+    public void testBaselineLineRoundTrip() {
+        SuiteResult result = new SuiteResult("id", true, 3, 7, 1234L, 99L);
+        SuiteResult copy =
+                SuiteResult.parseBaselineLine(result.toBaselineLine());
+
+        assertEquals("id", copy.getId());
+        assertTrue(copy.isSolved());
+        assertEquals(3, copy.getColumn());
+        assertEquals(7, copy.getDepth());
+        assertEquals(1234L, copy.getTimeToSolutionNanos());
+        assertEquals(99L, copy.getNodesToSolution());
+    }
+
+    private Path getSuite() throws URISyntaxException {
+        return Paths.get(getClass().getResource("/suites/basic.suite")
+                                   .toURI());
+    }
+}